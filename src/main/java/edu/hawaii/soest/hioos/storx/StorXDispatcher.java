@@ -27,6 +27,7 @@ import edu.hawaii.soest.kilonalu.ctd.CTDSource;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Options;
 import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.configuration.XMLConfiguration;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -156,6 +157,9 @@ public class StorXDispatcher extends RBNBSource {
     /* A hash map that contains sensor serial number to RBNB Source mappings */
     private HashMap<String, Object> sourceMap;
 
+    /* A hash map of sensor serial numbers to the handlers for their CTD frames */
+    private HashMap<String, CTDSource.FrameHandler> ctdHandlerMap;
+
     /* The instance of the StorX Parser class used to parse StorX output */
     private StorXParser storXParser;
 
@@ -461,17 +465,16 @@ public class StorXDispatcher extends RBNBSource {
 
                             } else if (frameType.equals("SBE")) {
 
-                                try {
-
-                                    // handle CTDSource
-                                    CTDSource source = (CTDSource) sourceMap.get(sensorSerialNumber);
-
-                                    // process the data using the CTDSource
-                                    // driver
-                                    messageProcessed = source.process(this.xmlConfiguration, frameMap);
+                                // handle CTDSource frames with the handler
+                                // compiled for the serial number in connect()
+                                CTDSource.FrameHandler handler = ctdHandlerMap.get(sensorSerialNumber);
 
-                                } catch (ClassCastException cce) {
+                                if (handler != null) {
+                                    messageProcessed = handler.process(frameMap);
 
+                                } else {
+                                    log.debug("There is no CTDSource configured for the sensor "
+                                        + "serial number " + sensorSerialNumber + ". Skipping it.");
                                 }
 
                             } else if (frameType.equals("NLB")) {
@@ -633,6 +636,7 @@ public class StorXDispatcher extends RBNBSource {
             // these objects in a HashMap for later referral.
 
             this.sourceMap = new HashMap<String, Object>();
+            this.ctdHandlerMap = new HashMap<String, CTDSource.FrameHandler>();
 
             // the sensor properties to be pulled from each account's sensor
             // list.
@@ -719,6 +723,12 @@ public class StorXDispatcher extends RBNBSource {
                                 ctdSource.startConnection();
                                 sourceMap.put(serialNumber, ctdSource);
 
+                                // resolve the sensor configuration and channels once,
+                                // rather than for every frame
+                                HierarchicalConfiguration sensorConfig = this.xmlConfiguration.configurationAt(
+                                    "account(" + aIndex + ").log(" + gIndex + ").sensor(" + sIndex + ")");
+                                ctdHandlerMap.put(serialNumber, ctdSource.compileFrameHandler(sensorConfig));
+
                             } else if (sourceType.equals("ISUSSource")) {
 
                                 // given the properties, create an ISUSSource
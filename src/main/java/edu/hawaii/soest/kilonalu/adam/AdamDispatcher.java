@@ -31,12 +31,14 @@ package edu.hawaii.soest.kilonalu.adam;
 import java.io.File;
 import java.io.IOException;
 
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.SocketException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 
 import java.nio.ByteBuffer;
 
+import java.nio.channels.DatagramChannel;
+
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -163,19 +165,37 @@ public class AdamDispatcher {
   private boolean readyToStream = false;
 
   /*
-   * The socket used to establish UDP communication with the instrument
+   * The channel used to establish UDP communication with the instruments
+   */
+  private DatagramChannel datagramChannel;
+  
+  /*
+   * The size, in bytes, requested for the socket receive buffer, so bursts
+   * from many modules are held by the kernel rather than dropped
    */
-  private DatagramSocket datagramSocket;
+  private static final int RECEIVE_BUFFER_SIZE = 1024 * 1024;
   
   /*
-   * The datagram object used to represent an individual incoming UDP packet
+   * A hash map that contains IP address to module queue mappings.  Each queue
+   * holds the module's RBNB Source and is drained by its own worker thread.
    */
-  private DatagramPacket datagramPacket;
+  private HashMap<InetAddress, AdamModuleQueue> moduleQueues =
+    new HashMap<InetAddress, AdamModuleQueue>();
   
   /*
-   * A hash map that contains IP address to RBNB Source mappings
+   * The number of packets that may wait in each module queue
    */
-  private HashMap<String, AdamSource> sourceMap;
+  private int queueCapacity = AdamModuleQueue.DEFAULT_CAPACITY;
+  
+  /*
+   * The number of packets received from addresses with no configuration
+   */
+  private long unknownSenderCount = 0;
+  
+  /*
+   * The interval, in milliseconds, between logging the queue metrics
+   */
+  private static final long METRICS_INTERVAL = 60000L;
   
   /*
    * An internal Thread setting used to specify how long, in milliseconds, the
@@ -211,45 +231,51 @@ public class AdamDispatcher {
     // while data are being sent, read them into the buffer
     try {
 
-      // Create a buffer that will store the sample bytes as they are read
-      byte[] bufferArray = new byte[getBufferSize()];
-
-      // and a ByteBuffer used to transfer the bytes to the parser
-      ByteBuffer sampleBuffer = ByteBuffer.allocate(getBufferSize());
-      
-      this.datagramPacket = new DatagramPacket(bufferArray, bufferArray.length);
+      // Create a buffer that will store each packet as it is received.  The
+      // module queues copy the packet out, so the buffer is reused.
+      ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(getBufferSize());
+      long lastMetricsTime = System.currentTimeMillis();
       
-      // while there are bytes to read from the socket ...
+      // while there are packets to read from the socket ...
       while ( !failed ) {
         
-        // receive any incoming UDP packets and parse the data payload
-        datagramSocket.receive(this.datagramPacket);
+        // receive any incoming UDP packets
+        receiveBuffer.clear();
+        InetSocketAddress sender = 
+          (InetSocketAddress) this.datagramChannel.receive(receiveBuffer);
+        receiveBuffer.flip();
+        InetAddress datagramAddress = sender.getAddress();
         
-        log.debug("Host: " + datagramPacket.getAddress() + 
-                      " data: " + new String(Hex.encodeHex(datagramPacket.getData())));
-        
-        // the address seems to be returned with a leading slash (/). Trim it.
-        String datagramAddress = datagramPacket.getAddress().toString().replaceAll("/", "");
-        
-        sampleBuffer.put(datagramPacket.getData());
+        if ( log.isDebugEnabled() ) {
+          byte[] packetBytes = new byte[receiveBuffer.remaining()];
+          receiveBuffer.duplicate().get(packetBytes);
+          log.debug("Host: " + datagramAddress + 
+                    " data: " + new String(Hex.encodeHex(packetBytes)));
+        }
         
-        // Given the IP address of the source UDP packet and the data ByteBuffer,
-        // find the correct source in the sourceMap hash and process the data
-        if (sourceMap.get(datagramAddress) != null ) {
-          
-          AdamSource source = sourceMap.get(datagramAddress);
-
-          // process the data using the AdamSource driver
-          source.process(datagramAddress, this.xmlConfiguration, sampleBuffer);
+        // Given the IP address of the source UDP packet, find the module's
+        // queue and hand it the packet to be processed by its AdamSource
+        AdamModuleQueue moduleQueue = this.moduleQueues.get(datagramAddress);
+        if ( moduleQueue != null ) {
+          moduleQueue.offer(receiveBuffer);
             
         } else {
-          log.debug("There is no configuration information for " +
-                      "the ADAM module at " + datagramAddress      +
-                      ". Please add the configuration to the "     +
-                      "sensor.properties.xml configuration file.");
+          this.unknownSenderCount++;
+          if ( log.isDebugEnabled() ) {
+            log.debug("There is no configuration information for " +
+                        "the ADAM module at " + datagramAddress      +
+                        ". Please add the configuration to the "     +
+                        "sensor.properties.xml configuration file.");
+          }
         }
         
-        sampleBuffer.clear();
+        // periodically report the drops and queue depths
+        long now = System.currentTimeMillis();
+        if ( now - lastMetricsTime >= METRICS_INTERVAL ) {
+          log.info(getMetrics());
+          lastMetricsTime = now;
+          
+        }
         
       } // end while (more socket bytes to read)
       
@@ -282,13 +308,16 @@ public class AdamDispatcher {
     
     try {
       // bind to the UDP socket
-      this.datagramSocket = new DatagramSocket(getHostPort());
+      this.datagramChannel = DatagramChannel.open();
+      this.datagramChannel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER_SIZE);
+      this.datagramChannel.bind(new InetSocketAddress(getHostPort()));
       
       // Create a list of sensors from the properties file, and iterate through
-      // the list, creating an RBNB Source object for each sensor listed. Store
-      // these objects in a HashMap for later referral.
+      // the list, creating an RBNB Source object and a queue for each sensor
+      // listed. Store the queues in a HashMap keyed by the resolved address.
       
-      this.sourceMap = new HashMap<String, AdamSource>();
+      this.moduleQueues.clear();
+      this.unknownSenderCount = 0;
       
       List sensorList  = this.xmlConfiguration.getList("sensor.address");
       
@@ -319,14 +348,23 @@ public class AdamDispatcher {
                          (new Integer(cacheSize)),
                          sourceName);
         adamSource.startConnection();
-        sourceMap.put(address, adamSource);
+        
+        // resolve the module's channel mapping once, rather than per packet
+        adamSource.compileChannelMapping(this.xmlConfiguration, address);
+        
+        AdamModuleQueue moduleQueue = 
+          new AdamModuleQueue(address, adamSource, this.xmlConfiguration,
+                              this.queueCapacity, getBufferSize());
+        moduleQueue.start();
+        this.moduleQueues.put(InetAddress.getByName(address), moduleQueue);
         
       }
       connected = true;
       
-    } catch (SocketException se) {
+    } catch (IOException ioe) {
       System.err.println("Failed to connect to the UDP data stream. " +
-        "The error message was: " + se.getMessage());
+        "The error message was: " + ioe.getMessage());
+      disconnect();
      
     }
   
@@ -351,18 +389,27 @@ public class AdamDispatcher {
   protected void disconnect() { 
     
     // disconnect from the UDP socket
-    if ( datagramSocket != null ) {
-      this.datagramSocket.close();
-      
+    if ( datagramChannel != null ) {
+      try {
+        this.datagramChannel.close();
+        
+      } catch ( IOException ioe ) {
+        log.info("Couldn't close the UDP channel: " + ioe.getMessage());
+        
+      }
     }
     
-    // get each source and disconnect from the DataTurbine
-    for ( Iterator sIterator = (sourceMap.keySet()).iterator(); sIterator.hasNext(); ) {
+    // stop each queue's worker, then disconnect its source from the DataTurbine
+    for ( Iterator<AdamModuleQueue> qIterator = moduleQueues.values().iterator(); qIterator.hasNext(); ) {
       
-      AdamSource adamSource = sourceMap.get(sIterator.next());
+      AdamModuleQueue moduleQueue = qIterator.next();
+      moduleQueue.stop();
+      log.info("Module queue metrics: " + moduleQueue);
+      AdamSource adamSource = moduleQueue.getSource();
       adamSource.stopConnection();
       log.info("Disconnected from source: " + adamSource.getRBNBClientName());
     }
+    moduleQueues.clear();
     connected = false;
     
   }
@@ -377,6 +424,42 @@ public class AdamDispatcher {
      return this.bufferSize;
    }
    
+  /**
+   * A method that returns the number of packets that may wait in each
+   * module queue
+   * 
+   * @return queueCapacity The module queue capacity
+   */
+  public int getQueueCapacity() {
+    return this.queueCapacity;
+  }
+  
+  /**
+   * A method that returns the number of packets received from addresses
+   * with no configuration since the last connect
+   * 
+   * @return unknownSenderCount The unknown sender count
+   */
+  public long getUnknownSenderCount() {
+    return this.unknownSenderCount;
+  }
+  
+  /**
+   * A method that summarizes the drops and depths of the module queues
+   * for logging
+   * 
+   * @return metrics The queue metrics
+   */
+  public String getMetrics() {
+    StringBuilder metrics = new StringBuilder("AdamDispatcher[unknownSenders=");
+    metrics.append(this.unknownSenderCount).append("]");
+    for ( AdamModuleQueue moduleQueue : this.moduleQueues.values() ) {
+      metrics.append(" ").append(moduleQueue);
+      
+    }
+    return metrics.toString();
+  }
+  
   /**
    * A method that returns the domain name or IP address of the source 
    * instrument (i.e. the serial-to-IP converter to which it is attached)
@@ -589,9 +672,41 @@ public class AdamDispatcher {
       }
     }
 
+    // handle the -Q option, test if it's an integer
+    if ( command.hasOption("Q") ) {
+      String capacity = command.getOptionValue("Q");
+      if ( capacity != null ) {
+        try {
+          setQueueCapacity(Integer.parseInt(capacity));
+          
+        } catch ( NumberFormatException nfe ){
+          log.info("Please enter a numeric value for the queue capacity. " +
+                      capacity + " is not a valid number.");
+          return false;
+        } catch ( IllegalArgumentException iae ){
+          log.info(iae.getMessage());
+          return false;
+        }
+      }
+    }
+
     return true;
   }
 
+  /**
+   * A method that sets the number of packets that may wait in each module
+   * queue before packets from that module are dropped
+   *
+   * @param queueCapacity  the module queue capacity, at least 1
+   */
+  public void setQueueCapacity(int queueCapacity) {
+    if ( queueCapacity < 1 ) {
+      throw new IllegalArgumentException("The queue capacity must be at " +
+        "least 1. " + queueCapacity + " is not valid.");
+    }
+    this.queueCapacity = queueCapacity;
+  }
+
   /**
    * A method that sets the domain name or IP address of the source 
    * instrument (i.e. the serial-to-IP converter to which it is attached)
@@ -643,6 +758,8 @@ public class AdamDispatcher {
     options.addOption("p", true,  "RBNB Server Port Number");
     options.addOption("H", true,  "Source host name or IP");
     options.addOption("P", true,  "Source host port number");    
+    options.addOption("Q", true,  "Packets queued per module, default " +
+                                  AdamModuleQueue.DEFAULT_CAPACITY);
                       
     return options;
   }
@@ -0,0 +1,315 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that queues the UDP packets of one ADAM module and
+ *             processes them on the module's own worker thread
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adam;
+
+import java.nio.ByteBuffer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.configuration.XMLConfiguration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ *  A class that decouples the UDP receive thread of the AdamDispatcher from
+ *  the AdamSource of one ADAM module.  Each packet offered is copied into a
+ *  buffer taken from a fixed pool and put on a bounded queue, which a worker
+ *  thread drains into <code>AdamSource.process()</code>.  A slow DataTurbine
+ *  connection for one module then only fills that module's queue.  When the
+ *  queue is full the packet is dropped and counted, rather than blocking the
+ *  receive thread and letting the socket drop packets for every module.
+ *  <p>
+ *  Only one thread may call {@link #offer(ByteBuffer)}.
+ */
+public class AdamModuleQueue {
+
+  /*  The Log instance used to log system messages */
+  private static Log log = LogFactory.getLog(AdamModuleQueue.class);
+
+  /*  The default number of packets queued per module */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /*  The module address, as written in the sensor configuration */
+  private final String address;
+
+  /*  The source that processes the module's packets */
+  private final AdamSource source;
+
+  /*  The sensor configuration passed to the source */
+  private final XMLConfiguration xmlConfiguration;
+
+  /*  The packets waiting to be processed, in arrival order */
+  private final BlockingQueue<ByteBuffer> queue;
+
+  /*  The buffers free to receive a packet */
+  private final BlockingQueue<ByteBuffer> pool;
+
+  /*  The number of packets offered */
+  private final AtomicLong receivedCount = new AtomicLong();
+
+  /*  The number of packets dropped because the queue was full */
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  /*  The number of packets processed and flushed */
+  private final AtomicLong processedCount = new AtomicLong();
+
+  /*  The number of packets the source failed to process */
+  private final AtomicLong failedCount = new AtomicLong();
+
+  /*  The largest queue depth seen */
+  private volatile int maxDepth;
+
+  /*  The worker thread, or null when stopped */
+  private Thread worker;
+
+  /**
+   *  Constructor:  Builds a stopped queue for one module, with a pool of
+   *  buffers large enough for a full queue plus the packet being processed.
+   *
+   *  @param address           the module address from the configuration
+   *  @param source            the source that processes the packets
+   *  @param xmlConfiguration  the sensor configuration
+   *  @param capacity          the number of packets that may wait
+   *  @param bufferSize        the size, in bytes, of each pooled buffer
+   */
+  public AdamModuleQueue(String address, AdamSource source,
+                         XMLConfiguration xmlConfiguration,
+                         int capacity, int bufferSize) {
+    this.address = address;
+    this.source = source;
+    this.xmlConfiguration = xmlConfiguration;
+    this.queue = new ArrayBlockingQueue<ByteBuffer>(capacity);
+    this.pool = new ArrayBlockingQueue<ByteBuffer>(capacity + 1);
+    for ( int count = 0; count <= capacity; count++ ) {
+      this.pool.add(ByteBuffer.allocate(bufferSize));
+
+    }
+  }
+
+  /**
+   *  A method that copies a packet into a pooled buffer and queues it.  The
+   *  packet's position is left unchanged.
+   *
+   *  @param packet  the packet, between its position and limit
+   *  @return queued  false if the packet was dropped because the queue is full
+   */
+  public boolean offer(ByteBuffer packet) {
+    this.receivedCount.incrementAndGet();
+
+    ByteBuffer sampleBuffer = this.pool.poll();
+    if ( sampleBuffer == null ) {
+      this.droppedCount.incrementAndGet();
+      return false;
+
+    }
+    sampleBuffer.clear();
+    ByteBuffer data = packet.duplicate();
+    if ( data.remaining() > sampleBuffer.capacity() ) {
+      data.limit(data.position() + sampleBuffer.capacity());
+
+    }
+    sampleBuffer.put(data);
+
+    if ( !this.queue.offer(sampleBuffer) ) {
+      this.pool.offer(sampleBuffer);
+      this.droppedCount.incrementAndGet();
+      return false;
+
+    }
+    int depth = this.queue.size();
+    if ( depth > this.maxDepth ) {
+      this.maxDepth = depth;
+
+    }
+    return true;
+  }
+
+  /**
+   *  A method that starts the worker thread that drains the queue.
+   */
+  public synchronized void start() {
+    if ( this.worker != null ) {
+      return;
+
+    }
+    this.worker = new Thread(new Runnable() {
+      public void run() {
+        drain();
+      }
+    }, "AdamModuleQueue-" + this.address);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   *  A method that stops the worker thread, waiting for the packet being
+   *  processed.  Packets still queued are discarded.
+   */
+  public synchronized void stop() {
+    if ( this.worker == null ) {
+      return;
+
+    }
+    this.worker.interrupt();
+    try {
+      this.worker.join();
+
+    } catch ( InterruptedException ie ) {
+      Thread.currentThread().interrupt();
+
+    }
+    this.worker = null;
+
+    ByteBuffer sampleBuffer;
+    while ( (sampleBuffer = this.queue.poll()) != null ) {
+      this.pool.offer(sampleBuffer);
+
+    }
+  }
+
+  /*
+   *  The worker loop: process each queued packet and return its buffer to
+   *  the pool, until interrupted.
+   */
+  private void drain() {
+    while ( !Thread.currentThread().isInterrupted() ) {
+      ByteBuffer sampleBuffer;
+      try {
+        sampleBuffer = this.queue.take();
+
+      } catch ( InterruptedException ie ) {
+        break;
+
+      }
+
+      try {
+        if ( this.source.process(this.address, this.xmlConfiguration, sampleBuffer) ) {
+          this.processedCount.incrementAndGet();
+
+        } else {
+          this.failedCount.incrementAndGet();
+
+        }
+      } catch ( RuntimeException re ) {
+        // a short or malformed packet; keep the worker alive for the next one
+        this.failedCount.incrementAndGet();
+        log.warn("Couldn't process the packet from " + this.address + ": " +
+                 re.getMessage());
+
+      } finally {
+        sampleBuffer.clear();
+        this.pool.offer(sampleBuffer);
+
+      }
+    }
+  }
+
+  /**
+   *  A method that returns the module address from the configuration.
+   *
+   *  @return address  the module address
+   */
+  public String getAddress() {
+    return this.address;
+  }
+
+  /**
+   *  A method that returns the source that processes the packets.
+   *
+   *  @return source  the AdamSource of the module
+   */
+  public AdamSource getSource() {
+    return this.source;
+  }
+
+  /**
+   *  A method that returns the number of packets waiting to be processed.
+   *
+   *  @return depth  the queue depth
+   */
+  public int getDepth() {
+    return this.queue.size();
+  }
+
+  /**
+   *  A method that returns the largest queue depth seen.
+   *
+   *  @return maxDepth  the largest queue depth
+   */
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  /**
+   *  A method that returns the number of packets offered.
+   *
+   *  @return receivedCount  the received packet count
+   */
+  public long getReceivedCount() {
+    return this.receivedCount.get();
+  }
+
+  /**
+   *  A method that returns the number of packets dropped because the queue
+   *  was full.
+   *
+   *  @return droppedCount  the dropped packet count
+   */
+  public long getDroppedCount() {
+    return this.droppedCount.get();
+  }
+
+  /**
+   *  A method that returns the number of packets processed and flushed.
+   *
+   *  @return processedCount  the processed packet count
+   */
+  public long getProcessedCount() {
+    return this.processedCount.get();
+  }
+
+  /**
+   *  A method that returns the number of packets the source failed to process.
+   *
+   *  @return failedCount  the failed packet count
+   */
+  public long getFailedCount() {
+    return this.failedCount.get();
+  }
+
+  /**
+   *  Summarizes the queue metrics for logging.
+   *
+   *  @return  the queue metrics
+   */
+  @Override
+  public String toString() {
+    return this.address + "[depth=" + getDepth() +
+      ", maxDepth=" + this.maxDepth +
+      ", received=" + this.receivedCount.get() +
+      ", dropped=" + this.droppedCount.get() +
+      ", processed=" + this.processedCount.get() +
+      ", failed=" + this.failedCount.get() + "]";
+  }
+}
@@ -56,12 +56,45 @@ public class AdamParser {
   /**
    *  The voltage sense range for the ADAM log (+/- 10 volts)
    */
-  private float voltageSenseRange = 20f; 
+  private static final float VOLTAGE_SENSE_RANGE = 20f;
 
   /**
    *  The voltage full range for the ADAM log (16-bit == 65536)
    */
-  private float voltageFullRange = 65536f;
+  private static final float VOLTAGE_FULL_RANGE = 65536f;
+
+  /**
+   *  The voltage sense range for the ADAM log (+/- 10 volts)
+   */
+  private float voltageSenseRange = VOLTAGE_SENSE_RANGE; 
+
+  /**
+   *  The voltage full range for the ADAM log (16-bit == 65536)
+   */
+  private float voltageFullRange = VOLTAGE_FULL_RANGE;
+  
+  /**
+   *  The size, in bytes, of the packet header
+   */
+  public static final int HEADER_SIZE = 22;
+  
+  /**
+   *  The index of the averaged channel among the 27 two-byte fields that
+   *  follow the header: channels zero to seven and the average, then their
+   *  maximums, then their minimums
+   */
+  public static final int CHANNEL_AVERAGE = 8;
+  
+  /**
+   *  The number of two-byte fields in each of the sample, maximum, and
+   *  minimum groups
+   */
+  public static final int CHANNELS_PER_GROUP = 9;
+  
+  /**
+   *  The size, in bytes, of a complete packet
+   */
+  public static final int PACKET_SIZE = HEADER_SIZE + 3 * CHANNELS_PER_GROUP * 2;
   
   /*
    *  A field that stores the binary UPD packet data input as a ByteBuffer
@@ -725,4 +758,23 @@ public class AdamParser {
     return voltage;
     
   }
+  
+  /**
+   * A method that decodes one channel of a packet in place, without building
+   * a parser.  The field index counts the 27 two-byte fields after the header,
+   * so 0 to 7 are the channels, CHANNEL_AVERAGE is the average, and adding
+   * CHANNELS_PER_GROUP once or twice gives the maximum or minimum.
+   *
+   * @param packet - the packet, starting at index zero
+   * @param field  - the index of the field after the header
+   * @return voltage - the converted decimal voltage as a float
+   */
+  public static float getVoltage(ByteBuffer packet, int field) {
+    int offset = HEADER_SIZE + 2 * field;
+    int channelData = ((packet.get(offset) & 0xFF) << 8) | 
+                       (packet.get(offset + 1) & 0xFF);
+    return ( VOLTAGE_SENSE_RANGE * ( channelData / VOLTAGE_FULL_RANGE ) ) -
+           ( VOLTAGE_SENSE_RANGE/2 );
+    
+  }
 }                                               
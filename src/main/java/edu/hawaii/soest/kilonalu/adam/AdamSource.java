@@ -28,6 +28,7 @@ package edu.hawaii.soest.kilonalu.adam;
 
 import com.rbnb.sapi.ChannelMap;
 import com.rbnb.sapi.SAPIException;
+import com.rbnb.sapi.Source;
 
 import java.lang.StringBuilder;
 
@@ -37,7 +38,6 @@ import java.text.SimpleDateFormat;
 
 import java.util.Date;
 import java.util.TreeMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -116,9 +116,9 @@ public class AdamSource extends RBNBSource {
   private String rbnbChannelName = DEFAULT_CHANNEL_NAME;
   
   /** 
-   * The date format for the timestamp applied to the LOOP sample 04 Aug 2008 09:15:01
+   * The date format pattern for the timestamp applied to the sample 04 Aug 2008 09:15:01
    */
-  private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd MMM yyyy HH:mm:ss");
+  private static final String DATE_FORMAT_PATTERN = "dd MMM yyyy HH:mm:ss";
   
   /**
    * The timezone used for the sample date
@@ -126,10 +126,24 @@ public class AdamSource extends RBNBSource {
   private static final TimeZone TZ = TimeZone.getTimeZone("Pacific/Honolulu");
   
   /*
-   * The instance of the AdamParser object used to parse the binary LOOP
-   * data packet and retrieve each of the data fields
+   * The value sent for a configured voltage channel outside of 0 to 7
    */
-   private AdamParser adamParser = null;
+  private static final float MISSING_VOLTAGE = -9999.0f;
+  
+  /*
+   * The suffixes of the RBNB channels for the window statistics of each
+   * voltage channel, and the channel for the number of samples in a window
+   */
+  private static final String MEAN_SUFFIX         = "Mean";
+  private static final String MINIMUM_SUFFIX      = "Minimum";
+  private static final String MAXIMUM_SUFFIX      = "Maximum";
+  private static final String VARIANCE_SUFFIX     = "Variance";
+  private static final String WINDOW_COUNT_CHANNEL = "WindowSampleCount";
+  
+  /*
+   * The resolved channel mapping for packets passed to process()
+   */
+   private ChannelMapping channelMapping;
    
    /**
     * Constructor - create an empty instance of the AdamSource object, using
@@ -186,286 +200,472 @@ public class AdamSource extends RBNBSource {
     // do not execute the stream if there is no connection
     if (  !isConnected() ) return false;
     
-    boolean failed = false;
-    
-    try {
+    // the mapping is normally compiled by the dispatcher at startup; resolve
+    // it here only if it wasn't, or if it was for another address
+    if ( this.channelMapping == null || 
+         !this.channelMapping.getAddress().equals(datagramAddress) ) {
+      compileChannelMapping(xmlConfig, datagramAddress);
       
-      // add channels of data that will be pushed to the server.  
-      // Each sample will be sent to the Data Turbine as an rbnb frame.  Information
-      // on each channel is found in the XMLConfiguration file (sensors.properties.xml)
-      // and the AdamParser object (to get the actual voltages for each ADAM channel)
-      ChannelMap rbnbChannelMap     = new ChannelMap(); // used to flush channels
-      ChannelMap registerChannelMap = new ChannelMap(); // used to register channels
-      int channelIndex = 0;
-        
-      this.adamParser = new AdamParser(sampleBuffer);
+    }
+    
+    return this.channelMapping.process(sampleBuffer);
+  }
+  
+  /**
+   * A method that resolves the voltage channel to RBNB channel mapping of the
+   * ADAM module at the given address from the sensor properties, and uses it
+   * for the packets passed to process().  The sensor is the one whose name is
+   * this source's RBNB client name; if its address doesn't match, the
+   * mapping matches nothing and its packets are skipped, as before.
+   * <p>
+   * An optional <code>window</code> element of the sensor turns on window
+   * statistics: <code>&lt;window seconds="60" keepRaw="false"/&gt;</code>
+   * publishes the mean, minimum, maximum, and variance of each channel per
+   * minute, and drops the per-packet stream.  keepRaw defaults to true.
+   *
+   * @param xmlConfig       - the XMLConfiguration object containing the list of
+   *                          sensor properties
+   * @param datagramAddress - the IP address of the ADAM module, as configured
+   * @return channelMapping - the compiled channel mapping
+   */
+  public ChannelMapping compileChannelMapping(XMLConfiguration xmlConfig,
+                                              String datagramAddress) {
+    
+    // the voltage channels and their RBNB channel paths, in channel order
+    TreeMap<Integer, String> voltageChannelTreeMap = new TreeMap<Integer, String>();
+    String description = "";
+    boolean matched = false;
+    double windowLength = 0;
+    boolean keepRaw = true;
+    
+    List sensorList = xmlConfig.getList("sensor.address");
+    
+    // find the sensor for this RBNB source name
+    for ( int index = 0; index < sensorList.size(); index++ ) {
       
-      log.debug(                                                        "\n" +
-        "channelZero       : "  + this.adamParser.getChannelZero()       + "\n" +
-        "channelOne        : "  + this.adamParser.getChannelOne()        + "\n" +
-        "channelTwo        : "  + this.adamParser.getChannelTwo()        + "\n" +
-        "channelThree      : "  + this.adamParser.getChannelThree()      + "\n" +
-        "channelFour       : "  + this.adamParser.getChannelFour()       + "\n" +
-        "channelFive       : "  + this.adamParser.getChannelFive()       + "\n" +
-        "channelSix        : "  + this.adamParser.getChannelSix()        + "\n" +
-        "channelSeven      : "  + this.adamParser.getChannelSeven()      + "\n" +
-        "channelAverage    : "  + this.adamParser.getChannelAverage()    + "\n" +
-        "channelZeroMax    : "  + this.adamParser.getChannelZeroMax()    + "\n" +
-        "channelOneMax     : "  + this.adamParser.getChannelOneMax()     + "\n" +
-        "channelTwoMax     : "  + this.adamParser.getChannelTwoMax()     + "\n" +
-        "channelThreeMax   : "  + this.adamParser.getChannelThreeMax()   + "\n" +
-        "channelFourMax    : "  + this.adamParser.getChannelFourMax()    + "\n" +
-        "channelFiveMax    : "  + this.adamParser.getChannelFiveMax()    + "\n" +
-        "channelSixMax     : "  + this.adamParser.getChannelSixMax()     + "\n" +
-        "channelSevenMax   : "  + this.adamParser.getChannelSevenMax()   + "\n" +
-        "channelAverageMax : "  + this.adamParser.getChannelAverageMax() + "\n" +
-        "channelZeroMin    : "  + this.adamParser.getChannelZeroMin()    + "\n" +
-        "channelOneMin     : "  + this.adamParser.getChannelOneMin()     + "\n" +
-        "channelTwoMin     : "  + this.adamParser.getChannelTwoMin()     + "\n" +
-        "channelThreeMin   : "  + this.adamParser.getChannelThreeMin()   + "\n" +
-        "channelFourMin    : "  + this.adamParser.getChannelFourMin()    + "\n" +
-        "channelFiveMin    : "  + this.adamParser.getChannelFiveMin()    + "\n" +
-        "channelSixMin     : "  + this.adamParser.getChannelSixMin()     + "\n" +
-        "channelSevenMin   : "  + this.adamParser.getChannelSevenMin()   + "\n" +
-        "channelAverageMin : "  + this.adamParser.getChannelAverageMin() + "\n"
+      String sourceName = (String) xmlConfig.getProperty("sensor(" + index + ").name" );
+      if ( !getRBNBClientName().equals(sourceName) ) {
+        continue;
+      }
       
-      );
+      String address = (String) xmlConfig.getProperty("sensor(" + index + ").address" );
+      if ( datagramAddress.equals(address) ) {
+        matched = true;
+        description = (String) xmlConfig.getProperty("sensor(" + index + ").description" );
         
-      // create a TreeMap to hold the voltageChannel and its associated
-      // RBNB ChannelMap channel string.  When the RBNB ChannelMap is
-      // populated, this TreeMap will be consulted
-      TreeMap<Integer, String> voltageChannelTreeMap = new TreeMap<Integer, String>();
-      
-      // create a character string to store characters from the voltage values
-      StringBuilder decimalASCIISampleData = new StringBuilder();
+        // get the optional window statistics settings
+        String windowSeconds = xmlConfig.getString("sensor(" + index + ").window[@seconds]");
+        if ( windowSeconds != null ) {
+          try {
+            windowLength = Double.parseDouble(windowSeconds);
+            keepRaw = xmlConfig.getBoolean("sensor(" + index + ").window[@keepRaw]", true);
+            
+          } catch ( NumberFormatException nfe ) {
+            log.warn("The window of " + getRBNBClientName() + " isn't a " +
+                     "number of seconds: " + windowSeconds + ". Publishing " +
+                     "every packet instead.");
+            windowLength = 0;
+            
+          }
+        }
+        
+        List portList = xmlConfig.getList("sensor(" + index + ").ports.port[@number]");
+        
+        // get each port of the sensor, and each measurement of the port
+        for ( int pindex = 0; pindex < portList.size(); pindex++ ) {
+          String portPath   = "sensor(" + index + ").ports.port(" + pindex + ")";
+          String portNumber = (String) xmlConfig.getProperty(portPath + "[@number]");
+          
+          List measurementList = xmlConfig.getList(portPath + ".measurement[@label]");
+          for ( int mindex = 0; mindex < measurementList.size(); mindex++ ) {
+            String measurementPath = portPath + ".measurement(" + mindex + ")";
+            String voltageChannel = 
+              (String) xmlConfig.getProperty(measurementPath + ".voltageChannel");
+            String measurement = 
+              (String) xmlConfig.getProperty(measurementPath + "[@label]");
+            
+            // build the RBNB channel path string
+            voltageChannelTreeMap.put(new Integer(voltageChannel),
+              "port" + "/" + portNumber + "/" + measurement);
+          }
+        }
+      } else {
+        log.debug("No IP address match. " + datagramAddress + " != " + address);
+        
+      }
       
-      // Create a list of sensors from the properties file, and iterate through
-      // the list, matching the datagram IP address to the address in the 
-      // xml configuration file.  If there is a match, find the correct voltage
-      // channel to measurement mappings, create a corresponding RBNB channel
-      // map, and flush the data to the DataTurbine.        
+      // now that we've found the correct sensor, exit the sensor loop
+      break;
+    }
+    
+    this.channelMapping = 
+      new ChannelMapping(datagramAddress, matched, description, voltageChannelTreeMap,
+                         windowLength, keepRaw);
+    log.debug("Voltage Channel Tree Map: " + voltageChannelTreeMap.toString());
+    return this.channelMapping;
+  }
+  
+  /**
+   * A class that holds the resolved voltage channel to RBNB channel mapping
+   * of one ADAM module, with the channel maps built once.  The channels are
+   * registered once per DataTurbine connection, and each packet only decodes
+   * the mapped voltages in place and fills in the reused flush map.  With a
+   * window, the voltages are also added to a VoltageWindow, and its
+   * statistics are flushed with the window's start time and length by the
+   * first packet after it closes.  The statistics of a window that is still
+   * open when the source disconnects are lost.  Channels configured outside
+   * of 0 to 7 have no statistics channels, so their missing value doesn't
+   * reach a window summary.
+   * Both each packet and its window are timed by the local clock when the
+   * packet is processed, rather than the DataTurbine server's clock, so raw
+   * and summary frames line up.
+   * Instances are made by compileChannelMapping().
+   */
+  public class ChannelMapping {
+    
+    /* The module address the mapping was resolved for */
+    private final String address;
+    
+    /* A boolean stating if the address matched this source's sensor */
+    private final boolean matched;
+    
+    /* The mapped voltage channels, in channel order */
+    private final int[] voltageChannels;
+    
+    /* The RBNB channel path of each mapped voltage channel */
+    private final String[] channelNames;
+    
+    /* The flush map index of each mapped voltage channel */
+    private final int[] channelIndexes;
+    
+    /* The flush map index of the DecimalASCIISampleData channel */
+    private final int sampleChannelIndex;
+    
+    /* The smallest packet, in bytes, holding all of the mapped channels */
+    private final int minimumPacketSize;
+    
+    /* The channel map that is filled in and flushed for each packet */
+    private final ChannelMap rbnbChannelMap = new ChannelMap();
+    
+    /* The channel map used to register the channels */
+    private final ChannelMap registerChannelMap = new ChannelMap();
+    
+    /* The DataTurbine connection the channels were last registered with */
+    private Source registeredSource;
+    
+    /* The builder reused for the ASCII version of each sample */
+    private final StringBuilder decimalASCIISampleData = new StringBuilder();
+    
+    /* The sample date format, one per mapping since it isn't thread safe */
+    private final SimpleDateFormat sampleDateFormat = 
+      new SimpleDateFormat(DATE_FORMAT_PATTERN);
+    
+    /* The voltages of the current packet, in channel order */
+    private final float[] voltages;
+    
+    /* A boolean stating if each packet is flushed */
+    private final boolean keepRaw;
+    
+    /* The window statistics, or null if there is no window */
+    private final VoltageWindow voltageWindow;
+    
+    /* The channel map that is filled in and flushed for each window */
+    private final ChannelMap summaryChannelMap = new ChannelMap();
+    
+    /* The summary map indexes of the statistics of each voltage channel, or
+       -1 for a channel outside of 0 to 7 */
+    private final int[] meanIndexes;
+    private final int[] minimumIndexes;
+    private final int[] maximumIndexes;
+    private final int[] varianceIndexes;
+    
+    /* The summary map index of the WindowSampleCount channel */
+    private final int windowCountIndex;
+    
+    /*
+     * Builds the mapping, adding the channels to the channel maps
+     */
+    private ChannelMapping(String address, boolean matched, String description,
+                           TreeMap<Integer, String> voltageChannelTreeMap,
+                           double windowLength, boolean keepRaw) {
+      this.address = address;
+      this.matched = matched;
+      this.sampleDateFormat.setTimeZone(TZ);
       
-      List sensorList  = xmlConfig.getList("sensor.address");
+      int size = voltageChannelTreeMap.size();
+      this.voltageChannels = new int[size];
+      this.channelNames    = new String[size];
+      this.channelIndexes  = new int[size];
+      this.voltages        = new float[size];
+      this.meanIndexes     = new int[size];
+      this.minimumIndexes  = new int[size];
+      this.maximumIndexes  = new int[size];
+      this.varianceIndexes = new int[size];
       
-      // declare the properties that will be pulled from the 
-      // sensor.properties.xml file
-      String address        = "";
-      String sourceName     = "";
-      String description    = "";
-      String type           = "";
-      String cacheSize      = "";
-      String archiveSize    = "";
-      String archiveChannel = "";
-      String portNumber     = "";
-      String voltageChannel = "";
-      String measurement    = "";
+      // without a window, every packet is kept
+      this.voltageWindow = ( windowLength > 0 ) ? new VoltageWindow(size, windowLength) : null;
+      this.keepRaw = keepRaw || this.voltageWindow == null;
       
-      // evaluate each sensor listed in the sensor.properties.xml file
-      for ( Iterator sIterator = sensorList.iterator(); sIterator.hasNext(); ) {
+      int maxField = -1;
+      int channel  = 0;
+      try {
+        for ( Integer voltageChannel : voltageChannelTreeMap.keySet() ) {
+          this.voltageChannels[channel] = voltageChannel.intValue();
+          this.channelNames[channel]    = voltageChannelTreeMap.get(voltageChannel);
+          boolean decoded = this.voltageChannels[channel] >= 0 && 
+                            this.voltageChannels[channel] < AdamParser.CHANNEL_AVERAGE;
+          if ( decoded ) {
+            maxField = Math.max(maxField, this.voltageChannels[channel]);
+            
+          }
+          
+          String channelName = this.channelNames[channel];
+          if ( this.keepRaw ) {
+            addRegisteredChannel(channelName, "volts", description);
+            
+          }
+          this.channelIndexes[channel] = this.rbnbChannelMap.Add(channelName);
+          
+          this.meanIndexes[channel]     = -1;
+          this.minimumIndexes[channel]  = -1;
+          this.maximumIndexes[channel]  = -1;
+          this.varianceIndexes[channel] = -1;
+          if ( this.voltageWindow != null && decoded ) {
+            this.meanIndexes[channel] = 
+              addSummaryChannel(channelName + MEAN_SUFFIX, "volts", description);
+            this.minimumIndexes[channel] = 
+              addSummaryChannel(channelName + MINIMUM_SUFFIX, "volts", description);
+            this.maximumIndexes[channel] = 
+              addSummaryChannel(channelName + MAXIMUM_SUFFIX, "volts", description);
+            this.varianceIndexes[channel] = 
+              addSummaryChannel(channelName + VARIANCE_SUFFIX, "volts^2", description);
+            
+          }
+          channel++;
+        }
         
-        // get each property value of the sensor
-        int index = sensorList.indexOf(sIterator.next());
-        address     = (String) xmlConfig.getProperty("sensor(" + index + ").address" );
-        sourceName  = (String) xmlConfig.getProperty("sensor(" + index + ").name" );
-        description = (String) xmlConfig.getProperty("sensor(" + index + ").description" );
-        type        = (String) xmlConfig.getProperty("sensor(" + index + ").type" );
+        // add the DecimalASCIISampleData channel to the channelMaps
+        if ( this.keepRaw ) {
+          this.registerChannelMap.Add(getRBNBChannelName());
+          
+        }
+        this.sampleChannelIndex = this.rbnbChannelMap.Add(getRBNBChannelName());
         
+        this.windowCountIndex = ( this.voltageWindow == null ) ? -1 :
+          addSummaryChannel(WINDOW_COUNT_CHANNEL, "samples", description);
         
-        log.debug("Sensor details:"                      + 
-                     "\n\t\t\t\t\t\t\t\t\t\taddress     : " + address +
-                     "\n\t\t\t\t\t\t\t\t\t\tname        : " + sourceName +
-                     "\n\t\t\t\t\t\t\t\t\t\tdescription : " + description +
-                     "\n\t\t\t\t\t\t\t\t\t\ttype        : " + type
-                     );
+      } catch ( SAPIException sapie ) {
+        // Add() only fails for malformed channel names
+        throw new IllegalArgumentException("Couldn't add the channels for " +
+          address + ": " + sapie.getMessage(), sapie);
         
-        // move to the next sensor if this doesn't match the RBNB source name
-        if ( !sourceName.equals(getRBNBClientName()) ) {
-          continue;
+      }
+      this.minimumPacketSize = AdamParser.HEADER_SIZE + 2 * (maxField + 1);
+    }
+    
+    /*
+     * Adds a channel with its units and description to the register map
+     */
+    private void addRegisteredChannel(String channelName, String units, 
+                                      String description) throws SAPIException {
+      int channelIndex = this.registerChannelMap.Add(channelName);
+      this.registerChannelMap.PutUserInfo(channelIndex, "units=" + units);
+      this.registerChannelMap.PutUserInfo(channelIndex, "description=" + description);
+    }
+    
+    /*
+     * Adds a statistics channel to the register and summary maps, returning
+     * its summary map index
+     */
+    private int addSummaryChannel(String channelName, String units,
+                                  String description) throws SAPIException {
+      addRegisteredChannel(channelName, units, description);
+      return this.summaryChannelMap.Add(channelName);
+    }
+    
+    /**
+     * A method that returns the module address the mapping was resolved for
+     *
+     * @return address - the module address
+     */
+    public String getAddress() {
+      return this.address;
+    }
+    
+    /**
+     * A method that returns the mapped voltage channels, in channel order
+     *
+     * @return voltageChannels - the voltage channel numbers
+     */
+    public int[] getVoltageChannels() {
+      return this.voltageChannels.clone();
+    }
+    
+    /**
+     * A method that returns the RBNB channel path of each mapped voltage
+     * channel, in the order of getVoltageChannels()
+     *
+     * @return channelNames - the RBNB channel paths
+     */
+    public String[] getChannelNames() {
+      return this.channelNames.clone();
+    }
+    
+    /**
+     * A method that returns the window statistics of the module
+     *
+     * @return voltageWindow - the window, or null if there is no window
+     */
+    public VoltageWindow getVoltageWindow() {
+      return this.voltageWindow;
+    }
+    
+    /**
+     * A method that indicates whether each packet is flushed, as well as
+     * any window statistics
+     *
+     * @return keepRaw - true if each packet is flushed
+     */
+    public boolean isKeepingRaw() {
+      return this.keepRaw;
+    }
+    
+    /**
+     * A method that decodes the mapped voltages of a packet and flushes them
+     * to the DataTurbine, and the statistics of a window it closes,
+     * registering the channels first if this connection hasn't had them yet.
+     * The buffer is cleared when done.
+     *
+     * @param sampleBuffer - the packet, filled from index zero to its position
+     * @return success - true if the packet was flushed or isn't for this source
+     */
+    public boolean process(ByteBuffer sampleBuffer) {
+      
+      // do not execute the stream if there is no connection
+      if (  !isConnected() ) return false;
+      
+      try {
+        if ( !this.matched ) {
+          log.debug("Source names don't match for " + this.address + 
+                    ": " + getRBNBClientName());
+          return true;
+          
         }
         
-        List   portList  = xmlConfig.getList("sensor(" + index + ").ports.port[@number]");
-        // get each port of the sensor, along with the port properties
-        for ( Iterator pIterator = portList.iterator(); pIterator.hasNext(); ) {
-          int pindex = portList.indexOf(pIterator.next());
-          
-          // get the port number value
-          portNumber = (String) xmlConfig.getProperty("sensor("    +
-                                index                              +
-                                ").ports.port("                    +
-                                pindex                             +
-                                ")[@number]");
-                                
-          log.debug("\tport " + portNumber + " details:");
+        if ( sampleBuffer.position() < this.minimumPacketSize ) {
+          log.warn("The packet from " + this.address + " is " + 
+                   sampleBuffer.position() + " bytes, too short for its " +
+                   "channels. Skipping it.");
+          return false;
           
-          List measurementList = xmlConfig.getList("sensor("       +
-                                                   index           +
-                                                   ").ports.port(" +
-                                                   pindex          +
-                                                   ").measurement[@label]");
-          
-          // get each measurement and voltageChannel for the given port
-          for ( Iterator mIterator = measurementList.iterator(); mIterator.hasNext(); ) {
-            int mindex = measurementList.indexOf(mIterator.next());
-            
-            // build the property paths into the config file
-            String voltagePath      = "sensor("        +
-                                      index            +
-                                      ").ports.port("  +
-                                      pindex           +
-                                      ").measurement(" +
-                                      mindex           +
-                                      ").voltageChannel";
-                                 
-            String measurementPath = "sensor("         +
-                                     index             +
-                                     ").ports.port("   +
-                                     pindex            +
-                                     ").measurement("  +
-                                     mindex            +
-                                     ")[@label]";
-            
-            // get the voltageChannel and measurement label values
-            voltageChannel = (String) xmlConfig.getProperty(voltagePath);
-            measurement    = (String) xmlConfig.getProperty(measurementPath);
-            log.debug("\t\t"                     + 
-                         "voltageChannel: "         + 
-                         voltageChannel             + 
-                         "\n\t\t\t\t\t\t\t\t\t\t\t" + 
-                         "measurement label: "      + 
-                         measurement
-                         );
-            
-            // Match the datagram address with the address in the xmlConfig file
-            if ( datagramAddress.equals(address) ) {
-              
-              // and only add channel data for this class instance RBNB Source name
-              if ( sourceName.equals(getRBNBClientName()) ) {
-                
-                // create an Integer out of the voltageChannel
-                Integer voltageChannelInt = new Integer(voltageChannel);
-                // build the RBNB channel path string
-                String channelPath = "port" + "/" + portNumber + "/" + measurement;
-                voltageChannelTreeMap.put(voltageChannelInt, channelPath);
-                
-              } else {
-              log.debug("\t\tSource names don't match: " + sourceName + " != " + getRBNBClientName());
-              
-              } // end sourceName if() statement
-            
-            } else {
-              log.debug("\t\tNo IP address match. " + datagramAddress + " != " + address);
-            
-            } //end IP address if() statement
-          } // end for each channel
-        } // end for each port
+        }
         
-        // now that we've found the correct sensor, exit the sensor loop
-        break;
+        if ( this.registeredSource != getSource() ) {
+          getSource().Register(this.registerChannelMap);
+          this.registeredSource = getSource();
+          
+        }
         
-      } // end for each sensor
+        for ( int channel = 0; channel < this.voltageChannels.length; channel++ ) {
+          int voltageChannel = this.voltageChannels[channel];
+          this.voltages[channel] = MISSING_VOLTAGE;
+          if ( voltageChannel >= 0 && voltageChannel < AdamParser.CHANNEL_AVERAGE ) {
+            this.voltages[channel] = AdamParser.getVoltage(sampleBuffer, voltageChannel);
+            
+          }
+        }
         
-      // Build the RBNB channel map from the entries in the tree map
-      // by doing a lookup of the ADAM voltage channel values based
-      // on the voltage channel number in the treemap.  Also add the voltages
-      // to the DecimalASCIISampleData string (and then channel)
-      for ( Iterator vcIterator = voltageChannelTreeMap.keySet().iterator(); vcIterator.hasNext(); ) {
-      
-        int voltageChannelFromMap = ((Integer) vcIterator.next()).intValue();
-        String channelPathFromMap = voltageChannelTreeMap.get(voltageChannelFromMap);
-        float voltageValue = -9999.0f;
-      
-        // look up the voltage value from the AdamParser object based
-        // on the voltage channel set in the xmlConfig file (via the treemap)
-        switch ( voltageChannelFromMap ) {
-          case 0:
-            voltageValue = this.adamParser.getChannelZero();
-            break;
-          case 1:
-            voltageValue = this.adamParser.getChannelOne();
-            break;
-          case 2:
-            voltageValue = this.adamParser.getChannelTwo();
-            break;
-          case 3:
-            voltageValue = this.adamParser.getChannelThree();
-            break;
-          case 4:
-            voltageValue = this.adamParser.getChannelFour();
-            break;
-          case 5:
-            voltageValue = this.adamParser.getChannelFive();
-            break;
-          case 6:
-            voltageValue = this.adamParser.getChannelSix();
-            break;
-          case 7:
-            voltageValue = this.adamParser.getChannelSeven();
-            break;
+        // add the voltages to the window, publishing the last one if closed
+        long sampleMillis = System.currentTimeMillis();
+        double sampleTime = sampleMillis / 1000d;
+        if ( this.voltageWindow != null ) {
+          if ( this.voltageWindow.isClosedBy(sampleTime) ) {
+            flushWindow();
+            this.voltageWindow.reset();
+            
+          }
+          this.voltageWindow.add(this.voltages, sampleTime);
         }
-      
-        // now add the channel and the voltage value to the RBNB channel maps
-      
-        channelIndex = registerChannelMap.Add(channelPathFromMap);
-        registerChannelMap.PutUserInfo(channelIndex, "units=volts");
-        registerChannelMap.PutUserInfo(channelIndex, "description=" + description);
         
-        log.debug("Voltage Channel Tree Map: " + voltageChannelTreeMap.toString());
+        if ( !this.keepRaw ) {
+          return true;
+          
+        }
         
-        // then the channel and voltage
-        channelIndex = rbnbChannelMap.Add(channelPathFromMap);
-        rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-        rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{voltageValue});
-        decimalASCIISampleData.append(String.format("%05.3f", (Object) voltageValue) + ", ");
+        // fill in the channel map.  Flush() clears its data but keeps the
+        // channels, so it's ready for the next packet
+        this.rbnbChannelMap.PutTime(sampleTime, 0d);
+        this.decimalASCIISampleData.setLength(0);
         
-      }
-      
-      // and only flush data for this class instance RBNB Source name
-      if ( sourceName.equals(getRBNBClientName()) && datagramAddress.equals(address) ) {
-      
-        // add the timestamp to the rbnb channel map
-        registerChannelMap.PutTimeAuto("server");
-        rbnbChannelMap.PutTimeAuto("server");
+        for ( int channel = 0; channel < this.voltageChannels.length; channel++ ) {
+          float voltageValue = this.voltages[channel];
+          this.rbnbChannelMap.PutMime(this.channelIndexes[channel], "application/octet-stream");
+          this.rbnbChannelMap.PutDataAsFloat32(this.channelIndexes[channel], 
+                                               new float[]{voltageValue});
+          this.decimalASCIISampleData.append(
+            String.format("%05.3f", (Object) voltageValue)).append(", ");
+        }
         
         // then add a timestamp to the end of the ASCII version of the sample
-        DATE_FORMAT.setTimeZone(TZ);
-        String sampleDateAsString = DATE_FORMAT.format(new Date()).toString();
-        decimalASCIISampleData.append(sampleDateAsString);
-        decimalASCIISampleData.append("\n");
+        this.decimalASCIISampleData.append(this.sampleDateFormat.format(new Date(sampleMillis)));
+        this.decimalASCIISampleData.append("\n");
+        String sample = this.decimalASCIISampleData.toString();
         
-        // add the DecimalASCIISampleData channel to the channelMap
-        channelIndex = registerChannelMap.Add(getRBNBChannelName());
-        channelIndex = rbnbChannelMap.Add(getRBNBChannelName());
-        rbnbChannelMap.PutMime(channelIndex, "text/plain");
-        rbnbChannelMap.PutDataAsString(channelIndex, decimalASCIISampleData.toString());
+        this.rbnbChannelMap.PutMime(this.sampleChannelIndex, "text/plain");
+        this.rbnbChannelMap.PutDataAsString(this.sampleChannelIndex, sample);
         
-        // Now register the RBNB channels, and flush the rbnbChannelMap to the
-        // DataTurbine
-        getSource().Register(registerChannelMap);
-        getSource().Flush(rbnbChannelMap);
-        log.info(getRBNBClientName() + " Sample sent to the DataTurbine: " + decimalASCIISampleData.toString());
-        registerChannelMap.Clear();
-        rbnbChannelMap.Clear();
+        getSource().Flush(this.rbnbChannelMap);
+        log.info(getRBNBClientName() + " Sample sent to the DataTurbine: " + sample);
+        return true;
         
-        sampleBuffer.clear();
-      } else {
-        log.debug("\t\tSource names don't match: " + sourceName + " != " + getRBNBClientName());
-        registerChannelMap.Clear();
-        rbnbChannelMap.Clear();
+      } catch ( SAPIException sapie ) {
+        // In the event of an RBNB communication  exception, log the exception, 
+        // and return false, which the caller counts as a failure.
+        sapie.printStackTrace();
+        return false;
         
+      } finally {
         sampleBuffer.clear();
+        
       }
+    }
+    
+    /*
+     * Flushes the statistics of the closed window, stamped with the window's
+     * start time and length
+     */
+    private void flushWindow() throws SAPIException {
+      VoltageWindow window = this.voltageWindow;
+      this.summaryChannelMap.PutTime(window.getStartTime(), window.getLength());
       
-    } catch ( SAPIException sapie ) {
-      // In the event of an RBNB communication  exception, log the exception, 
-      // and allow execute() to return false, which will prompt a retry.
-      failed = true;
-      sapie.printStackTrace();
-      return !failed;
+      for ( int channel = 0; channel < this.voltageChannels.length; channel++ ) {
+        if ( this.meanIndexes[channel] < 0 ) {
+          continue;
+          
+        }
+        putFloat(this.meanIndexes[channel],     window.getMean(channel));
+        putFloat(this.minimumIndexes[channel],  window.getMinimum(channel));
+        putFloat(this.maximumIndexes[channel],  window.getMaximum(channel));
+        putFloat(this.varianceIndexes[channel], window.getVariance(channel));
+        
+      }
+      this.summaryChannelMap.PutMime(this.windowCountIndex, "application/octet-stream");
+      this.summaryChannelMap.PutDataAsInt32(this.windowCountIndex, 
+                                            new int[]{window.getCount()});
       
+      getSource().Flush(this.summaryChannelMap);
+      log.info(getRBNBClientName() + " Window of " + window.getCount() + 
+               " samples sent to the DataTurbine.");
     }
     
-    return !failed;
-  } // end if (  !isConnected() ) 
+    /*
+     * Puts a single float into the summary map
+     */
+    private void putFloat(int channelIndex, float value) throws SAPIException {
+      this.summaryChannelMap.PutMime(channelIndex, "application/octet-stream");
+      this.summaryChannelMap.PutDataAsFloat32(channelIndex, new float[]{value});
+    }
+  }
   
   /**
    * A method that sets the size, in bytes, of the ByteBuffer used in streaming 
@@ -0,0 +1,200 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that keeps windowed statistics of the voltage channels
+ *             of an ADAM module
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adam;
+
+import java.util.Arrays;
+
+/**
+ *  A class that keeps the running sum, sum of squares, minimum, and maximum
+ *  of each voltage channel of an ADAM module over a fixed time window, so a
+ *  summary can be published per window instead of every packet.  Windows are
+ *  aligned to multiples of their length since the epoch, so 60 second windows
+ *  close on the minute.  Each sample is added in constant time to primitive
+ *  arrays that are reused from one window to the next.
+ *  <p>
+ *  For each sample, call {@link #isClosedBy(double)} first.  When it returns
+ *  true, read the statistics of the closed window and call {@link #reset()},
+ *  then {@link #add(float[], double)} the sample.
+ */
+public class VoltageWindow {
+
+  /*  The window length in seconds */
+  private final double length;
+
+  /*  The running sums of each channel */
+  private final double[] sums;
+
+  /*  The running sums of squares of each channel */
+  private final double[] squares;
+
+  /*  The smallest value of each channel */
+  private final float[] minimums;
+
+  /*  The largest value of each channel */
+  private final float[] maximums;
+
+  /*  The number of samples in the window */
+  private int count;
+
+  /*  The index of the window, as multiples of its length since the epoch */
+  private long windowIndex;
+
+  /**
+   *  Constructor:  Builds an empty window for the given number of channels.
+   *
+   *  @param channelCount  the number of voltage channels in each sample
+   *  @param length        the window length in seconds
+   */
+  public VoltageWindow(int channelCount, double length) {
+    if ( length <= 0 ) {
+      throw new IllegalArgumentException("The window length must be more " +
+        "than 0 seconds. " + length + " is not valid.");
+    }
+    this.length = length;
+    this.sums = new double[channelCount];
+    this.squares = new double[channelCount];
+    this.minimums = new float[channelCount];
+    this.maximums = new float[channelCount];
+    reset();
+  }
+
+  /**
+   *  A method that indicates whether a sample at the given time falls after
+   *  the current window, which then holds at least one sample.
+   *
+   *  @param time    the sample time in seconds since the epoch
+   *  @return closed  true if the window should be published and reset
+   */
+  public boolean isClosedBy(double time) {
+    return this.count > 0 && (long) Math.floor(time / this.length) != this.windowIndex;
+  }
+
+  /**
+   *  A method that adds a sample of each channel to the window.
+   *
+   *  @param values  the value of each channel
+   *  @param time    the sample time in seconds since the epoch
+   */
+  public void add(float[] values, double time) {
+    if ( this.count == 0 ) {
+      this.windowIndex = (long) Math.floor(time / this.length);
+
+    }
+    for ( int channel = 0; channel < this.sums.length; channel++ ) {
+      float value = values[channel];
+      this.sums[channel] += value;
+      this.squares[channel] += (double) value * value;
+      if ( value < this.minimums[channel] ) {
+        this.minimums[channel] = value;
+
+      }
+      if ( value > this.maximums[channel] ) {
+        this.maximums[channel] = value;
+
+      }
+    }
+    this.count++;
+  }
+
+  /**
+   *  A method that empties the window for the next one.
+   */
+  public void reset() {
+    Arrays.fill(this.sums, 0d);
+    Arrays.fill(this.squares, 0d);
+    Arrays.fill(this.minimums, Float.POSITIVE_INFINITY);
+    Arrays.fill(this.maximums, Float.NEGATIVE_INFINITY);
+    this.count = 0;
+  }
+
+  /**
+   *  A method that returns the number of samples in the window.
+   *
+   *  @return count  the sample count
+   */
+  public int getCount() {
+    return this.count;
+  }
+
+  /**
+   *  A method that returns the window length.
+   *
+   *  @return length  the window length in seconds
+   */
+  public double getLength() {
+    return this.length;
+  }
+
+  /**
+   *  A method that returns the start time of the window.
+   *
+   *  @return startTime  the start time in seconds since the epoch
+   */
+  public double getStartTime() {
+    return this.windowIndex * this.length;
+  }
+
+  /**
+   *  A method that returns the mean of a channel over the window.
+   *
+   *  @param channel  the index of the channel in each sample
+   *  @return mean     the mean, or NaN if the window is empty
+   */
+  public float getMean(int channel) {
+    return this.count == 0 ? Float.NaN : (float) (this.sums[channel] / this.count);
+  }
+
+  /**
+   *  A method that returns the population variance of a channel over the
+   *  window.
+   *
+   *  @param channel  the index of the channel in each sample
+   *  @return variance  the variance, or NaN if the window is empty
+   */
+  public float getVariance(int channel) {
+    if ( this.count == 0 ) {
+      return Float.NaN;
+
+    }
+    double mean = this.sums[channel] / this.count;
+    return (float) Math.max(0d, this.squares[channel] / this.count - mean * mean);
+  }
+
+  /**
+   *  A method that returns the smallest value of a channel in the window.
+   *
+   *  @param channel  the index of the channel in each sample
+   *  @return minimum  the minimum, or NaN if the window is empty
+   */
+  public float getMinimum(int channel) {
+    return this.count == 0 ? Float.NaN : this.minimums[channel];
+  }
+
+  /**
+   *  A method that returns the largest value of a channel in the window.
+   *
+   *  @param channel  the index of the channel in each sample
+   *  @return maximum  the maximum, or NaN if the window is empty
+   */
+  public float getMaximum(int channel) {
+    return this.count == 0 ? Float.NaN : this.maximums[channel];
+  }
+}
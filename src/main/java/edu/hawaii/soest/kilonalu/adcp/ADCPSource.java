@@ -32,8 +32,6 @@ import java.nio.channels.SocketChannel;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.CommandLine;
 
-import org.apache.commons.codec.binary.Hex;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -53,8 +51,10 @@ import org.nees.rbnb.RBNBSource;
  * of data in the ensemble. The header of each ensemble begins with a 0x7F 
  * byte (the HEADER_ID), followed immediately by another 0x7F 
  * (the DATA_SOURCE_ID). Once the header is found, the offset to the next
- * header id of the following ensemble can be determined.  Each ensemble is
- * packaged into an RBNB channel map, and sent to the RBNB Data Turbine.
+ * header id of the following ensemble can be determined.  Ensembles are
+ * framed out of the stream by an EnsembleFramer, which checks the checksum of
+ * each one.  Each ensemble is packaged into an RBNB channel map, and sent to
+ * the RBNB Data Turbine.
  */
 public class ADCPSource extends RBNBSource {
 
@@ -96,65 +96,76 @@ public class ADCPSource extends RBNBSource {
    * The name of the RBNB channel for this data stream
    */
   private String rbnbChannelName = DEFAULT_RBNB_CHANNEL;
-  
+
   /*
-   *  A default source IP address for the given source instrument
+   * The names of the RBNB channels for the decoded profiles of each ensemble
    */
-  private final String DEFAULT_SOURCE_HOST_NAME = "192.168.1.200";  
+  private static final String VELOCITY_CHANNEL       = "VelocityProfile";
+  private static final String CORRELATION_CHANNEL    = "CorrelationProfile";
+  private static final String ECHOINTENSITY_CHANNEL  = "EchoIntensityProfile";
+  private static final String PERCENTGOOD_CHANNEL    = "PercentGoodProfile";
 
   /**
-   * The domain name or IP address of the host machine that this Source
-   * represents and from which the data will stream. 
+   * The flag indicating whether or not the velocity, correlation, echo
+   * intensity, and percent good profiles of each ensemble are also published
+   * as float arrays in their own channels, alongside the binary ensemble.
    */
-  private String sourceHostName = DEFAULT_SOURCE_HOST_NAME;
+  private boolean publishingProfiles = false;
 
   /*
-   *  A default source TCP port for the given source instrument
-   */  
-  private final int DEFAULT_SOURCE_HOST_PORT  = 2104;
+   * The view used to decode the profiles of each ensemble
+   */
+  private EnsembleView ensembleView = new EnsembleView();
 
-  /**
-   * The TCP port to connect to on the Source host machine 
+  /*
+   * The names of the RBNB channels for the averaged profiles
    */
-  private int sourceHostPort = DEFAULT_SOURCE_HOST_PORT;
+  private static final String VELOCITY_MEAN_CHANNEL          = "VelocityProfileMean";
+  private static final String VELOCITY_VARIANCE_CHANNEL      = "VelocityProfileVariance";
+  private static final String ECHOINTENSITY_MEAN_CHANNEL     = "EchoIntensityProfileMean";
+  private static final String ECHOINTENSITY_VARIANCE_CHANNEL = "EchoIntensityProfileVariance";
+  private static final String CORRELATION_MEAN_CHANNEL       = "CorrelationProfileMean";
+  private static final String CORRELATION_VARIANCE_CHANNEL   = "CorrelationProfileVariance";
+  private static final String AVERAGE_COUNT_CHANNEL          = "AveragedEnsembleCount";
 
   /**
-   * The number of bytes in an ensemble to the Number of Data Types field,
-   * as defined by the RDI PD0 binary ensemble format
+   * The number of ensembles in each published average, or 0 to average by
+   * time only
    */
-  private int NUMBER_OF_DATA_TYPES_OFFSET = 6;
+  private int ensemblesPerAverage = 0;
 
   /**
-   * The number of bytes in the ensemble as each byte is read from the stream
+   * The number of seconds in each published average, or 0 to average by
+   * ensemble count only
    */
-  private int ensembleByteCount = 0;
-    
-  /**
-   * The flag indicating whether not the header is verified.  The value will be
-   * set to true if the identifier for the first data type (0x0000, i.e. the
-   * Fixed Leader ID) is found at the exact number of bytes from the Header ID
-   * (0x7F7F) that is stated in the header's offset for Data Type One.  This is
-   * used to avoid re-starting the Ensemble parsing when a random 0x7F7F is found
-   * in the data stream (which is fairly frequent).
+  private double averagingInterval = 0;
+
+  /*
+   * The averager for the profiles, or null if averages aren't published
    */
-  private boolean headerIsVerified = false;
+  private EnsembleAverager ensembleAverager;
   
-  // the number of bytes in the ensemble to validate
-  /**
-   * The checksum calculated for each ensemble as the data are read from the stream
+  /*
+   *  A default source IP address for the given source instrument
    */
-  int ensembleChecksum = 0;
+  private final String DEFAULT_SOURCE_HOST_NAME = "192.168.1.200";  
 
   /**
-   * The number of data types in the ensemble as stated in the ensemble header
+   * The domain name or IP address of the host machine that this Source
+   * represents and from which the data will stream. 
    */
-  int numberOfDataTypes = 0;                                    
-  
+  private String sourceHostName = DEFAULT_SOURCE_HOST_NAME;
+
+  /*
+   *  A default source TCP port for the given source instrument
+   */  
+  private final int DEFAULT_SOURCE_HOST_PORT  = 2104;
+
   /**
-   * The byte offset location for the first data type in the the ensemble, where
-   * byte 1 == the first 0x7F of the ensemble Header ID
+   * The TCP port to connect to on the Source host machine 
    */
-  int dataTypeOneOffset = 0;
+  private int sourceHostPort = DEFAULT_SOURCE_HOST_PORT;
+
   /**
    * The Logger instance used to log system messages 
    */
@@ -162,10 +173,7 @@ public class ADCPSource extends RBNBSource {
 
   //private int DEFAULT_CACHE_FRAME_SIZE =   100000; // ~100MB for 1K Ensembles
   //private int DEFAULT_ARCHIVE_FRAME_SIZE = 1000000; // ~1GB for 1K Ensembles
-  protected int state = 0;
-  
-  private int ensembleBytes = 0;
-  
+
   private boolean readyToStream = false;
   
   private Thread streamingThread;
@@ -257,18 +265,8 @@ public class ADCPSource extends RBNBSource {
     
     // while data are being sent, read them into the buffer
     try {
-      // create four byte placeholders used to evaluate up to a four-byte 
-      // window.  The FIFO layout looks like:
-      //           -------------------------
-      //   in ---> | One | Two |Three|Four |  ---> out
-      //           -------------------------
-      byte byteOne   = 0x00,   // set initial placeholder values
-           byteTwo   = 0x00,
-           byteThree = 0x00,
-           byteFour  = 0x00;
-      
-      // Create a buffer that will store the ensemble bytes as they are read
-      ByteBuffer ensembleBuffer = ByteBuffer.allocate(getBufferSize());
+      // frame ensembles out of the stream in bulk rather than byte by byte
+      EnsembleFramer framer = new EnsembleFramer(getBufferSize());
       
       // create a byte buffer to store bytes from the TCP stream
       ByteBuffer buffer = ByteBuffer.allocateDirect(getBufferSize());
@@ -285,359 +283,40 @@ public class ADCPSource extends RBNBSource {
     
         // while there are unread bytes in the ByteBuffer
         while ( buffer.hasRemaining() ) {
-          byteOne = buffer.get();
-    
-          // Use a State Machine to process the byte stream.
-          // Start building an rbnb frame for the entire ensemble, first by 
-          // inserting a timestamp into the channelMap.  This time is merely
-          // the time of insert into the data turbine, not the time of
-          // observations of the measurements.  That time should be parsed out
-          // of the ensemble in the Sink client code
-    
-          System.out.print("\rProcessed byte # " +
-                           ensembleByteCount +
-                           " " +
-                           new String(Hex.encodeHex((new byte[]{byteOne}))) +
-                           " - log msg is: "
-                           );
-        
-          switch( state ) {
-    
-            case 0: // find ensemble header id
-              if ( byteOne == 0x7F && byteTwo == 0x7F ) {
-                ensembleByteCount++; // add Header ID
-                ensembleChecksum += (byteTwo & 0xFF);
-                ensembleByteCount++; // add Data Source ID
-                ensembleChecksum += (byteOne & 0xFF);
-
-                state = 1;
-                break;
-    
-              }else {
-                break;
-                
-              }
-    
-            case 1: // find the Ensemble Length (LSB)
-              ensembleByteCount++; // add Ensemble Byte Count (LSB)
-              ensembleChecksum += (byteOne & 0xFF);
-  
-              state = 2;
-              break;
-    
-            case 2: // find the Ensemble Length (MSB)
-              ensembleByteCount++; // add Ensemble Byte Count (MSB)
-              ensembleChecksum += (byteOne & 0xFF);
-  
-              int upperEnsembleByte = (byteOne & 0xFF) << 8;
-              int lowerEnsembleByte = (byteTwo  & 0xFF);
-              ensembleBytes = upperEnsembleByte + lowerEnsembleByte;
-              log.debug("Number of Bytes in the Ensemble: " +
-                           ensembleBytes);
-
-              if ( ensembleBuffer.remaining() > 0 ) {
-                
-                ensembleBuffer.put(byteFour);
-                ensembleBuffer.put(byteThree);
-                ensembleBuffer.put(byteTwo);
-                ensembleBuffer.put(byteOne);
-              } else {
-                
-                ensembleBuffer.compact();
-                ensembleBuffer.put(byteFour);
-                ensembleBuffer.put(byteThree);
-                ensembleBuffer.put(byteTwo);
-                ensembleBuffer.put(byteOne);
-              }
-    
-              state = 3;
-              break;
+          framer.put(buffer);
+          
+          // send each complete ensemble with a valid checksum. The frame 
+          // timestamp is merely the time of insert into the data turbine, not
+          // the time of observations of the measurements.  That time should
+          // be parsed out of the ensemble in the Sink client code
+          byte[] ensembleArray;
+          while ( (ensembleArray = framer.next()) != null ) {
+            rbnbChannelMap.PutTimeAuto("server");
+            rbnbChannelMap.PutDataAsByteArray(channelIndex, ensembleArray);
+            if ( isPublishingProfiles() ) {
+              putProfiles(rbnbChannelMap, ensembleArray);
+            }
+            if ( isPublishingAverages() ) {
+              putAverages(rbnbChannelMap, ensembleArray);
+            }
+            getSource().Flush(rbnbChannelMap);
             
-            // verify that the header is real, not a random 0x7F7F
-            case 3: // find the number of data types in the ensemble
-              
-              // set the numberOfDataTypes byte
-              if ( ensembleByteCount == NUMBER_OF_DATA_TYPES_OFFSET - 1 ) {
-                ensembleByteCount++;
-                ensembleChecksum += (byteOne & 0xFF);
-                numberOfDataTypes = (byteOne & 0xFF);
-                // calculate the number of bytes to the Fixed Leader ID
-                dataTypeOneOffset = 6 + (2 * numberOfDataTypes);
-                
-                if ( ensembleBuffer.remaining() > 0 ) {
-                  ensembleBuffer.put(byteOne);
-                  
-                } else {
-                  ensembleBuffer.compact();
-                  ensembleBuffer.put(byteOne);
-                  
-                }
-                state = 4;
-                break;
-              
-              } else {
-                ensembleByteCount++;
-                ensembleChecksum += (byteOne & 0xFF);
-                
-                if ( ensembleBuffer.remaining() > 0 ) {
-                  ensembleBuffer.put(byteOne);
-                  
-                } else {
-                  ensembleBuffer.compact();
-                  ensembleBuffer.put(byteOne);
-                  
-                }
-               
-                break;
-              }
-              
-            case 4:  // find the offset to data type #1 and verify the header ID
-              if ( (ensembleByteCount == dataTypeOneOffset + 1) &&
-                   byteOne == 0x00 && byteTwo == 0x00) {
-                ensembleByteCount++;
-                ensembleChecksum += (byteOne & 0xFF);
-                // we are confident that the previous sequence of 0x7F7F is truly
-                // an headerID and not a random occurrence in the stream because
-                // we have identified the Fixed Leader ID (0x0000) the correct
-                // number of bytes beyond the 0x7F7F
-                headerIsVerified = true;
-                
-                if ( ensembleBuffer.remaining() > 0 ) {
-                  ensembleBuffer.put(byteOne);
-                  
-                } else {
-                  ensembleBuffer.compact();
-                  ensembleBuffer.put(byteOne);
-                  
-                }
-               
-                state = 5;
-                break;
-              
-              } else {
-                
-                if ( ensembleByteCount > dataTypeOneOffset + 1 ) {
-                  // We've hit a random 0x7F7F byte sequence that is not a true
-                  // ensemble header id.  Reset the processing and look for the 
-                  // next 0x7F7F sequence in the stream
-                  ensembleByteCount = 0;
-                  ensembleChecksum  = 0;
-                  dataTypeOneOffset = 0;
-                  numberOfDataTypes = 0;                                    
-                  headerIsVerified  = false;
-                  ensembleBuffer.clear();
-                  rbnbChannelMap.Clear();
-                  channelIndex      = rbnbChannelMap.Add(getRBNBChannelName());
-
-                  byteOne   = 0x00;
-                  byteTwo   = 0x00;
-                  byteThree = 0x00;
-                  byteFour  = 0x00;
-                  
-                  state = 0;
-                  
-                  if ( ensembleBuffer.remaining() > 0 ) {
-                    ensembleBuffer.put(byteOne);
-                    
-                  } else {
-                    ensembleBuffer.compact();
-                    ensembleBuffer.put(byteOne);
-                    
-                  }
-                  
-                  break;
-                  
-                } else {
-                  // We are still parsing bytes between the purported header ID
-                  // and fixed leader ID. Keep parsing until we hit the fixed
-                  // leader ID, or until we are greater than the dataTypeOneOffset
-                  // stated value.
-                  ensembleByteCount++;
-                  ensembleChecksum += (byteOne & 0xFF);
-                  
-                  if ( ensembleBuffer.remaining() > 0 ) {
-                    ensembleBuffer.put(byteOne);
-                    
-                  } else {
-                    ensembleBuffer.compact();
-                    ensembleBuffer.put(byteOne);
-                    
-                  }
-                  
-                  break;
-                  }
-                
-              }
-
-            case 5: // read the rest of the bytes to the next Header ID 
-    
-              // if we've made it to the next ensemble's header id, prepare to
-              // flush the data.  Also check that the calculated byte count 
-              // is greater than the recorded byte count in case of finding an
-              // arbitrary 0x7f 0x7f sequence in the data stream
-              if ( byteOne == 0x7F && byteTwo == 0x7F &&
-                   ( ensembleByteCount == ensembleBytes + 3 ) && 
-                   headerIsVerified ) {
-    
-                // remove the last bytes from the count (byteOne and byteTwo)
-                ensembleByteCount -= 1;
-    
-                // remove the last three bytes from the checksum: 
-                // the two checksum bytes are not included, and the two 0x7f 
-                //bytes belong to the next ensemble, and one of them was 
-                // previously added. Reset the buffer position due to this too.
-                //ensembleChecksum -= (byteOne   & 0xFF);
-                ensembleChecksum -= (byteTwo   & 0xFF);
-                ensembleChecksum -= (byteThree & 0xFF);
-                ensembleChecksum -= (byteFour  & 0xFF);
-                // We are consistently 1 byte over in the checksum.  Trim it.  We need to
-                // troubleshoot why this is. CSJ 12/18/2007
-                ensembleChecksum = ensembleChecksum - 1;
-    
-                // jockey byteThree into LSB, byteFour into MSB
-                int upperChecksumByte = (byteThree & 0xFF) << 8;
-                int lowerChecksumByte = (byteFour & 0xFF);
-                int trueChecksum = upperChecksumByte + lowerChecksumByte;
-    
-                if ( ensembleBuffer.remaining() > 0 ) {
-                  ensembleBuffer.put((byte)lowerChecksumByte);
-                  ensembleBuffer.put((byte)(upperChecksumByte >> 8));
-                } else {
-                  ensembleBuffer.compact();
-                  ensembleBuffer.put((byte)lowerChecksumByte);
-                  ensembleBuffer.put((byte)(upperChecksumByte >> 8));
-                }
-    
-                // check if the calculated checksum (modulo 65535) is equal
-                // to the true checksum; if so, flush to the data turbine
-                // Also, if the checksums are off by 1 byte, also flush the
-                // data.  We need to troubleshoot this bug CSJ 06/11/2008
-                if ( ( (ensembleChecksum % 65535) == trueChecksum ) ||
-                     ( (ensembleChecksum + 1 ) % 65535 == trueChecksum ) ||
-                     ( (ensembleChecksum - 1 ) % 65535 == trueChecksum ) ) {
-    
-                  // extract just the length of the ensemble bytes out of the
-                  // ensemble buffer, and place it in the channel map as a 
-                  // byte array.  Then, send it to the data turbine.
-                  byte[] ensembleArray = new byte[ensembleByteCount];
-                  ensembleBuffer.flip();
-                  ensembleBuffer.get(ensembleArray);
-    
-                  // send the ensemble to the data turbine
-                  rbnbChannelMap.PutTimeAuto("server");
-                  rbnbChannelMap.PutDataAsByteArray(channelIndex, ensembleArray);
-                  getSource().Flush(rbnbChannelMap);
-                  log.debug(
-                    "flushed: "   + ensembleByteCount          + " "    +
-                    "ens cksum: " + ensembleChecksum           + "\t\t" +
-                    "ens pos: "   + ensembleBuffer.position()  + "\t"   +
-                    "ens rem: "   + ensembleBuffer.remaining() + "\t"   +
-                    "buf pos: "   + buffer.position()          + "\t"   +
-                    "buf rem: "   + buffer.remaining()         + "\t"   +
-                    "state: "     + state
-                  );
-                  log.info("Sent ADCP ensemble to the data turbine.");
-    
-                  // only clear all four bytes if we are not one or two bytes 
-                  // from the end of the byte buffer (i.e. the header id 
-                  // is split or is all in the previous buffer)
-                  if ( byteOne == 0x7f && byteTwo == 0x7f &&
-                       ensembleByteCount > ensembleBytes &&
-                       buffer.position() == 0) {
-                    byteThree = 0x00;
-                    byteFour = 0x00;
-                    log.debug("Cleared ONLY b3, b4.");
-                  } else if ( byteOne == 0x7f && 
-                              ensembleByteCount > ensembleBytes &&
-                              buffer.position() == 1 ) {
-                      buffer.position(buffer.position() -1);
-                      byteTwo = 0x00;
-                      byteThree = 0x00;
-                      byteFour = 0x00;
-                      log.debug("Cleared ONLY b2, b3, b4.");
-    
-                  } else {
-                    byteOne = 0x00;
-                    byteTwo = 0x00;
-                    byteThree = 0x00;
-                    byteFour = 0x00;                      
-                    log.debug("Cleared ALL b1, b2, b3, b4.");
-                  }
-    
-                  //rewind the position to before the next ensemble's header id
-                  if ( buffer.position() >= 2 ) {
-                    buffer.position(buffer.position() - 2);
-                    log.debug("Moved position back two, now: " +
-                                 buffer.position());
-                  }
-    
-    
-                  ensembleBuffer.clear();
-                  ensembleByteCount = 0;
-                  ensembleBytes = 0;
-                  ensembleChecksum = 0;
-                  state = 0;
-                  break;
-    
-                } else {
-    
-                  // The checksums don't match, move on 
-                  log.info("not equal: " +
-                               "calc chksum: " + 
-                               (ensembleChecksum % 65535) +
-                               "\tens chksum: " + trueChecksum +
-                               "\tbuf pos: " + buffer.position() + 
-                               "\tbuf rem: " + buffer.remaining() +
-                               "\tens pos: " + ensembleBuffer.position() + 
-                               "\tens rem: " + ensembleBuffer.remaining() +
-                               "\tstate: " + state);
-    
-                  rbnbChannelMap.Clear();
-                  channelIndex = rbnbChannelMap.Add(getRBNBChannelName());
-                  ensembleBuffer.clear();
-                  ensembleByteCount = 0;
-                  ensembleChecksum = 0;
-                  ensembleBuffer.clear();
-                  state = 0;
-                  break;
-                }                  
-    
-              } else {
-    
-                // still in the middle of the ensemble, keep adding bytes
-                ensembleByteCount++; // add each byte found
-                ensembleChecksum += (byteOne & 0xFF);
-    
-                if ( ensembleBuffer.remaining() > 0 ) {
-                  ensembleBuffer.put(byteOne);
-                  
-                } else {
-                  ensembleBuffer.compact();
-                  ensembleBuffer.put(byteOne);
-                  
-                }
-                
-                break;
-              }                
+            // Flush() keeps the channels, so drop any profile or average 
+            // channels before the next ensemble, which may not have them
+            if ( rbnbChannelMap.NumberOfChannels() > 1 ) {
+              rbnbChannelMap.Clear();
+              channelIndex = rbnbChannelMap.Add(getRBNBChannelName());
+            }
+            framer.release(ensembleArray);
+            log.debug("flushed: " + ensembleArray.length + " bytes, " +
+                      "invalid ensembles so far: " + framer.getInvalidCount());
+            log.info("Sent ADCP ensemble to the data turbine.");
           }
-          // shift the bytes in the FIFO window
-          byteFour = byteThree;
-          byteThree = byteTwo;
-          byteTwo = byteOne;
-
-          log.debug("remaining:\t" + buffer.remaining() +
-                       "\tstate:\t" + state +
-                       "\tens byte count:\t" + ensembleByteCount +
-                       "\tens bytes:\t" + ensembleBytes +
-                       "\tver:\t" + headerIsVerified +
-                       "\tbyte value:\t" + 
-                       new String(Hex.encodeHex((new byte[]{byteOne}))));
         } //end while (more unread bytes)
     
         // prepare the buffer to read in more bytes from the stream
         buffer.compact();
     
-    
       } // end while (more socket bytes to read)
       socket.close();
         
@@ -722,6 +401,117 @@ public class ADCPSource extends RBNBSource {
     return this.sourceHostName;
   }
 
+  /**
+   * A method that decodes the profiles of the given ensemble and puts each
+   * one in the channel map as a single float array, in depth cell order with
+   * beam order within each cell.  Velocities are in m/s, with bad velocities
+   * as NaN.  Ensembles that can't be decoded are logged and skipped, since the
+   * binary ensemble is still sent.
+   *
+   * @param channelMap     the channel map being flushed for the ensemble
+   * @param ensembleArray  the bytes of the ensemble
+   * @throws SAPIException if the data can't be put in the channel map
+   */
+  private void putProfiles(ChannelMap channelMap, byte[] ensembleArray)
+    throws SAPIException {
+
+    try {
+      EnsembleView view = ensembleView.wrap(ByteBuffer.wrap(ensembleArray), 0);
+      int profileLength = view.getProfileLength();
+
+      if ( view.hasDataType(EnsembleDataType.VELOCITY_PROFILE) ) {
+        float[] velocities = new float[profileLength];
+        view.getVelocities(velocities);
+        channelMap.PutDataAsFloat32(channelMap.Add(VELOCITY_CHANNEL), velocities);
+      }
+
+      if ( view.hasDataType(EnsembleDataType.CORRELATION_PROFILE) ) {
+        float[] correlations = new float[profileLength];
+        view.getCorrelations(correlations);
+        channelMap.PutDataAsFloat32(channelMap.Add(CORRELATION_CHANNEL), correlations);
+      }
+
+      if ( view.hasDataType(EnsembleDataType.ECHOINTENSITY_PROFILE) ) {
+        float[] echoIntensities = new float[profileLength];
+        view.getEchoIntensities(echoIntensities);
+        channelMap.PutDataAsFloat32(channelMap.Add(ECHOINTENSITY_CHANNEL), echoIntensities);
+      }
+
+      if ( view.hasDataType(EnsembleDataType.PERCENTGOOD_PROFILE) ) {
+        float[] percentGood = new float[profileLength];
+        view.getPercentGood(percentGood);
+        channelMap.PutDataAsFloat32(channelMap.Add(PERCENTGOOD_CHANNEL), percentGood);
+      }
+
+    } catch ( IndexOutOfBoundsException | IllegalStateException e ) {
+      log.info("Couldn't decode the ensemble profiles: " + e.getMessage());
+    }
+  }
+
+  /**
+   * A method that adds the profiles of the given ensemble to the running
+   * averages and, once an average is complete, puts the mean and variance of
+   * the velocity, echo intensity, and correlation profiles in the channel map
+   * along with the number of ensembles averaged.  The averages are flushed
+   * with the ensemble that completes them.
+   *
+   * @param channelMap     the channel map being flushed for the ensemble
+   * @param ensembleArray  the bytes of the ensemble
+   * @throws SAPIException if the data can't be put in the channel map
+   */
+  private void putAverages(ChannelMap channelMap, byte[] ensembleArray)
+    throws SAPIException {
+
+    if ( ensembleAverager == null ) {
+      ensembleAverager = new EnsembleAverager(ensemblesPerAverage, averagingInterval);
+    }
+
+    try {
+      EnsembleView view = ensembleView.wrap(ByteBuffer.wrap(ensembleArray), 0);
+      if ( ! ensembleAverager.add(view, System.currentTimeMillis() / 1000d) ) {
+        return;
+      }
+    } catch ( IndexOutOfBoundsException | IllegalStateException e ) {
+      log.info("Couldn't average the ensemble profiles: " + e.getMessage());
+      return;
+    }
+
+    EnsembleAverager averager = ensembleAverager;
+    int profileLength = averager.getProfileLength();
+
+    if ( averager.hasVelocities() ) {
+      float[] means = new float[profileLength];
+      float[] variances = new float[profileLength];
+      averager.getMeanVelocities(means);
+      averager.getVelocityVariances(variances);
+      channelMap.PutDataAsFloat32(channelMap.Add(VELOCITY_MEAN_CHANNEL), means);
+      channelMap.PutDataAsFloat32(channelMap.Add(VELOCITY_VARIANCE_CHANNEL), variances);
+    }
+
+    if ( averager.hasEchoIntensities() ) {
+      float[] means = new float[profileLength];
+      float[] variances = new float[profileLength];
+      averager.getMeanEchoIntensities(means);
+      averager.getEchoIntensityVariances(variances);
+      channelMap.PutDataAsFloat32(channelMap.Add(ECHOINTENSITY_MEAN_CHANNEL), means);
+      channelMap.PutDataAsFloat32(channelMap.Add(ECHOINTENSITY_VARIANCE_CHANNEL), variances);
+    }
+
+    if ( averager.hasCorrelations() ) {
+      float[] means = new float[profileLength];
+      float[] variances = new float[profileLength];
+      averager.getMeanCorrelations(means);
+      averager.getCorrelationVariances(variances);
+      channelMap.PutDataAsFloat32(channelMap.Add(CORRELATION_MEAN_CHANNEL), means);
+      channelMap.PutDataAsFloat32(channelMap.Add(CORRELATION_VARIANCE_CHANNEL), variances);
+    }
+
+    channelMap.PutDataAsInt32(channelMap.Add(AVERAGE_COUNT_CHANNEL),
+      new int[] {averager.getEnsembleCount()});
+    log.debug("Published the average of " + averager.getEnsembleCount() + " ensembles.");
+    averager.reset();
+  }
+
   /**
    * A method that returns the name of the RBNB channel that contains the 
    * streaming data from this instrument
@@ -759,6 +549,26 @@ public class ADCPSource extends RBNBSource {
     );
   }
 
+  /**
+   * A method that returns true if the decoded profiles of each ensemble are
+   * published in their own channels
+   *
+   * @return publishingProfiles True if the profiles are published
+   */
+  public boolean isPublishingProfiles() {
+    return this.publishingProfiles;
+  }
+
+  /**
+   * A method that returns true if averaged profiles are published every
+   * few ensembles or seconds, alongside the binary ensembles
+   *
+   * @return publishingAverages True if the averages are published
+   */
+  public boolean isPublishingAverages() {
+    return ( ensemblesPerAverage > 0 || averagingInterval > 0 );
+  }
+
   /**
    * A method that returns true if the RBNB connection is established
    * and if the data streaming Thread has been started
@@ -886,6 +696,25 @@ public class ADCPSource extends RBNBSource {
       }
     }
 
+    // handle the -D option
+    if ( command.hasOption("D") ) {
+      setPublishingProfiles(true);
+    }
+
+    // handle the -A and -T options, test if they're numbers
+    try {
+      if ( command.hasOption("A") ) {
+        setEnsemblesPerAverage(Integer.parseInt(command.getOptionValue("A")));
+      }
+      if ( command.hasOption("T") ) {
+        setAveragingInterval(Double.parseDouble(command.getOptionValue("T")));
+      }
+    } catch ( NumberFormatException nfe ) {
+      log.info("Error: Enter a numeric value for the averaging ensemble " +
+                         "count and interval. " + nfe.getMessage());
+      return false;
+    }
+
     return true;
   }
 
@@ -909,6 +738,38 @@ public class ADCPSource extends RBNBSource {
     this.rbnbChannelName = channelName;
   }
 
+  /**
+   * A method that sets whether or not the decoded profiles of each ensemble
+   * are published in their own channels
+   *
+   * @param publishingProfiles  true to publish the profiles
+   */
+  public void setPublishingProfiles(boolean publishingProfiles) {
+    this.publishingProfiles = publishingProfiles;
+  }
+
+  /**
+   * A method that sets the number of ensembles in each published average.
+   * Set to 0, along with the averaging interval, to publish no averages.
+   *
+   * @param ensemblesPerAverage  the number of ensembles to average
+   */
+  public void setEnsemblesPerAverage(int ensemblesPerAverage) {
+    this.ensemblesPerAverage = Math.max(0, ensemblesPerAverage);
+    this.ensembleAverager = null;
+  }
+
+  /**
+   * A method that sets the number of seconds in each published average.
+   * Set to 0, along with the ensemble count, to publish no averages.
+   *
+   * @param averagingInterval  the number of seconds to average
+   */
+  public void setAveragingInterval(double averagingInterval) {
+    this.averagingInterval = Math.max(0, averagingInterval);
+    this.ensembleAverager = null;
+  }
+
   /**
    * A method that sets the domain name or IP address of the source 
    * instrument (i.e. the serial-to-IP converter to which it is attached)
@@ -956,6 +817,9 @@ public class ADCPSource extends RBNBSource {
     options.addOption("H", true, "Source host name or IP *" + getHostName());
     options.addOption("P", true, "Source host port number *" + getHostPort());    
     options.addOption("C", true, "RBNB source channel name *" + getRBNBChannelName());
+    options.addOption("D", false, "Also publish the decoded profiles as float channels");
+    options.addOption("A", true, "Ensembles per published average *0 (none)");
+    options.addOption("T", true, "Seconds per published average *0 (none)");
     //options.addOption("M", true, "RBNB archive mode *" + getArchiveMode());    
                       
     return options;
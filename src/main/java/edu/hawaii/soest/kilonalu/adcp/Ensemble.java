@@ -32,20 +32,18 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.HashMap;
 
 /**
  * A class that represents a single ensemble of data produced by
  * an RDI 1200kHz Workhorse Acoustic Doppler Current Profiler in the
- * default PD0 format.  This class is built from a series of subcomponents
- * that model each of the sections of data found in an RDI PD0 ensemble. They
- * include:
+ * default PD0 format.  The ensemble is made up of a series of sections of
+ * data, each modeled by a subcomponent class:
  *
  * <ul>
  *   <li> EnsembleHeader (always output)</li>
  *   <li> EnsembleFixedLeader (always output)</li>
- *   <li> EnsembleHeader (always output)</li>
+ *   <li> EnsembleVariableLeader (always output)</li>
  *   <li> EnsembleVelocityProfile (optionally output)</li>
  *   <li> EnsembleCorrelationProfile (optionally output)</li>
  *   <li> EnsembleEchoIntensityProfile (optionally output)</li>
@@ -55,92 +53,34 @@ import java.util.HashMap;
  *   <li> EnsembleStatusProfile (optionally output) [this is unfinished]</li>
  * </ul>
  * <p>
+ *  This class does not build the subcomponents.  It is a facade over an
+ *  EnsembleView, which reads each field at its offset in the ensemble buffer,
+ *  and converts the raw field values into the values described in the manual.
  *  Depending on the settings found in the Header, Fixed Leader, and Variable
- *  Leader, the remaining data objects may or may not be present.  the Ensemble
- *  class tests for their existence, and if found, creates the subcomponents.
+ *  Leader, the optional data types may or may not be present, and the
+ *  has<DataType> fields record which ones were found.
  */
 public class Ensemble {
 
     private Log log = LogFactory.getLog(Ensemble.class);
 
-    /**
-     * A field that stores the RDI reserved BIT data (two bytes) in a ByteBuffer
-     * which contains two bytes of data for internal RDI use.
-     */
-    private ByteBuffer reservedBIT = ByteBuffer.allocate(2);
-
-    /**
-     * A field that stores the Ensemble checksum data (two bytes) in a ByteBuffer
-     * which is used to verify the size of the Ensemble in bytes.  The value of the
-     * checksum is a modulo 65535 number, and must be evaluated as such.
-     */
-    private ByteBuffer checksum = ByteBuffer.allocate(2);
-
-    /**
-     * A field that stores the Ensemble byte count
-     */
-    private int ensembleByteCount = 0;
-
-
-    /*
-     *  An instance of the Header component of the Ensemble
-     */
-    private EnsembleHeader ensembleHeader;
-
-    /*
-     *  An instance of the Fixed Leader component of the Ensemble
-     */
-    private EnsembleFixedLeader ensembleFixedLeader;
-
-    /*
-     *  An instance of the Variable Leader component of the Ensemble
-     */
-    private EnsembleVariableLeader ensembleVariableLeader;
-
-    /*
-     *  An instance of the Velocity Profile component of the Ensemble
-     */
-    private EnsembleVelocityProfile ensembleVelocityProfile;
-
-    /*
-     *  An instance of the Correlation Profile component of the Ensemble
-     */
-    private EnsembleCorrelationProfile ensembleCorrelationProfile;
-
     /*
-     *  An instance of the Echo Intensity Profile component of the Ensemble
+     *  The flyweight view over the ensemble bytes that all of the field
+     *  accessors read from
      */
-    private EnsembleEchoIntensityProfile ensembleEchoIntensityProfile;
+    private final EnsembleView view;
 
     /*
-     *  An instance of the Percent Good Profile component of the Ensemble
+     *  A byte sum variable used to hold the cumulative sum of the bytes read
+     *  from the byte stream by the component classes (EnsembleHeader, etc.)
+     *  when they are built against this ensemble.
      */
-    private EnsemblePercentGoodProfile ensemblePercentGoodProfile;
-
-    /*
-     *  An instance of the Staus Profile component of the Ensemble
-     */
-    private EnsembleStatusProfile ensembleStatusProfile;
-
-    /*
-     *  An instance of the Bottom Track Data component of the Ensemble
-     */
-    private EnsembleBottomTrack ensembleBottomTrack;
-
-    /*
-     *  An instance of the MicroCAT component of the Ensemble
-     */
-    private EnsembleMicroCAT ensembleMicroCAT;
+    private double ensembleByteSum;
 
     /*
-     *  A byte sum variable used to hold the cumulative sum of the bytes read from
-     *  the byte stream for this ensemble.  As each byte of the ensemble is read,
-     *  the byte value should be added to this variable.  Once all of the bytes
-     *  are read, this byte sum should be compared with the checksum found at the
-     *  end of the stream, and the checksum should equal the modulo 65535 value
-     *  of this byte sum.
+     * A field that stores the count of bytes added to the byte sum
      */
-    private double ensembleByteSum;
+    private int ensembleByteCount = 0;
 
     /*
      *  A boolean value indicating whether or not this Ensemble contains
@@ -195,82 +135,25 @@ public class Ensemble {
 
 
     /**
-     * Constructor:  Builds all of the components of the Ensemble from
-     * the ByteBuffer data being passed in.
+     * Constructor:  Wraps the ensemble data being passed in with an
+     * EnsembleView.  The ensemble must start at index 0 of the buffer.  The
+     * buffer is not copied, and its position and limit are not changed, so
+     * it must not be modified while this Ensemble is in use.
      *
      * @param ensembleBuffer the ByteBuffer that contains the binary ensemble data
      */
     public Ensemble(ByteBuffer ensembleBuffer) {
-
-        // first, build the EnsembleHeader to be used in subsequent parsing
-        this.ensembleHeader = new EnsembleHeader(ensembleBuffer, this);
+        this.view = new EnsembleView(ensembleBuffer, 0);
 
         // identify which data types are present in the Ensemble based
         // on the Data Type ID
-        findDataTypes(ensembleBuffer);
-
-        // create the components of the ensemble based on the metadata content
-        // of the EnsembleHeader
-        this.ensembleFixedLeader =
-            new EnsembleFixedLeader(ensembleBuffer, this);
-        this.ensembleVariableLeader =
-            new EnsembleVariableLeader(ensembleBuffer, this);
-
-        // build each of the collected data types
-        if (getNumberOfDataTypes() > 2) {
-
-            // build 'em if we got 'em
-            if (hasVelocityProfile) {
-                this.ensembleVelocityProfile =
-                    new EnsembleVelocityProfile(ensembleBuffer, this);
-            }
-
-            if (hasCorrelationProfile) {
-                this.ensembleCorrelationProfile =
-                    new EnsembleCorrelationProfile(ensembleBuffer, this);
-            }
-
-            if (hasEchoIntensityProfile) {
-                this.ensembleEchoIntensityProfile =
-                    new EnsembleEchoIntensityProfile(ensembleBuffer, this);
-            }
-
-            if (hasPercentGoodProfile) {
-                this.ensemblePercentGoodProfile =
-                    new EnsemblePercentGoodProfile(ensembleBuffer, this);
-            }
-
-            if (hasStatusProfile) {
-                this.ensembleStatusProfile =
-                    new EnsembleStatusProfile(ensembleBuffer, this);
-            }
-
-            if (hasBottomTrackData) {
-                this.ensembleBottomTrack =
-                    new EnsembleBottomTrack(ensembleBuffer, this);
-            }
-
-            if (hasMicroCATData) {
-                this.ensembleMicroCAT =
-                    new EnsembleMicroCAT(ensembleBuffer, this);
-            }
-        }
-
-        // Finally, set the last two fields of the Ensemble
-        byte[] twoBytes = new byte[2];
-        ensembleBuffer.get(twoBytes);
-        setReservedBIT(twoBytes);
-        addToByteSum(twoBytes);
-        ensembleBuffer.get(twoBytes);
-        setChecksum(twoBytes);
-        //addToByteSum(twoBytes); // don't add checksum bytes to ensembleChecksum
+        findDataTypes();
     }
 
     /**
      * A method that adds the given values of the given byte array to the
-     * ensembleByteSum field.  Each byte is added individually in order for the
-     * ensembleByteSum to eventually be compared to the checksum stated in the
-     * data stream.
+     * ensembleByteSum field.  This is used by the component classes
+     * (EnsembleHeader, EnsembleFixedLeader, etc.) as they copy their fields.
      *
      * @param byteArray The byte array to be added
      */
@@ -286,75 +169,59 @@ public class Ensemble {
 
     /**
      * A method that identifies the types of data that are collected in the
-     * given ensemble ByteBuffer.  This method sets the has<DataType> boolean
-     * fields to true if it finds the Data Type ID at one of the Data Type
-     * Offsets in the EnsembleHeader.  It also registers the particular DataType
-     * into the dataTypeMap with the Data Type #, so that we know that, for
-     * instance, the Velocity Profile data type is Data Type #3 in the ensemble.
-     */
-    private void findDataTypes(ByteBuffer ensembleBuffer) {
-
-        // search the ensemble byte buffer for the above IDs at each of the
-        // data type offset locations, and mark them present or not present
-        ensembleBuffer.limit(ensembleBuffer.capacity());
-        ensembleBuffer.position(0);
-
-        for (int i = 1; i <= getNumberOfDataTypes(); i++) {
-            int offset = getDataTypeOffset(i);
-            ensembleBuffer.position(offset);
-            // once the cursor is in place, read the 2-byte ID marker, and test
-            // it against the constant enumerated data types
-            EnsembleDataType dataType = getDataType(
-                (int) ensembleBuffer.order(ByteOrder.LITTLE_ENDIAN).getShort());
-
-            // for each dataType ID marker found in the ensemble, cache it's
-            // sequence location and data type in a HashMap for later processing.
-            // also, set boolean existence values for optional data types
-            switch (dataType) {
+     * ensemble.  This method sets the has<DataType> boolean fields to true if
+     * the view found the Data Type ID at one of the Data Type Offsets in the
+     * header.  It also registers the particular DataType into the dataTypeMap
+     * with the Data Type #, so that we know that, for instance, the Velocity
+     * Profile data type is Data Type #3 in the ensemble.
+     */
+    private void findDataTypes() {
+
+        for (EnsembleDataType dataType : EnsembleDataType.values()) {
+            int dataTypeNumber = view.getDataTypeNumber(dataType);
+            if (dataTypeNumber < 0) {
+                continue;
+            }
+            dataTypeMap.put(dataType, dataTypeNumber);
 
-                case HEADER:
-                    dataTypeMap.put(dataType, i);
-                    break;
-                case FIXED_LEADER:
-                    dataTypeMap.put(dataType, i);
-                    break;
-                case VARIABLE_LEADER:
-                    dataTypeMap.put(dataType, i);
-                    break;
+            switch (dataType) {
                 case VELOCITY_PROFILE:
                     hasVelocityProfile = true;
-                    dataTypeMap.put(dataType, i);
                     break;
                 case CORRELATION_PROFILE:
                     hasCorrelationProfile = true;
-                    dataTypeMap.put(dataType, i);
                     break;
                 case ECHOINTENSITY_PROFILE:
                     hasEchoIntensityProfile = true;
-                    dataTypeMap.put(dataType, i);
                     break;
                 case PERCENTGOOD_PROFILE:
                     hasPercentGoodProfile = true;
-                    dataTypeMap.put(dataType, i);
                     break;
                 case STATUS_PROFILE:
                     hasStatusProfile = true;
-                    dataTypeMap.put(dataType, i);
                     break;
                 case BOTTOMTRACK_DATA:
                     hasBottomTrackData = true;
-                    dataTypeMap.put(dataType, i);
                     break;
                 case MICROCAT_DATA:
                     hasMicroCATData = true;
-                    dataTypeMap.put(dataType, i);
+                    break;
+                default:
                     break;
             }
-            // prepare the buffer for rereading of the next dataType
-            ensembleBuffer.rewind();
         }
     }
 
+    /**
+     * A method that returns the flyweight view over the ensemble bytes, for
+     * callers that want the raw field values without conversion.
+     *
+     * @return view The ensemble view
+     */
+    public EnsembleView getView() {
+        return view;
+    }
+
     /**
      * A method that returns the Ensemble checksum field contents
      * as a int.
@@ -362,17 +229,7 @@ public class Ensemble {
      * @return csum The checksum of the Ensemble
      */
     public int getChecksum() {
-        this.checksum.limit(this.checksum.capacity());
-        this.checksum.position(0);
-        int csum = 0;
-        byte[] b = new byte[2];
-        b[0] = this.checksum.get();
-        b[1] = this.checksum.get();
-
-        csum |= b[1] & 0xFF;
-        csum <<= 8;
-        csum |= b[0] & 0xFF;
-        return csum;
+        return view.getChecksum();
     }
 
     /**
@@ -382,8 +239,7 @@ public class Ensemble {
      * @return headerID The header ID
      */
     public int getHeaderID() {
-        return (int) ensembleHeader.getHeaderID().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getHeaderID();
     }
 
     /**
@@ -393,7 +249,7 @@ public class Ensemble {
      * @return headerSpare The header spare
      */
     public int getHeaderSpare() {
-        return (int) ensembleHeader.getHeaderSpare().get();
+        return (int) view.getHeaderSpare();
     }
 
     /**
@@ -405,41 +261,7 @@ public class Ensemble {
      * @return returnType The Ensemble data type
      */
     public EnsembleDataType getDataType(int dataTypeID) {
-
-        EnsembleDataType returnType = null;
-
-        // compare the given dataTypeID
-        if (dataTypeID == 0x7f7f) {
-            returnType = EnsembleDataType.HEADER;
-        }
-        if (dataTypeID == 0x0000) {
-            returnType = EnsembleDataType.FIXED_LEADER;
-        }
-        if (dataTypeID == 0x0080) {
-            returnType = EnsembleDataType.VARIABLE_LEADER;
-        }
-        if (dataTypeID == 0x0100) {
-            returnType = EnsembleDataType.VELOCITY_PROFILE;
-        }
-        if (dataTypeID == 0x0200) {
-            returnType = EnsembleDataType.CORRELATION_PROFILE;
-        }
-        if (dataTypeID == 0x0300) {
-            returnType = EnsembleDataType.ECHOINTENSITY_PROFILE;
-        }
-        if (dataTypeID == 0x0400) {
-            returnType = EnsembleDataType.PERCENTGOOD_PROFILE;
-        }
-        if (dataTypeID == 0x0500) {
-            returnType = EnsembleDataType.STATUS_PROFILE;
-        }
-        if (dataTypeID == 0x0600) {
-            returnType = EnsembleDataType.BOTTOMTRACK_DATA;
-        }
-        if (dataTypeID == 0x0800) {
-            returnType = EnsembleDataType.MICROCAT_DATA;
-        }
-        return returnType;
+        return EnsembleView.getDataType(dataTypeID);
     }
 
     /**
@@ -463,8 +285,7 @@ public class Ensemble {
      * @return dataTypeOffset The offset for the data type
      */
     public int getDataTypeOffset(int dataTypeNumber) {
-        ByteBuffer dataTypeOffset = ensembleHeader.getDataTypeOffset(dataTypeNumber);
-        return (int) dataTypeOffset.order(ByteOrder.LITTLE_ENDIAN).getShort();
+        return view.getDataTypeOffset(dataTypeNumber);
     }
 
     /**
@@ -474,8 +295,7 @@ public class Ensemble {
      * @return bytes The number of bytes in the Ensemble
      */
     public int getNumberOfBytesInEnsemble() {
-        return (int) ensembleHeader.getNumberOfBytesInEnsemble().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return view.getNumberOfBytesInEnsemble();
     }
 
     /**
@@ -485,10 +305,7 @@ public class Ensemble {
      * @return numberOfDataTypes The number of data types
      */
     public int getNumberOfDataTypes() {
-        ByteBuffer numberOfDataTypes = ensembleHeader.getNumberOfDataTypes();
-        numberOfDataTypes.limit(numberOfDataTypes.capacity());
-        numberOfDataTypes.position(0);
-        return (int) numberOfDataTypes.get();
+        return view.getNumberOfDataTypes();
     }
 
     /**
@@ -498,9 +315,7 @@ public class Ensemble {
      * @return reservedBIT The reserved bit
      */
     public int getReservedBIT() {
-        this.reservedBIT.limit(this.reservedBIT.capacity());
-        this.reservedBIT.position(0);
-        return (int) this.reservedBIT.order(ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getReservedBIT();
     }
 
     /**
@@ -510,8 +325,7 @@ public class Ensemble {
      * @return baseFrquencyIndex The base frequency index
      */
     public int getBaseFrequencyIndex() {
-        return (int) ensembleFixedLeader.getBaseFrequencyIndex().order(
-            ByteOrder.LITTLE_ENDIAN).get();
+        return (int) view.getBaseFrequencyIndex();
     }
 
     /**
@@ -521,7 +335,7 @@ public class Ensemble {
      * @return beamAngle The beam angle
      */
     public int getBeamAngle() {
-        return ensembleFixedLeader.getBeamAngle().get();
+        return view.getBeamAngle();
     }
 
     /**
@@ -531,8 +345,7 @@ public class Ensemble {
      * @return binOneDistance The distance to the first bin
      */
     public int getBinOneDistance() {
-        return (int) ensembleFixedLeader.getBinOneDistance().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getBinOneDistance();
     }
 
     /**
@@ -542,8 +355,7 @@ public class Ensemble {
      * @return blankAfterTransmit The blank after transmit field
      */
     public int getBlankAfterTransmit() {
-        return (int) ensembleFixedLeader.getBlankAfterTransmit().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getBlankAfterTransmit();
     }
 
     /**
@@ -558,7 +370,7 @@ public class Ensemble {
      */
     public int getCoordinateTransformParams() {
         int coordTransform =
-            (int) ensembleFixedLeader.getCoordinateTransformParams().get();
+            (int) view.getCoordinateTransformParams();
         coordTransform = (coordTransform >> 3) << 3; // clear the first 7 bits
         coordTransform = (coordTransform << 27) >> 27; // clear all but bits 4,5
 
@@ -585,8 +397,6 @@ public class Ensemble {
                 returnValue = 4;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -600,7 +410,7 @@ public class Ensemble {
      */
     public int getTransformTiltsSetting() {
         int coordTransform =
-            (int) ensembleFixedLeader.getCoordinateTransformParams().get();
+            (int) view.getCoordinateTransformParams();
         coordTransform = (coordTransform >> 2) << 2; // clear the first 2 bits
         coordTransform = (coordTransform << 29) >> 29; // clear all but bit 3
 
@@ -619,8 +429,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -634,7 +442,7 @@ public class Ensemble {
      */
     public int getTransformThreeBeamSetting() {
         int coordTransform =
-            (int) ensembleFixedLeader.getCoordinateTransformParams().get();
+            (int) view.getCoordinateTransformParams();
         coordTransform = (coordTransform >> 1) << 1;   // clear bit 1
         coordTransform = (coordTransform << 30) >> 30; // clear all but bit 2
 
@@ -653,8 +461,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -666,7 +472,7 @@ public class Ensemble {
      */
     public int getTransformBinMappingSetting() {
         int coordTransform =
-            (int) ensembleFixedLeader.getCoordinateTransformParams().get();
+            (int) view.getCoordinateTransformParams();
         coordTransform = (coordTransform << 31) >> 31; // clear all but bit 1
 
         int returnValue = 0;
@@ -684,8 +490,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -697,7 +501,7 @@ public class Ensemble {
      * @return firmwareRevision The revision of the firmware
      */
     public int getCpuFirmwareRevision() {
-        return (int) ensembleFixedLeader.getCpuFirmwareRevision().get();
+        return (int) view.getCpuFirmwareRevision();
     }
 
     /**
@@ -707,7 +511,7 @@ public class Ensemble {
      * @return cpufirmwareRevision The CPU firmware revision
      */
     public int getCpuFirmwareVersion() {
-        return (int) ensembleFixedLeader.getCpuFirmwareVersion().get();
+        return (int) view.getCpuFirmwareVersion();
     }
 
     /**
@@ -717,8 +521,7 @@ public class Ensemble {
      * @return cpuBoardSerialNumber The CPU board serial number
      */
     public double getCpuBoardSerialNumber() {
-        return ensembleFixedLeader.getCpuBoardSerialNumber().order(
-            ByteOrder.LITTLE_ENDIAN).getDouble();
+        return Double.longBitsToDouble(view.getCpuBoardSerialNumber());
     }
 
     /**
@@ -728,8 +531,7 @@ public class Ensemble {
      * @return depthCellLength The depth cell length
      */
     public int getDepthCellLength() {
-        return (int) ensembleFixedLeader.getDepthCellLength().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getDepthCellLength();
     }
 
     /**
@@ -739,8 +541,7 @@ public class Ensemble {
      * @return errorVelocityThreshold The error velocity threshold
      */
     public int getErrorVelocityThreshold() {
-        return (int) ensembleFixedLeader.getErrorVelocityThreshold().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getErrorVelocityThreshold();
     }
 
     /**
@@ -750,7 +551,7 @@ public class Ensemble {
      * @return falseTargetThreshold The false target threshold
      */
     public int getFalseTargetThreshold() {
-        return (int) ensembleFixedLeader.getFalseTargetThreshold().get();
+        return (int) view.getFalseTargetThreshold();
     }
 
     /**
@@ -760,8 +561,7 @@ public class Ensemble {
      * @return fixedLeaderID The fixed leader ID
      */
     public int getFixedLeaderID() {
-        return (int) ensembleFixedLeader.getFixedLeaderID().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getFixedLeaderID();
     }
 
     /**
@@ -771,7 +571,7 @@ public class Ensemble {
      * @return fixedLeaderSpare The fixed leader spare
      */
     public int getFixedLeaderSpare() {
-        return (int) ensembleFixedLeader.getFixedLeaderSpare().get();
+        return (int) view.getFixedLeaderSpare();
     }
 
     /**
@@ -781,8 +581,7 @@ public class Ensemble {
      * @return headingAlignment The heading alignment
      */
     public float getHeadingAlignment() {
-        return ensembleFixedLeader.getHeadingAlignment().order(
-            ByteOrder.LITTLE_ENDIAN).getFloat();
+        return view.getHeadingAlignment() / 100f;
     }
 
     /**
@@ -792,8 +591,7 @@ public class Ensemble {
      * @return headingBias The heading bias
      */
     public float getHeadingBias() {
-        return ensembleFixedLeader.getHeadingBias().order(
-            ByteOrder.LITTLE_ENDIAN).getFloat();
+        return view.getHeadingBias() / 100f;
     }
 
     /**
@@ -803,7 +601,7 @@ public class Ensemble {
      * @return lagLength The lag length
      */
     public int getLagLength() {
-        return (int) ensembleFixedLeader.getLagLength().get();
+        return (int) view.getLagLength();
     }
 
     /**
@@ -813,7 +611,7 @@ public class Ensemble {
      * @return lowCorrelationThreshold The low correlation threshold
      */
     public int getLowCorrelationThreshold() {
-        return (int) ensembleFixedLeader.getLowCorrelationThreshold().get();
+        return (int) view.getLowCorrelationThreshold();
     }
 
     /**
@@ -823,7 +621,7 @@ public class Ensemble {
      * @return numberOfBeams The number of beams
      */
     public int getNumberOfBeams() {
-        return ensembleFixedLeader.getNumberOfBeams().get();
+        return view.getNumberOfBeams();
     }
 
     /**
@@ -833,7 +631,7 @@ public class Ensemble {
      * @return numberOfCells The number of cells
      */
     public int getNumberOfCells() {
-        return (int) ensembleFixedLeader.getNumberOfCells().get();
+        return (int) view.getNumberOfCells();
     }
 
 
@@ -844,7 +642,7 @@ public class Ensemble {
      * @return numberOfCodeRepetitions The number of code repetitions
      */
     public int getNumberOfCodeRepetitions() {
-        return (int) ensembleFixedLeader.getNumberOfCodeRepetitions().get();
+        return (int) view.getNumberOfCodeRepetitions();
     }
 
     /**
@@ -854,7 +652,7 @@ public class Ensemble {
      * @return pdRealOrSimulatedFlag The PD real or simulated flag
      */
     public int getPdRealOrSimulatedFlag() {
-        return (int) ensembleFixedLeader.getPdRealOrSimulatedFlag().get();
+        return (int) view.getPdRealOrSimulatedFlag();
     }
 
     /**
@@ -864,7 +662,7 @@ public class Ensemble {
      * @return percentGoodMinimum The percent good minimum
      */
     public int getPercentGoodMinimum() {
-        return (int) ensembleFixedLeader.getPercentGoodMinimum().get();
+        return (int) view.getPercentGoodMinimum();
     }
 
     /**
@@ -874,7 +672,7 @@ public class Ensemble {
      * @return pingHundredths The ping hundredths
      */
     public int getPingHundredths() {
-        return (int) ensembleFixedLeader.getPingHundredths().get();
+        return (int) view.getPingHundredths();
     }
 
     /**
@@ -884,7 +682,7 @@ public class Ensemble {
      * @return pingMinutes The ping minutes
      */
     public int getPingMinutes() {
-        return (int) ensembleFixedLeader.getPingMinutes().get();
+        return (int) view.getPingMinutes();
     }
 
     /**
@@ -894,7 +692,7 @@ public class Ensemble {
      * @return pingSeconds The ping seconds
      */
     public int getPingSeconds() {
-        return (int) ensembleFixedLeader.getPingSeconds().get();
+        return (int) view.getPingSeconds();
     }
 
     /**
@@ -904,8 +702,7 @@ public class Ensemble {
      * @return pingsPerEnsemble The pings per ensemble
      */
     public int getPingsPerEnsemble() {
-        return (int) ensembleFixedLeader.getPingsPerEnsemble().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getPingsPerEnsemble();
     }
 
     /**
@@ -915,7 +712,7 @@ public class Ensemble {
      * @return profilingMode The profiling mode
      */
     public int getProfilingMode() {
-        return (int) ensembleFixedLeader.getProfilingMode().get();
+        return (int) view.getProfilingMode();
     }
 
     /**
@@ -925,7 +722,7 @@ public class Ensemble {
      * @return referenceLayerEnd The reference layer end
      */
     public int getReferenceLayerEnd() {
-        return (int) ensembleFixedLeader.getReferenceLayerEnd().get();
+        return (int) view.getReferenceLayerEnd();
     }
 
     /**
@@ -935,7 +732,7 @@ public class Ensemble {
      * @return referenceLayerStart The reference layer start
      */
     public int getReferenceLayerStart() {
-        return (int) ensembleFixedLeader.getReferenceLayerStart().get();
+        return (int) view.getReferenceLayerStart();
     }
 
     /**
@@ -945,7 +742,7 @@ public class Ensemble {
      * @return sensorAvailability The sensor availability
      */
     public int getSensorAvailability() {
-        return (int) ensembleFixedLeader.getSensorAvailability().get();
+        return (int) view.getSensorAvailability();
     }
 
     /**
@@ -955,7 +752,7 @@ public class Ensemble {
      * @return sensorSource The sensor source
      */
     public int getSensorSource() {
-        return (int) ensembleFixedLeader.getSensorSource().get();
+        return (int) view.getSensorSource();
     }
 
     /**
@@ -967,7 +764,7 @@ public class Ensemble {
      * @return speedOfSoundSetting The speed of sound setting
      */
     public int getSensorSpeedOfSoundSetting() {
-        int sensorSetting = (int) ensembleFixedLeader.getSensorSource().get();
+        int sensorSetting = (int) view.getSensorSource();
         sensorSetting = (sensorSetting >> 6) << 6; // clear the first 6 bits
         sensorSetting = (sensorSetting << 25) >> 25; // clear all but bit 7
 
@@ -986,8 +783,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the sensorSource ByteBuffer for other get methods
-        ensembleFixedLeader.getSensorSource().rewind();
 
         return returnValue;
     }
@@ -1001,7 +796,7 @@ public class Ensemble {
      * @return sensorDepthSetting The sensor depth setting
      */
     public int getSensorDepthSetting() {
-        int sensorSetting = (int) ensembleFixedLeader.getSensorSource().get();
+        int sensorSetting = (int) view.getSensorSource();
         sensorSetting = (sensorSetting >> 5) << 5; // clear the first 5 bits
         sensorSetting = (sensorSetting << 26) >> 26; // clear all but bit 6
 
@@ -1020,8 +815,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the sensorSource ByteBuffer for other get methods
-        ensembleFixedLeader.getSensorSource().rewind();
 
         return returnValue;
     }
@@ -1035,7 +828,7 @@ public class Ensemble {
      * @return sensorHeading The sensor heading
      */
     public int getSensorHeadingSetting() {
-        int sensorSetting = (int) ensembleFixedLeader.getSensorSource().get();
+        int sensorSetting = (int) view.getSensorSource();
         sensorSetting = (sensorSetting >> 4) << 4; // clear the first 4 bits
         sensorSetting = (sensorSetting << 27) >> 27; // clear all but bit 5
 
@@ -1054,8 +847,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the sensorSource ByteBuffer for other get methods
-        ensembleFixedLeader.getSensorSource().rewind();
 
         return returnValue;
     }
@@ -1069,7 +860,7 @@ public class Ensemble {
      * @return sensorPitch The sensor pitch
      */
     public int getSensorPitchSetting() {
-        int sensorSetting = (int) ensembleFixedLeader.getSensorSource().get();
+        int sensorSetting = (int) view.getSensorSource();
         sensorSetting = (sensorSetting >> 3) << 3; // clear the first 3 bits
         sensorSetting = (sensorSetting << 28) >> 28; // clear all but bit 4
 
@@ -1088,8 +879,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the sensorSource ByteBuffer for other get methods
-        ensembleFixedLeader.getSensorSource().rewind();
 
         return returnValue;
     }
@@ -1103,7 +892,7 @@ public class Ensemble {
      * @return sensorRoll The sensor roll
      */
     public int getSensorRollSetting() {
-        int sensorSetting = (int) ensembleFixedLeader.getSensorSource().get();
+        int sensorSetting = (int) view.getSensorSource();
         sensorSetting = (sensorSetting >> 2) << 2; // clear the first 2 bits
         sensorSetting = (sensorSetting << 29) >> 29; // clear all but bit 3
 
@@ -1122,8 +911,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the sensorSource ByteBuffer for other get methods
-        ensembleFixedLeader.getSensorSource().rewind();
 
         return returnValue;
     }
@@ -1137,7 +924,7 @@ public class Ensemble {
      * @return sensorSalinity The sensor salinity setting
      */
     public int getSensorSalinitySetting() {
-        int sensorSetting = (int) ensembleFixedLeader.getSensorSource().get();
+        int sensorSetting = (int) view.getSensorSource();
         sensorSetting = (sensorSetting >> 1) << 1; // clear the first bit
         sensorSetting = (sensorSetting << 30) >> 30; // clear all but bit 2
 
@@ -1156,8 +943,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the sensorSource ByteBuffer for other get methods
-        ensembleFixedLeader.getSensorSource().rewind();
 
         return returnValue;
     }
@@ -1171,7 +956,7 @@ public class Ensemble {
      * @return sensorTemperature The sensor temperature setting
      */
     public int getSensorTemperatureSetting() {
-        int sensorSetting = (int) ensembleFixedLeader.getSensorSource().get();
+        int sensorSetting = (int) view.getSensorSource();
         sensorSetting = (sensorSetting << 31) >> 31; // clear all but bit 1
 
         int returnValue = 0;
@@ -1189,8 +974,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the sensorSource ByteBuffer for other get methods
-        ensembleFixedLeader.getSensorSource().rewind();
 
         return returnValue;
     }
@@ -1202,8 +985,7 @@ public class Ensemble {
      * @return serialNumber The sensor serial number
      */
     public int getSerialNumber() {
-        return ensembleFixedLeader.getSerialNumber().order(
-            ByteOrder.LITTLE_ENDIAN).getInt();
+        return view.getSerialNumber();
     }
 
     /**
@@ -1213,7 +995,8 @@ public class Ensemble {
      * @return signalProcessingMode The signal processing mode
      */
     public int getSignalProcessingMode() {
-        return (int) ensembleFixedLeader.getSignalProcessingMode().get();
+        // not output by Workhorse ADCPs
+        return 0;
     }
 
     /**
@@ -1223,8 +1006,7 @@ public class Ensemble {
      * @return systemBandwidth The system bandwidth
      */
     public int getSystemBandwidth() {
-        return (int) ensembleFixedLeader.getSystemBandwidth().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getSystemBandwidth();
     }
 
     /**
@@ -1234,8 +1016,7 @@ public class Ensemble {
      * @return systemConfiguration The system configuration
      */
     public int getSystemConfiguration() {
-        return (int) ensembleFixedLeader.getSystemConfiguration().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getSystemConfiguration();
     }
 
     /**
@@ -1247,8 +1028,7 @@ public class Ensemble {
      * @return beamPattern The beam pattern
      */
     public int getBeamPattern() {
-        int systemConfig = (int) ensembleFixedLeader.getSystemConfiguration().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        int systemConfig = (int) view.getSystemConfiguration();
         int returnValue = 0;
 
         systemConfig = (systemConfig >> 3) << 3; // clear the first 3 bits
@@ -1267,8 +1047,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -1282,8 +1060,7 @@ public class Ensemble {
      * @return beamDirection The beam direction
      */
     public int getBeamDirection() {
-        int systemConfig = (int) ensembleFixedLeader.getSystemConfiguration().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        int systemConfig = (int) view.getSystemConfiguration();
         int returnValue = 0;
 
         systemConfig = (systemConfig >> 7) << 7; // clear the first 7 bits
@@ -1302,8 +1079,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -1317,8 +1092,7 @@ public class Ensemble {
      * @return transducerAttachement The transducer attachement
      */
     public int getTransducerAttachment() {
-        int systemConfig = (int) ensembleFixedLeader.getSystemConfiguration().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        int systemConfig = (int) view.getSystemConfiguration();
         int returnValue = 0;
 
         systemConfig = (systemConfig >> 6) << 6; // clear the first 6 bits
@@ -1337,8 +1111,6 @@ public class Ensemble {
                 returnValue = 1;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -1351,8 +1123,7 @@ public class Ensemble {
      * @return systemFequency The system frequency
      */
     public int getSystemFrequency() {
-        int systemConfig = (int) ensembleFixedLeader.getSystemConfiguration().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        int systemConfig = (int) view.getSystemConfiguration();
         int returnValue = 0;
 
         systemConfig = (systemConfig << 29) >> 29; // clear all but first 3 bits
@@ -1386,8 +1157,6 @@ public class Ensemble {
                 returnValue = 2400;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -1401,8 +1170,7 @@ public class Ensemble {
      * @return sensorConfiguration The sensor configuration
      */
     public int getSensorConfiguration() {
-        int systemConfig = (int) ensembleFixedLeader.getSystemConfiguration().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        int systemConfig = (int) view.getSystemConfiguration();
         int returnValue = 0;
 
         systemConfig = (systemConfig >> 4) << 4; // clear the first 4 bits
@@ -1425,8 +1193,6 @@ public class Ensemble {
                 returnValue = 3;
                 break;
         }
-        // reset the systemConfiguration ByteBuffer for other get methods
-        ensembleFixedLeader.getSystemConfiguration().rewind();
 
         return returnValue;
     }
@@ -1438,7 +1204,7 @@ public class Ensemble {
      * @return systemPower The system power
      */
     public int getSystemPower() {
-        return (int) ensembleFixedLeader.getSystemPower().get();
+        return (int) view.getSystemPower();
     }
 
     /**
@@ -1448,8 +1214,7 @@ public class Ensemble {
      * @return transmitLagDistance The transmit lag distance
      */
     public int getTransmitLagDistance() {
-        return (int) ensembleFixedLeader.getTransmitLagDistance().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getTransmitLagDistance();
     }
 
     /**
@@ -1459,8 +1224,7 @@ public class Ensemble {
      * @return transmitPulseLength The transmit pulse length
      */
     public int getTransmitPulseLength() {
-        return (int) ensembleFixedLeader.getTransmitPulseLength().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getTransmitPulseLength();
     }
 
     // CSJ review the getShort() call below !!!!!!!
@@ -1473,7 +1237,7 @@ public class Ensemble {
      */
     public int getVariableLeaderID() {
         // do we need to reverse the byte order of the incoming short?? CSJ
-        return (int) ensembleVariableLeader.getVariableLeaderID().get();
+        return (int) (byte) view.getVariableLeaderID();
 
     }
 
@@ -1484,8 +1248,7 @@ public class Ensemble {
      * @return ensembleNumber The ensemble number
      */
     public int getEnsembleNumber() {
-        return (int) ensembleVariableLeader.getEnsembleNumber().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getEnsembleNumber();
     }
 
     /**
@@ -1495,7 +1258,7 @@ public class Ensemble {
      * @return realTimeClockYear The realtime clock year
      */
     public int getRealTimeClockYear() {
-        return (int) ensembleVariableLeader.getRealTimeClockYear().get();
+        return (int) view.getRealTimeClockYear();
     }
 
     /**
@@ -1505,7 +1268,7 @@ public class Ensemble {
      * @return realTimeClockMonth The realtime clock month
      */
     public int getRealTimeClockMonth() {
-        return (int) ensembleVariableLeader.getRealTimeClockMonth().get();
+        return (int) view.getRealTimeClockMonth();
     }
 
     /**
@@ -1515,7 +1278,7 @@ public class Ensemble {
      * @return realTimeClockDay The realtime clock day
      */
     public int getRealTimeClockDay() {
-        return (int) ensembleVariableLeader.getRealTimeClockDay().get();
+        return (int) view.getRealTimeClockDay();
     }
 
     /**
@@ -1525,7 +1288,7 @@ public class Ensemble {
      * @return realTimeClockHour The realtime clock hour
      */
     public int getRealTimeClockHour() {
-        return (int) ensembleVariableLeader.getRealTimeClockHour().get();
+        return (int) view.getRealTimeClockHour();
     }
 
     /**
@@ -1535,7 +1298,7 @@ public class Ensemble {
      * @return realTimeClockminute The realtime clock minute
      */
     public int getRealTimeClockMinute() {
-        return (int) ensembleVariableLeader.getRealTimeClockMinute().get();
+        return (int) view.getRealTimeClockMinute();
     }
 
     /**
@@ -1545,7 +1308,7 @@ public class Ensemble {
      * @return realTimeClockSecond The realtime clock second
      */
     public int getRealTimeClockSecond() {
-        return (int) ensembleVariableLeader.getRealTimeClockSecond().get();
+        return (int) view.getRealTimeClockSecond();
     }
 
     /**
@@ -1555,7 +1318,7 @@ public class Ensemble {
      * @return realTimeClockHundredths The realtime clock hundredths
      */
     public int getRealTimeClockHundredths() {
-        return (int) ensembleVariableLeader.getRealTimeClockHundredths().get();
+        return (int) view.getRealTimeClockHundredths();
     }
 
     /**
@@ -1565,7 +1328,7 @@ public class Ensemble {
      * @return numberIncrement The number increment
      */
     public int getEnsembleNumberIncrement() {
-        return (int) ensembleVariableLeader.getEnsembleNumberIncrement().get();
+        return (int) view.getEnsembleNumberIncrement();
     }
 
     /**
@@ -1575,8 +1338,7 @@ public class Ensemble {
      * @return testResult The built in test result
      */
     public short getBuiltInTestResult() {
-        return ensembleVariableLeader.getBuiltInTestResult().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return view.getBuiltInTestResult();
     }
 
     /**
@@ -1586,8 +1348,7 @@ public class Ensemble {
      * @return speedOfSound The speed of sound
      */
     public int getSpeedOfSound() {
-        return (int) ensembleVariableLeader.getSpeedOfSound().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getSpeedOfSound();
     }
 
     /**
@@ -1597,8 +1358,7 @@ public class Ensemble {
      * @return depthOfTransducer The depth of the transducer
      */
     public float getDepthOfTransducer() {
-        short value = ensembleVariableLeader.getDepthOfTransducer().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        short value = view.getDepthOfTransducer();
         int exp = (value / 10) * 10;
         int valueAsInt = (int) value;
         int man = valueAsInt - exp;
@@ -1615,8 +1375,7 @@ public class Ensemble {
      * @return heading the ensemble heading
      */
     public float getHeading() {
-        short value = ensembleVariableLeader.getHeading().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        short value = view.getHeading();
         int exp = (value / 100) * 100;
         int valueAsInt = (int) value;
         int man = valueAsInt - exp;
@@ -1633,8 +1392,7 @@ public class Ensemble {
      * @return pitch The ensemble pitch
      */
     public float getPitch() {
-        short value = ensembleVariableLeader.getPitch().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        short value = view.getPitch();
         int exp = (value / 100) * 100;
         int valueAsInt = (int) value;
         int man = valueAsInt - exp;
@@ -1651,8 +1409,7 @@ public class Ensemble {
      * @return roll The ensemble roll
      */
     public float getRoll() {
-        short value = ensembleVariableLeader.getRoll().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        short value = view.getRoll();
         int exp = (value / 100) * 100;
         int valueAsInt = (int) value;
         int man = valueAsInt - exp;
@@ -1669,8 +1426,7 @@ public class Ensemble {
      * @return salinity The salinity
      */
     public int getSalinity() {
-        short value = ensembleVariableLeader.getSalinity().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        short value = view.getSalinity();
         return (int) value;
     }
 
@@ -1681,8 +1437,7 @@ public class Ensemble {
      * @return temperature The temperature
      */
     public float getTemperature() {
-        short value = ensembleVariableLeader.getTemperature().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        short value = view.getTemperature();
         int exp = (value / 100) * 100;
         int valueAsInt = (int) value;
         int man = valueAsInt - exp;
@@ -1699,7 +1454,7 @@ public class Ensemble {
      * @return minimumPrePingWaitMinutes The minimum pre ping wait minutes
      */
     public int getMinPrePingWaitMinutes() {
-        return (int) ensembleVariableLeader.getMinPrePingWaitMinutes().get();
+        return (int) view.getMinPrePingWaitMinutes();
     }
 
     /**
@@ -1709,7 +1464,7 @@ public class Ensemble {
      * @return minimumPrePingWaitSeconds The minimum pre ping wait seconds
      */
     public int getMinPrePingWaitSeconds() {
-        return (int) ensembleVariableLeader.getMinPrePingWaitSeconds().get();
+        return (int) view.getMinPrePingWaitSeconds();
     }
 
     /**
@@ -1719,7 +1474,7 @@ public class Ensemble {
      * @return minimumPrePingWaitHundredths The minimum pre ping wait hundredths
      */
     public int getMinPrePingWaitHundredths() {
-        return (int) ensembleVariableLeader.getMinPrePingWaitHundredths().get();
+        return (int) view.getMinPrePingWaitHundredths();
     }
 
     /**
@@ -1729,7 +1484,7 @@ public class Ensemble {
      * @return headingStandardDeviation The heading standard deviation
      */
     public float getHeadingStandardDeviation() {
-        return (float) ensembleVariableLeader.getHeadingStandardDeviation().get();
+        return (float) view.getHeadingStandardDeviation();
     }
 
     /**
@@ -1739,7 +1494,7 @@ public class Ensemble {
      * @return pitchStandardDeviation The pitch standard deviation
      */
     public float getPitchStandardDeviation() {
-        return (float) ensembleVariableLeader.getPitchStandardDeviation().get();
+        return (float) view.getPitchStandardDeviation();
     }
 
     /**
@@ -1749,7 +1504,7 @@ public class Ensemble {
      * @return rollStandardDeviation The roll standard deviation
      */
     public float getRollStandardDeviation() {
-        return (float) ensembleVariableLeader.getRollStandardDeviation().get();
+        return (float) view.getRollStandardDeviation();
     }
 
     /**
@@ -1759,7 +1514,7 @@ public class Ensemble {
      * @return adcChannelZero The ADC channel zero
      */
     public byte getADCChannelZero() {
-        return ensembleVariableLeader.getADCChannelZero().get();
+        return view.getADCChannel(0);
     }
 
     /**
@@ -1769,7 +1524,7 @@ public class Ensemble {
      * @return adcChannelOne The ADC channel one
      */
     public byte getADCChannelOne() {
-        return ensembleVariableLeader.getADCChannelOne().get();
+        return view.getADCChannel(1);
     }
 
     /**
@@ -1779,7 +1534,7 @@ public class Ensemble {
      * @return adcChannelTwo The ADC channel two
      */
     public byte getADCChannelTwo() {
-        return ensembleVariableLeader.getADCChannelTwo().get();
+        return view.getADCChannel(2);
     }
 
     /**
@@ -1789,7 +1544,7 @@ public class Ensemble {
      * @return adcChannelThree The ADC channel three
      */
     public byte getADCChannelThree() {
-        return ensembleVariableLeader.getADCChannelThree().get();
+        return view.getADCChannel(3);
     }
 
     /**
@@ -1799,7 +1554,7 @@ public class Ensemble {
      * @return adcChannelFour The ADC channel four
      */
     public byte getADCChannelFour() {
-        return ensembleVariableLeader.getADCChannelFour().get();
+        return view.getADCChannel(4);
     }
 
     /**
@@ -1809,7 +1564,7 @@ public class Ensemble {
      * @return adcChannelFive The ADC channel five
      */
     public byte getADCChannelFive() {
-        return ensembleVariableLeader.getADCChannelFive().get();
+        return view.getADCChannel(5);
     }
 
     /**
@@ -1819,7 +1574,7 @@ public class Ensemble {
      * @return adcChannelSix The ADC channel six
      */
     public byte getADCChannelSix() {
-        return ensembleVariableLeader.getADCChannelSix().get();
+        return view.getADCChannel(6);
     }
 
     /**
@@ -1829,7 +1584,7 @@ public class Ensemble {
      * @return adcChannelSeven The ADC channel seven
      */
     public byte getADCChannelSeven() {
-        return ensembleVariableLeader.getADCChannelSeven().get();
+        return view.getADCChannel(7);
     }
 
     /**
@@ -1839,8 +1594,7 @@ public class Ensemble {
      * @return errorStatusWord The error status word
      */
     public int getErrorStatusWord() {
-        return ensembleVariableLeader.getErrorStatusWord().order(
-            ByteOrder.LITTLE_ENDIAN).getInt();
+        return view.getErrorStatusWord();
     }
 
     /**
@@ -1850,8 +1604,7 @@ public class Ensemble {
      * @return spareFieldOne The spare field one
      */
     public int getSpareFieldOne() {
-        return (int) ensembleVariableLeader.getSpareFieldOne().order(
-            ByteOrder.LITTLE_ENDIAN).getShort();
+        return (int) view.getSpareFieldOne();
     }
 
     /**
@@ -1861,8 +1614,7 @@ public class Ensemble {
      * @return pressure The pressure
      */
     public float getPressure() {
-        int value = ensembleVariableLeader.getPressure().order(
-            ByteOrder.LITTLE_ENDIAN).getInt();
+        int value = view.getPressure();
         int exp = (value / 10000) * 10000;
         int valueAsLong = value;
         int man = valueAsLong - exp;
@@ -1879,8 +1631,7 @@ public class Ensemble {
      * @return pressureVariance The pressure variance
      */
     public float getPressureVariance() {
-        return ensembleVariableLeader.getPressureVariance().order(
-            ByteOrder.LITTLE_ENDIAN).getFloat();
+        return Float.intBitsToFloat(view.getPressureVariance());
     }
 
     /**
@@ -1890,7 +1641,7 @@ public class Ensemble {
      * @return spareFieldTwo The spare field two
      */
     public int getSpareFieldTwo() {
-        return (int) ensembleVariableLeader.getSpareFieldTwo().get();
+        return (int) view.getSpareFieldTwo();
     }
 
     /**
@@ -1902,7 +1653,7 @@ public class Ensemble {
      * @return realTimeY2KClockCentury The realtime Y2K clock century
      */
     public int getRealTimeY2KClockCentury() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockCentury().get();
+        return (int) view.getRealTimeY2KClockCentury();
     }
 
     /**
@@ -1912,7 +1663,7 @@ public class Ensemble {
      * @return realTimeY2KClockYear The realtime Y2K clock year
      */
     public int getRealTimeY2KClockYear() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockYear().get();
+        return (int) view.getRealTimeY2KClockYear();
     }
 
     /**
@@ -1920,7 +1671,7 @@ public class Ensemble {
      * field contents as an int. This field represents the month of observation.
      */
     public int getRealTimeY2KClockMonth() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockMonth().get();
+        return (int) view.getRealTimeY2KClockMonth();
     }
 
     /**
@@ -1928,7 +1679,7 @@ public class Ensemble {
      * field contents as an int. This field represents the day of observation.
      */
     public int getRealTimeY2KClockDay() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockDay().get();
+        return (int) view.getRealTimeY2KClockDay();
     }
 
     /**
@@ -1936,7 +1687,7 @@ public class Ensemble {
      * field contents as an int. This field represents the hour of observation.
      */
     public int getRealTimeY2KClockHour() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockHour().get();
+        return (int) view.getRealTimeY2KClockHour();
     }
 
     /**
@@ -1944,7 +1695,7 @@ public class Ensemble {
      * field contents as an int. This field represents the minute of observation.
      */
     public int getRealTimeY2KClockMinute() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockMinute().get();
+        return (int) view.getRealTimeY2KClockMinute();
     }
 
     /**
@@ -1952,7 +1703,7 @@ public class Ensemble {
      * field contents as an int. This field represents the second of observation.
      */
     public int getRealTimeY2KClockSecond() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockSecond().get();
+        return (int) view.getRealTimeY2KClockSecond();
     }
 
     /**
@@ -1960,83 +1711,83 @@ public class Ensemble {
      * field contents as an int. This field represents the fractional seconds of observation.
      */
     public int getRealTimeY2KClockHundredths() {
-        return (int) ensembleVariableLeader.getRealTimeY2KClockHundredths().get();
-    }
-
-    /**
-     * A method that returns the all of velocity measurements for a given beam as
-     * a double array.  The array is returned in depth-bin order, with the
-     * the first array member being the first bin closest to the transducer head.
-     */
-    //public float[] getVelocitiesByBeam(int beamNumber){
-    //
-    //// create a map to store velocity arrays by beam
-    //float[] beamArray = new float[getNumberOfBeams()];
-    //float[] velocitiesArray = new float[getNumberOfDepthCells()];
-    //float[][] velocitiesByBeamMap;
-    //
-    //// prep the velocity profile buffer for reading
-    //ByteBuffer velocitiesBuffer = ensembleVelocityProfile.getVelocityProfile();
-    //velocitiesBuffer.limit(velocitiesBuffer.capacity());
-    //velocitiesBuffer.position(0);
-    //
-    //// build the map
-    //for (int i=0; i < getNumberOfDepthCells(); i) ) {
-    //  for (int j=0; j < getNumberOfBeams(); j++) {
-    //    short value = velocitiesBuffer.order(ByteOrder.LITTLE_ENDIAN).getShort();
-    //    int exp = (int) (value/100)*100;
-    //    int valueAsInt = (int) value;
-    //    int man = valueAsInt - exp;
-    //    float mantissa = (float) man;
-    //    float exponent = (float) exp;
-    //    float floatValue = (exponent/100) + (mantissa/100);
-    //
-    //  }
-    //  //velocititesByBeamMap.put();
-    //}
-    //
-    ////return velocitiesByBeamMap.get(new Integer(beamNumber));
-    //}
-
-    /**
-     * A method that returns the all velocity measurements for a given depth cell as
-     * a double array.  The array is returned in beam order, with the
-     * the first array member being the velocity of beam 1.
-     */
-    //public float[] getVelocitiesByDepthCell(int depthCell){
-    //}
+        return (int) view.getRealTimeY2KClockHundredths();
+    }
 
     /**
-     * A method that determines whether or not the Ensemble is valid by
-     * comparing the cumulative byte sum value with the stated checksum
-     * value in the ensemble byte stream.  Returns true if it is valid.
+     * A method that determines whether or not the Ensemble contains the given
+     * data type.
+     *
+     * @param ensembleDataType the enumerated type from the EnsembleDataType enum
+     * @return true if the data type is present
      */
-    public boolean isValid() {
-        boolean isValid = false;
-        if (ensembleByteSum % 65535 == getChecksum()) {
-            isValid = true;
-        }
-        return isValid;
+    public boolean hasDataType(EnsembleDataType ensembleDataType) {
+        return this.dataTypeMap.containsKey(ensembleDataType);
+    }
+
+    /**
+     * A method that returns the number of values in each profile, which is the
+     * number of depth cells times the number of beams.
+     *
+     * @return profileLength The profile length
+     */
+    public int getProfileLength() {
+        return view.getProfileLength();
+    }
+
+    /**
+     * A method that returns all of the velocity measurements in m/s in the
+     * given array.  The array is filled in depth cell order, starting with the
+     * cell closest to the transducer head, and in beam order within each cell.
+     * Bad velocities are returned as Float.NaN.
+     *
+     * @param velocities the array to fill, at least getProfileLength() long
+     * @return count The number of values returned
+     */
+    public int getVelocities(float[] velocities) {
+        return view.getVelocities(velocities);
+    }
+
+    /**
+     * A method that returns all of the correlation magnitudes (0 - 255) in the
+     * given array, in the same order as getVelocities().
+     *
+     * @param correlations the array to fill, at least getProfileLength() long
+     * @return count The number of values returned
+     */
+    public int getCorrelations(float[] correlations) {
+        return view.getCorrelations(correlations);
     }
 
     /**
-     * A method that sets the checksum field from the given
-     * byte array. The byteArray argument must be 2-bytes in size.
+     * A method that returns all of the echo intensities in counts (0 - 255) in
+     * the given array, in the same order as getVelocities().
      *
-     * @param byteArray the 2-byte array that contains the checksum bytes
+     * @param echoIntensities the array to fill, at least getProfileLength() long
+     * @return count The number of values returned
      */
-    private void setChecksum(byte[] byteArray) {
-        this.checksum.put(byteArray);
+    public int getEchoIntensities(float[] echoIntensities) {
+        return view.getEchoIntensities(echoIntensities);
     }
 
     /**
-     * A method that sets the reservedBIT field from the given
-     * byte array. The byteArray argument must be 2-bytes in size.
+     * A method that returns all of the percent good values (0 - 100) in the
+     * given array, in the same order as getVelocities().
      *
-     * @param byteArray the 2-byte array that contains the checksum bytes
+     * @param percentGood the array to fill, at least getProfileLength() long
+     * @return count The number of values returned
      */
-    private void setReservedBIT(byte[] byteArray) {
-        this.reservedBIT.put(byteArray);
+    public int getPercentGood(float[] percentGood) {
+        return view.getPercentGood(percentGood);
+    }
+
+    /**
+     * A method that determines whether or not the Ensemble is valid by
+     * comparing the modulo 65536 sum of the ensemble bytes with the stated
+     * checksum value in the ensemble byte stream.  Returns true if it is valid.
+     */
+    public boolean isValid() {
+        return view.isValid();
     }
 
 }
@@ -0,0 +1,305 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that averages the profiles of a run of PD0 ensembles
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import java.util.Arrays;
+
+/**
+ * A class that keeps running per-cell, per-beam sums of the velocity, echo
+ * intensity, and correlation profiles of a stream of ensembles, so that an
+ * average can be published every N ensembles or every T seconds instead of
+ * every ensemble.  The sums are kept in primitive arrays that are reused from
+ * one averaging interval to the next, and bad velocities are left out of both
+ * the mean and the variance of their cell and beam.
+ * <p>
+ * Call {@link #add(EnsembleView, double)} for each ensemble.  When it returns
+ * true, read the averages with the get methods and then call {@link #reset()}.
+ * If the number of cells or beams changes, the sums are restarted with the
+ * new profile length.
+ */
+public class EnsembleAverager {
+
+    /* The number of ensembles in each average, or 0 for no limit */
+    private final int ensemblesPerAverage;
+
+    /* The number of seconds in each average, or 0 for no limit */
+    private final double averagingInterval;
+
+    /* The running sums of each profile */
+    private final ProfileSums velocitySums = new ProfileSums();
+    private final ProfileSums echoIntensitySums = new ProfileSums();
+    private final ProfileSums correlationSums = new ProfileSums();
+
+    /* The scratch array each profile is decoded into */
+    private float[] profile = new float[0];
+
+    /* The number of ensembles in the current average */
+    private int ensembleCount = 0;
+
+    /* The time of the first ensemble in the current average, in seconds */
+    private double startTime;
+
+    /**
+     * Constructor.  Creates an averager that averages the given number of
+     * ensembles, or the ensembles in the given number of seconds, whichever
+     * comes first.  Either limit can be 0 to leave it out, but not both.
+     *
+     * @param ensemblesPerAverage the number of ensembles in each average
+     * @param averagingInterval   the number of seconds in each average
+     */
+    public EnsembleAverager(int ensemblesPerAverage, double averagingInterval) {
+        if (ensemblesPerAverage <= 0 && averagingInterval <= 0) {
+            throw new IllegalArgumentException(
+                "Set the number of ensembles or the number of seconds to average.");
+        }
+        this.ensemblesPerAverage = Math.max(0, ensemblesPerAverage);
+        this.averagingInterval = Math.max(0, averagingInterval);
+    }
+
+    /**
+     * A method that adds the profiles of an ensemble to the running sums.
+     *
+     * @param view the view of the ensemble
+     * @param time the time of the ensemble, in seconds
+     * @return ready true if the average is complete and should be published
+     */
+    public boolean add(EnsembleView view, double time) {
+        int profileLength = view.getProfileLength();
+        if (profileLength != profile.length) {
+            profile = new float[profileLength];
+            velocitySums.resize(profileLength);
+            echoIntensitySums.resize(profileLength);
+            correlationSums.resize(profileLength);
+            ensembleCount = 0;
+        }
+        if (ensembleCount == 0) {
+            startTime = time;
+        }
+
+        if (view.hasDataType(EnsembleDataType.VELOCITY_PROFILE)) {
+            view.getVelocities(profile);
+            velocitySums.add(profile);
+        }
+        if (view.hasDataType(EnsembleDataType.ECHOINTENSITY_PROFILE)) {
+            view.getEchoIntensities(profile);
+            echoIntensitySums.add(profile);
+        }
+        if (view.hasDataType(EnsembleDataType.CORRELATION_PROFILE)) {
+            view.getCorrelations(profile);
+            correlationSums.add(profile);
+        }
+        ensembleCount++;
+
+        return (ensemblesPerAverage > 0 && ensembleCount >= ensemblesPerAverage) ||
+            (averagingInterval > 0 && time - startTime >= averagingInterval);
+    }
+
+    /**
+     * A method that restarts the sums for the next average.
+     */
+    public void reset() {
+        velocitySums.clear();
+        echoIntensitySums.clear();
+        correlationSums.clear();
+        ensembleCount = 0;
+    }
+
+    /**
+     * A method that returns the number of ensembles in the current average.
+     *
+     * @return ensembleCount the number of ensembles
+     */
+    public int getEnsembleCount() {
+        return ensembleCount;
+    }
+
+    /**
+     * A method that returns the number of values in each averaged profile,
+     * the number of cells times the number of beams.
+     *
+     * @return profileLength the length of the profiles
+     */
+    public int getProfileLength() {
+        return profile.length;
+    }
+
+    /**
+     * A method that returns true if any ensemble in the current average had a
+     * velocity profile.
+     *
+     * @return hasVelocities true if velocities were averaged
+     */
+    public boolean hasVelocities() {
+        return velocitySums.profileCount > 0;
+    }
+
+    /**
+     * A method that returns true if any ensemble in the current average had
+     * an echo intensity profile.
+     *
+     * @return hasEchoIntensities true if echo intensities were averaged
+     */
+    public boolean hasEchoIntensities() {
+        return echoIntensitySums.profileCount > 0;
+    }
+
+    /**
+     * A method that returns true if any ensemble in the current average had a
+     * correlation profile.
+     *
+     * @return hasCorrelations true if correlations were averaged
+     */
+    public boolean hasCorrelations() {
+        return correlationSums.profileCount > 0;
+    }
+
+    /**
+     * A method that fills the given array with the mean velocities, in m/s,
+     * in the same order as {@link EnsembleView#getVelocities(float[])}.  Cells
+     * and beams with no good velocities are returned as Float.NaN.
+     *
+     * @param means the array to fill, at least getProfileLength() long
+     * @return count the number of values filled
+     */
+    public int getMeanVelocities(float[] means) {
+        return velocitySums.getMeans(means);
+    }
+
+    /**
+     * A method that fills the given array with the variance of the
+     * velocities, in (m/s)^2.
+     *
+     * @param variances the array to fill, at least getProfileLength() long
+     * @return count the number of values filled
+     */
+    public int getVelocityVariances(float[] variances) {
+        return velocitySums.getVariances(variances);
+    }
+
+    /**
+     * A method that fills the given array with the mean echo intensities, in
+     * counts.
+     *
+     * @param means the array to fill, at least getProfileLength() long
+     * @return count the number of values filled
+     */
+    public int getMeanEchoIntensities(float[] means) {
+        return echoIntensitySums.getMeans(means);
+    }
+
+    /**
+     * A method that fills the given array with the variance of the echo
+     * intensities, in counts squared.
+     *
+     * @param variances the array to fill, at least getProfileLength() long
+     * @return count the number of values filled
+     */
+    public int getEchoIntensityVariances(float[] variances) {
+        return echoIntensitySums.getVariances(variances);
+    }
+
+    /**
+     * A method that fills the given array with the mean correlations, in
+     * counts.
+     *
+     * @param means the array to fill, at least getProfileLength() long
+     * @return count the number of values filled
+     */
+    public int getMeanCorrelations(float[] means) {
+        return correlationSums.getMeans(means);
+    }
+
+    /**
+     * A method that fills the given array with the variance of the
+     * correlations, in counts squared.
+     *
+     * @param variances the array to fill, at least getProfileLength() long
+     * @return count the number of values filled
+     */
+    public int getCorrelationVariances(float[] variances) {
+        return correlationSums.getVariances(variances);
+    }
+
+    /*
+     * The running sums and sums of squares of one profile, with a count of
+     * the values that weren't NaN at each cell and beam
+     */
+    private static final class ProfileSums {
+
+        private double[] sums = new double[0];
+        private double[] squares = new double[0];
+        private int[] counts = new int[0];
+        private int profileCount = 0;
+
+        private void resize(int profileLength) {
+            sums = new double[profileLength];
+            squares = new double[profileLength];
+            counts = new int[profileLength];
+            profileCount = 0;
+        }
+
+        private void clear() {
+            Arrays.fill(sums, 0d);
+            Arrays.fill(squares, 0d);
+            Arrays.fill(counts, 0);
+            profileCount = 0;
+        }
+
+        private void add(float[] values) {
+            for (int i = 0; i < sums.length; i++) {
+                float value = values[i];
+                if (value == value) {
+                    sums[i] += value;
+                    squares[i] += (double) value * value;
+                    counts[i]++;
+                }
+            }
+            profileCount++;
+        }
+
+        private int getMeans(float[] means) {
+            checkArray(means);
+            for (int i = 0; i < sums.length; i++) {
+                means[i] = counts[i] == 0 ? Float.NaN : (float) (sums[i] / counts[i]);
+            }
+            return sums.length;
+        }
+
+        private int getVariances(float[] variances) {
+            checkArray(variances);
+            for (int i = 0; i < sums.length; i++) {
+                if (counts[i] == 0) {
+                    variances[i] = Float.NaN;
+                } else {
+                    double mean = sums[i] / counts[i];
+                    variances[i] = (float) Math.max(0d, squares[i] / counts[i] - mean * mean);
+                }
+            }
+            return sums.length;
+        }
+
+        private void checkArray(float[] values) {
+            if (values.length < sums.length) {
+                throw new IllegalArgumentException("The array holds " + values.length +
+                    " values, but the profile has " + sums.length + ".");
+            }
+        }
+    }
+}
@@ -114,6 +114,36 @@ public final class EnsembleCorrelationProfile {
     return this.correlationProfileID;
   }
   
+  /**
+   * A method that copies the whole correlation magnitude profile into the
+   * given array, beam within depth cell.  The bytes are unsigned, 0 to 255.
+   *
+   * @param correlations the array to fill, at least one value per beam and cell
+   * @return count the number of values copied
+   */
+  public int getCorrelations(byte[] correlations) {
+    int count = correlationProfile.capacity();
+    for (int i = 0; i < count; i++) {
+      correlations[i] = correlationProfile.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * A method that decodes the whole correlation magnitude profile into the
+   * given array, beam within depth cell, as unsigned values, 0 to 255.
+   *
+   * @param correlations the array to fill, at least one value per beam and cell
+   * @return count the number of values decoded
+   */
+  public int getCorrelations(float[] correlations) {
+    int count = correlationProfile.capacity();
+    for (int i = 0; i < count; i++) {
+      correlations[i] = correlationProfile.get(i) & 0xFF;
+    }
+    return count;
+  }
+
   /**
    * A method that sets the Ensemble Correlation Profile ID field contents 
    * with the given byte array.
@@ -108,6 +108,36 @@ public final class EnsembleEchoIntensityProfile {
         return this.echoIntensityProfileID;
     }
 
+    /**
+     * A method that copies the whole echo intensity profile into the given array,
+     * beam within depth cell.  The bytes are unsigned, 0 to 255.
+     *
+     * @param echoIntensities the array to fill, at least one value per beam and cell
+     * @return count the number of values copied
+     */
+    public int getEchoIntensities(byte[] echoIntensities) {
+        int count = echoIntensityProfile.capacity();
+        for (int i = 0; i < count; i++) {
+            echoIntensities[i] = echoIntensityProfile.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * A method that decodes the whole echo intensity profile into the given array,
+     * beam within depth cell, as unsigned values, 0 to 255.
+     *
+     * @param echoIntensities the array to fill, at least one value per beam and cell
+     * @return count the number of values decoded
+     */
+    public int getEchoIntensities(float[] echoIntensities) {
+        int count = echoIntensityProfile.capacity();
+        for (int i = 0; i < count; i++) {
+            echoIntensities[i] = echoIntensityProfile.get(i) & 0xFF;
+        }
+        return count;
+    }
+
     /**
      * A method that sets the Ensemble EchoIntensity Profile ID field contents
      * with the given byte array.
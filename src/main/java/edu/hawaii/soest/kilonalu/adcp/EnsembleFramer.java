@@ -0,0 +1,228 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that frames RDI PD0 ensembles out of a byte stream
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A class that frames complete PD0 ensembles out of a byte stream, such as
+ * the TCP stream from an ADCP.  Bytes are appended to a window with
+ * {@link #put(ByteBuffer)}, and {@link #next()} returns each complete ensemble
+ * with a valid checksum.
+ * <p>
+ * Rather than running a state machine over every byte, the framer scans the
+ * window for a 0x7F7F header ID and checks it with
+ * {@link EnsembleView#checkEnsemble(ByteBuffer, int)}, which reads the number
+ * of bytes in the ensemble from the header, verifies the Fixed Leader offset,
+ * and computes the checksum in one pass once the whole ensemble has arrived.
+ * If the candidate is rejected, scanning resumes at the byte after it.
+ * <p>
+ * The ensembles are returned in byte arrays of exactly the ensemble length,
+ * taken from a small pool.  An instrument sends ensembles of the same length
+ * as long as its configuration doesn't change, so callers that
+ * {@link #release(byte[])} each array once it has been sent will reuse the
+ * same few arrays rather than allocating one per ensemble.
+ */
+public class EnsembleFramer {
+
+    /** The largest possible ensemble: 65535 bytes plus the 2-byte checksum */
+    public static final int MAX_ENSEMBLE_SIZE = EnsembleView.MAX_ENSEMBLE_SIZE;
+
+    /* The number of released arrays kept for reuse */
+    private static final int POOL_SIZE = 8;
+
+    /* The window of stream bytes being scanned */
+    private final byte[] window;
+
+    /* A buffer over the window, used to check candidate ensembles */
+    private final ByteBuffer windowBuffer;
+
+    /* The index of the first unscanned byte in the window */
+    private int start = 0;
+
+    /* The index after the last byte in the window */
+    private int end = 0;
+
+    /* The released ensemble arrays */
+    private final ArrayDeque<byte[]> pool = new ArrayDeque<byte[]>(POOL_SIZE);
+
+    /* The number of ensembles framed */
+    private long ensembleCount = 0;
+
+    /* The number of candidate ensembles rejected by their checksum */
+    private long invalidCount = 0;
+
+    /**
+     * Constructor.  Creates a framer with a window large enough for the
+     * largest possible ensemble.
+     */
+    public EnsembleFramer() {
+        this(2 * MAX_ENSEMBLE_SIZE);
+    }
+
+    /**
+     * Constructor.  Creates a framer with the given window size, which is
+     * raised to the largest possible ensemble size if it is smaller.
+     *
+     * @param windowSize the number of stream bytes to hold while scanning
+     */
+    public EnsembleFramer(int windowSize) {
+        this.window = new byte[Math.max(windowSize, MAX_ENSEMBLE_SIZE)];
+        this.windowBuffer = ByteBuffer.wrap(window);
+    }
+
+    /**
+     * A method that appends as many of the remaining bytes of the source
+     * buffer to the window as will fit.  Call {@link #next()} until it returns
+     * null to make room before putting more bytes.
+     *
+     * @param source the buffer of stream bytes, ready for reading
+     * @return count the number of bytes appended
+     */
+    public int put(ByteBuffer source) {
+        if (end == window.length && start > 0) {
+            compact();
+        }
+        int count = Math.min(source.remaining(), window.length - end);
+        source.get(window, end, count);
+        end += count;
+        return count;
+    }
+
+    /**
+     * A method that returns the next complete ensemble in the window, in a
+     * pooled array of exactly the ensemble length, including the checksum.
+     *
+     * @return ensemble the ensemble bytes, or null if more bytes are needed
+     */
+    public byte[] next() {
+
+        while (true) {
+            int header = findHeaderID();
+            if (header < 0) {
+                return null;
+            }
+
+            windowBuffer.limit(end);
+            int length = EnsembleView.checkEnsemble(windowBuffer, header);
+            if (length == EnsembleView.INCOMPLETE) {
+                return waitFor(header);
+            }
+            if (length < 0) {
+                if (length == EnsembleView.BAD_CHECKSUM) {
+                    invalidCount++;
+                }
+                start = header + 1;
+                continue;
+            }
+
+            byte[] ensemble = acquire(length);
+            System.arraycopy(window, header, ensemble, 0, length);
+            start = header + length;
+            ensembleCount++;
+            return ensemble;
+        }
+    }
+
+    /**
+     * A method that returns an ensemble array to the pool once the caller is
+     * done with it.
+     *
+     * @param ensemble an array returned by next()
+     */
+    public void release(byte[] ensemble) {
+        if (pool.size() == POOL_SIZE) {
+            pool.removeFirst();
+        }
+        pool.addLast(ensemble);
+    }
+
+    /**
+     * A method that discards all of the bytes in the window, such as after
+     * the stream is reconnected.
+     */
+    public void clear() {
+        start = 0;
+        end = 0;
+    }
+
+    /**
+     * A method that returns the number of ensembles framed.
+     *
+     * @return ensembleCount the number of ensembles
+     */
+    public long getEnsembleCount() {
+        return ensembleCount;
+    }
+
+    /**
+     * A method that returns the number of candidate ensembles that were
+     * complete but failed the checksum.
+     *
+     * @return invalidCount the number of rejected ensembles
+     */
+    public long getInvalidCount() {
+        return invalidCount;
+    }
+
+    /* Finds the next 0x7F7F in the window, or returns -1 */
+    private int findHeaderID() {
+        for (int i = start; i < end - 1; i++) {
+            if (window[i] == 0x7F && window[i + 1] == 0x7F) {
+                start = i;
+                return i;
+            }
+        }
+
+        // keep a trailing 0x7F, which may start the next header ID
+        start = (end > start && window[end - 1] == 0x7F) ? end - 1 : end;
+        return -1;
+    }
+
+    /* Keeps the window from the given header on, until more bytes arrive */
+    private byte[] waitFor(int header) {
+        start = header;
+        if (end == window.length) {
+            compact();
+        }
+        return null;
+    }
+
+    /* Moves the unscanned bytes to the front of the window */
+    private void compact() {
+        System.arraycopy(window, start, window, 0, end - start);
+        end -= start;
+        start = 0;
+    }
+
+    /* Takes an array of the given length from the pool, or creates one */
+    private byte[] acquire(int length) {
+        for (Iterator<byte[]> iterator = pool.iterator(); iterator.hasNext(); ) {
+            byte[] array = iterator.next();
+            if (array.length == length) {
+                iterator.remove();
+                return array;
+            }
+        }
+        return new byte[length];
+    }
+}
@@ -108,6 +108,36 @@ public final class EnsemblePercentGoodProfile {
         return this.percentGoodProfileID;
     }
 
+    /**
+     * A method that copies the whole percent good profile into the given array,
+     * beam within depth cell.  The bytes are unsigned, 0 to 100.
+     *
+     * @param percentGood the array to fill, at least one value per beam and cell
+     * @return count the number of values copied
+     */
+    public int getPercentGood(byte[] percentGood) {
+        int count = percentGoodProfile.capacity();
+        for (int i = 0; i < count; i++) {
+            percentGood[i] = percentGoodProfile.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * A method that decodes the whole percent good profile into the given array,
+     * beam within depth cell, as unsigned values, 0 to 100.
+     *
+     * @param percentGood the array to fill, at least one value per beam and cell
+     * @return count the number of values decoded
+     */
+    public int getPercentGood(float[] percentGood) {
+        int count = percentGoodProfile.capacity();
+        for (int i = 0; i < count; i++) {
+            percentGood[i] = percentGoodProfile.get(i) & 0xFF;
+        }
+        return count;
+    }
+
     /**
      * A method that sets the Ensemble PercentGood Profile ID field contents
      * with the given byte array.
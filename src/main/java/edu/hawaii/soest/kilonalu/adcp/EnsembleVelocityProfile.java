@@ -24,6 +24,7 @@
 package edu.hawaii.soest.kilonalu.adcp;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  *  A class that represents the Velocity Profile of data produced by
@@ -106,6 +107,39 @@ public final class EnsembleVelocityProfile {
         return this.velocityProfileID;
     }
 
+    /**
+     * A method that decodes the whole velocity profile into the given array
+     * of raw velocities in mm/s, beam within depth cell.  Bad velocities are
+     * left as EnsembleView.BAD_VELOCITY.
+     *
+     * @param velocities the array to fill, at least one value per beam and cell
+     * @return count the number of values decoded
+     */
+    public int getVelocities(short[] velocities) {
+        int count = velocityProfile.capacity() / 2;
+        for (int i = 0; i < count; i++) {
+            velocities[i] = velocityProfile.order(ByteOrder.LITTLE_ENDIAN).getShort(i * 2);
+        }
+        return count;
+    }
+
+    /**
+     * A method that decodes the whole velocity profile into the given array
+     * of velocities in m/s, beam within depth cell.  Bad velocities are
+     * returned as Float.NaN.
+     *
+     * @param velocities the array to fill, at least one value per beam and cell
+     * @return count the number of values decoded
+     */
+    public int getVelocities(float[] velocities) {
+        int count = velocityProfile.capacity() / 2;
+        for (int i = 0; i < count; i++) {
+            short value = velocityProfile.order(ByteOrder.LITTLE_ENDIAN).getShort(i * 2);
+            velocities[i] = value == EnsembleView.BAD_VELOCITY ? Float.NaN : value / 1000f;
+        }
+        return count;
+    }
+
     /**
      * A method that sets the Ensemble Velocity Profile ID field contents
      * with the given byte array.
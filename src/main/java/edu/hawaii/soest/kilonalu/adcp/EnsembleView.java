@@ -0,0 +1,1001 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A flyweight view over the bytes of a single ensemble produced by
+ *             an RDI 1200kHz Workhorse Acoustic Doppler Current Profiler in the
+ *             default PD0 format as described in RDI's "Workhorse Commands and
+ *             Output Data Format" manual, P/N 957-6156-00 (March 2005)
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view over a single PD0 ensemble held in a ByteBuffer.  Rather
+ * than copying each field into its own buffer, the view reads every field
+ * at its absolute offset in the wrapped buffer, using the data type offset
+ * table in the ensemble header to locate the Fixed Leader, Variable Leader,
+ * and profile data types.  Nothing is allocated per field or per read, and
+ * the buffer's position, limit, and byte order are never changed.
+ * <p>
+ * A view can be re-pointed at another ensemble with {@link #wrap(ByteBuffer, int)},
+ * so one instance can decode a whole stream or file of ensembles.  Values are
+ * returned raw, as stored in the little endian PD0 stream: one-byte fields as
+ * signed bytes, two-byte fields as signed shorts, and so on.  The
+ * {@link Ensemble} class decodes these into engineering values.
+ */
+public class EnsembleView {
+
+    /* The offsets of the header fields */
+    private static final int HEADER_ID = 0;
+    private static final int NUMBER_OF_BYTES_IN_ENSEMBLE = 2;
+    private static final int HEADER_SPARE = 4;
+    private static final int NUMBER_OF_DATA_TYPES = 5;
+    private static final int DATA_TYPE_OFFSETS = 6;
+
+    /* The offsets of the Fixed Leader fields, relative to the Fixed Leader */
+    private static final int FL_FIXED_LEADER_ID = 0;
+    private static final int FL_CPU_FIRMWARE_VERSION = 2;
+    private static final int FL_CPU_FIRMWARE_REVISION = 3;
+    private static final int FL_SYSTEM_CONFIGURATION = 4;
+    private static final int FL_PD_REAL_OR_SIMULATED_FLAG = 6;
+    private static final int FL_LAG_LENGTH = 7;
+    private static final int FL_NUMBER_OF_BEAMS = 8;
+    private static final int FL_NUMBER_OF_CELLS = 9;
+    private static final int FL_PINGS_PER_ENSEMBLE = 10;
+    private static final int FL_DEPTH_CELL_LENGTH = 12;
+    private static final int FL_BLANK_AFTER_TRANSMIT = 14;
+    private static final int FL_PROFILING_MODE = 16;
+    private static final int FL_LOW_CORRELATION_THRESHOLD = 17;
+    private static final int FL_NUMBER_OF_CODE_REPETITIONS = 18;
+    private static final int FL_PERCENT_GOOD_MINIMUM = 19;
+    private static final int FL_ERROR_VELOCITY_THRESHOLD = 20;
+    private static final int FL_PING_MINUTES = 22;
+    private static final int FL_PING_SECONDS = 23;
+    private static final int FL_PING_HUNDREDTHS = 24;
+    private static final int FL_COORDINATE_TRANSFORM_PARAMS = 25;
+    private static final int FL_HEADING_ALIGNMENT = 26;
+    private static final int FL_HEADING_BIAS = 28;
+    private static final int FL_SENSOR_SOURCE = 30;
+    private static final int FL_SENSOR_AVAILABILITY = 31;
+    private static final int FL_BIN_ONE_DISTANCE = 32;
+    private static final int FL_TRANSMIT_PULSE_LENGTH = 34;
+    private static final int FL_REFERENCE_LAYER_START = 36;
+    private static final int FL_REFERENCE_LAYER_END = 37;
+    private static final int FL_FALSE_TARGET_THRESHOLD = 38;
+    private static final int FL_FIXED_LEADER_SPARE = 39;
+    private static final int FL_TRANSMIT_LAG_DISTANCE = 40;
+    private static final int FL_CPU_BOARD_SERIAL_NUMBER = 42;
+    private static final int FL_SYSTEM_BANDWIDTH = 50;
+    private static final int FL_SYSTEM_POWER = 52;
+    private static final int FL_BASE_FREQUENCY_INDEX = 53;
+    private static final int FL_SERIAL_NUMBER = 54;
+    private static final int FL_BEAM_ANGLE = 58;
+
+    /* The offsets of the Variable Leader fields, relative to the Variable Leader */
+    private static final int VL_VARIABLE_LEADER_ID = 0;
+    private static final int VL_ENSEMBLE_NUMBER = 2;
+    private static final int VL_RTC_YEAR = 4;
+    private static final int VL_RTC_MONTH = 5;
+    private static final int VL_RTC_DAY = 6;
+    private static final int VL_RTC_HOUR = 7;
+    private static final int VL_RTC_MINUTE = 8;
+    private static final int VL_RTC_SECOND = 9;
+    private static final int VL_RTC_HUNDREDTHS = 10;
+    private static final int VL_ENSEMBLE_NUMBER_INCREMENT = 11;
+    private static final int VL_BUILT_IN_TEST_RESULT = 12;
+    private static final int VL_SPEED_OF_SOUND = 14;
+    private static final int VL_DEPTH_OF_TRANSDUCER = 16;
+    private static final int VL_HEADING = 18;
+    private static final int VL_PITCH = 20;
+    private static final int VL_ROLL = 22;
+    private static final int VL_SALINITY = 24;
+    private static final int VL_TEMPERATURE = 26;
+    private static final int VL_MIN_PRE_PING_WAIT_MINUTES = 28;
+    private static final int VL_MIN_PRE_PING_WAIT_SECONDS = 29;
+    private static final int VL_MIN_PRE_PING_WAIT_HUNDREDTHS = 30;
+    private static final int VL_HEADING_STANDARD_DEVIATION = 31;
+    private static final int VL_PITCH_STANDARD_DEVIATION = 32;
+    private static final int VL_ROLL_STANDARD_DEVIATION = 33;
+    private static final int VL_ADC_CHANNELS = 34;
+    private static final int VL_ERROR_STATUS_WORD = 42;
+    private static final int VL_SPARE_FIELD_ONE = 46;
+    private static final int VL_PRESSURE = 48;
+    private static final int VL_PRESSURE_VARIANCE = 52;
+    private static final int VL_SPARE_FIELD_TWO = 56;
+    private static final int VL_Y2K_CENTURY = 57;
+    private static final int VL_Y2K_YEAR = 58;
+    private static final int VL_Y2K_MONTH = 59;
+    private static final int VL_Y2K_DAY = 60;
+    private static final int VL_Y2K_HOUR = 61;
+    private static final int VL_Y2K_MINUTE = 62;
+    private static final int VL_Y2K_SECOND = 63;
+    private static final int VL_Y2K_HUNDREDTHS = 64;
+
+    /** The raw velocity that marks a bad velocity measurement */
+    public static final short BAD_VELOCITY = (short) 0x8000;
+
+    /** The largest possible ensemble: 65535 bytes plus the 2-byte checksum */
+    public static final int MAX_ENSEMBLE_SIZE = 0xFFFF + 2;
+
+    /** Returned by checkEnsemble() when the buffer ends before it can decide */
+    public static final int INCOMPLETE = 0;
+
+    /** Returned by checkEnsemble() when no ensemble starts at the index */
+    public static final int NOT_AN_ENSEMBLE = -1;
+
+    /** Returned by checkEnsemble() when a complete ensemble fails its checksum */
+    public static final int BAD_CHECKSUM = -2;
+
+    /* The size of the data type ID that starts each profile */
+    private static final int PROFILE_ID_LENGTH = 2;
+
+    /* The buffer holding the ensemble */
+    private ByteBuffer buffer;
+
+    /* The absolute index of the first byte of the ensemble in the buffer */
+    private int base;
+
+    /* The absolute index of each data type, by EnsembleDataType ordinal, or -1 */
+    private final int[] dataTypeIndexes = new int[EnsembleDataType.values().length];
+
+    /* The Data Type # of each data type, by EnsembleDataType ordinal, or -1 */
+    private final int[] dataTypeNumbers = new int[EnsembleDataType.values().length];
+
+    /* The length of the Fixed Leader in bytes */
+    private int fixedLeaderLength;
+
+    /**
+     * Constructor.  Creates a view that must be pointed at an ensemble with
+     * {@link #wrap(ByteBuffer, int)} before use.
+     */
+    public EnsembleView() {
+    }
+
+    /**
+     * Constructor.  Creates a view over the ensemble starting at the given
+     * absolute index of the buffer.
+     *
+     * @param buffer the ByteBuffer that contains the binary ensemble data
+     * @param offset the absolute index of the 0x7F7F header ID in the buffer
+     */
+    public EnsembleView(ByteBuffer buffer, int offset) {
+        wrap(buffer, offset);
+    }
+
+    /**
+     * A method that points this view at the ensemble starting at the given
+     * absolute index of the buffer, and indexes its data types from the
+     * header's data type offset table.
+     *
+     * @param buffer the ByteBuffer that contains the binary ensemble data
+     * @param offset the absolute index of the 0x7F7F header ID in the buffer
+     * @return this view
+     */
+    public EnsembleView wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.base = offset;
+
+        for (int i = 0; i < dataTypeIndexes.length; i++) {
+            dataTypeIndexes[i] = -1;
+            dataTypeNumbers[i] = -1;
+        }
+        dataTypeIndexes[EnsembleDataType.HEADER.ordinal()] = base;
+
+        int numberOfDataTypes = getNumberOfDataTypes();
+        int fixedLeaderNumber = -1;
+        for (int number = 1; number <= numberOfDataTypes; number++) {
+            int typeOffset = getDataTypeOffset(number);
+            EnsembleDataType dataType = getDataType(readShort(typeOffset));
+            if (dataType != null && dataTypeNumbers[dataType.ordinal()] < 0) {
+                dataTypeIndexes[dataType.ordinal()] = base + typeOffset;
+                dataTypeNumbers[dataType.ordinal()] = number;
+                if (dataType == EnsembleDataType.FIXED_LEADER) {
+                    fixedLeaderNumber = number;
+                }
+            }
+        }
+
+        // the Fixed Leader ends where the next data type (or the ensemble) begins
+        if (fixedLeaderNumber > 0) {
+            int end = fixedLeaderNumber < numberOfDataTypes ?
+                getDataTypeOffset(fixedLeaderNumber + 1) : getNumberOfBytesInEnsemble() - 2;
+            fixedLeaderLength = end - getDataTypeOffset(fixedLeaderNumber);
+        } else {
+            fixedLeaderLength = 0;
+        }
+        return this;
+    }
+
+    /**
+     * A method that returns the Data Type given the 2-byte Data Type ID.
+     *
+     * @param dataTypeID the 2-byte ID of the Data Type
+     * @return dataType the data type, or null if the ID is unknown
+     */
+    public static EnsembleDataType getDataType(int dataTypeID) {
+        switch (dataTypeID & 0xFFFF) {
+            case 0x7f7f: return EnsembleDataType.HEADER;
+            case 0x0000: return EnsembleDataType.FIXED_LEADER;
+            case 0x0080: return EnsembleDataType.VARIABLE_LEADER;
+            case 0x0100: return EnsembleDataType.VELOCITY_PROFILE;
+            case 0x0200: return EnsembleDataType.CORRELATION_PROFILE;
+            case 0x0300: return EnsembleDataType.ECHOINTENSITY_PROFILE;
+            case 0x0400: return EnsembleDataType.PERCENTGOOD_PROFILE;
+            case 0x0500: return EnsembleDataType.STATUS_PROFILE;
+            case 0x0600: return EnsembleDataType.BOTTOMTRACK_DATA;
+            case 0x0800: return EnsembleDataType.MICROCAT_DATA;
+            default: return null;
+        }
+    }
+
+    /**
+     * A method that checks whether a complete, valid ensemble starts at the
+     * given absolute index of the buffer, reading only up to its limit.  The
+     * header is only accepted if the Fixed Leader ID (0x0000) is found at the
+     * offset stated for Data Type #1, which rejects most of the random 0x7F7F
+     * pairs in the data before the checksum is computed.
+     *
+     * @param buffer the ByteBuffer that contains the binary ensemble data
+     * @param index the absolute index of the candidate 0x7F7F header ID
+     * @return length the ensemble length including the checksum, or one of
+     *         INCOMPLETE, NOT_AN_ENSEMBLE, or BAD_CHECKSUM
+     */
+    public static int checkEnsemble(ByteBuffer buffer, int index) {
+        int available = buffer.limit() - index;
+        if (available < 2) {
+            return INCOMPLETE;
+        }
+        if (buffer.get(index) != 0x7F || buffer.get(index + 1) != 0x7F) {
+            return NOT_AN_ENSEMBLE;
+        }
+
+        // check the header fields, then the stated offset of the Fixed Leader
+        if (available < DATA_TYPE_OFFSETS + 2) {
+            return INCOMPLETE;
+        }
+        int numberOfBytes = unsignedShortAt(buffer, index + NUMBER_OF_BYTES_IN_ENSEMBLE);
+        int numberOfDataTypes = buffer.get(index + NUMBER_OF_DATA_TYPES) & 0xFF;
+        int fixedLeaderOffset = DATA_TYPE_OFFSETS + 2 * numberOfDataTypes;
+        if (numberOfDataTypes == 0 || numberOfBytes < fixedLeaderOffset + 2 ||
+            unsignedShortAt(buffer, index + DATA_TYPE_OFFSETS) != fixedLeaderOffset) {
+            return NOT_AN_ENSEMBLE;
+        }
+        if (available < fixedLeaderOffset + 2) {
+            return INCOMPLETE;
+        }
+        if (buffer.get(index + fixedLeaderOffset) != 0x00 ||
+            buffer.get(index + fixedLeaderOffset + 1) != 0x00) {
+            return NOT_AN_ENSEMBLE;
+        }
+
+        // sum the whole ensemble up to the checksum
+        int length = numberOfBytes + 2;
+        if (available < length) {
+            return INCOMPLETE;
+        }
+        int sum = 0;
+        int checksumIndex = index + numberOfBytes;
+        for (int i = index; i < checksumIndex; i++) {
+            sum += buffer.get(i) & 0xFF;
+        }
+        return (sum & 0xFFFF) == unsignedShortAt(buffer, checksumIndex) ? length : BAD_CHECKSUM;
+    }
+
+    /**
+     * A method that returns the buffer this view is over.
+     *
+     * @return buffer the wrapped buffer
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * A method that returns the absolute index of the ensemble in the buffer.
+     *
+     * @return offset the index of the header ID
+     */
+    public int getOffset() {
+        return base;
+    }
+
+    /**
+     * A method that returns the total length of the ensemble in bytes,
+     * including the 2-byte checksum.
+     *
+     * @return length the ensemble length
+     */
+    public int getLength() {
+        return getNumberOfBytesInEnsemble() + 2;
+    }
+
+    // Header fields
+
+    public short getHeaderID() {
+        return readShort(HEADER_ID);
+    }
+
+    public int getNumberOfBytesInEnsemble() {
+        return readShort(NUMBER_OF_BYTES_IN_ENSEMBLE) & 0xFFFF;
+    }
+
+    public byte getHeaderSpare() {
+        return readByte(HEADER_SPARE);
+    }
+
+    public int getNumberOfDataTypes() {
+        return readByte(NUMBER_OF_DATA_TYPES) & 0xFF;
+    }
+
+    /**
+     * A method that returns the offset for the given Data Type number, relative
+     * to the start of the ensemble.  Data Type #1 is the Fixed Leader.
+     *
+     * @param dataTypeNumber the number of the Data Type desired
+     * @return dataTypeOffset the offset of the data type
+     */
+    public int getDataTypeOffset(int dataTypeNumber) {
+        return readShort(DATA_TYPE_OFFSETS + (dataTypeNumber - 1) * 2) & 0xFFFF;
+    }
+
+    /**
+     * A method that returns the Data Type number of the given data type.
+     *
+     * @param dataType the data type
+     * @return dataTypeNumber the Data Type number, or -1 if it is not present
+     */
+    public int getDataTypeNumber(EnsembleDataType dataType) {
+        return dataTypeNumbers[dataType.ordinal()];
+    }
+
+    /**
+     * A method that determines whether the ensemble contains the given data type.
+     *
+     * @param dataType the data type
+     * @return true if the data type is present
+     */
+    public boolean hasDataType(EnsembleDataType dataType) {
+        return dataTypeIndexes[dataType.ordinal()] >= 0;
+    }
+
+    // Fixed Leader fields
+
+    public short getFixedLeaderID() {
+        return fixedShort(FL_FIXED_LEADER_ID);
+    }
+
+    public byte getCpuFirmwareVersion() {
+        return fixedByte(FL_CPU_FIRMWARE_VERSION);
+    }
+
+    public byte getCpuFirmwareRevision() {
+        return fixedByte(FL_CPU_FIRMWARE_REVISION);
+    }
+
+    public short getSystemConfiguration() {
+        return fixedShort(FL_SYSTEM_CONFIGURATION);
+    }
+
+    public byte getPdRealOrSimulatedFlag() {
+        return fixedByte(FL_PD_REAL_OR_SIMULATED_FLAG);
+    }
+
+    public byte getLagLength() {
+        return fixedByte(FL_LAG_LENGTH);
+    }
+
+    public byte getNumberOfBeams() {
+        return fixedByte(FL_NUMBER_OF_BEAMS);
+    }
+
+    public byte getNumberOfCells() {
+        return fixedByte(FL_NUMBER_OF_CELLS);
+    }
+
+    public short getPingsPerEnsemble() {
+        return fixedShort(FL_PINGS_PER_ENSEMBLE);
+    }
+
+    public short getDepthCellLength() {
+        return fixedShort(FL_DEPTH_CELL_LENGTH);
+    }
+
+    public short getBlankAfterTransmit() {
+        return fixedShort(FL_BLANK_AFTER_TRANSMIT);
+    }
+
+    public byte getProfilingMode() {
+        return fixedByte(FL_PROFILING_MODE);
+    }
+
+    public byte getLowCorrelationThreshold() {
+        return fixedByte(FL_LOW_CORRELATION_THRESHOLD);
+    }
+
+    public byte getNumberOfCodeRepetitions() {
+        return fixedByte(FL_NUMBER_OF_CODE_REPETITIONS);
+    }
+
+    public byte getPercentGoodMinimum() {
+        return fixedByte(FL_PERCENT_GOOD_MINIMUM);
+    }
+
+    public short getErrorVelocityThreshold() {
+        return fixedShort(FL_ERROR_VELOCITY_THRESHOLD);
+    }
+
+    public byte getPingMinutes() {
+        return fixedByte(FL_PING_MINUTES);
+    }
+
+    public byte getPingSeconds() {
+        return fixedByte(FL_PING_SECONDS);
+    }
+
+    public byte getPingHundredths() {
+        return fixedByte(FL_PING_HUNDREDTHS);
+    }
+
+    public byte getCoordinateTransformParams() {
+        return fixedByte(FL_COORDINATE_TRANSFORM_PARAMS);
+    }
+
+    public short getHeadingAlignment() {
+        return fixedShort(FL_HEADING_ALIGNMENT);
+    }
+
+    public short getHeadingBias() {
+        return fixedShort(FL_HEADING_BIAS);
+    }
+
+    public byte getSensorSource() {
+        return fixedByte(FL_SENSOR_SOURCE);
+    }
+
+    public byte getSensorAvailability() {
+        return fixedByte(FL_SENSOR_AVAILABILITY);
+    }
+
+    public short getBinOneDistance() {
+        return fixedShort(FL_BIN_ONE_DISTANCE);
+    }
+
+    public short getTransmitPulseLength() {
+        return fixedShort(FL_TRANSMIT_PULSE_LENGTH);
+    }
+
+    public byte getReferenceLayerStart() {
+        return fixedByte(FL_REFERENCE_LAYER_START);
+    }
+
+    public byte getReferenceLayerEnd() {
+        return fixedByte(FL_REFERENCE_LAYER_END);
+    }
+
+    public byte getFalseTargetThreshold() {
+        return fixedByte(FL_FALSE_TARGET_THRESHOLD);
+    }
+
+    public byte getFixedLeaderSpare() {
+        return fixedByte(FL_FIXED_LEADER_SPARE);
+    }
+
+    public short getTransmitLagDistance() {
+        return fixedShort(FL_TRANSMIT_LAG_DISTANCE);
+    }
+
+    public long getCpuBoardSerialNumber() {
+        int index = fixedIndex(FL_CPU_BOARD_SERIAL_NUMBER);
+        return (readIntAt(index) & 0xFFFFFFFFL) | ((long) readIntAt(index + 4) << 32);
+    }
+
+    public short getSystemBandwidth() {
+        return fixedShort(FL_SYSTEM_BANDWIDTH);
+    }
+
+    public byte getSystemPower() {
+        return fixedByte(FL_SYSTEM_POWER);
+    }
+
+    /**
+     * The remaining Fixed Leader fields are not output by Workhorse ADCPs, and
+     * read as zero when the Fixed Leader is too short to hold them.
+     */
+    public byte getBaseFrequencyIndex() {
+        return fixedLeaderLength > FL_BASE_FREQUENCY_INDEX ? fixedByte(FL_BASE_FREQUENCY_INDEX) : 0;
+    }
+
+    public int getSerialNumber() {
+        return fixedLeaderLength >= FL_SERIAL_NUMBER + 4 ?
+            readIntAt(fixedIndex(FL_SERIAL_NUMBER)) : 0;
+    }
+
+    public byte getBeamAngle() {
+        return fixedLeaderLength > FL_BEAM_ANGLE ? fixedByte(FL_BEAM_ANGLE) : 0;
+    }
+
+    // Variable Leader fields
+
+    public short getVariableLeaderID() {
+        return variableShort(VL_VARIABLE_LEADER_ID);
+    }
+
+    public short getEnsembleNumber() {
+        return variableShort(VL_ENSEMBLE_NUMBER);
+    }
+
+    public byte getRealTimeClockYear() {
+        return variableByte(VL_RTC_YEAR);
+    }
+
+    public byte getRealTimeClockMonth() {
+        return variableByte(VL_RTC_MONTH);
+    }
+
+    public byte getRealTimeClockDay() {
+        return variableByte(VL_RTC_DAY);
+    }
+
+    public byte getRealTimeClockHour() {
+        return variableByte(VL_RTC_HOUR);
+    }
+
+    public byte getRealTimeClockMinute() {
+        return variableByte(VL_RTC_MINUTE);
+    }
+
+    public byte getRealTimeClockSecond() {
+        return variableByte(VL_RTC_SECOND);
+    }
+
+    public byte getRealTimeClockHundredths() {
+        return variableByte(VL_RTC_HUNDREDTHS);
+    }
+
+    public byte getEnsembleNumberIncrement() {
+        return variableByte(VL_ENSEMBLE_NUMBER_INCREMENT);
+    }
+
+    public short getBuiltInTestResult() {
+        return variableShort(VL_BUILT_IN_TEST_RESULT);
+    }
+
+    public short getSpeedOfSound() {
+        return variableShort(VL_SPEED_OF_SOUND);
+    }
+
+    public short getDepthOfTransducer() {
+        return variableShort(VL_DEPTH_OF_TRANSDUCER);
+    }
+
+    public short getHeading() {
+        return variableShort(VL_HEADING);
+    }
+
+    public short getPitch() {
+        return variableShort(VL_PITCH);
+    }
+
+    public short getRoll() {
+        return variableShort(VL_ROLL);
+    }
+
+    public short getSalinity() {
+        return variableShort(VL_SALINITY);
+    }
+
+    public short getTemperature() {
+        return variableShort(VL_TEMPERATURE);
+    }
+
+    public byte getMinPrePingWaitMinutes() {
+        return variableByte(VL_MIN_PRE_PING_WAIT_MINUTES);
+    }
+
+    public byte getMinPrePingWaitSeconds() {
+        return variableByte(VL_MIN_PRE_PING_WAIT_SECONDS);
+    }
+
+    public byte getMinPrePingWaitHundredths() {
+        return variableByte(VL_MIN_PRE_PING_WAIT_HUNDREDTHS);
+    }
+
+    public byte getHeadingStandardDeviation() {
+        return variableByte(VL_HEADING_STANDARD_DEVIATION);
+    }
+
+    public byte getPitchStandardDeviation() {
+        return variableByte(VL_PITCH_STANDARD_DEVIATION);
+    }
+
+    public byte getRollStandardDeviation() {
+        return variableByte(VL_ROLL_STANDARD_DEVIATION);
+    }
+
+    /**
+     * A method that returns the raw value of one of the eight ADC channels.
+     *
+     * @param channel the ADC channel, 0 to 7
+     * @return value the raw channel value
+     */
+    public byte getADCChannel(int channel) {
+        return variableByte(VL_ADC_CHANNELS + channel);
+    }
+
+    public int getErrorStatusWord() {
+        return readIntAt(variableIndex(VL_ERROR_STATUS_WORD));
+    }
+
+    public short getSpareFieldOne() {
+        return variableShort(VL_SPARE_FIELD_ONE);
+    }
+
+    public int getPressure() {
+        return readIntAt(variableIndex(VL_PRESSURE));
+    }
+
+    public int getPressureVariance() {
+        return readIntAt(variableIndex(VL_PRESSURE_VARIANCE));
+    }
+
+    public byte getSpareFieldTwo() {
+        return variableByte(VL_SPARE_FIELD_TWO);
+    }
+
+    public byte getRealTimeY2KClockCentury() {
+        return variableByte(VL_Y2K_CENTURY);
+    }
+
+    public byte getRealTimeY2KClockYear() {
+        return variableByte(VL_Y2K_YEAR);
+    }
+
+    public byte getRealTimeY2KClockMonth() {
+        return variableByte(VL_Y2K_MONTH);
+    }
+
+    public byte getRealTimeY2KClockDay() {
+        return variableByte(VL_Y2K_DAY);
+    }
+
+    public byte getRealTimeY2KClockHour() {
+        return variableByte(VL_Y2K_HOUR);
+    }
+
+    public byte getRealTimeY2KClockMinute() {
+        return variableByte(VL_Y2K_MINUTE);
+    }
+
+    public byte getRealTimeY2KClockSecond() {
+        return variableByte(VL_Y2K_SECOND);
+    }
+
+    public byte getRealTimeY2KClockHundredths() {
+        return variableByte(VL_Y2K_HUNDREDTHS);
+    }
+
+    // Profiles
+
+    /**
+     * A method that returns the raw velocity of a depth cell and beam, in mm/s.
+     *
+     * @param cell the depth cell, starting at 0 nearest the transducer
+     * @param beam the beam, starting at 0
+     * @return velocity the raw velocity, or BAD_VELOCITY
+     */
+    public short getVelocity(int cell, int beam) {
+        int index = profileIndex(EnsembleDataType.VELOCITY_PROFILE) +
+            (cell * (getNumberOfBeams() & 0xFF) + beam) * 2;
+        return readShortAt(index);
+    }
+
+    /**
+     * A method that returns the correlation magnitude of a depth cell and beam.
+     *
+     * @param cell the depth cell, starting at 0 nearest the transducer
+     * @param beam the beam, starting at 0
+     * @return correlation the correlation magnitude, 0 to 255
+     */
+    public int getCorrelation(int cell, int beam) {
+        return profileByte(EnsembleDataType.CORRELATION_PROFILE, cell, beam);
+    }
+
+    /**
+     * A method that returns the echo intensity of a depth cell and beam.
+     *
+     * @param cell the depth cell, starting at 0 nearest the transducer
+     * @param beam the beam, starting at 0
+     * @return echoIntensity the echo intensity in counts, 0 to 255
+     */
+    public int getEchoIntensity(int cell, int beam) {
+        return profileByte(EnsembleDataType.ECHOINTENSITY_PROFILE, cell, beam);
+    }
+
+    /**
+     * A method that returns the percent good of a depth cell and beam.
+     *
+     * @param cell the depth cell, starting at 0 nearest the transducer
+     * @param beam the beam, starting at 0
+     * @return percentGood the percent good, 0 to 100
+     */
+    public int getPercentGood(int cell, int beam) {
+        return profileByte(EnsembleDataType.PERCENTGOOD_PROFILE, cell, beam);
+    }
+
+    /**
+     * A method that returns the number of values in each profile, which is
+     * the number of depth cells times the number of beams.
+     *
+     * @return profileLength the number of values in a profile
+     */
+    public int getProfileLength() {
+        return (getNumberOfCells() & 0xFF) * (getNumberOfBeams() & 0xFF);
+    }
+
+    /**
+     * A method that decodes the whole velocity profile into the given array
+     * of raw velocities in mm/s.  Values are in the ensemble's order, beam
+     * within depth cell, so the velocity of a cell and beam is at
+     * <code>cell * numberOfBeams + beam</code>.  Bad velocities are left as
+     * {@link #BAD_VELOCITY}.
+     *
+     * @param velocities the array to fill, at least getProfileLength() long
+     * @return count the number of values decoded
+     */
+    public int getVelocities(short[] velocities) {
+        int count = checkProfileArray(velocities.length);
+        int index = profileIndex(EnsembleDataType.VELOCITY_PROFILE);
+        for (int i = 0; i < count; i++, index += 2) {
+            velocities[i] = readShortAt(index);
+        }
+        return count;
+    }
+
+    /**
+     * A method that decodes the whole velocity profile into the given array
+     * of velocities in m/s, in the same order as {@link #getVelocities(short[])}.
+     * Bad velocities are returned as Float.NaN.
+     *
+     * @param velocities the array to fill, at least getProfileLength() long
+     * @return count the number of values decoded
+     */
+    public int getVelocities(float[] velocities) {
+        int count = checkProfileArray(velocities.length);
+        int index = profileIndex(EnsembleDataType.VELOCITY_PROFILE);
+        for (int i = 0; i < count; i++, index += 2) {
+            short value = readShortAt(index);
+            velocities[i] = value == BAD_VELOCITY ? Float.NaN : value / 1000f;
+        }
+        return count;
+    }
+
+    /**
+     * A method that copies the whole correlation magnitude profile into the
+     * given array.  The bytes are unsigned counts, 0 to 255.
+     *
+     * @param correlations the array to fill, at least getProfileLength() long
+     * @return count the number of values copied
+     */
+    public int getCorrelations(byte[] correlations) {
+        return copyProfile(EnsembleDataType.CORRELATION_PROFILE, correlations);
+    }
+
+    /**
+     * A method that decodes the whole correlation magnitude profile into the
+     * given array as unsigned counts, 0 to 255.
+     *
+     * @param correlations the array to fill, at least getProfileLength() long
+     * @return count the number of values decoded
+     */
+    public int getCorrelations(float[] correlations) {
+        return decodeProfile(EnsembleDataType.CORRELATION_PROFILE, correlations);
+    }
+
+    /**
+     * A method that copies the whole echo intensity profile into the given
+     * array.  The bytes are unsigned counts, 0 to 255.
+     *
+     * @param echoIntensities the array to fill, at least getProfileLength() long
+     * @return count the number of values copied
+     */
+    public int getEchoIntensities(byte[] echoIntensities) {
+        return copyProfile(EnsembleDataType.ECHOINTENSITY_PROFILE, echoIntensities);
+    }
+
+    /**
+     * A method that decodes the whole echo intensity profile into the given
+     * array as unsigned counts, 0 to 255.
+     *
+     * @param echoIntensities the array to fill, at least getProfileLength() long
+     * @return count the number of values decoded
+     */
+    public int getEchoIntensities(float[] echoIntensities) {
+        return decodeProfile(EnsembleDataType.ECHOINTENSITY_PROFILE, echoIntensities);
+    }
+
+    /**
+     * A method that copies the whole percent good profile into the given
+     * array, 0 to 100.
+     *
+     * @param percentGood the array to fill, at least getProfileLength() long
+     * @return count the number of values copied
+     */
+    public int getPercentGood(byte[] percentGood) {
+        return copyProfile(EnsembleDataType.PERCENTGOOD_PROFILE, percentGood);
+    }
+
+    /**
+     * A method that decodes the whole percent good profile into the given
+     * array, 0 to 100.
+     *
+     * @param percentGood the array to fill, at least getProfileLength() long
+     * @return count the number of values decoded
+     */
+    public int getPercentGood(float[] percentGood) {
+        return decodeProfile(EnsembleDataType.PERCENTGOOD_PROFILE, percentGood);
+    }
+
+    // Trailer
+
+    public short getReservedBIT() {
+        return readShort(getNumberOfBytesInEnsemble() - 2);
+    }
+
+    /**
+     * A method that returns the checksum stated at the end of the ensemble.
+     *
+     * @return checksum the stated checksum
+     */
+    public int getChecksum() {
+        return readShort(getNumberOfBytesInEnsemble()) & 0xFFFF;
+    }
+
+    /**
+     * A method that computes the checksum of the ensemble: the modulo 65536
+     * sum of the bytes from the header ID up to, but not including, the
+     * checksum.
+     *
+     * @return checksum the computed checksum
+     */
+    public int computeChecksum() {
+        int sum = 0;
+        int end = base + getNumberOfBytesInEnsemble();
+        for (int index = base; index < end; index++) {
+            sum += buffer.get(index) & 0xFF;
+        }
+        return sum & 0xFFFF;
+    }
+
+    /**
+     * A method that determines whether the ensemble is valid by comparing
+     * the computed checksum with the checksum stated in the ensemble.
+     *
+     * @return true if the ensemble is complete and the checksums match
+     */
+    public boolean isValid() {
+        if ((getHeaderID() & 0xFFFF) != 0x7f7f ||
+            base + getLength() > buffer.limit()) {
+            return false;
+        }
+        return computeChecksum() == getChecksum();
+    }
+
+    /* Reads a little endian unsigned short at an absolute index of a buffer */
+    private static int unsignedShortAt(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xFF) | ((buffer.get(index + 1) & 0xFF) << 8);
+    }
+
+    /* Reads a byte at an offset relative to the ensemble */
+    private byte readByte(int offset) {
+        return buffer.get(base + offset);
+    }
+
+    /* Reads a little endian short at an offset relative to the ensemble */
+    private short readShort(int offset) {
+        return readShortAt(base + offset);
+    }
+
+    /* Reads a little endian short at an absolute index */
+    private short readShortAt(int index) {
+        return (short) ((buffer.get(index) & 0xFF) | (buffer.get(index + 1) << 8));
+    }
+
+    /* Reads a little endian int at an absolute index */
+    private int readIntAt(int index) {
+        return (buffer.get(index) & 0xFF) |
+            ((buffer.get(index + 1) & 0xFF) << 8) |
+            ((buffer.get(index + 2) & 0xFF) << 16) |
+            (buffer.get(index + 3) << 24);
+    }
+
+    /* Gets the absolute index of a field of the Fixed Leader */
+    private int fixedIndex(int fieldOffset) {
+        return dataTypeIndex(EnsembleDataType.FIXED_LEADER) + fieldOffset;
+    }
+
+    private byte fixedByte(int fieldOffset) {
+        return buffer.get(fixedIndex(fieldOffset));
+    }
+
+    private short fixedShort(int fieldOffset) {
+        return readShortAt(fixedIndex(fieldOffset));
+    }
+
+    /* Gets the absolute index of a field of the Variable Leader */
+    private int variableIndex(int fieldOffset) {
+        return dataTypeIndex(EnsembleDataType.VARIABLE_LEADER) + fieldOffset;
+    }
+
+    private byte variableByte(int fieldOffset) {
+        return buffer.get(variableIndex(fieldOffset));
+    }
+
+    private short variableShort(int fieldOffset) {
+        return readShortAt(variableIndex(fieldOffset));
+    }
+
+    /* Gets the absolute index of the first cell of a profile */
+    private int profileIndex(EnsembleDataType dataType) {
+        return dataTypeIndex(dataType) + PROFILE_ID_LENGTH;
+    }
+
+    /* Reads an unsigned one-byte profile cell */
+    private int profileByte(EnsembleDataType dataType, int cell, int beam) {
+        int index = profileIndex(dataType) + cell * (getNumberOfBeams() & 0xFF) + beam;
+        return buffer.get(index) & 0xFF;
+    }
+
+    /* Checks that an array can hold a whole profile, returning its length */
+    private int checkProfileArray(int arrayLength) {
+        int count = getProfileLength();
+        if (arrayLength < count) {
+            throw new IllegalArgumentException("The array holds " + arrayLength +
+                " values, but the profile has " + count + ".");
+        }
+        return count;
+    }
+
+    /* Copies a one-byte profile into an array */
+    private int copyProfile(EnsembleDataType dataType, byte[] values) {
+        int count = checkProfileArray(values.length);
+        int index = profileIndex(dataType);
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.get(index + i);
+        }
+        return count;
+    }
+
+    /* Decodes a one-byte unsigned profile into an array */
+    private int decodeProfile(EnsembleDataType dataType, float[] values) {
+        int count = checkProfileArray(values.length);
+        int index = profileIndex(dataType);
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.get(index + i) & 0xFF;
+        }
+        return count;
+    }
+
+    /* Gets the absolute index of a data type, failing if it is not present */
+    private int dataTypeIndex(EnsembleDataType dataType) {
+        int index = dataTypeIndexes[dataType.ordinal()];
+        if (index < 0) {
+            throw new IllegalStateException("The ensemble has no " + dataType + " data type.");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A batch tool that loads a recovered RDI PD0 file into the
+ *             RBNB DataTurbine, timestamping each ensemble by its own clock
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import com.rbnb.sapi.SAPIException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.nees.rbnb.ChannelData;
+import org.nees.rbnb.DataTurbineClient;
+import org.nees.rbnb.RBNBSource;
+import org.nees.rbnb.SAPIDataTurbineClient;
+
+/**
+ * A batch tool that loads a PD0 file recovered from an ADCP's recorder into
+ * the RBNB DataTurbine, rather than replaying it over a serial port at
+ * instrument speed.  The file is memory mapped and split into chunks at
+ * validated ensemble boundaries, and the chunks are decoded in parallel.
+ * Each ensemble is timestamped with its own Y2K real time clock, and the
+ * ensembles are flushed in file order, in large batches.  Ensembles whose
+ * timestamp is earlier than one already flushed (such as after a clock reset)
+ * are skipped and counted, so the frames reach the server in timestamp order.
+ * That rule is applied once, to the whole file in file order, so the output
+ * doesn't depend on the chunk size or the number of threads.
+ * <p>
+ * The ensembles are put in the same binary channel that ADCPSource uses, so
+ * the data can be read back with the same sinks.  The RBNB archive mode and
+ * size options decide whether the frames are also kept in the server's
+ * archive.
+ */
+public class PD0FileIngester extends RBNBSource {
+
+  /** The Logger instance used to log system messages */
+  private static Log log = LogFactory.getLog(PD0FileIngester.class);
+
+  /* The default RBNB channel name, the same as ADCPSource */
+  private static final String DEFAULT_RBNB_CHANNEL = "BinaryPD0EnsembleData";
+
+  /* The default size of the chunks the file is split into, in bytes */
+  private static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  /* The largest chunk, which keeps each mapping under 2 GB */
+  private static final int MAX_CHUNK_SIZE = 1024 * 1024 * 1024;
+
+  /* The default number of ensembles in each flush */
+  private static final int DEFAULT_BATCH_SIZE = 1000;
+
+  /* The default time zone of the instrument clock */
+  private static final String DEFAULT_TIME_ZONE = "Pacific/Honolulu";
+
+  /* The PD0 file being loaded */
+  private File pd0File;
+
+  /* The name of the RBNB channel the ensembles are put in */
+  private String rbnbChannelName = DEFAULT_RBNB_CHANNEL;
+
+  /* The number of decoding threads */
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  /* The nominal size of the chunks the file is split into, in bytes */
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+  /* The number of ensembles in each flush */
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  /* The time zone of the instrument clock */
+  private ZoneId timeZone = ZoneId.of(DEFAULT_TIME_ZONE);
+
+  /* The client used to flush the frames, created from the options if not set */
+  private DataTurbineClient client;
+
+  /* The timestamp of the last ensemble flushed */
+  private double lastTime = -Double.MAX_VALUE;
+
+  /* The number of ensembles flushed */
+  private long ensembleCount = 0;
+
+  /* The number of ensembles skipped for a bad clock or an earlier timestamp */
+  private long skippedCount = 0;
+
+  /* The frames of the batch being built */
+  private double[] batchTimes;
+  private byte[][] batchEnsembles;
+  private int batchLength = 0;
+
+  /**
+   * Constructor - create an empty instance of the PD0FileIngester object,
+   * using default values for the RBNB server name and port, source name,
+   * channel name, and decoding settings.
+   */
+  public PD0FileIngester() {
+  }
+
+  /**
+   * A method that loads the PD0 file into the DataTurbine.
+   *
+   * @return ensembleCount the number of ensembles flushed
+   * @throws IOException   if the file can't be read
+   * @throws SAPIException if the frames can't be flushed
+   */
+  public long ingest() throws IOException, SAPIException {
+
+    if ( client == null ) {
+      client = new SAPIDataTurbineClient(getCacheSize(), getArchiveMode(), getArchiveSize());
+    }
+    client.open(getServer(), getRBNBClientName());
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try ( FileChannel channel = FileChannel.open(pd0File.toPath(), StandardOpenOption.READ) ) {
+
+      ChannelData registration = new ChannelData(rbnbChannelName, "application/octet-stream", null);
+      client.register(Collections.singletonList(registration));
+
+      long[] boundaries = findChunkBoundaries(channel);
+      log.info("Loading " + pd0File.getPath() + " in " + (boundaries.length - 1) +
+        " chunks with " + threads + " threads.");
+
+      // decode ahead of the flushes, but bound the decoded chunks held in memory
+      batchTimes = new double[batchSize];
+      batchEnsembles = new byte[batchSize][];
+      Deque<Future<DecodedChunk>> pending = new ArrayDeque<Future<DecodedChunk>>();
+      for (int chunk = 0; chunk < boundaries.length - 1; chunk++) {
+        pending.addLast(executor.submit(
+          new ChunkDecoder(channel, boundaries[chunk], boundaries[chunk + 1])));
+        if ( pending.size() >= 2 * threads ) {
+          flushChunk(pending.removeFirst());
+        }
+      }
+      while ( ! pending.isEmpty() ) {
+        flushChunk(pending.removeFirst());
+      }
+      flushBatch();
+
+    } finally {
+      executor.shutdownNow();
+      client.close();
+    }
+
+    log.info("Loaded " + ensembleCount + " ensembles from " + pd0File.getPath() +
+      ", skipped " + skippedCount + ".");
+    return ensembleCount;
+  }
+
+  /*
+   * Finds the chunk boundaries: the start of the first valid ensemble at or
+   * after each multiple of the chunk size, and the end of the file.
+   */
+  private long[] findChunkBoundaries(FileChannel channel) throws IOException {
+    long size = channel.size();
+    List<Long> boundaries = new ArrayList<Long>();
+    boundaries.add(0L);
+
+    for (long split = chunkSize; split < size; split += chunkSize) {
+      long boundary = findEnsemble(channel, split, size);
+      if ( boundary < 0 ) {
+        break;
+      }
+      if ( boundary > boundaries.get(boundaries.size() - 1) ) {
+        boundaries.add(boundary);
+      }
+      split = Math.max(split, boundary - boundary % chunkSize);
+    }
+    boundaries.add(size);
+
+    long[] result = new long[boundaries.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = boundaries.get(i);
+    }
+    return result;
+  }
+
+  /*
+   * Finds the file position of the first valid ensemble at or after the given
+   * position, or -1 if there are none.
+   */
+  private long findEnsemble(FileChannel channel, long position, long size) throws IOException {
+    while ( position < size ) {
+      int length = (int) Math.min(size - position, chunkSize + EnsembleView.MAX_ENSEMBLE_SIZE);
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+      int last = (int) Math.min(length, chunkSize);
+      for (int index = 0; index < last; index++) {
+        if ( EnsembleView.checkEnsemble(buffer, index) > 0 ) {
+          return position + index;
+        }
+      }
+      position += last;
+    }
+    return -1;
+  }
+
+  /*
+   * Adds the ensembles of a decoded chunk to the batch, flushing each time it
+   * fills, and skipping any earlier than the last timestamp flushed.
+   */
+  private void flushChunk(Future<DecodedChunk> future) throws IOException, SAPIException {
+    DecodedChunk chunk;
+    try {
+      chunk = future.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while decoding " + pd0File.getPath(), e);
+    } catch ( ExecutionException e ) {
+      throw new IOException("Couldn't decode " + pd0File.getPath(), e.getCause());
+    }
+
+    skippedCount += chunk.skipped;
+    for (int i = 0; i < chunk.times.length; i++) {
+      if ( chunk.times[i] < lastTime ) {
+        skippedCount++;
+        continue;
+      }
+      lastTime = chunk.times[i];
+      batchTimes[batchLength] = chunk.times[i];
+      batchEnsembles[batchLength] = chunk.ensembles[i];
+      batchLength++;
+      if ( batchLength == batchSize ) {
+        flushBatch();
+      }
+    }
+  }
+
+  /* Flushes the frames of the batch as one flush */
+  private void flushBatch() throws SAPIException {
+    if ( batchLength == 0 ) {
+      return;
+    }
+    ChannelData data = new ChannelData(rbnbChannelName);
+    data.putByteArray(Arrays.copyOf(batchTimes, batchLength),
+      Arrays.copyOf(batchEnsembles, batchLength));
+    client.flush(Collections.singletonList(data));
+    ensembleCount += batchLength;
+    Arrays.fill(batchEnsembles, null);
+    batchLength = 0;
+    log.debug("Flushed " + ensembleCount + " ensembles.");
+  }
+
+  /*
+   * Gets the timestamp of an ensemble from its Y2K real time clock, in
+   * seconds since the epoch.
+   */
+  private double getTimestamp(EnsembleView view) {
+    LocalDateTime clock = LocalDateTime.of(
+      view.getRealTimeY2KClockCentury() * 100 + view.getRealTimeY2KClockYear(),
+      view.getRealTimeY2KClockMonth(),
+      view.getRealTimeY2KClockDay(),
+      view.getRealTimeY2KClockHour(),
+      view.getRealTimeY2KClockMinute(),
+      view.getRealTimeY2KClockSecond(),
+      view.getRealTimeY2KClockHundredths() * 10000000);
+    return clock.atZone(timeZone).toInstant().toEpochMilli() / 1000d;
+  }
+
+  /*
+   * The ensembles of one chunk, in file order
+   */
+  private static final class DecodedChunk {
+    private double[] times;
+    private byte[][] ensembles;
+    private int skipped;
+  }
+
+  /*
+   * Decodes the ensembles of one chunk of the mapped file
+   */
+  private final class ChunkDecoder implements Callable<DecodedChunk> {
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+
+    private ChunkDecoder(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.start = start;
+      this.end = end;
+    }
+
+    public DecodedChunk call() throws IOException {
+      // map past the end so an ensemble that starts in this chunk can finish
+      long mapEnd = Math.min(channel.size(), end + EnsembleView.MAX_ENSEMBLE_SIZE);
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mapEnd - start);
+      ByteBuffer copyBuffer = buffer.duplicate();
+      int last = (int) (end - start);
+
+      EnsembleView view = new EnsembleView();
+      List<Double> times = new ArrayList<Double>();
+      List<byte[]> ensembles = new ArrayList<byte[]>();
+      DecodedChunk chunk = new DecodedChunk();
+
+      int index = 0;
+      while ( index < last ) {
+        int length = EnsembleView.checkEnsemble(buffer, index);
+        if ( length <= 0 ) {
+          index++;
+          continue;
+        }
+        view.wrap(buffer, index);
+        try {
+          double time = getTimestamp(view);
+          byte[] ensemble = new byte[length];
+          copyBuffer.position(index);
+          copyBuffer.get(ensemble);
+          times.add(time);
+          ensembles.add(ensemble);
+        } catch ( DateTimeException | IllegalStateException e ) {
+          chunk.skipped++;
+        }
+        index += length;
+      }
+
+      // keep file order; flushChunk() skips earlier timestamps
+      chunk.times = new double[times.size()];
+      chunk.ensembles = ensembles.toArray(new byte[times.size()][]);
+      for (int i = 0; i < chunk.times.length; i++) {
+        chunk.times[i] = times.get(i);
+      }
+      return chunk;
+    }
+  }
+
+  /**
+   * A method that returns the number of ensembles flushed.
+   *
+   * @return ensembleCount the number of ensembles
+   */
+  public long getEnsembleCount() {
+    return ensembleCount;
+  }
+
+  /**
+   * A method that returns the number of ensembles skipped because their
+   * clock couldn't be read, or their timestamp was earlier than one already
+   * flushed.
+   *
+   * @return skippedCount the number of skipped ensembles
+   */
+  public long getSkippedCount() {
+    return skippedCount;
+  }
+
+  /**
+   * A method that sets the PD0 file to load
+   *
+   * @param pd0File the PD0 file
+   */
+  public void setFile(File pd0File) {
+    this.pd0File = pd0File;
+  }
+
+  /**
+   * A method that sets the RBNB channel name the ensembles are put in
+   *
+   * @param channelName the name of the RBNB channel
+   */
+  public void setChannelName(String channelName) {
+    this.rbnbChannelName = channelName;
+  }
+
+  /**
+   * A method that sets the number of threads used to decode the chunks
+   *
+   * @param threads the number of decoding threads
+   */
+  public void setThreads(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * A method that sets the nominal size of the chunks the file is split
+   * into.  Chunks are limited to 1 GB so that each one can be mapped.
+   *
+   * @param chunkSize the chunk size in bytes
+   */
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+  }
+
+  /**
+   * A method that sets the number of ensembles sent in each flush
+   *
+   * @param batchSize the number of ensembles per flush
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /**
+   * A method that sets the time zone the instrument clock was set to
+   *
+   * @param timeZone the time zone of the instrument clock
+   */
+  public void setTimeZone(ZoneId timeZone) {
+    this.timeZone = timeZone;
+  }
+
+  /**
+   * A method that sets the client used to flush the frames, in place of an
+   * RBNB SAPI client built from the server, cache, and archive settings
+   *
+   * @param client the DataTurbine client
+   */
+  public void setClient(DataTurbineClient client) {
+    this.client = client;
+  }
+
+  /**
+   * A method that returns the versioning info for this file.
+   *
+   * @return version The version information
+   */
+  protected String getCVSVersionString() {
+    return (
+    "$LastChangedDate$" +
+    "$LastChangedBy$" +
+    "$LastChangedRevision$" +
+    "$HeadURL$"
+    );
+  }
+
+  /**
+   * A method that sets the command line arguments for this class.  This method
+   * calls the <code>RBNBSource.setBaseArgs()</code> method.
+   *
+   * @param command  The CommandLine object being passed in from the command
+   *
+   * @return argumentsSet True if the arguments are set
+   */
+  protected boolean setArgs(CommandLine command) {
+
+    if ( !setBaseArgs(command) ) {
+      return false;
+    }
+
+    if ( ! command.hasOption("f") ) {
+      log.info("Error: Enter the path of the PD0 file to load.");
+      return false;
+    }
+    setFile(new File(command.getOptionValue("f")));
+
+    if ( command.hasOption("C") ) {
+      setChannelName(command.getOptionValue("C"));
+    }
+
+    try {
+      if ( command.hasOption("n") ) {
+        setThreads(Integer.parseInt(command.getOptionValue("n")));
+      }
+      if ( command.hasOption("c") ) {
+        setChunkSize(Integer.parseInt(command.getOptionValue("c")) * 1024 * 1024);
+      }
+      if ( command.hasOption("b") ) {
+        setBatchSize(Integer.parseInt(command.getOptionValue("b")));
+      }
+    } catch ( NumberFormatException nfe ) {
+      log.info("Error: Enter a numeric value for the thread count, chunk " +
+        "size, and batch size. " + nfe.getMessage());
+      return false;
+    }
+
+    if ( command.hasOption("t") ) {
+      try {
+        setTimeZone(ZoneId.of(command.getOptionValue("t")));
+      } catch ( DateTimeException dte ) {
+        log.info("Error: " + command.getOptionValue("t") + " is not a valid time zone.");
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * A method that sets the command line options for this class.  This method
+   * calls the <code>RBNBSource.setBaseOptions()</code> method in order to set
+   * properties such as the serverName, serverPort, and archive settings.
+   *
+   * @return options The command line options being set
+   */
+  protected Options setOptions() {
+    Options options = setBaseOptions(new Options());
+
+    options.addOption("f", true, "PD0 file to load");
+    options.addOption("C", true, "RBNB source channel name *" + DEFAULT_RBNB_CHANNEL);
+    options.addOption("n", true, "Number of decoding threads *" + threads);
+    options.addOption("c", true, "Chunk size in MB *" + (DEFAULT_CHUNK_SIZE / (1024 * 1024)));
+    options.addOption("b", true, "Ensembles per flush *" + DEFAULT_BATCH_SIZE);
+    options.addOption("t", true, "Instrument clock time zone *" + DEFAULT_TIME_ZONE);
+
+    return options;
+  }
+
+  /**
+   * The main method for running the code
+   *
+   * @param args the command line list of string arguments
+   */
+  public static void main(String[] args) {
+    PD0FileIngester ingester = new PD0FileIngester();
+    if ( ! ingester.parseArgs(args) ) {
+      return;
+    }
+    try {
+      ingester.ingest();
+    } catch ( IOException | SAPIException e ) {
+      log.error("Couldn't load the PD0 file: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that converts columns of raw SBE19plus values to
+ *             engineering units in bulk
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.ctd;
+
+import java.util.stream.IntStream;
+
+/**
+ *  A class that applies the SBE19plus calibration sheet formulas for
+ *  temperature, pressure, and conductivity to whole columns of raw values
+ *  held in primitive arrays, such as the column store of a CTDParser.  Each
+ *  column is given as an array and the offset of its first value, so the
+ *  values can be read from and written to a shared column-ordered array.
+ *  <p>
+ *  The formulas are the calibration sheet formulas, rearranged for speed:
+ *  log(r) is computed once per value rather than once per term, and the
+ *  polynomials are evaluated with Horner's rule instead of Math.pow().  The
+ *  rearrangement changes the order of the floating point operations, so the
+ *  results can differ from the term-by-term formulas in the last bits.  They
+ *  agree to within {@link #getAllowedDifference(double, double)}, which is
+ *  {@link #TOLERANCE} relative to values larger than 1 in magnitude and
+ *  absolute for smaller ones, such as pressures near 0 dbar, far below the
+ *  resolution of the instrument.
+ *  <p>
+ *  When parallel conversion is enabled, columns of at least
+ *  {@link #PARALLEL_THRESHOLD} values are split into blocks that are
+ *  converted on the common fork/join pool.  Each value depends only on the
+ *  values in the same scan, so the results are the same either way.
+ */
+public class CTDBatchConverter {
+
+  /**  The difference allowed from the term-by-term formulas, per unit */
+  public static final double TOLERANCE = 1e-12;
+
+  /**  The smallest column that is split across cores */
+  public static final int PARALLEL_THRESHOLD = 16384;
+
+  /*  The number of values in each parallel block */
+  private static final int BLOCK_SIZE = 4096;
+
+  /*  The constants from the temperature conversion formulas */
+  private static final double MV_CONSTANT_ONE  = 524288d;
+  private static final double MV_CONSTANT_TWO  = 1.6e+007;
+  private static final double R_CONSTANT_ONE   = 2.900e+009;
+  private static final double R_CONSTANT_TWO   = 1.024e+008;
+  private static final double R_CONSTANT_THREE = 2.048e+004;
+  private static final double R_CONSTANT_FOUR  = 2.0e+005;
+  private static final double T_CONSTANT_ONE   = 273.15d;
+
+  /*  The constants from the conductivity conversion formulas */
+  private static final double F_CONSTANT_ONE   = 1000d;
+
+  /*  The constants from the pressure conversion formulas */
+  private static final double P_CONSTANT_ONE   = 14.7d;     // atmospheric pressure
+  private static final double P_CONSTANT_TWO   = 0.689476d; // psia to decibars
+
+  /*  The calibration coefficients */
+  private final CTDParser.Coefficients coefficients;
+
+  /*  Whether or not large columns are converted in parallel */
+  private final boolean parallel;
+
+  /**
+   *  Constructor:  Builds a converter for the given calibration coefficients
+   *
+   *  @param coefficients  the calibration coefficients from the CTDParser
+   *  @param parallel      true to split large columns across cores
+   */
+  public CTDBatchConverter(CTDParser.Coefficients coefficients, boolean parallel) {
+    this.coefficients = coefficients;
+    this.parallel = parallel;
+  }
+
+  /**
+   *  A method that converts raw temperature counts to degrees C.
+   *
+   *  @param counts              the raw temperature counts
+   *  @param countsOffset        the offset of the first count
+   *  @param temperatures        the array to write the temperatures to
+   *  @param temperaturesOffset  the offset of the first temperature
+   *  @param length              the number of values to convert
+   */
+  public void convertTemperature(final double[] counts, final int countsOffset,
+                                 final double[] temperatures, final int temperaturesOffset,
+                                 int length) {
+    final double ta0 = this.coefficients.getTemperatureCoefficientTA0();
+    final double ta1 = this.coefficients.getTemperatureCoefficientTA1();
+    final double ta2 = this.coefficients.getTemperatureCoefficientTA2();
+    final double ta3 = this.coefficients.getTemperatureCoefficientTA3();
+
+    forEachBlock(length, (start, end) -> {
+      for ( int i = start; i < end; i++ ) {
+        double mv = (counts[countsOffset + i] - MV_CONSTANT_ONE) / MV_CONSTANT_TWO;
+        double r  = (mv * R_CONSTANT_ONE + R_CONSTANT_TWO) /
+                    (R_CONSTANT_THREE - mv * R_CONSTANT_FOUR);
+        double logR = Math.log(r);
+        temperatures[temperaturesOffset + i] =
+          1 / (ta0 + logR * (ta1 + logR * (ta2 + logR * ta3))) - T_CONSTANT_ONE;
+      }
+    });
+  }
+
+  /**
+   *  A method that converts raw pressure counts to decibars, using the raw
+   *  pressure temperature compensation voltages.
+   *
+   *  @param counts               the raw pressure counts
+   *  @param countsOffset         the offset of the first count
+   *  @param compensations        the raw temperature compensation voltages
+   *  @param compensationsOffset  the offset of the first voltage
+   *  @param pressures            the array to write the pressures to
+   *  @param pressuresOffset      the offset of the first pressure
+   *  @param length               the number of values to convert
+   */
+  public void convertPressure(final double[] counts, final int countsOffset,
+                              final double[] compensations, final int compensationsOffset,
+                              final double[] pressures, final int pressuresOffset,
+                              int length) {
+    final double pa0     = this.coefficients.getPressureCoefficientPA0();
+    final double pa1     = this.coefficients.getPressureCoefficientPA1();
+    final double pa2     = this.coefficients.getPressureCoefficientPA2();
+    final double ptca0   = this.coefficients.getPressureCoefficientPTCA0();
+    final double ptca1   = this.coefficients.getPressureCoefficientPTCA1();
+    final double ptca2   = this.coefficients.getPressureCoefficientPTCA2();
+    final double ptcb0   = this.coefficients.getPressureCoefficientPTCB0();
+    final double ptcb1   = this.coefficients.getPressureCoefficientPTCB1();
+    final double ptcb2   = this.coefficients.getPressureCoefficientPTCB2();
+    final double ptempa0 = this.coefficients.getPressureCoefficientPTEMPA0();
+    final double ptempa1 = this.coefficients.getPressureCoefficientPTEMPA1();
+    final double ptempa2 = this.coefficients.getPressureCoefficientPTEMPA2();
+
+    forEachBlock(length, (start, end) -> {
+      for ( int i = start; i < end; i++ ) {
+        double compensation = compensations[compensationsOffset + i];
+        double t = ptempa0 + compensation * (ptempa1 + compensation * ptempa2);
+        double x = counts[countsOffset + i] - (ptca0 + t * (ptca1 + t * ptca2));
+        double n = x * ptcb0 / (ptcb0 + t * (ptcb1 + t * ptcb2));
+        double pressurePSIA = pa0 + n * (pa1 + n * pa2);
+        pressures[pressuresOffset + i] = (pressurePSIA - P_CONSTANT_ONE) * P_CONSTANT_TWO;
+      }
+    });
+  }
+
+  /**
+   *  A method that converts raw conductivity frequencies to S/m, using the
+   *  converted temperatures and pressures of the same scans.
+   *
+   *  @param frequencies          the raw conductivity frequencies in Hz
+   *  @param frequenciesOffset    the offset of the first frequency
+   *  @param temperatures         the converted temperatures in degrees C
+   *  @param temperaturesOffset   the offset of the first temperature
+   *  @param pressures            the converted pressures in decibars
+   *  @param pressuresOffset      the offset of the first pressure
+   *  @param conductivities       the array to write the conductivities to
+   *  @param conductivitiesOffset the offset of the first conductivity
+   *  @param length               the number of values to convert
+   */
+  public void convertConductivity(final double[] frequencies, final int frequenciesOffset,
+                                  final double[] temperatures, final int temperaturesOffset,
+                                  final double[] pressures, final int pressuresOffset,
+                                  final double[] conductivities, final int conductivitiesOffset,
+                                  int length) {
+    final double g     = this.coefficients.getConductivityCoefficientG();
+    final double h     = this.coefficients.getConductivityCoefficientH();
+    final double ci    = this.coefficients.getConductivityCoefficientI();
+    final double j     = this.coefficients.getConductivityCoefficientJ();
+    final double cpcor = this.coefficients.getConductivityCoefficientCPCOR();
+    final double ctcor = this.coefficients.getConductivityCoefficientCTCOR();
+
+    forEachBlock(length, (start, end) -> {
+      for ( int i = start; i < end; i++ ) {
+        double f = frequencies[frequenciesOffset + i] / F_CONSTANT_ONE;
+        double numerator = g + f * f * (h + f * (ci + f * j));
+        double denominator = 1 + ctcor * temperatures[temperaturesOffset + i] +
+                                 cpcor * pressures[pressuresOffset + i];
+        conductivities[conductivitiesOffset + i] = numerator / denominator;
+      }
+    });
+  }
+
+  /**
+   *  A method that returns the largest difference allowed between a value
+   *  from the term-by-term formulas and its batch conversion.  The tolerance
+   *  is relative for values larger than 1 in magnitude, and absolute below
+   *  that, so values near zero aren't held to an ever smaller difference.
+   *
+   *  @param expected  the value from the term-by-term formulas
+   *  @param actual    the converted value
+   *  @return allowed  the largest allowed absolute difference
+   */
+  public static double getAllowedDifference(double expected, double actual) {
+    return TOLERANCE * Math.max(1d, Math.max(Math.abs(expected), Math.abs(actual)));
+  }
+
+  /*
+   *  Runs the block task over [0, length), split into blocks on the common
+   *  fork/join pool if the column is large and parallel conversion is on
+   */
+  private void forEachBlock(int length, final BlockTask task) {
+    if ( ! this.parallel || length < PARALLEL_THRESHOLD ) {
+      task.run(0, length);
+      return;
+    }
+    final int blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    IntStream.range(0, blocks).parallel().forEach(block ->
+      task.run(block * BLOCK_SIZE, Math.min(length, (block + 1) * BLOCK_SIZE)));
+  }
+
+  /*
+   *  A conversion of the values in [start, end)
+   */
+  private interface BlockTask {
+    void run(int start, int end);
+  }
+}
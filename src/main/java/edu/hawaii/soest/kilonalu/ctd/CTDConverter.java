@@ -22,8 +22,6 @@ import java.text.ParseException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.commons.math.linear.Array2DRowRealMatrix;
-import org.apache.commons.math.linear.ArrayRealVector;
 import org.apache.commons.math.linear.RealMatrix;
 
 
@@ -46,6 +44,16 @@ public class CTDConverter {
    */
    private CTDParser ctdParser;
 
+  /**
+   * The calibration coefficients of the CTD, parsed once by the CTDParser
+   */
+   private CTDParser.Coefficients coefficients;
+
+  /**
+   * The engine that applies the conversion formulas column by column
+   */
+   private CTDBatchConverter batchConverter;
+
   /**
    * The original matrix of raw frequency and voltage values (counts, Hz, V ...)
    */
@@ -54,7 +62,7 @@ public class CTDConverter {
   /**
    * The converted matrix of values in engineering units (degrees, S/m, decibars ...)
    */
-   private RealMatrix convertedDataValuesMatrix;
+   private ColumnStoreMatrix convertedDataValuesMatrix;
 
   /**
    *  Constructor:  Builds all of the components of the CTD data object from
@@ -64,17 +72,31 @@ public class CTDConverter {
    *  The data observations should follow the output of the 'DS' and 'DCAL' commands.
    */
   public CTDConverter(CTDParser ctdParser) {
+    this(ctdParser, false);
+    
+  }
+
+  /**
+   *  Constructor:  Builds the CTD data object as above, optionally splitting
+   *  the conversion of large profiles across cores.
+   *
+   *  @param ctdParser  the parser holding the raw data and metadata values
+   *  @param parallel   true to convert large profiles in parallel
+   */
+  public CTDConverter(CTDParser ctdParser, boolean parallel) {
     
     // set the data values matrix
     this.dataValuesMatrix = ctdParser.getConvertedMatrix();  
     
-    // create an equally-sized array for the converted values
+    // create an equally-sized column store for the converted values
     this.convertedDataValuesMatrix = 
-      new Array2DRowRealMatrix(this.dataValuesMatrix.getRowDimension(),
-                               this.dataValuesMatrix.getColumnDimension());
+      new ColumnStoreMatrix(this.dataValuesMatrix.getRowDimension(),
+                            this.dataValuesMatrix.getColumnDimension());
     
     // set the CTD parser object field
     this.ctdParser = ctdParser;                           
+    this.coefficients = ctdParser.getCoefficients();
+    this.batchConverter = new CTDBatchConverter(this.coefficients, parallel);
     
   }
 
@@ -87,55 +109,40 @@ public class CTDConverter {
     // For the following conversions, each variable's data vector position
     // is determined by the position of the variable name as they are listed
     // in the ctdParser.dataVariableNames list.
+    int temperatureVariableIndex = this.ctdParser.getDataVariableNames().indexOf(
+                                     this.ctdParser.RAW_TEMPERATURE_FIELD_NAME);
+    int pressureVariableIndex = this.ctdParser.getDataVariableNames().indexOf(
+                                  this.ctdParser.RAW_PRESSURE_FIELD_NAME);
+    int pressureTempCompVariableIndex = this.ctdParser.getDataVariableNames().indexOf(
+                                          this.ctdParser.RAW_PRESSURE_TEMP_COMP_FIELD_NAME);
+    int conductivityVariableIndex = this.ctdParser.getDataVariableNames().indexOf(
+                                      this.ctdParser.RAW_CONDUCTIVITY_FIELD_NAME);
     
     // convert the temperature vector 
-    if ( this.ctdParser.getDataVariableNames().indexOf(
-           ctdParser.RAW_TEMPERATURE_FIELD_NAME) >= 0 ) {
-      int temperatureVariableIndex = this.ctdParser.getDataVariableNames().indexOf(
-                                       this.ctdParser.RAW_TEMPERATURE_FIELD_NAME);
+    if ( temperatureVariableIndex >= 0 ) {
       convertTemperature(temperatureVariableIndex);    
     
     }
     
     // convert the pressure vector (relies on pressure-temp compensation)
-    if ( (this.ctdParser.getDataVariableNames().indexOf(
-           this.ctdParser.RAW_PRESSURE_FIELD_NAME) >= 0) &&
-          ( this.ctdParser.getDataVariableNames().indexOf(
-                  this.ctdParser.RAW_PRESSURE_TEMP_COMP_FIELD_NAME) >= 0) ) {
-      int pressureVariableIndex = 
-        this.ctdParser.getDataVariableNames().indexOf(
-          this.ctdParser.RAW_PRESSURE_FIELD_NAME);
-      int pressureTempCompVariableIndex = 
-        this.ctdParser.getDataVariableNames().indexOf(
-          this.ctdParser.RAW_PRESSURE_TEMP_COMP_FIELD_NAME);
+    if ( pressureVariableIndex >= 0 && pressureTempCompVariableIndex >= 0 ) {
       convertPressure(pressureVariableIndex, pressureTempCompVariableIndex);    
   
     }
     
     // convert the conductivity vector (relies on converted temp and pressure)
-    if ( (this.ctdParser.getDataVariableNames().indexOf(
-           this.ctdParser.RAW_CONDUCTIVITY_FIELD_NAME) >= 0) &&
-         (this.ctdParser.getDataVariableNames().indexOf(
-           this.ctdParser.RAW_TEMPERATURE_FIELD_NAME) >= 0) &&
-         (this.ctdParser.getDataVariableNames().indexOf(
-           this.ctdParser.RAW_PRESSURE_FIELD_NAME) >= 0) ) {
-      
-      int conductivityVariableIndex = this.ctdParser.getDataVariableNames().indexOf(
-                                        this.ctdParser.RAW_CONDUCTIVITY_FIELD_NAME);
-      
-      int temperatureVariableIndex  = this.ctdParser.getDataVariableNames().indexOf(
-                                        this.ctdParser.RAW_TEMPERATURE_FIELD_NAME);
-      
-      int pressureVariableIndex     = this.ctdParser.getDataVariableNames().indexOf(
-                                        this.ctdParser.RAW_PRESSURE_FIELD_NAME);
-        
+    if ( conductivityVariableIndex >= 0 && 
+         temperatureVariableIndex >= 0 && 
+         pressureVariableIndex >= 0 ) {
       convertConductivity(conductivityVariableIndex, 
                           temperatureVariableIndex, 
                           pressureVariableIndex);    
   
     }
     
-    System.out.println("Converted Data Matrix is: " + convertedDataValuesMatrix.toString());
+    if ( log.isDebugEnabled() ) {
+      log.debug("Converted Data Matrix is: " + convertedDataValuesMatrix.toString());
+    }
     
     // TODO: convert voltage channels based on the metadata from the data
     // type being collected on each channel
@@ -149,55 +156,11 @@ public class CTDConverter {
    */
   private void convertTemperature(int temperatureVectorIndex) {
     
-    // define the constants from the temperature conversion formulas
-    double MV_CONSTANT_ONE  = 524288d;
-    double MV_CONSTANT_TWO  = 1.6e+007;
-                            
-    double R_CONSTANT_ONE   = 2.900e+009;
-    double R_CONSTANT_TWO   = 1.024e+008;
-    double R_CONSTANT_THREE = 2.048e+004;
-    double R_CONSTANT_FOUR  = 2.0e+005;
-    
-    double T_CONSTANT_ONE   = 273.15d;
-    
-    //get the calibration coefficients from the CTDParser instance
-    double temperatureCoefficientTA0 = this.ctdParser.getTemperatureCoefficientTA0(); 
-    double temperatureCoefficientTA1 = this.ctdParser.getTemperatureCoefficientTA1(); 
-    double temperatureCoefficientTA2 = this.ctdParser.getTemperatureCoefficientTA2(); 
-    double temperatureCoefficientTA3 = this.ctdParser.getTemperatureCoefficientTA3(); 
-    
-    ArrayRealVector temperatureVector = (ArrayRealVector)
-      this.dataValuesMatrix.getColumnVector(temperatureVectorIndex);
-    
-    ArrayRealVector convertedTemperatureVector =
-      new ArrayRealVector(temperatureVector.getDimension());
-      
-    // iterate through the temperature values and apply the conversion
-    for( int count = 0; count < temperatureVector.getDimension(); count++ ) {
-      
-      // calculate the temperature in degrees C from the calibration sheet formula
-      // note: the mv, r, and tDegreesC variables come from the calibration sheet
-      double countValue = temperatureVector.getEntry(count);
-      double mv         = (countValue - MV_CONSTANT_ONE)/MV_CONSTANT_TWO;
-      
-      double r = 
-      (mv * R_CONSTANT_ONE + R_CONSTANT_TWO)/(R_CONSTANT_THREE - mv * R_CONSTANT_FOUR);
-      
-      double tDegreesC = 
-        1/(
-            temperatureCoefficientTA0 + 
-            temperatureCoefficientTA1 * (Math.log(r)) +
-            temperatureCoefficientTA2 * (Math.pow(Math.log(r), 2)) + 
-            temperatureCoefficientTA3 * (Math.pow(Math.log(r), 3)) 
-          ) - T_CONSTANT_ONE;
-      
-      convertedTemperatureVector.setEntry(count, tDegreesC);
-            
-    } 
-    
-    // set the new vector in the converted values matrix
-    this.convertedDataValuesMatrix.setColumnVector(temperatureVectorIndex, 
-                                                   convertedTemperatureVector);
+    double[] converted = this.convertedDataValuesMatrix.getValues();
+    this.batchConverter.convertTemperature(
+      getRawValues(), getRawOffset(temperatureVectorIndex),
+      converted, this.convertedDataValuesMatrix.getColumnOffset(temperatureVectorIndex),
+      this.convertedDataValuesMatrix.getRowDimension());
            
   }
   
@@ -210,141 +173,56 @@ public class CTDConverter {
                                    int temperatureVectorIndex, 
                                    int pressureVectorIndex) {
     
-    // define the constants from the conductivity conversion formulas
-    double F_CONSTANT_ONE  = 1000d;
-        
-    //get the calibration coefficients from the CTDParser instance
-    double conductivityCoefficientG      = this.ctdParser.getConductivityCoefficientG(); 
-    double conductivityCoefficientH      = this.ctdParser.getConductivityCoefficientH(); 
-    double conductivityCoefficientI      = this.ctdParser.getConductivityCoefficientI(); 
-    double conductivityCoefficientJ      = this.ctdParser.getConductivityCoefficientJ(); 
-    double conductivityCoefficientCF0    = this.ctdParser.getConductivityCoefficientCF0(); 
-    double conductivityCoefficientCPCOR  = this.ctdParser.getConductivityCoefficientCPCOR(); 
-    double conductivityCoefficientCTCOR  = this.ctdParser.getConductivityCoefficientCTCOR(); 
-    double conductivityCoefficientCSLOPE = this.ctdParser.getConductivityCoefficientCSLOPE(); 
-    
-    ArrayRealVector conductivityVector = (ArrayRealVector)
-      this.dataValuesMatrix.getColumnVector(conductivityVectorIndex);
-    
-    ArrayRealVector convertedConductivityVector =
-      new ArrayRealVector(conductivityVector.getDimension());
-    
-    ArrayRealVector convertedTemperatureVector = (ArrayRealVector)
-      this.convertedDataValuesMatrix.getColumnVector(temperatureVectorIndex);
-    
-    ArrayRealVector convertedPressureVector = (ArrayRealVector)
-      this.convertedDataValuesMatrix.getColumnVector(pressureVectorIndex);
-    
-    // iterate through the conductivity values and apply the conversion
-    for( int count = 0; count < conductivityVector.getDimension(); count++ ) {
-      
-      // calculate the conductivity in Siemens/m from the calibration sheet formula
-      double frequencyValue = conductivityVector.getEntry(count);
-      double tDegreesC      = convertedTemperatureVector.getEntry(count);
-      double pressureDB     = convertedPressureVector.getEntry(count);
-      double f              = frequencyValue/F_CONSTANT_ONE;
-      double cSiemensPerM = (
-                              conductivityCoefficientG      +
-                              (conductivityCoefficientH     *
-                                Math.pow(f, 2))             +
-                              (conductivityCoefficientI     *
-                                Math.pow(f, 3))             +
-                              (conductivityCoefficientJ     *
-                                Math.pow(f, 4))             
-                            )                               /
-                            (                               
-                              1                             +
-                              (conductivityCoefficientCTCOR *
-                               tDegreesC)                   +
-                              (conductivityCoefficientCPCOR *
-                               pressureDB)
-                            );
-      convertedConductivityVector.setEntry(count, cSiemensPerM);
-            
-    } 
-    
-    // set the new vector in the converted values matrix
-    this.convertedDataValuesMatrix.setColumnVector(conductivityVectorIndex, 
-                                                   convertedConductivityVector);      
+    double[] converted = this.convertedDataValuesMatrix.getValues();
+    this.batchConverter.convertConductivity(
+      getRawValues(), getRawOffset(conductivityVectorIndex),
+      converted, this.convertedDataValuesMatrix.getColumnOffset(temperatureVectorIndex),
+      converted, this.convertedDataValuesMatrix.getColumnOffset(pressureVectorIndex),
+      converted, this.convertedDataValuesMatrix.getColumnOffset(conductivityVectorIndex),
+      this.convertedDataValuesMatrix.getRowDimension());
        
   }
   
   /*
-   *  A method used to apply the temperature conversion formula to the data 
+   *  A method used to apply the pressure conversion formula to the data 
    *  matrix. The converted matrix is populated with the new values in the given
    *  vector position.
    */
   private void convertPressure(int pressureVectorIndex, int pressureTempCompIndex) {
   
-    double P_CONTSTANT_ONE = 14.7d;     // atmospheric pressure influence
-    double P_CONTSTANT_TWO = 0.689476d; // psia to decibars factor
-    
-    //get the calibration coefficients from the CTDParser instance
-    double pressureCoefficientPA0     = this.ctdParser.getPressureCoefficientPA0(); 
-    double pressureCoefficientPA1     = this.ctdParser.getPressureCoefficientPA1(); 
-    double pressureCoefficientPA2     = this.ctdParser.getPressureCoefficientPA2(); 
-    double pressureCoefficientPTCA0   = this.ctdParser.getPressureCoefficientPTCA0(); 
-    double pressureCoefficientPTCA1   = this.ctdParser.getPressureCoefficientPTCA1(); 
-    double pressureCoefficientPTCA2   = this.ctdParser.getPressureCoefficientPTCA2(); 
-    double pressureCoefficientPTCB0   = this.ctdParser.getPressureCoefficientPTCB0(); 
-    double pressureCoefficientPTCB1   = this.ctdParser.getPressureCoefficientPTCB1(); 
-    double pressureCoefficientPTCB2   = this.ctdParser.getPressureCoefficientPTCB2(); 
-    double pressureCoefficientPTEMPA0 = this.ctdParser.getPressureCoefficientPTEMPA0(); 
-    double pressureCoefficientPTEMPA1 = this.ctdParser.getPressureCoefficientPTEMPA1(); 
-    double pressureCoefficientPTEMPA2 = this.ctdParser.getPressureCoefficientPTEMPA2(); 
-    double pressureOffsetCoefficient  = this.ctdParser.getPressureOffsetCoefficient(); 
-    
-    // convert raw values ...
-    ArrayRealVector pressureVector = (ArrayRealVector)
-      this.dataValuesMatrix.getColumnVector(pressureVectorIndex);
-    
-    ArrayRealVector pressureTempCompVector = (ArrayRealVector)
-      this.dataValuesMatrix.getColumnVector(pressureTempCompIndex);
-    
-    // to engineering values
-    ArrayRealVector convertedPressureVector =
-      new ArrayRealVector(pressureVector.getDimension());
-      
-    // iterate through the pressure values and apply the conversion
-    for( int count = 0; count < pressureVector.getDimension(); count++ ) {
-      
-      // calculate the pressure in decibars from the calibration sheet formula
-      double pressureValue  = pressureVector.getEntry(count);
-      double ptCompValue    = pressureTempCompVector.getEntry(count);
-      
-      double t = pressureCoefficientPTEMPA0                + 
-                (pressureCoefficientPTEMPA1 * ptCompValue) +
-                (pressureCoefficientPTEMPA2 * Math.pow(ptCompValue, 2));
-              
-      double x = pressureValue -
-                 pressureCoefficientPTCA0 -
-                 pressureCoefficientPTCA1 * t -
-                 pressureCoefficientPTCA2 * Math.pow(t, 2);
-                 
-      double n = x *
-                 pressureCoefficientPTCB0 /
-                 (
-                   pressureCoefficientPTCB0 + 
-                   pressureCoefficientPTCB1 *
-                   t                        +
-                   pressureCoefficientPTCB2 *
-                   Math.pow(t, 2)
-                 );
-      double pressurePSIA = pressureCoefficientPA0 +
-                            pressureCoefficientPA1 *
-                            n                      +
-                            pressureCoefficientPA2 *
-                            Math.pow(n, 2);
-                 
-      // pressure (decibels) = [pressure (psia) - 14.7] * 0.689476 from the CTD manual
-      double pressureDB = (pressurePSIA - P_CONTSTANT_ONE) * P_CONTSTANT_TWO;
-      convertedPressureVector.setEntry(count, pressureDB);
+    double[] converted = this.convertedDataValuesMatrix.getValues();
+    this.batchConverter.convertPressure(
+      getRawValues(), getRawOffset(pressureVectorIndex),
+      getRawValues(), getRawOffset(pressureTempCompIndex),
+      converted, this.convertedDataValuesMatrix.getColumnOffset(pressureVectorIndex),
+      this.convertedDataValuesMatrix.getRowDimension());
+        
+  }
+  
+  /*
+   *  Returns the raw values in column order, shared with the parser's column
+   *  store when it has one
+   */
+  private double[] getRawValues() {
+    if ( this.dataValuesMatrix instanceof ColumnStoreMatrix ) {
+      return ((ColumnStoreMatrix) this.dataValuesMatrix).getValues();
       
     }
+    ColumnStoreMatrix rawValues = 
+      new ColumnStoreMatrix(this.dataValuesMatrix.getRowDimension(),
+                            this.dataValuesMatrix.getColumnDimension());
+    rawValues.setSubMatrix(this.dataValuesMatrix.getData(), 0, 0);
+    this.dataValuesMatrix = rawValues;
+    return rawValues.getValues();
+    
+  }
+  
+  /*
+   *  Returns the offset of a raw column in the array from getRawValues()
+   */
+  private int getRawOffset(int column) {
+    return column * this.dataValuesMatrix.getRowDimension();
     
-    // set the new vector in the converted values matrix
-    this.convertedDataValuesMatrix.setColumnVector(pressureVectorIndex, convertedPressureVector);
-        
   }
   
   /**
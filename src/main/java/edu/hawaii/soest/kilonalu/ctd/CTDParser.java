@@ -35,28 +35,19 @@ import edu.ucsb.nceas.utilities.XMLUtilities;
 import java.io.IOException;
 import java.io.StringReader;
 
-import java.math.BigInteger;
-
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.StringTokenizer;
 import java.util.TimeZone;
-import java.util.TreeMap;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.commons.codec.DecoderException;
 
-
-import org.apache.commons.math.linear.Array2DRowRealMatrix;
 import org.apache.commons.math.linear.RealMatrix;
 
 import org.w3c.dom.Document;
@@ -99,22 +90,33 @@ public class CTDParser {
   private String observationsString = "";
   
   /*
-   *  A field that stores the metadata values as a SortedMap.  Each metadata key
-   *  corresponds to the value given by the instrument.
+   *  A field that stores the string the data lines are indexed in.  The data
+   *  lines are not copied; each is found by its offsets in this string.
+   */
+  private String dataLinesString = "";
+  
+  /*
+   *  Fields that store the start and end offsets of the data lines in scan
+   *  order.  Each line holds the data observation values for a given CTD scan.
    */
-  private SortedMap<String,String> metadataValuesMap;
+  private int[] dataLineStarts = new int[0];
+  private int[] dataLineEnds = new int[0];
+  
+  /*  A field that stores the number of indexed data lines */
+  private int dataLineCount = 0;
   
   /*
-   *  A field that stores the data values (lines) as a SortedMap.  Each string 
-   *  represents the data observation values for a given CTD scan.
+   *  A field that stores the converted data values as a flat, column-ordered
+   *  array.  Each data variable is stored contiguously, one value per CTD scan.
    */
-  private SortedMap<Integer,String> dataValuesMap;
+  private double[] convertedDataValues;
   
   /*
-   *  A field that stores the converted data values as a RealMatrix.  Each row 
-   *  represents the data observation values for a given CTD scan.
+   *  A field that stores the converted data values as a RealMatrix view over
+   *  the convertedDataValues array.  Each row represents the data observation
+   *  values for a given CTD scan.
    */
-  private RealMatrix convertedDataValuesMatrix;
+  private ColumnStoreMatrix convertedDataValuesMatrix;
   
   /*
    *  A field that stores the ordered data variable names as a List.
@@ -143,6 +145,9 @@ public class CTDParser {
    */
   private List<Integer> dataVariableOffsets;
   
+  /*  The numeric metadata values and coefficients, parsed once per setMetadata */
+  private Coefficients coefficients = new Coefficients(this);
+  
   /*  A field used to keep track of the current data variable offset */
    private int currentOffset;
    
@@ -189,15 +194,12 @@ public class CTDParser {
   private String fieldDelimiter = DEFAULT_FIELD_DELIMITER;
   
   /**
-   *  A field that stores the default metadata delimiter pattern in a String. 
-   *  Usually "\\*END\\*\r\n"
+   *  A field that stores the default metadata delimiter in a String, the
+   *  literal text that ends the metadata section. Usually "*END*\r\n"
    */
-  public final String DEFAULT_METADATA_DELIMITER = "\\*END\\*\r\n";
+  public final String DEFAULT_METADATA_DELIMITER = "*END*\r\n";
   
-  /*
-   *  A field that stores the metadata delimiter pattern in a String. 
-   *  Usually "\\*END\\*\r\n"
-   */
+  /*  A field that stores the metadata delimiter in a String. */
   private String metadataDelimiter = DEFAULT_METADATA_DELIMITER;
   
   /**  A field that stores the file name as a String */
@@ -900,8 +902,6 @@ public class CTDParser {
    *  and GetHD.  These commands are available in the Seabird firmare > 3.0f.
    */
   public CTDParser() {
-    this.metadataValuesMap = new TreeMap<String, String>();
-    this.dataValuesMap     = new TreeMap<Integer, String>();
     
   }
   
@@ -918,21 +918,17 @@ public class CTDParser {
   public CTDParser(String metadataAndDataString) throws ParseException{
     
     // Prepare the string for parsing.  The data file is split into metadata
-    // and data sections, and each section is then tokenized into lines. 
-    // The metadata section is tokenized into field pairs 
-    // (e.g. battery type = alkaline) based on the "," delimiter, and the pairs 
-    // are split based on "=" and ":" delimiters and placed into a SortedMap for
-    // later retrieval.  The data section is split into its component 
-    // observations, based on the presence/absence of certain data or voltages.
+    // and data sections.  The metadata section is scanned once for field pairs 
+    // (e.g. battery type = alkaline), and each known pair is assigned to its
+    // field as it is found.  The data section is indexed into its component 
+    // observation lines, which are later decoded in place.
     this.metadataAndDataString = metadataAndDataString;
-    this.metadataValuesMap = new TreeMap<String, String>();
-    this.dataValuesMap     = new TreeMap<Integer, String>();
     
     try {
-      // Parse the data input string.  Two sorted hashmaps are populated in the
-      // class, one for metadata name/value pairs, and one for data observation
-      // lines.  The latter is then converted into a common data structure after
-      // transformations are applied using the calibration coefficients.
+      // Parse the data input string, setting the metadata fields and indexing
+      // the data observation lines.  The lines are then converted into a 
+      // common data structure after transformations are applied using the 
+      // calibration coefficients.
       parse();
       
       // Set the individual metadata fields found in the DS and DCAL output
@@ -949,25 +945,21 @@ public class CTDParser {
   }
   
   /*
-   *  A method used to convert hex data to their raw output units based on per
-   * variable conversions found in the SBE19plus user manual under the 
-   * OUTPUTFORMAT = 0 section (raw Hex).   
+   *  A method used to look up the divisor that converts hex data to their raw
+   *  output units based on per variable conversions found in the SBE19plus
+   *  user manual under the OUTPUTFORMAT = 0 section (raw Hex).  Variables with
+   *  no known conversion get an infinite divisor, and so convert to zero.
    */
-  private double convert(double value, String variableName) {
+  private double getConversionDivisor(String variableName) {
     
-    double returnValue = 0d;
-    
-    // temperature has no conversion
-    if ( variableName.equals(this.RAW_TEMPERATURE_FIELD_NAME) ) {
-      returnValue = value;
+    // temperature and pressure have no conversion
+    if ( variableName.equals(this.RAW_TEMPERATURE_FIELD_NAME) ||
+         variableName.equals(this.RAW_PRESSURE_FIELD_NAME) ) {
+      return 1d;
     
     // conductivity    
     } else if ( variableName.equals(this.RAW_CONDUCTIVITY_FIELD_NAME) ) {
-      returnValue = value / 256d;
-    
-    // pressure    
-    } else if ( variableName.equals(this.RAW_PRESSURE_FIELD_NAME) ) {
-      returnValue = value;
+      return 256d;
     
     // voltages    
     } else if ( variableName.equals(this.RAW_PRESSURE_TEMP_COMP_FIELD_NAME)   ||
@@ -975,100 +967,97 @@ public class CTDParser {
                 variableName.equals(this.RAW_VOLTAGE_CHANNEL_ONE_FIELD_NAME)  || 
                 variableName.equals(this.RAW_VOLTAGE_CHANNEL_TWO_FIELD_NAME)  || 
                 variableName.equals(this.RAW_VOLTAGE_CHANNEL_THREE_FIELD_NAME)) {
-      returnValue = value / 13107d;
+      return 13107d;
                 
     }
-    return returnValue;  
+    return Double.POSITIVE_INFINITY;  
+  }
+
+  /*
+   *  A method used to decode the raw Hex observation lines into the flat,
+   *  column-ordered convertedDataValues array.  The hex digits of each field
+   *  are read straight from the line's characters between the precomputed
+   *  dataVariableOffsets, so no substrings, byte arrays, or boxed numbers are
+   *  created per value.  Fields are 2 or 3 unsigned bytes (AABB or AABBCC).
+   *  A field that is missing from a short line, or that holds a character
+   *  that isn't a hex digit, is stored as NaN.  Only the first scans lines
+   *  are decoded.
+   */
+  private void decodeHexData(int scans) {
+    
+    int columns = this.dataVariableOffsets.size();
+    
+    // resolve the offsets and conversions once, rather than per value
+    int[] endIndexes = new int[columns];
+    double[] divisors = new double[columns];
+    for ( int column = 0; column < columns; column++ ) {
+      endIndexes[column] = this.dataVariableOffsets.get(column);
+      divisors[column] = getConversionDivisor(this.dataVariableNames.get(column));
+    }
+    
+    double[] values = new double[scans * columns];
+    for ( int scan = 0; scan < scans; scan++ ) {
+      String hexDataString = this.dataLinesString;
+      int lineStart = this.dataLineStarts[scan];
+      int lineLength = this.dataLineEnds[scan] - lineStart;
+      int beginIndex = 0;
+      
+      for ( int column = 0; column < columns; column++ ) {
+        int endIndex = endIndexes[column];
+        double value = Double.NaN;
+        
+        if ( endIndex <= lineLength ) {
+          int intValue = 0;
+          int index = beginIndex;
+          for ( ; index < endIndex; index++ ) {
+            int digit = Character.digit(hexDataString.charAt(lineStart + index), 16);
+            if ( digit < 0 ) {
+              break;
+            }
+            intValue = (intValue << 4) | digit;
+          }
+          if ( index == endIndex ) {
+            value = intValue / divisors[column];
+          }
+        }
+        
+        values[column * scans + scan] = value;
+        beginIndex = endIndex;
+      }
+    }
+    
+    this.convertedDataValues = values;
+    this.convertedDataValuesMatrix = new ColumnStoreMatrix(values, scans, columns);
+    log.debug("Decoded " + scans + " scans of " + columns + " Hex variables.");
   }
 
   /*
    *  A method used to parse the input data string. The data file is split 
-   *  into metadata and data sections, and each section is then tokenized into 
-   *  lines.  The metadata section is tokenized into field pairs 
-   *  (e.g. battery type = alkaline) based on the "," delimiter, and the pairs 
-   *  are split based on "=" and ":" delimiters and placed into a SortedMap for
-   *  later retrieval.  The data section is split into its component 
-   *  observations, based on the presence/absence of certain data or voltages.
+   *  into metadata and data sections in one pass.  The metadata section is 
+   *  scanned for field pairs (e.g. battery type = alkaline) separated by ","
+   *  delimiters, with the names and values split on the first ":" or else the
+   *  first "=" delimiter, and each known name is assigned to its field 
+   *  directly.  The data section is indexed into its component observation 
+   *  lines by offset, without copying the lines.
    */
   public void parse() throws ParseException {
     log.trace("CTDParser.parse() called.");
         
     if ( ! this.metadataAndDataString.equals("") ) {
       
-      // create the two sections
-      String[] sections = this.metadataAndDataString.split(this.metadataDelimiter);
-      String[] nameValueArray = {"", ""};  //used later for splitting name/value pairs
-
-      if ( sections.length > 1) {
-        this.metadataString     = sections[0];  
-        this.observationsString = sections[1];
-
-        // tokenize the legacy DS/Dcal metadata into lines
-        StringTokenizer lineTokenizer = 
-          new StringTokenizer(this.metadataString, this.recordDelimiter);
-
-        while( lineTokenizer.hasMoreTokens() ) {
-
-          String line = lineTokenizer.nextToken();
-          StringTokenizer fieldTokenizer = 
-            new StringTokenizer(line, this.METADATA_FIELD_DELIMITER);
-
-          // tokenize the lines into field pairs
-          while ( fieldTokenizer.hasMoreTokens() ) {
-
-            // remove leading "*" characters and trim whitespace
-            String nameValuePair = 
-              fieldTokenizer.nextToken().replaceAll("^\\**", "").trim();
-
-            // check for pairs delimited by a colon
-            if ( nameValuePair.indexOf(this.PRIMARY_PAIR_DELIMITER) > 0 ) {
-              nameValueArray = nameValuePair.split(this.PRIMARY_PAIR_DELIMITER, 2);
-
-              // add the pair to the metadata map
-              if ( nameValueArray.length > 1) {
-                this.metadataValuesMap.put(nameValueArray[0].trim(), nameValueArray[1].trim());
+      // find the end of the metadata section
+      int metadataEnd = this.metadataAndDataString.indexOf(this.metadataDelimiter);
+      int observationsStart = metadataEnd + this.metadataDelimiter.length();
 
-              // otherwise add an empty pair to the metadata map
-              } else {
-                this.metadataValuesMap.put(nameValueArray[0].trim(), "");
+      if ( metadataEnd >= 0 && observationsStart < this.metadataAndDataString.length() ) {
+        this.metadataString     = this.metadataAndDataString.substring(0, metadataEnd);  
+        this.observationsString = this.metadataAndDataString.substring(observationsStart);
 
-              }  
+        // scan the legacy DS/Dcal metadata into the metadata fields
+        scanMetadata(this.metadataString);
 
-            // check for pairs delimited by an equals sign
-            } else if ( nameValuePair.indexOf(this.SECONDARY_PAIR_DELIMITER) > 0  ) {
-              nameValueArray = nameValuePair.split(this.SECONDARY_PAIR_DELIMITER, 2);
-
-              // add the pair to the metadata map
-              if ( nameValueArray.length > 1) {
-                this.metadataValuesMap.put(nameValueArray[0].trim(), nameValueArray[1].trim());
-
-              // otherwise add an empty pair to the metadata map
-              } else {
-                this.metadataValuesMap.put(nameValueArray[0].trim(), "");
-
-              }  
-
-            // otherwise add an empty pair to the metadata map
-            } else {
-              this.metadataValuesMap.put(nameValuePair.trim(), "");
-
-            } //if   
-
-          } //while
-
-        } //while
-
-        StringTokenizer dataTokenizer = 
-          new StringTokenizer(this.observationsString, this.recordDelimiter);
-
-        // tokenize the lines into observations strings, place them in sequential
-        // order into the dataValuesMap
-        while ( dataTokenizer.hasMoreTokens() ) {
-          String dataLine = dataTokenizer.nextToken();
-          //log.debug("|" + dataLine + "|");
-          this.dataValuesMap.put(dataValuesMap.size() + 1, dataLine);  
-
-        }
+        // index the observation lines in sequential order
+        indexDataLines(this.observationsString);
 
       } else {
 
@@ -1078,26 +1067,404 @@ public class CTDParser {
         "correctly.  Please be sure that the output of the" +
         "'DS' and 'DCAL' commands are followed by "         +
         "'*END*\\r\\n' and then the data observation lines.", 0);
-      } //end if (sections.length)
+      } //end if (metadataEnd)
 
     } else {
       
-      // just parse the observations data lines since the metadata came in
+      // just index the observations data lines since the metadata came in
       // XML form
-      StringTokenizer dataTokenizer = 
-        new StringTokenizer(this.observationsString, this.recordDelimiter);
+      indexDataLines(this.observationsString);
 
-      // tokenize the lines into observations strings, place them in sequential
-      // order into the dataValuesMap
-      while ( dataTokenizer.hasMoreTokens() ) {
-        String dataLine = dataTokenizer.nextToken();
-        //log.debug("|" + dataLine + "|");
-        this.dataValuesMap.put(dataValuesMap.size() + 1, dataLine);  
+    }
+  }                                                  
 
+  /*
+   *  A method used to scan the DS and DCAL metadata text in a single pass.
+   *  Each line is divided into fields at the metadata field delimiter, and
+   *  each field is handed to scanMetadataField() by its offsets.
+   */
+  private void scanMetadata(String metadata) {
+    
+    char fieldDelimiter = this.METADATA_FIELD_DELIMITER.charAt(0);
+    int length = metadata.length();
+    int fieldStart = 0;
+    
+    for ( int index = 0; index < length; index++ ) {
+      char character = metadata.charAt(index);
+      if ( character == fieldDelimiter || 
+           this.recordDelimiter.indexOf(character) >= 0 ) {
+        scanMetadataField(metadata, fieldStart, index);
+        fieldStart = index + 1;
+        
+      }
+    }
+    scanMetadataField(metadata, fieldStart, length);
+  }
+  
+  /*
+   *  A method used to split one metadata field into its name and value.  The
+   *  leading "*" characters and surrounding whitespace are skipped, and the
+   *  name and value are split on the first ":", or else on the first "=".  A
+   *  field with neither delimiter is a name with an empty value.
+   */
+  private void scanMetadataField(String metadata, int start, int end) {
+    
+    while ( start < end && metadata.charAt(start) == '*' ) {
+      start++;
+    }
+    while ( start < end && metadata.charAt(start) <= ' ' ) {
+      start++;
+    }
+    while ( end > start && metadata.charAt(end - 1) <= ' ' ) {
+      end--;
+    }
+    if ( start == end ) {
+      return;
+      
+    }
+    
+    int delimiter = 
+      indexOf(metadata, this.PRIMARY_PAIR_DELIMITER.charAt(0), start + 1, end);
+    if ( delimiter < 0 ) {
+      delimiter = 
+        indexOf(metadata, this.SECONDARY_PAIR_DELIMITER.charAt(0), start + 1, end);
+    }
+    
+    if ( delimiter < 0 ) {
+      setMetadataField(metadata.substring(start, end), "");
+      
+    } else {
+      setMetadataField(metadata.substring(start, delimiter).trim(),
+                       metadata.substring(delimiter + 1, end).trim());
+      
+    }
+  }
+  
+  /*
+   *  Returns the index of a character in [start, end) of a string, or -1
+   */
+  private static int indexOf(String string, char character, int start, int end) {
+    for ( int index = start; index < end; index++ ) {
+      if ( string.charAt(index) == character ) {
+        return index;
+        
+      }
+    }
+    return -1;
+  }
+  
+  /*
+   *  A method used to assign a DS or DCAL metadata value to its field.  The
+   *  String switch is compiled to a lookup on the name's hash code, so each
+   *  name is matched with one hash lookup and one comparison.  Unknown names
+   *  are ignored, and a name seen more than once keeps its last value.
+   */
+  private void setMetadataField(String name, String value) {
+    
+    switch ( name ) {
+      case SAMPLING_MODE:
+        this.samplingMode = value;
+        break;
+      case OUTPUT_FORMAT:
+        this.outputFormat = value;
+        break;
+      case PRESSURE_SENSOR_TYPE:
+        this.pressureSensorType = value;
+        break;
+      case PRESSURE_SENSOR_RANGE:
+        this.pressureSensorRange = value;
+        break;
+      case EXTERNAL_VOLTAGE_CHANNEL_ZERO:
+        this.externalVoltageChannelZero = value;
+        break;
+      case EXTERNAL_VOLTAGE_CHANNEL_ONE:
+        this.externalVoltageChannelOne = value;
+        break;
+      case EXTERNAL_VOLTAGE_CHANNEL_TWO:
+        this.externalVoltageChannelTwo = value;
+        break;
+      case EXTERNAL_VOLTAGE_CHANNEL_THREE:
+        this.externalVoltageChannelThree = value;
+        break;
+      case SBE38_TEMPERATURE_SENSOR:
+        this.sbe38TemperatureSensor = value;
+        break;
+      case GAS_TENSION_DEVICE:
+        this.gasTensionDevice = value;
+        break;
+      case FIRST_SAMPLE_TIME:
+        this.firstSampleTime = value;
+        break;
+      case FILE_NAME:
+        this.fileName = value;
+        break;
+      case TEMPERATURE_SERIAL_NUMBER:
+        this.temperatureSerialNumber = value;
+        break;
+      case CONDUCTIVITY_SERIAL_NUMBER:
+        this.conductivitySerialNumber = value;
+        break;
+      case SYSTEM_UPLOAD_TIME:
+        this.systemUpLoadTime = value;
+        break;
+      case CRUISE_INFORMATION:
+        this.cruiseInformation = value;
+        break;
+      case STATION_INFORMATION:
+        this.stationInformation = value;
+        break;
+      case SHIP_INFORMATION:
+        this.shipInformation = value;
+        break;
+      case CHIEF_SCIENTIST:
+        this.chiefScientist = value;
+        break;
+      case ORGANIZATION:
+        this.organization = value;
+        break;
+      case AREA_OF_OPERATION:
+        this.areaOfOperation = value;
+        break;
+      case INSTRUMENT_PACKAGE:
+        this.instrumentPackage = value;
+        break;
+      case MOORING_NUMBER:
+        this.mooringNumber = value;
+        break;
+      case INSTRUMENT_LATITUDE:
+        this.instrumentLatitude = value;
+        break;
+      case INSTRUMENT_LONGITUDE:
+        this.instrumentLongitude = value;
+        break;
+      case DEPTH_SOUNDING:
+        this.depthSounding = value;
+        break;
+      case PROFILE_NUMBER:
+        this.profileNumber = value;
+        break;
+      case PROFILE_DIRECTION:
+        this.profileDirection = value;
+        break;
+      case DEPLOYMENT_NOTES:
+        this.deploymentNotes = value;
+        break;
+      case MAIN_BATTERY_VOLTAGE:
+        this.mainBatteryVoltage = value;
+        break;
+      case LITHIUM_BATTERY_VOLTAGE:
+        this.lithiumBatteryVoltage = value;
+        break;
+      case OPERATING_CURRENT:
+        this.operatingCurrent = value;
+        break;
+      case PUMP_CURRENT:
+        this.pumpCurrent = value;
+        break;
+      case CHANNELS_01_EXTERNAL_CURRENT:
+        this.channels01ExternalCurrent = value;
+        break;
+      case CHANNELS_23_EXTERNAL_CURRENT:
+        this.channels23ExternalCurrent = value;
+        break;
+      case LOGGING_STATUS:
+        this.loggingStatus = value;
+        break;
+      case NUMBER_OF_SCANS_TO_AVERAGE:
+        this.numberOfScansToAverage = value;
+        break;
+      case NUMBER_OF_SAMPLES:
+        this.numberOfSamples = value;
+        break;
+      case NUMBER_OF_AVAILABLE_SAMPLES:
+        this.numberOfAvailableSamples = value;
+        break;
+      case SAMPLE_INTERVAL:
+        this.sampleInterval = value;
+        break;
+      case MEASUREMENTS_PER_SAMPLE:
+        this.measurementsPerSample = value;
+        break;
+      case TRANSMIT_REALTIME:
+        this.transmitRealtime = value;
+        break;
+      case NUMBER_OF_CASTS:
+        this.numberOfCasts = value;
+        break;
+      case MINIMUM_CONDUCTIVITY_FREQUENCY:
+        this.minimumConductivityFrequency = value;
+        break;
+      case PUMP_DELAY:
+        this.pumpDelay = value;
+        break;
+      case AUTOMATIC_LOGGING:
+        this.automaticLogging = value;
+        break;
+      case IGNORE_MAGNETIC_SWITCH:
+        this.ignoreMagneticSwitch = value;
+        break;
+      case BATTERY_TYPE:
+        this.batteryType = value;
+        break;
+      case ECHO_COMMANDS:
+        this.echoCommands = value;
+        break;
+      case TEMPERATURE_CALIBRATION_DATE:
+        this.temperatureCalibrationDate = value;
+        break;
+      case TEMPERATURE_COEFFICIENT_TA0:
+        this.temperatureCoefficientTA0 = value;
+        break;
+      case TEMPERATURE_COEFFICIENT_TA1:
+        this.temperatureCoefficientTA1 = value;
+        break;
+      case TEMPERATURE_COEFFICIENT_TA2:
+        this.temperatureCoefficientTA2 = value;
+        break;
+      case TEMPERATURE_COEFFICIENT_TA3:
+        this.temperatureCoefficientTA3 = value;
+        break;
+      case TEMPERATURE_OFFSET_COEFFICIENT:
+        this.temperatureOffsetCoefficient = value;
+        break;
+      case CONDUCTIVITY_CALIBRATION_DATE:
+        this.conductivityCalibrationDate = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_G:
+        this.conductivityCoefficientG = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_H:
+        this.conductivityCoefficientH = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_I:
+        this.conductivityCoefficientI = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_J:
+        this.conductivityCoefficientJ = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_CF0:
+        this.conductivityCoefficientCF0 = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_CPCOR:
+        this.conductivityCoefficientCPCOR = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_CTCOR:
+        this.conductivityCoefficientCTCOR = value;
+        break;
+      case CONDUCTIVITY_COEFFICIENT_CSLOPE:
+        this.conductivityCoefficientCSLOPE = value;
+        break;
+      case PRESSURE_SERIAL_NUMBER:
+        this.pressureSerialNumber = value;
+        break;
+      case PRESSURE_COEFFICIENT_PA0:
+        this.pressureCoefficientPA0 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PA1:
+        this.pressureCoefficientPA1 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PA2:
+        this.pressureCoefficientPA2 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTCA0:
+        this.pressureCoefficientPTCA0 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTCA1:
+        this.pressureCoefficientPTCA1 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTCA2:
+        this.pressureCoefficientPTCA2 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTCB0:
+        this.pressureCoefficientPTCB0 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTCB1:
+        this.pressureCoefficientPTCB1 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTCB2:
+        this.pressureCoefficientPTCB2 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTEMPA0:
+        this.pressureCoefficientPTEMPA0 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTEMPA1:
+        this.pressureCoefficientPTEMPA1 = value;
+        break;
+      case PRESSURE_COEFFICIENT_PTEMPA2:
+        this.pressureCoefficientPTEMPA2 = value;
+        break;
+      case PRESSURE_OFFSET_COEFFICIENT:
+        this.pressureOffsetCoefficient = value;
+        break;
+      default:
+        return;
+        
+    }
+    log.debug(name + " is: " + value);
+  }
+  
+  /*
+   *  A method used to index the data observation lines of a string by their
+   *  start and end offsets.  Lines are separated by any run of the record
+   *  delimiter characters, and empty lines are skipped.
+   */
+  private void indexDataLines(String observations) {
+    
+    int length = observations.length();
+    int[] starts = new int[length / 32 + 1];
+    int[] ends = new int[starts.length];
+    int count = 0;
+    int lineStart = -1;
+    
+    for ( int index = 0; index <= length; index++ ) {
+      boolean isDelimiter = index == length ||
+        this.recordDelimiter.indexOf(observations.charAt(index)) >= 0;
+      
+      if ( ! isDelimiter ) {
+        if ( lineStart < 0 ) {
+          lineStart = index;
+        }
+        
+      } else if ( lineStart >= 0 ) {
+        if ( count == starts.length ) {
+          starts = Arrays.copyOf(starts, count * 2);
+          ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = lineStart;
+        ends[count] = index;
+        count++;
+        lineStart = -1;
+        
       }
+    }
+    
+    this.dataLinesString = observations;
+    this.dataLineStarts = starts;
+    this.dataLineEnds = ends;
+    this.dataLineCount = count;
+  }
 
+  /**
+   *  A method that replaces the data observations with a batch of complete
+   *  raw Hex scan lines and decodes them, using the metadata and variable
+   *  layout already set from the header.  Unlike setData(), every line is
+   *  decoded, since the caller only passes whole scans.  This lets a source
+   *  decode a profile in batches as its lines arrive.
+   *
+   *  @param scanLines  the complete scan lines
+   *  @throws ParseException  if the parser has no raw Hex variable layout
+   */
+  public void setScans(String scanLines) throws ParseException {
+    
+    if ( this.dataVariableOffsets == null || 
+         ! "raw HEX".equals(this.outputFormat) ) {
+      throw new ParseException("Scans can only be decoded after raw Hex " +
+                               "metadata have been parsed.", 0);
     }
-  }                                                  
+    this.observationsString = scanLines;
+    indexDataLines(scanLines);
+    decodeHexData(this.dataLineCount);
+  }
 
   /*
    *  A method used to set the data structure based on the sampling mode,
@@ -1192,73 +1559,13 @@ public class CTDParser {
           
         // We now know the data variable names, units, and corresponding
         // character offsets for each Hex data string found in the 
-        // dataValuesMap.  Build a raw matrix from the dataValuesMap by only
+        // indexed data lines.  Build a raw matrix from the lines by only
         // applying output factors.  Conversion to useful variable units
         // will happen in the calling source driver since voltage channel
         // semantics are unknown to the parser
-        int beginIndex       = 0;
-        int endIndex         = 0;
-        int offsetIndex      = 0;
-        String hexSubstring  = "";
-        String hexDataString = "";
-        Hex decoder          = new Hex();
-        double value         = 0d;
-        this.convertedDataValuesMatrix = 
-          new Array2DRowRealMatrix(this.dataValuesMap.size() - 1, 
-                                   this.dataVariableOffsets.size());
-  
-        for ( int rowIndex = 1; rowIndex < this.dataValuesMap.size(); rowIndex++ ) {
-          hexDataString = this.dataValuesMap.get(rowIndex);
-          log.debug(rowIndex + ") hexDataString is: " + hexDataString);
-          
-          for ( offsetIndex = 0; offsetIndex < this.dataVariableOffsets.size(); offsetIndex++ ) {
-            endIndex = this.dataVariableOffsets.get(offsetIndex);
-            hexSubstring = hexDataString.substring(beginIndex, endIndex);
-            
-            try {
-              // convert the hex characters to bytes
-              byte[] hexAsBytes = decoder.decodeHex(hexSubstring.toCharArray());
-                  
-              BigInteger bigInteger = new BigInteger(hexAsBytes);
-              int intValue = bigInteger.intValue();
-              
-              // the hex values are either 2 or 3 bytes long (AABBCC or AABB)
-              // BigInteger fills in missing bits with 0xFF. Remove them.  This
-              // is only a problem with large bytes that cause the value to 
-              // become negative.
-              if ( hexAsBytes.length < 3 ) {
-                intValue = (intValue & 0x0000FFFF);
-                
-              } else {
-                intValue = (intValue & 0x00FFFFFF);
-                
-              }
-              value = new Integer(intValue).doubleValue();
-              
-              // convert the value based on the CTD User manual conversion using
-              // the corresponding data variable name to determine which conversion
-              double convertedValue = convert(value, this.dataVariableNames.get(offsetIndex));                                           
-              
-              convertedDataValuesMatrix.setEntry(rowIndex - 1, offsetIndex, convertedValue);
-              log.debug("\t"                                    + 
-                           this.dataVariableNames.get(offsetIndex) + 
-                           " is:\t"                                + 
-                           value                                   + 
-                           "\tConverted: "                         + 
-                           convertedValue);
-              // set the beginIndex to start at the endIndex
-              beginIndex = endIndex;  
-            
-            } catch ( DecoderException de ){
-              log.debug("Could not decode the Hex string: " + hexSubstring); 
-            }
-            
-          } // for
-          
-          // reset the offsetIndex for the next hexDataString
-          offsetIndex = 0;
-          beginIndex  = 0;
-        } // for
+        // As before, the last line is not decoded since it is usually a 
+        // partial scan or the instrument prompt.
+        decodeHexData(Math.max(0, this.dataLineCount - 1));
                  
       // handle the engineering units in Hex OUTPUTFORMAT (1)
       } else if ( this.outputFormat.equals("converted Hex") ) {
@@ -1390,9 +1697,11 @@ public class CTDParser {
         
       }
       
+      int scans = Math.max(0, this.dataLineCount - 1);
+      this.convertedDataValues = new double[scans * this.dataVariableNames.size()];
       this.convertedDataValuesMatrix = 
-        new Array2DRowRealMatrix(this.dataValuesMap.size() - 1, 
-                                 this.dataVariableOffsets.size()); // CSJ fix this
+        new ColumnStoreMatrix(this.convertedDataValues, scans, 
+                              this.dataVariableNames.size());
 
       
       
@@ -1405,29 +1714,19 @@ public class CTDParser {
   }
   
   /*
-   *  A method used to set each of the metadata fields found in the output of
-   *  the DS and DCAL commands.  The method handles both profile and moored
-   *  modes, and builds metadata fields based on the data output format.
+   *  A method used to set the derived metadata fields from the output of
+   *  the DS and DCAL commands, once parse() has assigned the metadata values.
+   *  The method handles both profile and moored modes, and notes the sensors
+   *  and voltage channels that determine the data output format.
    */
   public void setMetadata() throws ParseException {
     log.trace("CTDParser.setMetadata() called.");
     
     // Are we in profile or moored mode?
-    if ( this.SAMPLING_MODE != null ) {
-      this.samplingMode = this.metadataValuesMap.get(this.SAMPLING_MODE);
-      log.info("Sampling mode is: " + this.samplingMode);
-  
-    } else {
-      throw new ParseException("There was an error parsing the data string. "  +
-                               "The sampling mode is not stated correctly in " +
-                               "the metadata from the DS command. Please "     +
-                               "check the output.", 0);
-  
-    }
+    log.info("Sampling mode is: " + this.samplingMode);
   
     // Determine the output format
-    if ( this.OUTPUT_FORMAT != null ) {
-      this.outputFormat = this.metadataValuesMap.get(this.OUTPUT_FORMAT);
+    if ( this.outputFormat != null ) {
       log.info("Data output format is: " + this.outputFormat);
   
     } else {
@@ -1447,9 +1746,7 @@ public class CTDParser {
      */ 
     
     // Is there a pressure sensor?  If so, what type?
-    if ( this.PRESSURE_SENSOR_TYPE != null ) {
-      this.pressureSensorType = 
-        this.metadataValuesMap.get(this.PRESSURE_SENSOR_TYPE).trim();
+    if ( this.pressureSensorType != null ) {
       this.hasPressure = true;
   
       if ( this.pressureSensorType.equals("strain gauge") ) {
@@ -1457,650 +1754,48 @@ public class CTDParser {
   
       }
   
-      if ( this.PRESSURE_SENSOR_RANGE != null ) {
-        this.pressureSensorRange = 
-          this.metadataValuesMap.get(this.PRESSURE_SENSOR_RANGE).trim();
-      }
-  
     } else {
       log.info("There is no pressure sensor.");
   
     }
   
     // Determine if there are external voltages to read
-  
-    // channel 0
-    if ( this.EXTERNAL_VOLTAGE_CHANNEL_ZERO != null ) {
-      this.externalVoltageChannelZero = 
-        this.metadataValuesMap.get(this.EXTERNAL_VOLTAGE_CHANNEL_ZERO).trim();
-      if ( this.externalVoltageChannelZero.equals("yes") ) {
-        this.hasVoltageChannelZero = true;
-        log.info("There is a channel 0 voltage.");
-  
-      } else {
-        log.info("There is no channel 0 voltage.");
-  
-      }
-    }
-  
-    // channel 1
-    if ( this.EXTERNAL_VOLTAGE_CHANNEL_ONE != null ) {
-      this.externalVoltageChannelOne = 
-        this.metadataValuesMap.get(this.EXTERNAL_VOLTAGE_CHANNEL_ONE).trim();
-      if ( this.externalVoltageChannelOne.equals("yes") ) {
-        this.hasVoltageChannelOne = true;
-        log.info("There is a channel 1 voltage.");
-  
-      } else {
-        log.info("There is no channel 1 voltage.");
-  
-      }
-    }
-  
-    // channel 2
-    if ( this.EXTERNAL_VOLTAGE_CHANNEL_TWO != null ) {
-      this.externalVoltageChannelTwo = 
-        this.metadataValuesMap.get(this.EXTERNAL_VOLTAGE_CHANNEL_TWO).trim();
-      if ( this.externalVoltageChannelTwo.equals("yes") ) {
-        this.hasVoltageChannelTwo = true;
-        log.info("There is a channel 2 voltage.");
-  
-      } else {
-        log.info("There is no channel 2 voltage.");
-  
-      }
-    }
-  
-    // channel 3
-    if ( this.EXTERNAL_VOLTAGE_CHANNEL_THREE != null ) {
-      this.externalVoltageChannelThree = 
-        this.metadataValuesMap.get(this.EXTERNAL_VOLTAGE_CHANNEL_THREE).trim();
-      if ( this.externalVoltageChannelThree.equals("yes") ) {
-        this.hasVoltageChannelThree = true;
-        log.info("There is a channel 3 voltage.");
-  
-      } else {
-        log.info("There is no channel 3 voltage.");
-  
-      }
-    }
+    this.hasVoltageChannelZero  = "yes".equals(this.externalVoltageChannelZero);
+    this.hasVoltageChannelOne   = "yes".equals(this.externalVoltageChannelOne);
+    this.hasVoltageChannelTwo   = "yes".equals(this.externalVoltageChannelTwo);
+    this.hasVoltageChannelThree = "yes".equals(this.externalVoltageChannelThree);
+    log.info("External voltage channels 0-3 present: "    + 
+             this.hasVoltageChannelZero + ", "            + 
+             this.hasVoltageChannelOne  + ", "            +
+             this.hasVoltageChannelTwo  + ", "            + 
+             this.hasVoltageChannelThree);
   
     // Determine if there is an SBE38 secondary temperature to read
-    if ( this.SBE38_TEMPERATURE_SENSOR != null ) {
-      this.sbe38TemperatureSensor = 
-        this.metadataValuesMap.get(this.SBE38_TEMPERATURE_SENSOR).trim();
-      if ( this.sbe38TemperatureSensor.equals("yes") ) {
-        this.hasSBE38TemperatureSensor = true;
+    if ( "yes".equals(this.sbe38TemperatureSensor) ) {
+      this.hasSBE38TemperatureSensor = true;
   
-      }
     }
   
     // Determine if there is a gas tension device to read
-    if ( this.GAS_TENSION_DEVICE != null ) {
-      this.gasTensionDevice = 
-        this.metadataValuesMap.get(this.GAS_TENSION_DEVICE).trim();
-      if ( this.gasTensionDevice.equals("yes") ) {
-        this.hasGasTensionDevice = true;
-  
-      }
-    }
-  
-    // set each of the metadata fields
-    
-    // set the first sample time field
-    if ( this.FIRST_SAMPLE_TIME != null ) {
-      this.firstSampleTime = this.metadataValuesMap.get(this.FIRST_SAMPLE_TIME);
-      log.info("First sample time is: " + this.firstSampleTime);
-  
-    }
-    
-    // set the file name time field
-    if ( this.FILE_NAME != null ) {
-      this.fileName = this.metadataValuesMap.get(this.FILE_NAME);
-      log.info("File name is: " + this.fileName);
-  
-    }
-    
-    // set the temperature serial number field
-    if ( this.TEMPERATURE_SERIAL_NUMBER != null ) {
-      this.temperatureSerialNumber = this.metadataValuesMap.get(this.TEMPERATURE_SERIAL_NUMBER);
-      log.info("Temperature serial number is: " + this.temperatureSerialNumber);
-  
-    }
-    
-    // set the conductivity serial number field
-    if ( this.CONDUCTIVITY_SERIAL_NUMBER != null ) {
-      this.conductivitySerialNumber = this.metadataValuesMap.get(this.CONDUCTIVITY_SERIAL_NUMBER);
-      log.info("Conductivity serial number is: " + this.conductivitySerialNumber);
-  
-    }
-    
-    // set the system upload time field
-    if ( this.SYSTEM_UPLOAD_TIME != null ) {
-      this.systemUpLoadTime = this.metadataValuesMap.get(this.SYSTEM_UPLOAD_TIME);
-      log.info("System upload time is: " + this.systemUpLoadTime);
-  
-    }
-    
-    // set the cruise information field
-    if ( this.CRUISE_INFORMATION != null ) {
-      this.cruiseInformation = this.metadataValuesMap.get(this.CRUISE_INFORMATION);
-      log.info("Cruise information is: " + this.cruiseInformation);
-  
-    }
-    
-    // set the station information field
-    if ( this.STATION_INFORMATION != null ) {
-      this.stationInformation = this.metadataValuesMap.get(this.STATION_INFORMATION);
-      log.info("Station information is: " + this.stationInformation);
-  
-    }
-    
-    // set the ship information field
-    if ( this.SHIP_INFORMATION != null ) {
-      this.shipInformation = this.metadataValuesMap.get(this.SHIP_INFORMATION);
-      log.info("Ship information is: " + this.shipInformation);
-  
-    }
-    
-    // set the chief scientist field
-    if ( this.CHIEF_SCIENTIST != null ) {
-      this.chiefScientist = this.metadataValuesMap.get(this.CHIEF_SCIENTIST);
-      log.info("Chief scientist is: " + this.chiefScientist);
-  
-    }
-    
-    // set the organization field
-    if ( this.ORGANIZATION != null ) {
-      this.organization = this.metadataValuesMap.get(this.ORGANIZATION);
-      log.info("Organization is: " + this.organization);
-  
-    }
-    
-    // set the area of operation field
-    if ( this.AREA_OF_OPERATION != null ) {
-      this.areaOfOperation = this.metadataValuesMap.get(this.AREA_OF_OPERATION);
-      log.info("Area of operation is: " + this.areaOfOperation);
-  
-    }
-    
-    // set the instrument package field
-    if ( this.INSTRUMENT_PACKAGE != null ) {
-      this.instrumentPackage = this.metadataValuesMap.get(this.INSTRUMENT_PACKAGE);
-      log.info("Instrument package is: " + this.instrumentPackage);
-  
-    }
-    
-    // set the mooring number field
-    if ( this.MOORING_NUMBER != null ) {
-      this.mooringNumber = this.metadataValuesMap.get(this.MOORING_NUMBER);
-      log.info("Mooring number is: " + this.mooringNumber);
-  
-    }
-    
-    // set the instrument latitude field
-    if ( this.INSTRUMENT_LATITUDE != null ) {
-      this.instrumentLatitude = this.metadataValuesMap.get(this.INSTRUMENT_LATITUDE);
-      log.info("Instrument latitude is: " + this.instrumentLatitude);
-  
-    }
-    
-    // set the instrument longitude field
-    if ( this.INSTRUMENT_LONGITUDE != null ) {
-      this.instrumentLongitude = this.metadataValuesMap.get(this.INSTRUMENT_LONGITUDE);
-      log.info("Instrument longitude is: " + this.instrumentLongitude);
-  
-    }
-    
-    // set the depth sounding field
-    if ( this.DEPTH_SOUNDING != null ) {
-      this.depthSounding = this.metadataValuesMap.get(this.DEPTH_SOUNDING);
-      log.info("Depth sounding is: " + this.depthSounding);
-  
-    }
-    
-    // set the profile number field
-    if ( this.PROFILE_NUMBER != null ) {
-      this.profileNumber = this.metadataValuesMap.get(this.PROFILE_NUMBER);
-      log.info("Profile number is: " + this.profileNumber);
-  
-    }
-    
-    // set the profile direction field
-    if ( this.PROFILE_DIRECTION != null ) {
-      this.profileDirection = this.metadataValuesMap.get(this.PROFILE_DIRECTION);
-      log.info("Profile direction is: " + this.profileDirection);
-  
-    }
-    
-    // set the deployment notes field
-    if ( this.DEPLOYMENT_NOTES != null ) {
-      this.deploymentNotes = this.metadataValuesMap.get(this.DEPLOYMENT_NOTES);
-      log.info("Deployment notes are: " + this.deploymentNotes);
-  
-    }
-    
-    // set the main battery voltage field
-    if ( this.MAIN_BATTERY_VOLTAGE != null ) {
-      this.mainBatteryVoltage = this.metadataValuesMap.get(this.MAIN_BATTERY_VOLTAGE);
-      log.info("Main battery voltage is: " + this.mainBatteryVoltage);
-  
-    }
-    
-    // set the lithium battery voltage field
-    if ( this.LITHIUM_BATTERY_VOLTAGE != null ) {
-      this.lithiumBatteryVoltage = 
-        this.metadataValuesMap.get(this.LITHIUM_BATTERY_VOLTAGE);
-      log.info("Lithium battery voltage is: " + this.lithiumBatteryVoltage);
-  
-    }
-    
-    // set the operating current field
-    if ( this.OPERATING_CURRENT != null ) {
-      this.operatingCurrent = this.metadataValuesMap.get(this.OPERATING_CURRENT);
-      log.info("Operating current is: " + this.operatingCurrent);
-  
-    }
-    
-    // set the pump current field
-    if ( this.PUMP_CURRENT != null ) {
-      this.pumpCurrent = this.metadataValuesMap.get(this.PUMP_CURRENT);
-      log.info("Pump current is: " + this.pumpCurrent);
-  
-    }
-    
-    // set the channels 0 and 1 external current field
-    if ( this.CHANNELS_01_EXTERNAL_CURRENT != null ) {
-      this.channels01ExternalCurrent = 
-      this.metadataValuesMap.get(this.CHANNELS_01_EXTERNAL_CURRENT);
-      log.info("Channels 0 and 1 external current is: " + 
-                  this.channels01ExternalCurrent);
-  
-    }
-    
-    // set the channels 2 and 3 external current field
-    if ( this.CHANNELS_23_EXTERNAL_CURRENT != null ) {
-      this.channels23ExternalCurrent = 
-      this.metadataValuesMap.get(this.CHANNELS_23_EXTERNAL_CURRENT);
-      log.info("Channels 2 and 3 external current is: " + 
-                  this.channels23ExternalCurrent);
-  
-    }
-    
-    // set the logging status field
-    if ( this.LOGGING_STATUS != null ) {
-      this.loggingStatus = this.metadataValuesMap.get(this.LOGGING_STATUS);
-      log.info("Logging status is: " + this.loggingStatus);
-  
-    }
-    
-    // set the number of scans to average field
-    if ( this.NUMBER_OF_SCANS_TO_AVERAGE != null ) {
-      this.numberOfScansToAverage = 
-        this.metadataValuesMap.get(this.NUMBER_OF_SCANS_TO_AVERAGE);
-      log.info("Number of scans to average is: " + 
-                  this.numberOfScansToAverage);
-  
-    }
-    
-    // set the number of samples field
-    if ( this.NUMBER_OF_SAMPLES != null ) {
-      this.numberOfSamples = this.metadataValuesMap.get(this.NUMBER_OF_SAMPLES);
-      log.info("Number of samples is: " + this.numberOfSamples);
-  
-    }
-    
-    // set the number of available samples field
-    if ( this.NUMBER_OF_AVAILABLE_SAMPLES != null ) {
-      this.numberOfAvailableSamples = 
-        this.metadataValuesMap.get(this.NUMBER_OF_AVAILABLE_SAMPLES);
-      log.info("Number of available samples is: " + 
-                  this.numberOfAvailableSamples);
-  
-    }
-    
-    // set the sample interval field
-    if ( this.SAMPLE_INTERVAL != null ) {
-      this.sampleInterval = this.metadataValuesMap.get(this.SAMPLE_INTERVAL);
-      log.info("Sample interval is: " + this.sampleInterval);
-  
-    }
-    
-    // set the measurements per sample field
-    if ( this.MEASUREMENTS_PER_SAMPLE != null ) {
-      this.measurementsPerSample = this.metadataValuesMap.get(this.MEASUREMENTS_PER_SAMPLE);
-      log.info("Measurements per sample is: " + this.measurementsPerSample);
-  
-    }
-    
-    // set the transmit real time field
-    if ( this.TRANSMIT_REALTIME != null ) {
-      this.transmitRealtime = this.metadataValuesMap.get(this.TRANSMIT_REALTIME);
-      log.info("Transmit real time state is: " + this.transmitRealtime);
-  
-    }
-    
-    // set the number of casts field
-    if ( this.NUMBER_OF_CASTS != null ) {
-      this.numberOfCasts = this.metadataValuesMap.get(this.NUMBER_OF_CASTS);
-      log.info("Number of casts is: " + this.numberOfCasts);
-  
-    }
-    
-    // set the minimum conductivity frequency field
-    if ( this.MINIMUM_CONDUCTIVITY_FREQUENCY != null ) {
-      this.minimumConductivityFrequency = 
-        this.metadataValuesMap.get(this.MINIMUM_CONDUCTIVITY_FREQUENCY);
-      log.info("Minimum conductivity frequency is: " + 
-                  this.minimumConductivityFrequency);
+    if ( "yes".equals(this.gasTensionDevice) ) {
+      this.hasGasTensionDevice = true;
   
     }
     
-    // set the pump delay field
-    if ( this.PUMP_DELAY != null ) {
-      this.pumpDelay = this.metadataValuesMap.get(this.PUMP_DELAY);
-      log.info("Pump delay is: " + this.pumpDelay);
+    // parse the numeric values and coefficients once
+    this.coefficients = new Coefficients(this);
+           
+  }  
   
-    }
-    
-    // set the automatic logging field
-    if ( this.AUTOMATIC_LOGGING != null ) {
-      this.automaticLogging = this.metadataValuesMap.get(this.AUTOMATIC_LOGGING);
-      log.info("Automatic logging is: " + this.automaticLogging);
-  
-    }
-    
-    // set the ignore magnetic switch field
-    if ( this.IGNORE_MAGNETIC_SWITCH != null ) {
-      this.ignoreMagneticSwitch = this.metadataValuesMap.get(this.IGNORE_MAGNETIC_SWITCH);
-      log.info("Ignore magnetic switch is: " + this.ignoreMagneticSwitch);
-  
-    }
-    
-    // set the battery type field
-    if ( this.BATTERY_TYPE != null ) {
-      this.batteryType = this.metadataValuesMap.get(this.BATTERY_TYPE);
-      log.info("Battery type is: " + this.batteryType);
-  
-    }
-    
-    // set the echo commands field
-    if ( this.ECHO_COMMANDS != null ) {
-      this.echoCommands = this.metadataValuesMap.get(this.ECHO_COMMANDS);
-      log.info("Echo commands state is: " + this.echoCommands);
-  
-    }
-    
-    // set the temperature calibration date field
-    if ( this.TEMPERATURE_CALIBRATION_DATE != null ) {
-      this.temperatureCalibrationDate = 
-        this.metadataValuesMap.get(this.TEMPERATURE_CALIBRATION_DATE);
-      log.info("Temperature calibration date is: " + 
-                  this.temperatureCalibrationDate);
-  
-    }
-    
-    // set the temperature coefficient TA0 field
-    if ( this.TEMPERATURE_COEFFICIENT_TA0 != null ) {
-      this.temperatureCoefficientTA0 = 
-        this.metadataValuesMap.get(this.TEMPERATURE_COEFFICIENT_TA0);
-      log.info("Temperature coefficient TA0 is: " + 
-                  this.temperatureCoefficientTA0);
-  
-    }
-  
-    // set the temperature coefficient TA1 field
-    if ( this.TEMPERATURE_COEFFICIENT_TA1 != null ) {
-      this.temperatureCoefficientTA1 = 
-        this.metadataValuesMap.get(this.TEMPERATURE_COEFFICIENT_TA1);
-      log.info("Temperature coefficient TA1 is: " + 
-                  this.temperatureCoefficientTA1);
-  
-    }
-    
-    // set the temperature coefficient TA2 field
-    if ( this.TEMPERATURE_COEFFICIENT_TA2 != null ) {
-      this.temperatureCoefficientTA2 = 
-        this.metadataValuesMap.get(this.TEMPERATURE_COEFFICIENT_TA2);
-      log.info("Temperature coefficient TA2 is: " + 
-                  this.temperatureCoefficientTA2);
-  
-    }
-    
-    // set the temperature coefficient TA3 field
-    if ( this.TEMPERATURE_COEFFICIENT_TA3 != null ) {
-      this.temperatureCoefficientTA3 = 
-        this.metadataValuesMap.get(this.TEMPERATURE_COEFFICIENT_TA3);
-      log.info("Temperature coefficient TA3 is: " + 
-                  this.temperatureCoefficientTA3);
-  
-    }
-    
-    // set the temperature offset coefficient field
-    if ( this.TEMPERATURE_OFFSET_COEFFICIENT != null ) {
-      this.temperatureOffsetCoefficient = 
-        this.metadataValuesMap.get(this.TEMPERATURE_OFFSET_COEFFICIENT);
-      log.info("Temperature offset coefficient is: " + 
-                  this.temperatureOffsetCoefficient);
-  
-    }
-    
-    // set the conductivity calibration date field
-    if ( this.CONDUCTIVITY_CALIBRATION_DATE != null ) {
-      this.conductivityCalibrationDate = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_CALIBRATION_DATE);
-      log.info("Conductivity calibration date is: " + 
-                  this.conductivityCalibrationDate);
-  
-    }
-    
-    // set the conductivity coefficient G field
-    if ( this.CONDUCTIVITY_COEFFICIENT_G != null ) {
-      this.conductivityCoefficientG = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_G);
-      log.info("Conductivity coefficient G is: " + 
-                  this.conductivityCoefficientG);
-  
-    }
-  
-    // set the conductivity coefficient H field
-    if ( this.CONDUCTIVITY_COEFFICIENT_H != null ) {
-      this.conductivityCoefficientH = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_H);
-      log.info("Conductivity coefficient H is: " + 
-                  this.conductivityCoefficientH);
-  
-    }
-    
-    // set the conductivity coefficient I field
-    if ( this.CONDUCTIVITY_COEFFICIENT_I != null ) {
-      this.conductivityCoefficientI = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_I);
-      log.info("Conductivity coefficient I is: " + 
-                  this.conductivityCoefficientI);
-  
-    }
-    
-    // set the conductivity coefficient J field
-    if ( this.CONDUCTIVITY_COEFFICIENT_J != null ) {
-      this.conductivityCoefficientJ = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_J);
-      log.info("Conductivity coefficient J is: " + 
-                  this.conductivityCoefficientJ);
-  
-    }
-    
-    // set the conductivity coefficient CF0 field
-    if ( this.CONDUCTIVITY_COEFFICIENT_CF0 != null ) {
-      this.conductivityCoefficientCF0 = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_CF0);
-      log.info("Conductivity coefficient CF0 is: " + 
-                  this.conductivityCoefficientCF0);
-  
-    }
-  
-    // set the conductivity coefficient CPCOR field
-    if ( this.CONDUCTIVITY_COEFFICIENT_CPCOR != null ) {
-      this.conductivityCoefficientCPCOR = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_CPCOR);
-      log.info("Conductivity coefficient CPCOR is: " + 
-                  this.conductivityCoefficientCPCOR);
-  
-    }
-    
-    // set the conductivity coefficient CTCOR field
-    if ( this.CONDUCTIVITY_COEFFICIENT_CTCOR != null ) {
-      this.conductivityCoefficientCTCOR = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_CTCOR);
-      log.info("Conductivity coefficient CTCOR is: " + 
-                  this.conductivityCoefficientCTCOR);
-  
-    }
-    
-    // set the conductivity coefficient CSLOPE field
-    if ( this.CONDUCTIVITY_COEFFICIENT_CSLOPE != null ) {
-      this.conductivityCoefficientCSLOPE = 
-        this.metadataValuesMap.get(this.CONDUCTIVITY_COEFFICIENT_CSLOPE);
-      log.info("Conductivity coefficient CSLOPE is: " + 
-                  this.conductivityCoefficientCSLOPE);
-  
-    }
-         
-    // set the pressure serial number field
-    if ( this.PRESSURE_SERIAL_NUMBER != null ) {
-      this.pressureSerialNumber = this.metadataValuesMap.get(this.PRESSURE_SERIAL_NUMBER);
-      log.info("Pressure serial number is: " + this.pressureSerialNumber);
-  
-    }
-    
-    // set the pressure coefficient PA0 field
-    if ( this.PRESSURE_COEFFICIENT_PA0 != null ) {
-      this.pressureCoefficientPA0 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PA0);
-      log.info("Pressure coefficient PA0 is: " + 
-                  this.pressureCoefficientPA0);
-  
-    }
-    
-    // set the pressure coefficient PA1 field
-    if ( this.PRESSURE_COEFFICIENT_PA1 != null ) {
-      this.pressureCoefficientPA1 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PA1);
-      log.info("Pressure coefficient PA1 is: " + 
-                  this.pressureCoefficientPA1);
-  
-    }
-    
-    // set the pressure coefficient PA2 field
-    if ( this.PRESSURE_COEFFICIENT_PA2 != null ) {
-      this.pressureCoefficientPA2 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PA2);
-      log.info("Pressure coefficient PA2 is: " + 
-                  this.pressureCoefficientPA2);
-  
-    }
-    
-    // set the pressure coefficient PTCA0 field
-    if ( this.PRESSURE_COEFFICIENT_PTCA0 != null ) {
-      this.pressureCoefficientPTCA0 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTCA0);
-      log.info("Pressure coefficient PTCA0 is: " + 
-                  this.pressureCoefficientPTCA0);
-  
-    }
-    
-    // set the pressure coefficient PTCA1 field
-    if ( this.PRESSURE_COEFFICIENT_PTCA1 != null ) {
-      this.pressureCoefficientPTCA1 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTCA1);
-      log.info("Pressure coefficient PTCA1 is: " + 
-                  this.pressureCoefficientPTCA1);
-  
-    }
-    
-    // set the pressure coefficient PTCA2 field
-    if ( this.PRESSURE_COEFFICIENT_PTCA2 != null ) {
-      this.pressureCoefficientPTCA2 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTCA2);
-      log.info("Pressure coefficient PTCA2 is: " + 
-                  this.pressureCoefficientPTCA2);
-  
-    }
-    
-    // set the pressure coefficient PTCB0 field
-    if ( this.PRESSURE_COEFFICIENT_PTCB0 != null ) {
-      this.pressureCoefficientPTCB0 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTCB0);
-      log.info("Pressure coefficient PTCB0 is: " + 
-                  this.pressureCoefficientPTCB0);
-  
-    }
-    
-    // set the pressure coefficient PTCB1 field
-    if ( this.PRESSURE_COEFFICIENT_PTCB1 != null ) {
-      this.pressureCoefficientPTCB1 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTCB1);
-      log.info("Pressure coefficient PTCB1 is: " + 
-                  this.pressureCoefficientPTCB1);
-  
-    }
-    
-    // set the pressure coefficient PTCB2 field
-    if ( this.PRESSURE_COEFFICIENT_PTCB2 != null ) {
-      this.pressureCoefficientPTCB2 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTCB2);
-      log.info("Pressure coefficient PTCB2 is: " + 
-                  this.pressureCoefficientPTCB2);
-  
-    }
-    
-    // set the pressure coefficient PTEMPA0 field
-    if ( this.PRESSURE_COEFFICIENT_PTEMPA0 != null ) {
-      this.pressureCoefficientPTEMPA0 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTEMPA0);
-      log.info("Pressure coefficient PTEMPA0 is: " + 
-                  this.pressureCoefficientPTEMPA0);
-  
-    }
-    
-    // set the pressure coefficient PTEMPA1 field
-    if ( this.PRESSURE_COEFFICIENT_PTEMPA1 != null ) {
-      this.pressureCoefficientPTEMPA1 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTEMPA1);
-      log.info("Pressure coefficient PTEMPA1 is: " + 
-                  this.pressureCoefficientPTEMPA1);
-  
-    }
-    
-    // set the pressure coefficient PTEMPA2 field
-    if ( this.PRESSURE_COEFFICIENT_PTEMPA2 != null ) {
-      this.pressureCoefficientPTEMPA2 = 
-        this.metadataValuesMap.get(this.PRESSURE_COEFFICIENT_PTEMPA2);
-      log.info("Pressure coefficient PTEMPA2 is: " + 
-                  this.pressureCoefficientPTEMPA2);
-  
-    }
-    
-    // set the pressure offset coefficient field
-    if ( this.PRESSURE_OFFSET_COEFFICIENT != null ) {
-      this.pressureOffsetCoefficient = 
-        this.metadataValuesMap.get(this.PRESSURE_OFFSET_COEFFICIENT);
-      log.info("Pressure offset coefficient is: " + 
-                  this.pressureOffsetCoefficient);
-  
-    }
-           
-  }  
-  
-  /*
-   *  A method used to parse the various XML metadata formats from the instrument.
-   *  This method parses the output of the following instrument commands:
-   *  GetCD, GetSD, GetCC, GetEC, and GetHD.
-   *
-   * @param xmlString - the CTD's XML output string containing the metadata values
-   */
-  public void setMetadata(String xmlString) throws ParseException {
-    log.trace("CTDParser.setMetadata(xmlString) called.");
+  /*
+   *  A method used to parse the various XML metadata formats from the instrument.
+   *  This method parses the output of the following instrument commands:
+   *  GetCD, GetSD, GetCC, GetEC, and GetHD.
+   *
+   * @param xmlString - the CTD's XML output string containing the metadata values
+   */
+  public void setMetadata(String xmlString) throws ParseException {
+    log.trace("CTDParser.setMetadata(xmlString) called.");
     
     try {
       // create an XML Document object from the instrument XML string
@@ -2219,7 +1914,7 @@ public class CTDParser {
       
         this.hasConfigurationMetadata = true;
         
-      // add the status metadata fields to the metadataValuesMap
+      // set the status metadata fields
       } else if ( this.xmlMetadata.getDocumentElement().getTagName()
                   .equals("StatusData") ) {
          
@@ -2302,7 +1997,7 @@ public class CTDParser {
       
         this.hasStatusMetadata = true;
         
-      // add the calibration metadata fields to the metadataValuesMap
+      // set the calibration metadata fields
       } else if ( this.xmlMetadata.getDocumentElement().getTagName()
                     .equals("CalibrationCoefficients") ) {
         
@@ -2574,12 +2269,12 @@ public class CTDParser {
         
         this.hasCalibrationMetadata = true;
         
-      // add the event metadata fields to the metadataValuesMap
+      // set the event metadata fields
       } else if ( this.xmlMetadata.getDocumentElement().getTagName().equals("EventCounters") ) {
         
         this.hasEventMetadata = true;
         
-      // add the hardware metadata fields to the metadataValuesMap
+      // set the hardware metadata fields
       } else if ( this.xmlMetadata.getDocumentElement().getTagName().equals("HardwareData") ) {
         
         this.hasHardwareMetadata = true;
@@ -2587,6 +2282,9 @@ public class CTDParser {
       } else {
         throw new ParseException("The XML metadata is not recognized.", 0);
       }
+      
+      // parse the numeric values and coefficients once
+      this.coefficients = new Coefficients(this);
     
     } catch ( IOException ioe ) {
       log.info("There was an error reading the XML metadata. " +
@@ -2704,21 +2402,21 @@ public class CTDParser {
    * A method that returns the InstrumentLatitude field
    */
   public double getInstrumentLatitude() {
-    return new Double(this.instrumentLatitude).doubleValue();
+    return this.coefficients.getInstrumentLatitude();
   }
   
   /**
    * A method that returns the InstrumentLongitude field
    */
   public double getInstrumentLongitude() {
-    return new Double(this.instrumentLongitude).doubleValue();
+    return this.coefficients.getInstrumentLongitude();
   }
   
   /**
    * A method that returns the DepthSounding field
    */
   public double getDepthSounding() {
-    return new Double(this.depthSounding).doubleValue();
+    return this.coefficients.getDepthSounding();
   }
   
   /**
@@ -2746,129 +2444,42 @@ public class CTDParser {
    * A method that returns the MainBatteryVoltage field
    */
   public double getMainBatteryVoltage() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.mainBatteryVoltage.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.mainBatteryVoltage.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the mainBatteryVoltage " + 
-                   "value.  The value is: " + this.mainBatteryVoltage);
-      return value;
-    
-    }
+    return this.coefficients.getMainBatteryVoltage();
   }
   
   /**
    * A method that returns the LithiumBatteryVoltage field
    */
   public double getLithiumBatteryVoltage() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.lithiumBatteryVoltage.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.lithiumBatteryVoltage.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the lithiumBatteryVoltage " + 
-                   "value.  The value is: " + this.lithiumBatteryVoltage);
-      return value;
-      
-    }
+    return this.coefficients.getLithiumBatteryVoltage();
   }
   
   /**
    * A method that returns the OperatingCurrent field
    */
   public double getOperatingCurrent() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.operatingCurrent.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.operatingCurrent.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the operatingCurrent " + 
-                   "value.  The value is: " + this.operatingCurrent);
-      return value;
-    }
+    return this.coefficients.getOperatingCurrent();
   }
   
   /**
    * A method that returns the PumpCurrent field
    */
   public double getPumpCurrent() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pumpCurrent).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pumpCurrent.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pumpCurrent " + 
-                   "value.  The value is: " + this.pumpCurrent);
-      return value;
-    }
+    return this.coefficients.getPumpCurrent();
   }
   
   /**
    * A method that returns the Channels01ExternalCurrent field
    */
   public double getChannels01ExternalCurrent() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.channels01ExternalCurrent).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.channels01ExternalCurrent.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the channels01ExternalCurrent " + 
-                   "value.  The value is: " + this.channels01ExternalCurrent);
-      return value;
-    }
+    return this.coefficients.getChannels01ExternalCurrent();
   }
   
   /**
    * A method that returns the Channels23ExternalCurrent field
    */
   public double getChannels23ExternalCurrent() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.channels23ExternalCurrent).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.channels23ExternalCurrent.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the channels23ExternalCurrent " + 
-                   "value.  The value is: " + this.channels23ExternalCurrent);
-      return value;
-    
-    }
+    return this.coefficients.getChannels23ExternalCurrent();
   }
   
   /**
@@ -2882,105 +2493,35 @@ public class CTDParser {
    * A method that returns the NumberOfScansToAverage field
    */
   public int getNumberOfScansToAverage() {
-    int value = 0;
-    try {
-      value = new Integer(this.numberOfScansToAverage.trim()).intValue();
-      return value;
-      
-    } catch ( NumberFormatException nfe ) {
-      log.debug("There was a problem parsing the numberOfScansToAverage " + 
-                   "value.  The value is: " + this.numberOfScansToAverage);
-      return value;
-    
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the numberOfScansToAverage " + 
-                   "value.  The value is: " + this.numberOfScansToAverage);
-      return value;
-    }
+    return this.coefficients.getNumberOfScansToAverage();
   }
   
   /**
    * A method that returns the NumberOfSamples field
    */
   public int getNumberOfSamples() {
-    int value = 0;
-    try {
-      value = new Integer(this.numberOfSamples.trim()).intValue();
-      return value;
-      
-    } catch ( NumberFormatException nfe ) {
-      log.debug("There was a problem parsing the numberOfSamples " + 
-                   "value.  The value is: " + this.numberOfSamples);
-      return value;
-    
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the numberOfSamples " + 
-                   "value.  The value is: " + this.numberOfSamples);
-      return value;
-    }
+    return this.coefficients.getNumberOfSamples();
   }
   
   /**
    * A method that returns the NumberOfAvailableSamples field
    */
   public int getNumberOfAvailableSamples() {
-    int value = 0;
-    try {
-      value = new Integer(this.numberOfAvailableSamples.trim()).intValue();
-      return value;
-      
-    } catch ( NumberFormatException nfe ) {
-      log.debug("There was a problem parsing the numberOfAvailableSamples " + 
-                   "value.  The value is: " + this.numberOfAvailableSamples);
-      return value;
-    
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the numberOfAvailableSamples " + 
-                   "value.  The value is: " + this.numberOfAvailableSamples);
-      return value;
-    }
+    return this.coefficients.getNumberOfAvailableSamples();
   }
   
   /**
    * A method that returns the SampleInterval field
    */
   public int getSampleInterval() {
-    int value = 0;
-    try {
-      value = new Integer(this.sampleInterval.trim()).intValue();
-      return value;
-      
-    } catch ( NumberFormatException nfe ) {
-      log.debug("There was a problem parsing the sampleInterval " + 
-                   "value.  The value is: " + this.sampleInterval);
-      return value;
-    
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the sampleInterval " + 
-                   "value.  The value is: " + this.sampleInterval);
-      return value;
-    }
+    return this.coefficients.getSampleInterval();
   }
   
   /**
    * A method that returns the MeasurementsPerSample field
    */
   public int getMeasurementsPerSample() {
-    int value = 0;
-    try {
-      value = new Integer(this.measurementsPerSample.trim()).intValue();
-      return value;
-      
-    } catch ( NumberFormatException nfe ) {
-      log.debug("There was a problem parsing the measurementsPerSample " + 
-                   "value.  The value is: " + this.measurementsPerSample);
-      return value;
-    
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the measurementsPerSample " + 
-                   "value.  The value is: " + this.measurementsPerSample);
-      return value;
-    }
+    return this.coefficients.getMeasurementsPerSample();
   }
   
   /**
@@ -2994,63 +2535,21 @@ public class CTDParser {
    * A method that returns the NumberOfCasts field
    */
   public int getNumberOfCasts() {
-    int value = 0;
-    try {
-      value = new Integer(this.numberOfCasts.trim()).intValue();
-      return value;
-      
-    } catch ( NumberFormatException nfe ) {
-      log.debug("There was a problem parsing the numberOfCasts " + 
-                   "value.  The value is: " + this.numberOfCasts);
-      return value;
-    
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the numberOfCasts " + 
-                   "value.  The value is: " + this.numberOfCasts);
-      return value;
-    }
+    return this.coefficients.getNumberOfCasts();
   }
   
   /**
    * A method that returns the MinimumConductivityFrequency field
    */
   public int getMinimumConductivityFrequency() {
-    int value = 0;
-    try {
-      value = new Integer(this.minimumConductivityFrequency.trim()).intValue();
-      return value;
-      
-    } catch ( NumberFormatException nfe ) {
-      log.debug("There was a problem parsing the minimumConductivityFrequency " + 
-                   "value.  The value is: " + this.minimumConductivityFrequency);
-      return value;
-    
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the minimumConductivityFrequency " + 
-                   "value.  The value is: " + this.minimumConductivityFrequency);
-      return value;
-    }
+    return this.coefficients.getMinimumConductivityFrequency();
   }
   
   /**
    * A method that returns the PumpDelay field
    */
   public int getPumpDelay() {
-    int value =0;
-    
-    try {
-      value = new Integer(this.pumpDelay.trim()).intValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pumpDelay.trim().split(" ");
-      return new Integer(strParts[0]).intValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pumpDelay " + 
-                   "value.  The value is: " + this.pumpDelay);
-      return value;
-    }
+    return this.coefficients.getPumpDelay();
   }
   
   /**
@@ -3176,105 +2675,35 @@ public class CTDParser {
    * A method that returns the TemperatureCoefficientTA0 field
    */
   public double getTemperatureCoefficientTA0() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.temperatureCoefficientTA0.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.temperatureCoefficientTA0.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the temperatureCoefficientTA0 " + 
-                   "value.  The value is: " + this.temperatureCoefficientTA0);
-      return value;
-    }
+    return this.coefficients.getTemperatureCoefficientTA0();
   }
   
   /**
    * A method that returns the TemperatureCoefficientTA1 field
    */
   public double getTemperatureCoefficientTA1() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.temperatureCoefficientTA1.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.temperatureCoefficientTA1.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the temperatureCoefficientTA1 " + 
-                   "value.  The value is: " + this.temperatureCoefficientTA1);
-      return value;
-    }
+    return this.coefficients.getTemperatureCoefficientTA1();
   }
   
   /**
    * A method that returns the TemperatureCoefficientTA2 field
    */
   public double getTemperatureCoefficientTA2() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.temperatureCoefficientTA2.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.temperatureCoefficientTA2.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the temperatureCoefficientTA2 " + 
-                   "value.  The value is: " + this.temperatureCoefficientTA2);
-      return value;
-    }
+    return this.coefficients.getTemperatureCoefficientTA2();
   }
   
   /**
    * A method that returns the TemperatureCoefficientTA3 field
    */
   public double getTemperatureCoefficientTA3() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.temperatureCoefficientTA3.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.temperatureCoefficientTA3.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the temperatureCoefficientTA3 " + 
-                   "value.  The value is: " + this.temperatureCoefficientTA3);
-      return value;
-    }
+    return this.coefficients.getTemperatureCoefficientTA3();
   }
   
   /**
    * A method that returns the TemperatureOffsetCoefficient field
    */
   public double getTemperatureOffsetCoefficient() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.temperatureOffsetCoefficient.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.temperatureOffsetCoefficient.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the temperatureOffsetCoefficient " + 
-                   "value.  The value is: " + this.temperatureOffsetCoefficient);
-      return value;
-    }
+    return this.coefficients.getTemperatureOffsetCoefficient();
   }
   
   /**
@@ -3288,168 +2717,56 @@ public class CTDParser {
    * A method that returns the ConductivityCoefficientG field
    */
   public double getConductivityCoefficientG() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientG.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientG.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientG " + 
-                   "value.  The value is: " + this.conductivityCoefficientG);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientG();
   }
   
   /**
    * A method that returns the ConductivityCoefficientH field
    */
   public double getConductivityCoefficientH() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientH.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientH.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientH " + 
-                   "value.  The value is: " + this.conductivityCoefficientH);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientH();
   }
   
   /**
    * A method that returns the ConductivityCoefficientI field
    */
   public double getConductivityCoefficientI() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientI.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientI.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientI " + 
-                   "value.  The value is: " + this.conductivityCoefficientI);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientI();
   }
   
   /**
    * A method that returns the ConductivityCoefficientJ field
    */
   public double getConductivityCoefficientJ() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientJ.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientJ.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientJ " + 
-                   "value.  The value is: " + this.conductivityCoefficientJ);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientJ();
   }
   
   /**
    * A method that returns the ConductivityCoefficientCF0 field
    */
   public double getConductivityCoefficientCF0() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientCF0.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientCF0.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientCF0 " + 
-                   "value.  The value is: " + this.conductivityCoefficientCF0);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientCF0();
   }
   
   /**
    * A method that returns the ConductivityCoefficientCPCOR field
    */
   public double getConductivityCoefficientCPCOR() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientCPCOR.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientCPCOR.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientCPCOR " + 
-                   "value.  The value is: " + this.conductivityCoefficientCPCOR);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientCPCOR();
   }
   
   /**
    * A method that returns the ConductivityCoefficientCTCOR field
    */
   public double getConductivityCoefficientCTCOR() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientCTCOR.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientCTCOR.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientCTCOR " + 
-                   "value.  The value is: " + this.conductivityCoefficientCTCOR);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientCTCOR();
   }
   
   /**
    * A method that returns the ConductivityCoefficientCSLOPE field
    */
   public double getConductivityCoefficientCSLOPE() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.conductivityCoefficientCSLOPE.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.conductivityCoefficientCSLOPE.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the conductivityCoefficientCSLOPE " + 
-                   "value.  The value is: " + this.conductivityCoefficientCSLOPE);
-      return value;
-    }
+    return this.coefficients.getConductivityCoefficientCSLOPE();
   }
   
   /**
@@ -3463,273 +2780,91 @@ public class CTDParser {
    * A method that returns the PressureCoefficientPA0 field
    */
   public double getPressureCoefficientPA0() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPA0.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPA0.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPA0 " + 
-                   "value.  The value is: " + this.pressureCoefficientPA0);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPA0();
   }
   
   /**
    * A method that returns the PressureCoefficientPA1 field
    */
   public double getPressureCoefficientPA1() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPA1.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPA1.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPA1 " + 
-                   "value.  The value is: " + this.pressureCoefficientPA1);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPA1();
   }
   
   /**
    * A method that returns the PressureCoefficientPA2 field
    */
   public double getPressureCoefficientPA2() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPA2.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPA2.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPA2 " + 
-                   "value.  The value is: " + this.pressureCoefficientPA2);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPA2();
   }
   
   /**
    * A method that returns the PressureCoefficientPTCA0 field
    */
   public double getPressureCoefficientPTCA0() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTCA0.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTCA0.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTCA0 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTCA0);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTCA0();
   }
   
   /**
    * A method that returns the PressureCoefficientPTCA1 field
    */
   public double getPressureCoefficientPTCA1() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTCA1.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTCA1.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTCA1 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTCA1);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTCA1();
   }
   
   /**
    * A method that returns the PressureCoefficientPTCA2 field
    */
   public double getPressureCoefficientPTCA2() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTCA2.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTCA2.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTCA2 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTCA2);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTCA2();
   }
   
   /**
    * A method that returns the PressureCoefficientPTCB0 field
    */
   public double getPressureCoefficientPTCB0() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTCB0.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTCB0.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTCB0 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTCB0);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTCB0();
   }
   
   /**
    * A method that returns the PressureCoefficientPTCB1 field
    */
   public double getPressureCoefficientPTCB1() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTCB1.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTCB1.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTCB1 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTCB1);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTCB1();
   }
   
   /**
    * A method that returns the PressureCoefficientPTCB2 field
    */
   public double getPressureCoefficientPTCB2() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTCB2.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTCB2.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTCB2 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTCB2);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTCB2();
   }
   
   /**
    * A method that returns the PressureCoefficientPTEMPA0 field
    */
   public double getPressureCoefficientPTEMPA0() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTEMPA0.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTEMPA0.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTEMPA0 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTEMPA0);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTEMPA0();
   }
   
   /**
    * A method that returns the PressureCoefficientPTEMPA1 field
    */
   public double getPressureCoefficientPTEMPA1() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTEMPA1.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTEMPA1.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTEMPA1 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTEMPA1);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTEMPA1();
   }
   
   /**
    * A method that returns the PressureCoefficientPTEMPA2 field
    */
   public double getPressureCoefficientPTEMPA2() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureCoefficientPTEMPA2.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureCoefficientPTEMPA2.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureCoefficientPTEMPA2 " + 
-                   "value.  The value is: " + this.pressureCoefficientPTEMPA2);
-      return value;
-    }
+    return this.coefficients.getPressureCoefficientPTEMPA2();
   }
   
   /**
    * A method that returns the PressureOffsetCoefficient field
    */
   public double getPressureOffsetCoefficient() {
-    double value =0d;
-    
-    try {
-      value = new Double(this.pressureOffsetCoefficient.trim()).doubleValue();
-      return value;
-    
-    } catch (NumberFormatException nfe) {
-      String [] strParts = this.pressureOffsetCoefficient.trim().split(" ");
-      return new Double(strParts[0]).doubleValue();
-      
-    } catch ( NullPointerException npe ) {
-      log.debug("There was a problem parsing the pressureOffsetCoefficient " + 
-                   "value.  The value is: " + this.pressureOffsetCoefficient);
-      return value;
-    }
+    return this.coefficients.getPressureOffsetCoefficient();
   }
   
   /**
@@ -4216,6 +3351,15 @@ public class CTDParser {
     }
   }
   
+  /**
+   *  A method that returns the numeric metadata values and calibration
+   *  coefficients, as parsed when the metadata were last set
+   */
+  public Coefficients getCoefficients() {
+    return this.coefficients;
+      
+  } 
+  
   /**
    *  A method that returns the converted data matrix as a RealMatrix
    */
@@ -4232,6 +3376,34 @@ public class CTDParser {
       
   } 
   
+  /**
+   *  A method that returns the converted data values as a flat array with
+   *  each variable stored contiguously in scan order, starting at
+   *  getConvertedColumnOffset(column).  The array is shared with the
+   *  converted matrix, not copied.
+   */
+  public double[] getConvertedValues() {
+    return this.convertedDataValues;
+      
+  } 
+  
+  /**
+   *  A method that returns the offset of a variable's values in the
+   *  converted values array
+   */
+  public int getConvertedColumnOffset(int column) {
+    return this.convertedDataValuesMatrix.getColumnOffset(column);
+      
+  } 
+  
+  /**
+   *  A method that returns the number of scans in the converted data values
+   */
+  public int getNumberOfScans() {
+    return this.convertedDataValuesMatrix.getRowDimension();
+      
+  } 
+  
   /**
    *  A method that returns the ordered data variable names as a List
    */
@@ -4316,4 +3488,346 @@ public class CTDParser {
     this.logConfigurationFile = logConfigurationFile;
   }
   
+  /**
+   *  An immutable record of the numeric metadata values and calibration
+   *  coefficients, parsed once from their metadata strings when the metadata
+   *  are set rather than on every call to a getter.  A value followed by its
+   *  units (e.g. "20 sec") is parsed from its first token.  Missing or
+   *  unparseable values are 0, except for the instrument position and depth
+   *  sounding, which are NaN since 0 is a valid position.
+   */
+  public static final class Coefficients {
+    private final double instrumentLatitude;
+    private final double instrumentLongitude;
+    private final double depthSounding;
+    private final double mainBatteryVoltage;
+    private final double lithiumBatteryVoltage;
+    private final double operatingCurrent;
+    private final double pumpCurrent;
+    private final double channels01ExternalCurrent;
+    private final double channels23ExternalCurrent;
+    private final double temperatureCoefficientTA0;
+    private final double temperatureCoefficientTA1;
+    private final double temperatureCoefficientTA2;
+    private final double temperatureCoefficientTA3;
+    private final double temperatureOffsetCoefficient;
+    private final double conductivityCoefficientG;
+    private final double conductivityCoefficientH;
+    private final double conductivityCoefficientI;
+    private final double conductivityCoefficientJ;
+    private final double conductivityCoefficientCF0;
+    private final double conductivityCoefficientCPCOR;
+    private final double conductivityCoefficientCTCOR;
+    private final double conductivityCoefficientCSLOPE;
+    private final double pressureCoefficientPA0;
+    private final double pressureCoefficientPA1;
+    private final double pressureCoefficientPA2;
+    private final double pressureCoefficientPTCA0;
+    private final double pressureCoefficientPTCA1;
+    private final double pressureCoefficientPTCA2;
+    private final double pressureCoefficientPTCB0;
+    private final double pressureCoefficientPTCB1;
+    private final double pressureCoefficientPTCB2;
+    private final double pressureCoefficientPTEMPA0;
+    private final double pressureCoefficientPTEMPA1;
+    private final double pressureCoefficientPTEMPA2;
+    private final double pressureOffsetCoefficient;
+    private final int numberOfScansToAverage;
+    private final int numberOfSamples;
+    private final int numberOfAvailableSamples;
+    private final int sampleInterval;
+    private final int measurementsPerSample;
+    private final int numberOfCasts;
+    private final int minimumConductivityFrequency;
+    private final int pumpDelay;
+    
+    /*
+     *  Constructor:  Parses the numeric metadata strings of the given parser
+     */
+    private Coefficients(CTDParser parser) {
+      this.instrumentLatitude = parseDouble("instrumentLatitude", parser.instrumentLatitude, Double.NaN);
+      this.instrumentLongitude = parseDouble("instrumentLongitude", parser.instrumentLongitude, Double.NaN);
+      this.depthSounding = parseDouble("depthSounding", parser.depthSounding, Double.NaN);
+      this.mainBatteryVoltage = parseDouble("mainBatteryVoltage", parser.mainBatteryVoltage, 0d);
+      this.lithiumBatteryVoltage = parseDouble("lithiumBatteryVoltage", parser.lithiumBatteryVoltage, 0d);
+      this.operatingCurrent = parseDouble("operatingCurrent", parser.operatingCurrent, 0d);
+      this.pumpCurrent = parseDouble("pumpCurrent", parser.pumpCurrent, 0d);
+      this.channels01ExternalCurrent = parseDouble("channels01ExternalCurrent", parser.channels01ExternalCurrent, 0d);
+      this.channels23ExternalCurrent = parseDouble("channels23ExternalCurrent", parser.channels23ExternalCurrent, 0d);
+      this.temperatureCoefficientTA0 = parseDouble("temperatureCoefficientTA0", parser.temperatureCoefficientTA0, 0d);
+      this.temperatureCoefficientTA1 = parseDouble("temperatureCoefficientTA1", parser.temperatureCoefficientTA1, 0d);
+      this.temperatureCoefficientTA2 = parseDouble("temperatureCoefficientTA2", parser.temperatureCoefficientTA2, 0d);
+      this.temperatureCoefficientTA3 = parseDouble("temperatureCoefficientTA3", parser.temperatureCoefficientTA3, 0d);
+      this.temperatureOffsetCoefficient = parseDouble("temperatureOffsetCoefficient", parser.temperatureOffsetCoefficient, 0d);
+      this.conductivityCoefficientG = parseDouble("conductivityCoefficientG", parser.conductivityCoefficientG, 0d);
+      this.conductivityCoefficientH = parseDouble("conductivityCoefficientH", parser.conductivityCoefficientH, 0d);
+      this.conductivityCoefficientI = parseDouble("conductivityCoefficientI", parser.conductivityCoefficientI, 0d);
+      this.conductivityCoefficientJ = parseDouble("conductivityCoefficientJ", parser.conductivityCoefficientJ, 0d);
+      this.conductivityCoefficientCF0 = parseDouble("conductivityCoefficientCF0", parser.conductivityCoefficientCF0, 0d);
+      this.conductivityCoefficientCPCOR = parseDouble("conductivityCoefficientCPCOR", parser.conductivityCoefficientCPCOR, 0d);
+      this.conductivityCoefficientCTCOR = parseDouble("conductivityCoefficientCTCOR", parser.conductivityCoefficientCTCOR, 0d);
+      this.conductivityCoefficientCSLOPE = parseDouble("conductivityCoefficientCSLOPE", parser.conductivityCoefficientCSLOPE, 0d);
+      this.pressureCoefficientPA0 = parseDouble("pressureCoefficientPA0", parser.pressureCoefficientPA0, 0d);
+      this.pressureCoefficientPA1 = parseDouble("pressureCoefficientPA1", parser.pressureCoefficientPA1, 0d);
+      this.pressureCoefficientPA2 = parseDouble("pressureCoefficientPA2", parser.pressureCoefficientPA2, 0d);
+      this.pressureCoefficientPTCA0 = parseDouble("pressureCoefficientPTCA0", parser.pressureCoefficientPTCA0, 0d);
+      this.pressureCoefficientPTCA1 = parseDouble("pressureCoefficientPTCA1", parser.pressureCoefficientPTCA1, 0d);
+      this.pressureCoefficientPTCA2 = parseDouble("pressureCoefficientPTCA2", parser.pressureCoefficientPTCA2, 0d);
+      this.pressureCoefficientPTCB0 = parseDouble("pressureCoefficientPTCB0", parser.pressureCoefficientPTCB0, 0d);
+      this.pressureCoefficientPTCB1 = parseDouble("pressureCoefficientPTCB1", parser.pressureCoefficientPTCB1, 0d);
+      this.pressureCoefficientPTCB2 = parseDouble("pressureCoefficientPTCB2", parser.pressureCoefficientPTCB2, 0d);
+      this.pressureCoefficientPTEMPA0 = parseDouble("pressureCoefficientPTEMPA0", parser.pressureCoefficientPTEMPA0, 0d);
+      this.pressureCoefficientPTEMPA1 = parseDouble("pressureCoefficientPTEMPA1", parser.pressureCoefficientPTEMPA1, 0d);
+      this.pressureCoefficientPTEMPA2 = parseDouble("pressureCoefficientPTEMPA2", parser.pressureCoefficientPTEMPA2, 0d);
+      this.pressureOffsetCoefficient = parseDouble("pressureOffsetCoefficient", parser.pressureOffsetCoefficient, 0d);
+      this.numberOfScansToAverage = (int) parseDouble("numberOfScansToAverage", parser.numberOfScansToAverage, 0d);
+      this.numberOfSamples = (int) parseDouble("numberOfSamples", parser.numberOfSamples, 0d);
+      this.numberOfAvailableSamples = (int) parseDouble("numberOfAvailableSamples", parser.numberOfAvailableSamples, 0d);
+      this.sampleInterval = (int) parseDouble("sampleInterval", parser.sampleInterval, 0d);
+      this.measurementsPerSample = (int) parseDouble("measurementsPerSample", parser.measurementsPerSample, 0d);
+      this.numberOfCasts = (int) parseDouble("numberOfCasts", parser.numberOfCasts, 0d);
+      this.minimumConductivityFrequency = (int) parseDouble("minimumConductivityFrequency", parser.minimumConductivityFrequency, 0d);
+      this.pumpDelay = (int) parseDouble("pumpDelay", parser.pumpDelay, 0d);
+    }
+    
+    /*
+     *  Parses a metadata string as a number, trying its first token if the
+     *  whole string isn't a number, and returning the default if neither is.
+     */
+    private static double parseDouble(String name, String value, double defaultValue) {
+      if ( value == null ) {
+        return defaultValue;
+      }
+      String trimmed = value.trim();
+      try {
+        return Double.parseDouble(trimmed);
+        
+      } catch ( NumberFormatException nfe ) {
+        try {
+          return Double.parseDouble(trimmed.split(" ")[0]);
+          
+        } catch ( NumberFormatException nfe2 ) {
+          log.debug("There was a problem parsing the " + name + 
+                    " value.  The value is: " + value);
+          return defaultValue;
+        }
+      }
+    }
+    
+    /**  Returns the instrumentLatitude value */
+    public double getInstrumentLatitude() {
+      return this.instrumentLatitude;
+    }
+    
+    /**  Returns the instrumentLongitude value */
+    public double getInstrumentLongitude() {
+      return this.instrumentLongitude;
+    }
+    
+    /**  Returns the depthSounding value */
+    public double getDepthSounding() {
+      return this.depthSounding;
+    }
+    
+    /**  Returns the mainBatteryVoltage value */
+    public double getMainBatteryVoltage() {
+      return this.mainBatteryVoltage;
+    }
+    
+    /**  Returns the lithiumBatteryVoltage value */
+    public double getLithiumBatteryVoltage() {
+      return this.lithiumBatteryVoltage;
+    }
+    
+    /**  Returns the operatingCurrent value */
+    public double getOperatingCurrent() {
+      return this.operatingCurrent;
+    }
+    
+    /**  Returns the pumpCurrent value */
+    public double getPumpCurrent() {
+      return this.pumpCurrent;
+    }
+    
+    /**  Returns the channels01ExternalCurrent value */
+    public double getChannels01ExternalCurrent() {
+      return this.channels01ExternalCurrent;
+    }
+    
+    /**  Returns the channels23ExternalCurrent value */
+    public double getChannels23ExternalCurrent() {
+      return this.channels23ExternalCurrent;
+    }
+    
+    /**  Returns the temperatureCoefficientTA0 value */
+    public double getTemperatureCoefficientTA0() {
+      return this.temperatureCoefficientTA0;
+    }
+    
+    /**  Returns the temperatureCoefficientTA1 value */
+    public double getTemperatureCoefficientTA1() {
+      return this.temperatureCoefficientTA1;
+    }
+    
+    /**  Returns the temperatureCoefficientTA2 value */
+    public double getTemperatureCoefficientTA2() {
+      return this.temperatureCoefficientTA2;
+    }
+    
+    /**  Returns the temperatureCoefficientTA3 value */
+    public double getTemperatureCoefficientTA3() {
+      return this.temperatureCoefficientTA3;
+    }
+    
+    /**  Returns the temperatureOffsetCoefficient value */
+    public double getTemperatureOffsetCoefficient() {
+      return this.temperatureOffsetCoefficient;
+    }
+    
+    /**  Returns the conductivityCoefficientG value */
+    public double getConductivityCoefficientG() {
+      return this.conductivityCoefficientG;
+    }
+    
+    /**  Returns the conductivityCoefficientH value */
+    public double getConductivityCoefficientH() {
+      return this.conductivityCoefficientH;
+    }
+    
+    /**  Returns the conductivityCoefficientI value */
+    public double getConductivityCoefficientI() {
+      return this.conductivityCoefficientI;
+    }
+    
+    /**  Returns the conductivityCoefficientJ value */
+    public double getConductivityCoefficientJ() {
+      return this.conductivityCoefficientJ;
+    }
+    
+    /**  Returns the conductivityCoefficientCF0 value */
+    public double getConductivityCoefficientCF0() {
+      return this.conductivityCoefficientCF0;
+    }
+    
+    /**  Returns the conductivityCoefficientCPCOR value */
+    public double getConductivityCoefficientCPCOR() {
+      return this.conductivityCoefficientCPCOR;
+    }
+    
+    /**  Returns the conductivityCoefficientCTCOR value */
+    public double getConductivityCoefficientCTCOR() {
+      return this.conductivityCoefficientCTCOR;
+    }
+    
+    /**  Returns the conductivityCoefficientCSLOPE value */
+    public double getConductivityCoefficientCSLOPE() {
+      return this.conductivityCoefficientCSLOPE;
+    }
+    
+    /**  Returns the pressureCoefficientPA0 value */
+    public double getPressureCoefficientPA0() {
+      return this.pressureCoefficientPA0;
+    }
+    
+    /**  Returns the pressureCoefficientPA1 value */
+    public double getPressureCoefficientPA1() {
+      return this.pressureCoefficientPA1;
+    }
+    
+    /**  Returns the pressureCoefficientPA2 value */
+    public double getPressureCoefficientPA2() {
+      return this.pressureCoefficientPA2;
+    }
+    
+    /**  Returns the pressureCoefficientPTCA0 value */
+    public double getPressureCoefficientPTCA0() {
+      return this.pressureCoefficientPTCA0;
+    }
+    
+    /**  Returns the pressureCoefficientPTCA1 value */
+    public double getPressureCoefficientPTCA1() {
+      return this.pressureCoefficientPTCA1;
+    }
+    
+    /**  Returns the pressureCoefficientPTCA2 value */
+    public double getPressureCoefficientPTCA2() {
+      return this.pressureCoefficientPTCA2;
+    }
+    
+    /**  Returns the pressureCoefficientPTCB0 value */
+    public double getPressureCoefficientPTCB0() {
+      return this.pressureCoefficientPTCB0;
+    }
+    
+    /**  Returns the pressureCoefficientPTCB1 value */
+    public double getPressureCoefficientPTCB1() {
+      return this.pressureCoefficientPTCB1;
+    }
+    
+    /**  Returns the pressureCoefficientPTCB2 value */
+    public double getPressureCoefficientPTCB2() {
+      return this.pressureCoefficientPTCB2;
+    }
+    
+    /**  Returns the pressureCoefficientPTEMPA0 value */
+    public double getPressureCoefficientPTEMPA0() {
+      return this.pressureCoefficientPTEMPA0;
+    }
+    
+    /**  Returns the pressureCoefficientPTEMPA1 value */
+    public double getPressureCoefficientPTEMPA1() {
+      return this.pressureCoefficientPTEMPA1;
+    }
+    
+    /**  Returns the pressureCoefficientPTEMPA2 value */
+    public double getPressureCoefficientPTEMPA2() {
+      return this.pressureCoefficientPTEMPA2;
+    }
+    
+    /**  Returns the pressureOffsetCoefficient value */
+    public double getPressureOffsetCoefficient() {
+      return this.pressureOffsetCoefficient;
+    }
+    
+    /**  Returns the numberOfScansToAverage value */
+    public int getNumberOfScansToAverage() {
+      return this.numberOfScansToAverage;
+    }
+    
+    /**  Returns the numberOfSamples value */
+    public int getNumberOfSamples() {
+      return this.numberOfSamples;
+    }
+    
+    /**  Returns the numberOfAvailableSamples value */
+    public int getNumberOfAvailableSamples() {
+      return this.numberOfAvailableSamples;
+    }
+    
+    /**  Returns the sampleInterval value */
+    public int getSampleInterval() {
+      return this.sampleInterval;
+    }
+    
+    /**  Returns the measurementsPerSample value */
+    public int getMeasurementsPerSample() {
+      return this.measurementsPerSample;
+    }
+    
+    /**  Returns the numberOfCasts value */
+    public int getNumberOfCasts() {
+      return this.numberOfCasts;
+    }
+    
+    /**  Returns the minimumConductivityFrequency value */
+    public int getMinimumConductivityFrequency() {
+      return this.minimumConductivityFrequency;
+    }
+    
+    /**  Returns the pumpDelay value */
+    public int getPumpDelay() {
+      return this.pumpDelay;
+    }
+  }
+  
 }                                               
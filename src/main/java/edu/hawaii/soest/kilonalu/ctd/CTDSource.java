@@ -31,6 +31,7 @@ import com.rbnb.sapi.Source;
 import com.rbnb.sapi.SAPIException;
 
 import edu.hawaii.soest.kilonalu.ctd.CTDParser;
+import edu.hawaii.soest.kilonalu.utilities.CommandResponseEngine;
 import edu.hawaii.soest.kilonalu.utilities.SerialChannel;
 
 import gnu.io.CommPort;
@@ -63,6 +64,8 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
 
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.CommandLine;
@@ -172,9 +175,6 @@ public class CTDSource extends RBNBSource {
   /* A field indicating if the CTD query output type is xml or text */
   private String outputType;
   
-  /* A boolean field indicating if a command has been sent to the instrument */
-  private boolean sentCommand = false;
-  
   /* The command prefix used to send commands to the instrument */ 
   private String commandPrefix = "";
   
@@ -229,8 +229,23 @@ public class CTDSource extends RBNBSource {
   /* A boolean field that indicates if sampling has been stopped on the instrument */
   private boolean samplingIsStopped = false;
   
-  /* The command used to query or command the instrument */
-  private String command;
+  /* The pattern that ends the response to an XML query command */
+  private static final Pattern EXECUTED = Pattern.compile("<Executed/>");
+  
+  /* The pattern that ends the response to a legacy DS or DCal command */
+  private static final Pattern PROMPT = Pattern.compile("S>");
+  
+  /* The pattern that acknowledges a wake, stop, clock, or start command */
+  private static final Pattern ACKNOWLEDGED = Pattern.compile("<Executed/>|S>");
+  
+  /* The time to wait for the instrument to wake, in milliseconds */
+  private static final long WAKE_TIMEOUT = 2000L;
+  
+  /* The time to wait for the response to any other command, in milliseconds */
+  private static final long COMMAND_TIMEOUT = 5000L;
+  
+  /* The number of times each command is sent before the dialog fails */
+  private static final int COMMAND_ATTEMPTS = 3;
   
   /* A boolean stating if the instrument clock is synced to NTP time */
   private boolean clockIsSynced = false;
@@ -251,6 +266,9 @@ public class CTDSource extends RBNBSource {
   /* The instance of the CTD Parser class used to parse CTD output */
   private CTDParser ctdParser;
   
+  /* The handler for frames passed to process() by a dispatcher */
+  private FrameHandler frameHandler;
+  
   /* The response string used as the output variable from the CTD */
   String responseString;
   
@@ -353,7 +371,10 @@ public class CTDSource extends RBNBSource {
    * A method that processes the data object passed and flushes the
    * data to the DataTurbine given the sensor properties in the XMLConfiguration
    * passed in. This method is largely called from a dispatcher that is handling
-   * the data streaming, like StorXDispatcher.
+   * the data streaming, like StorXDispatcher.  The sensor properties are
+   * looked up once, and the resulting FrameHandler is reused for later frames
+   * from the same sensor.  Dispatchers that know the sensor configuration up
+   * front should call compileFrameHandler() instead.
    *
    * @param xmlConfig - the XMLConfiguration object containing the list of
    *                    sensor properties
@@ -365,108 +386,178 @@ public class CTDSource extends RBNBSource {
     // do not execute the stream if there is no connection
     if (  !isConnected() ) return false;
     
-    boolean success = false;
+    Object frameSerialNumber = frameMap.get("serialNumber");
     
-    try {
-      
-      // add channels of data that will be pushed to the server.  
-      // Each sample will be sent to the Data Turbine as an rbnb frame.  Information
-      // on each channel is found in the XMLConfiguration file (email.account.properties.xml)
-      // and the StorXParser object (to get the data string)
-      ChannelMap rbnbChannelMap     = new ChannelMap(); // used to flush channels
-      ChannelMap registerChannelMap = new ChannelMap(); // used to register channels
-      int channelIndex = 0;
-        
-      // this.storXParser = new StorXParser(storXFrame);
-      
-      String sensorName         = null;
-      String sensorSerialNumber = null;
-      String sensorDescription  = null;
-      boolean isImmersed        = false;
-      String[] calibrationURLs  = null;
-      String calibrationURL     = null;
-      String type               = null;
+    if ( this.frameHandler == null || 
+         !this.frameHandler.getSerialNumber().equals(frameSerialNumber) ) {
+      this.frameHandler = null;
       
+      // find the correct sensor configuration properties
       List sensorList = xmlConfig.configurationsAt("account.log.sensor");
       
       for (Iterator sIterator = sensorList.iterator(); sIterator.hasNext(); ) {
-      //  
         HierarchicalConfiguration sensorConfig = 
           (HierarchicalConfiguration) sIterator.next();
-        sensorSerialNumber = sensorConfig.getString("serialNumber");
-        
-        // find the correct sensor configuration properties
-        if ( sensorSerialNumber.equals(frameMap.get("serialNumber")) ) {
         
-          sensorName = sensorConfig.getString("name");
-          sensorDescription = sensorConfig.getString("description");
-          isImmersed = new Boolean(sensorConfig.getString("isImmersed")).booleanValue();
-          //calibrationURLs = sensorConfig.getStringArray("calibrationURL");
-          type = (String) frameMap.get("type");
-          
-          // Build the RBNB channel map 
+        if ( sensorConfig.getString("serialNumber").equals(frameSerialNumber) ) {
+          this.frameHandler = compileFrameHandler(sensorConfig);
+          break;
           
-          // get the sample date and convert it to seconds since the epoch
-          Date frameDate = (Date) frameMap.get("date");
-          Calendar frameDateTime = Calendar.getInstance();
-          frameDateTime.setTime(frameDate);
-          double sampleTimeAsSecondsSinceEpoch = (double)
-            (frameDateTime.getTimeInMillis()/1000);
-          // and create a string formatted date for the given time zone
-          DATE_FORMAT.setTimeZone(TZ);
-          String frameDateAsString = DATE_FORMAT.format(frameDate).toString();
-          
-          // get the sample data from the frame map
-          ByteBuffer rawFrame = (ByteBuffer) frameMap.get("rawFrame");
-          CTDFrame ctdFrame  = (CTDFrame) frameMap.get("parsedFrameObject");
-          
-          String sampleString = ctdFrame.getSample();
-          
-          // add the sample timestamp to the rbnb channel map
-          //registerChannelMap.PutTime(sampleTimeAsSecondsSinceEpoch, 0d);
-          rbnbChannelMap.PutTime(sampleTimeAsSecondsSinceEpoch, 0d);
-          
-          // add the BinaryRawSatlanticFrameData channel to the channelMap
-          channelIndex = registerChannelMap.Add("BinaryRawSatlanticFrameData");
-          registerChannelMap.PutUserInfo(channelIndex, "units=none");               
-          channelIndex = rbnbChannelMap.Add("BinaryRawSatlanticFrameData");
-          rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-          rbnbChannelMap.PutDataAsByteArray(channelIndex, rawFrame.array());
-          
-          // add the DecimalASCIISampleData channel to the channelMap
-          channelIndex = registerChannelMap.Add(getRBNBChannelName());
-          registerChannelMap.PutUserInfo(channelIndex, "units=none");               
-          channelIndex = rbnbChannelMap.Add(getRBNBChannelName());
-          rbnbChannelMap.PutMime(channelIndex, "text/plain");
-          rbnbChannelMap.PutDataAsString(channelIndex, sampleString);
-          
-          // Now register the RBNB channels, and flush the rbnbChannelMap to the
-          // DataTurbine
-          getSource().Register(registerChannelMap);
-          getSource().Flush(rbnbChannelMap);
-          log.info("Sample sent to the DataTurbine: (" + 
-                      sensorSerialNumber                  + 
-                      ") "                                + 
-                      sampleString);
-          
-          registerChannelMap.Clear();
-          rbnbChannelMap.Clear();
-          
-        } // end if()
-        
-      } // end for()                                             
-      
-      success = true;
+        }
+      }
+    }
+    
+    // frames from sensors that aren't configured are skipped, as before
+    if ( this.frameHandler == null ) {
+      return true;
       
-    } catch ( Exception sapie ) {
-      success = false;
-      sapie.printStackTrace();
-      return success;
+    }
+    
+    return this.frameHandler.process(frameMap);
+  }
+  
+  /**
+   * A method that resolves the properties of a StorX-embedded CTD from its
+   * sensor configuration and returns a handler that sends its frames to the
+   * DataTurbine.  The handler adds its channels once, registers them with
+   * the first frame, and then only fills in the data for each frame.
+   *
+   * @param sensorConfig - the sensor configuration from the
+   *                       email.account.properties.xml file
+   * @return frameHandler - the handler for frames with this serial number
+   */
+  public FrameHandler compileFrameHandler(HierarchicalConfiguration sensorConfig) {
+    return new FrameHandler(sensorConfig);
+    
+  }
+  
+  /**
+   * A class that holds the resolved configuration and channel layout of one
+   * StorX-embedded CTD, so that each of its frames can be flushed to the
+   * DataTurbine without looking the sensor up or registering its channels
+   * again.  Instances are made by compileFrameHandler().
+   */
+  public class FrameHandler {
+    
+    /* The sensor serial number that the frames are matched on */
+    private final String serialNumber;
+    
+    /* The sensor name from the configuration */
+    private final String sensorName;
+    
+    /* The sensor description from the configuration */
+    private final String sensorDescription;
+    
+    /* A boolean stating if the sensor is immersed */
+    private final boolean isImmersed;
+    
+    /* The channel map that is filled in and flushed for each frame */
+    private final ChannelMap rbnbChannelMap = new ChannelMap();
+    
+    /* The channel map used to register the channels */
+    private final ChannelMap registerChannelMap = new ChannelMap();
+    
+    /* The index of the BinaryRawSatlanticFrameData channel */
+    private final int rawFrameChannelIndex;
+    
+    /* The index of the DecimalASCIISampleData channel */
+    private final int sampleChannelIndex;
+    
+    /* A boolean stating if the channels have been registered */
+    private boolean registered = false;
+    
+    /*
+     * Builds the handler, resolving the sensor properties and adding the
+     * channels to the channel maps
+     */
+    private FrameHandler(HierarchicalConfiguration sensorConfig) {
+      this.serialNumber      = sensorConfig.getString("serialNumber");
+      this.sensorName        = sensorConfig.getString("name");
+      this.sensorDescription = sensorConfig.getString("description");
+      this.isImmersed        = 
+        new Boolean(sensorConfig.getString("isImmersed")).booleanValue();
       
+      int channelIndex = 0;
+      try {
+        // add the BinaryRawSatlanticFrameData channel to the channelMaps
+        channelIndex = this.registerChannelMap.Add("BinaryRawSatlanticFrameData");
+        this.registerChannelMap.PutUserInfo(channelIndex, "units=none");               
+        this.rawFrameChannelIndex = 
+          this.rbnbChannelMap.Add("BinaryRawSatlanticFrameData");
+        
+        // add the DecimalASCIISampleData channel to the channelMaps
+        channelIndex = this.registerChannelMap.Add(getRBNBChannelName());
+        this.registerChannelMap.PutUserInfo(channelIndex, "units=none");               
+        this.sampleChannelIndex = this.rbnbChannelMap.Add(getRBNBChannelName());
+        
+      } catch ( SAPIException sapie ) {
+        // Add() only fails for malformed channel names
+        throw new IllegalArgumentException("Couldn't add the channels for " +
+          this.serialNumber + ": " + sapie.getMessage(), sapie);
+        
+      }
+    }
+    
+    /**
+     * A method that returns the serial number of the sensor
+     *
+     * @return serialNumber - the sensor serial number
+     */
+    public String getSerialNumber() {
+      return this.serialNumber;
     }
     
-    return success;
-  } // end if (  !isConnected() ) 
+    /**
+     * A method that flushes the given frame to the DataTurbine, registering
+     * the channels first if they haven't been yet.
+     *
+     * @param frameMap - the parsed data as a HierarchicalMap object
+     * @return success - true if the frame was flushed
+     */
+    public boolean process(HierarchicalMap frameMap) {
+      
+      // do not execute the stream if there is no connection
+      if (  !isConnected() ) return false;
+      
+      try {
+        if ( !this.registered ) {
+          getSource().Register(this.registerChannelMap);
+          this.registered = true;
+          
+        }
+        
+        // get the sample date and convert it to seconds since the epoch
+        Date frameDate = (Date) frameMap.get("date");
+        double sampleTimeAsSecondsSinceEpoch = (double) (frameDate.getTime()/1000);
+        
+        // get the sample data from the frame map
+        ByteBuffer rawFrame = (ByteBuffer) frameMap.get("rawFrame");
+        CTDFrame ctdFrame  = (CTDFrame) frameMap.get("parsedFrameObject");
+        String sampleString = ctdFrame.getSample();
+        
+        // fill in the channel map.  Flush() clears its data but keeps the
+        // channels, so it's ready for the next frame
+        this.rbnbChannelMap.PutTime(sampleTimeAsSecondsSinceEpoch, 0d);
+        this.rbnbChannelMap.PutMime(this.rawFrameChannelIndex, "application/octet-stream");
+        this.rbnbChannelMap.PutDataAsByteArray(this.rawFrameChannelIndex, rawFrame.array());
+        this.rbnbChannelMap.PutMime(this.sampleChannelIndex, "text/plain");
+        this.rbnbChannelMap.PutDataAsString(this.sampleChannelIndex, sampleString);
+        
+        getSource().Flush(this.rbnbChannelMap);
+        log.info("Sample sent to the DataTurbine: (" + 
+                    this.serialNumber                   + 
+                    ") "                                + 
+                    sampleString);
+        return true;
+        
+      } catch ( Exception sapie ) {
+        sapie.printStackTrace();
+        return false;
+        
+      }
+    }
+  }
+  
   
   /**
    * A method that executes the streaming of data from the source to the RBNB
@@ -525,6 +616,17 @@ public class CTDSource extends RBNBSource {
       // add a channel of data that will be pushed to the server.  
       // Each sample will be sent to the Data Turbine as an rbnb frame.
       ChannelMap rbnbChannelMap = new ChannelMap();
+      
+      // query the instrument for its metadata, sync its clock, and restart
+      // its sampling before streaming samples
+      if ( this.enableSendCommands && !this.hasMetadata ) {
+        if ( !runInstrumentDialog() ) {
+          failed = true;
+          return !failed;
+          
+        }
+      }
+      this.state = 11;
             
       // while there are bytes to read from the channel ...
       while ( this.channel.read(buffer) != -1 || buffer.position() > 0) {
@@ -557,530 +659,6 @@ public class CTDSource extends RBNBSource {
     
           switch( this.state ) {
             
-            case 0:  // wake up the instrument
-              
-              // check for instrument metadata fields
-              if ( this.enableSendCommands && !this.hasMetadata ) {
-                
-                // wake the instrument with an initial '\r\n' command
-                this.command = this.commandSuffix;
-                this.sentCommand = queryInstrument(this.command);
-                this.sentCommand = queryInstrument(this.command);
-                streamingThread.sleep(2000);
-                
-                this.state = 1;
-                break;
-
-              } else {
-                
-                this.state = 11;
-                break;
-                
-              }
-            
-            case 1: // stop the sampling
-              
-              // be sure the instrument woke (look for S> prompt)
-              //if (byteOne == 0x3E && byteTwo == 0x53 ) {
-              //  
-              //  sampleByteCount = 0;
-              //  sampleBuffer.clear();
-              //  
-              //  // send the stop sampling command
-                this.command = this.commandPrefix       + 
-                               this.stopSamplingCommand +
-                               this.commandSuffix;
-                this.sentCommand = queryInstrument(command);        
-                
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                this.state = 2;
-                break;
-
-              //} else {
-              //  // handle instrument hardware response
-              //  sampleByteCount++; // add the last byte found to the count
-              //  
-              //  // add the last byte found to the sample buffer
-              //  if ( sampleBuffer.remaining() > 0 ) {
-              //    sampleBuffer.put(byteOne);
-              //  
-              //  } else {
-              //    sampleBuffer.compact();
-              //    sampleBuffer.put(byteOne);
-              //    
-              //  }                
-              //  
-              //  break; // continue reading bytes
-              //  
-              //}
-              
-            case 2: // based on outputType, get metadata from the instrument
-              
-              // the response should end in <Executed/>
-              if ( byteOne == 0x3E && byteTwo == 0x2F && 
-                   byteThree == 0x64 && byteFour == 0x65) {
-                
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                this.samplingIsStopped = true;
-                
-                // for newer firmware CTDs, use xml-based query commands
-                if ( getOutputType().equals("xml") ) {
-                  // create the CTD parser instance used to parse CTD output
-                  this.ctdParser = new CTDParser();
-                  this.state = 3;
-                  break;
-                
-                // otherwise, use text-based query commands
-                } else if ( getOutputType().equals("text") ) {
-                  this.state = 12; // process DS and DCal commands
-                  break;
-                
-                } else {
-                  
-                  log.info("The CTD output type is not recognized. " +
-                              "Please set the output type to either "   +
-                              "'xml' or 'text'.");
-                  failed = true;
-                  this.state = 0;
-                  
-                  // close the serial or socket channel
-                  if ( this.channel != null && this.channel.isOpen() ) {
-                    try {
-                      this.channel.close();
-
-                    } catch ( IOException cioe ) {
-                      log.debug("An error occurred trying to close the byte channel. " +
-                                   " The error message was: " + cioe.getMessage());
-                      return !failed;
-                      
-                    }
-                  }
-
-                  // disconnect from the RBNB
-                  if ( isConnected() ) {
-                    disconnect();
-                  }
-
-                  return !failed;
-                
-                }
-                  
-              } else {
-                
-                // handle instrument hardware response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }                
-                
-                break; // continue reading bytes
-                
-                 
-              }
-            
-            case 3: // get the instrument status metadata
-               
-              if ( !this.ctdParser.getHasStatusMetadata() ) {
-                
-                this.command = this.commandPrefix    +
-                               this.getStatusCommand +
-                               this.commandSuffix;
-                this.sentCommand = queryInstrument(command);        
-                streamingThread.sleep(5000);
-                this.state = 4;
-                break;
-                
-              } else {
-                
-                // get the configuration metadata
-                this.command = this.commandPrefix           + 
-                               this.getConfigurationCommand +
-                               this.commandSuffix;
-                this.sentCommand = queryInstrument(command);        
-                streamingThread.sleep(5000);
-                this.state = 5;
-                break;
-                
-              }
-              
-            case 4: // handle instrument status response
-              
-              // command response ends with <Executed/> (so find: ed/>)
-              if ( byteOne == 0x3E   && byteTwo == 0x2F && 
-                   byteThree == 0x64 && byteFour == 0x65 ) {
-                
-                // handle instrument status response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }
-                
-                // extract the sampleByteCount length from the sampleBuffer
-                sampleArray = new byte[sampleByteCount];
-                sampleBuffer.flip();
-                sampleBuffer.get(sampleArray);
-                this.responseString = new String(sampleArray, "US-ASCII");
-                
-                // set the CTD metadata
-                int executedIndex = this.responseString.indexOf("<Executed/>");
-                this.responseString = this.responseString.substring(0, executedIndex - 1);
-                
-                this.ctdParser.setMetadata(this.responseString);
-                
-                // reset variables for the next sample
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                
-                // then get the instrument configuration metadata
-                if ( !this.ctdParser.getHasConfigurationMetadata() ) {
-
-                  this.command = this.commandPrefix           + 
-                                 this.getConfigurationCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);        
-                  streamingThread.sleep(5000);
-                  this.state = 5;
-                  break;
-
-                } else {
-                  
-                  // get the calibration metadata
-                  this.command = this.commandPrefix         + 
-                                 this.getCalibrationCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);        
-                  streamingThread.sleep(5000);
-                  this.state = 6;
-                  break;
-
-                }
-                
-              } else {
-                break; // continue reading bytes
-                
-              }
-              
-            case 5: // handle the instrument configuration metadata
-              
-              // command response ends with <Executed/> (so find: ed/>)
-              if ( byteOne   == 0x3E && byteTwo  == 0x2F && 
-                   byteThree == 0x64 && byteFour == 0x65 ) {
-                
-                // handle instrument configration response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }                
-                
-                // extract the sampleByteCount length from the sampleBuffer
-                sampleArray = new byte[sampleByteCount];
-                sampleBuffer.flip();
-                sampleBuffer.get(sampleArray);
-                this.responseString = new String(sampleArray, "US-ASCII");
-                
-                // set the CTD metadata
-                int executedIndex = this.responseString.indexOf("<Executed/>");
-                this.responseString = this.responseString.substring(0, executedIndex - 1);
-                
-                this.ctdParser.setMetadata(this.responseString);
-                
-                // reset variables for the next sample
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                
-                // then get the instrument calibration metadata
-                if ( !this.ctdParser.getHasCalibrationMetadata() ) {
-
-                  this.command = this.commandPrefix         + 
-                                 this.getCalibrationCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);        
-                  streamingThread.sleep(5000);
-                  this.state = 6;
-                  break;
-
-                } else {
-
-                  this.command = this.commandPrefix    + 
-                                 this.getEventsCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);        
-                  streamingThread.sleep(5000);
-                  this.state = 7;
-                  break;
-
-                }
-                
-              } else {
-                break; // continue reading bytes
-                
-              }
-              
-            case 6: // handle the instrument calibration metadata
-              
-              // command response ends with <Executed/> (so find: ed/>)
-              if ( byteOne   == 0x3E && byteTwo  == 0x2F && 
-                   byteThree == 0x64 && byteFour == 0x65 ) {
-                
-                // handle instrument calibration response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }                
-                
-                // extract the sampleByteCount length from the sampleBuffer
-                sampleArray = new byte[sampleByteCount];
-                sampleBuffer.flip();
-                sampleBuffer.get(sampleArray);
-                this.responseString = new String(sampleArray, "US-ASCII");
-                
-                // set the CTD metadata
-                int executedIndex = this.responseString.indexOf("<Executed/>");
-                this.responseString = this.responseString.substring(0, executedIndex - 1);
-                
-                this.ctdParser.setMetadata(this.responseString);
-                
-                // reset variables for the next sample
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                
-                // then get the instrument event metadata
-                if ( !this.ctdParser.getHasEventMetadata() ) {
-
-                  this.command = this.commandPrefix    + 
-                                 this.getEventsCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);        
-                  streamingThread.sleep(5000);
-                  this.state = 7;
-                  break;
-
-                } else {
-
-                  this.command = this.commandPrefix      +
-                                 this.getHardwareCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);        
-                  streamingThread.sleep(5000);
-                  this.state = 8;
-                  break;
-
-                }
-                
-              } else {
-                break; // continue reading bytes
-                
-              }
-              
-            case 7: // handle instrument event metadata
-              
-              // command response ends with <Executed/> (so find: ed/>)
-              if ( byteOne   == 0x3E && byteTwo  == 0x2F && 
-                   byteThree == 0x64 && byteFour == 0x65 ) {
-                
-                // handle instrument events response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }                
-                
-                // extract the sampleByteCount length from the sampleBuffer
-                sampleArray = new byte[sampleByteCount];
-                sampleBuffer.flip();
-                sampleBuffer.get(sampleArray);
-                this.responseString = new String(sampleArray, "US-ASCII");
-                
-                // set the CTD metadata
-                int executedIndex = this.responseString.indexOf("<Executed/>");
-                this.responseString = this.responseString.substring(0, executedIndex - 1);
-                
-                this.ctdParser.setMetadata(this.responseString);
-                
-                // reset variables for the next sample
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                
-                // then get the instrument hardware metadata
-                if ( !this.ctdParser.getHasHardwareMetadata() ) {
-
-                  this.command = this.commandPrefix      +
-                                 this.getHardwareCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);        
-                  streamingThread.sleep(5000);
-                  this.state = 8;
-                  break;
-
-                } else {
-
-                  this.state = 9;
-                  break;
-
-                }
-                
-              } else {
-                break; // continue reading bytes
-                
-              }
-              
-            case 8: // handle the instrument hardware response
-            
-              // command response ends with <Executed/> (so find: ed/>)
-              if ( byteOne   == 0x3E && byteTwo  == 0x2F && 
-                   byteThree == 0x64 && byteFour == 0x65 ) {
-                
-                // handle instrument hardware response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }                
-                
-                // extract the sampleByteCount length from the sampleBuffer
-                sampleArray = new byte[sampleByteCount];
-                sampleBuffer.flip();
-                sampleBuffer.get(sampleArray);
-                this.responseString = new String(sampleArray, "US-ASCII");
-                
-                // set the CTD metadata
-                int executedIndex = this.responseString.indexOf("<Executed/>");
-                this.responseString = this.responseString.substring(0, executedIndex - 1);
-                
-                this.ctdParser.setMetadata(this.responseString);
-                
-                // reset variables for the next sample
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                
-                // sync the clock if it is not synced
-                if ( !this.clockIsSynced ){
-                  
-                  this.state = 9;
-                  break;
-                  
-                } else {
-                  this.state = 10;
-                  break;
-                  
-                }
-                
-              } else {
-                break; // continue reading bytes
-                
-              }
-              
-            case 9: // set the instrument clock
-              
-              // is sampling stopped?
-              if ( !this.samplingIsStopped ) {
-                // wake the instrument with an initial '\r\n' command
-                this.command = this.commandSuffix;
-                this.sentCommand = queryInstrument(this.command);
-                streamingThread.sleep(2000);
-                
-                // then stop the sampling
-                this.command = this.commandPrefix     + 
-                               this.stopSamplingCommand +
-                               this.commandSuffix;
-                this.sentCommand = queryInstrument(command);        
-                this.samplingIsStopped = true;
-                
-              }
-              
-              // now set the clock
-              if ( this.sentCommand ) {
-                this.clockSyncDate = new Date();
-                DATE_FORMAT.setTimeZone(TZ);
-                String dateAsString = DATE_FORMAT.format(this.clockSyncDate);
-                
-                this.command = this.commandPrefix      +
-                               this.setDateTimeCommand +
-                               dateAsString            +
-                               this.commandSuffix;
-                this.sentCommand = queryInstrument(command);        
-                streamingThread.sleep(5000);
-                this.clockIsSynced = true;
-                log.info("The instrument clock has bee synced at " + 
-                            this.clockSyncDate.toString());
-                this.state = 10;
-                break;
-                
-              } else {
-                
-                break; // try the clock sync again due to failure
-                
-              }
-              
-              
-            case 10: // restart the instrument sampling
-              
-              if ( this.samplingIsStopped ) {
-                
-                this.hasMetadata = true;
-                
-                this.command = this.commandPrefix        +
-                               this.startSamplingCommand +
-                               this.commandSuffix;
-                this.sentCommand = queryInstrument(command);        
-                streamingThread.sleep(5000);
-                
-                if (this.sentCommand ) {
-                  this.state = 11;
-                  break;
-                  
-                } else {
-                  break; // try starting the sampling again due to failure
-                }
-
-              } else {
-
-                break;
-
-              }
-              
             case 11: // read bytes to the next EOL characters
               
               // sample line is terminated by \r\n
@@ -1473,8 +1051,16 @@ public class CTDSource extends RBNBSource {
                     
                     // sync the clock daily
                     if ( currentCalendar.before(lastSyncedCalendar) ) {
-                      this.state = 8;
-                      
+                      CommandResponseEngine engine = 
+                        new CommandResponseEngine(this.channel);
+                      try {
+                        syncClock(engine);
+                        startSampling(engine);
+                        
+                      } finally {
+                        engine.release();
+                        
+                      }
                     }
                   }
 
@@ -1515,113 +1101,9 @@ public class CTDSource extends RBNBSource {
                 break;
               } // end if for 0x0A0D EOL
           
-            case 12: // alternatively use legacy DS and DCal commands
-              
-              if ( this.enableSendCommands ) {
-
-                // start by getting the DS status output
-                this.command = this.commandPrefix        +
-                               this.displayStatusCommand +
-                               this.commandSuffix;
-                this.sentCommand = queryInstrument(command);        
-                streamingThread.sleep(5000);
-                this.state = 13;
-                break;
-
-              } else {
-
-                this.state = 0;
-                break;
-
-              }
-              
-              
-            case 13: // handle the DS command response
-              
-              // command should end with the S> prompt
-              if ( byteOne == 0x7E   && byteTwo == 0x53 ) {
-                
-                // handle instrument status response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }
-                
-                // extract the sampleByteCount length from the sampleBuffer
-                sampleArray = new byte[sampleByteCount - 2]; //subtract "S>"
-                sampleBuffer.flip();
-                sampleBuffer.get(sampleArray);
-                this.responseString = new String(sampleArray, "US-ASCII");
-                
-                // reset variables for the next sample
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                
-                // then get the instrument calibration metadata
-                  this.command = this.commandPrefix             +
-                                 this.displayCalibrationCommand +
-                                 this.commandSuffix;
-                  this.sentCommand = queryInstrument(command);
-                  streamingThread.sleep(5000);
-                  this.state = 14;
-                  break;
-                
-              } else {
-                break; // continue reading bytes
-                
-              }
-              
-            case 14: // handle the DCal command response
-              
-              // command should end with the S> prompt
-              if ( byteOne == 0x7E   && byteTwo == 0x53 ) {
-                
-                // handle instrument status response
-                sampleByteCount++; // add the last byte found to the count
-                
-                // add the last byte found to the sample buffer
-                if ( sampleBuffer.remaining() > 0 ) {
-                  sampleBuffer.put(byteOne);
-                
-                } else {
-                  sampleBuffer.compact();
-                  sampleBuffer.put(byteOne);
-                  
-                }
-                
-                // extract the sampleByteCount length from the sampleBuffer
-                sampleArray = new byte[sampleByteCount - 2]; // subtract "S>"
-                sampleBuffer.flip();
-                sampleBuffer.get(sampleArray);
-                
-                // append the DCal output to the DS output
-                this.responseString = 
-                  this.responseString.concat(new String(sampleArray, "US-ASCII"));
-                
-                // and add the data delimiter expected in the CTDParser
-                this.responseString = this.responseString.concat("*END*\r\n\r\n");
-                
-                // build the CTDParser object with legacy DS and DCal metadata
-                this.ctdParser = new CTDParser(this.responseString);
-                
-                // reset variables for the next sample
-                sampleBuffer.clear();
-                sampleByteCount = 0;
-                
-                this.state = 9; // set the clock and start sampling
-                break;
-                
-              } else {
-                break; // continue reading bytes
-                
-              }
+            default: // the instrument dialog runs before streaming starts
+              this.state = 11;
+              break;
             
           } // end switch statement
           
@@ -1667,8 +1149,8 @@ public class CTDSource extends RBNBSource {
       e.printStackTrace();
       return !failed;
     
-    } catch ( InterruptedException intde ) {
-      // in the event that the streamingThread is interrupted
+    } catch ( TimeoutException te ) {
+      // in the event that the instrument doesn't answer a command
       failed = true;
       this.state = 0;
       
@@ -1689,7 +1171,8 @@ public class CTDSource extends RBNBSource {
         disconnect();
       }
       
-      intde.printStackTrace();
+      log.info("The instrument did not respond. " +
+                  "The error message was: " + te.getMessage());
       return !failed;
     
     } catch ( SAPIException sapie ) {
@@ -1765,6 +1248,154 @@ public class CTDSource extends RBNBSource {
     return !failed;
   }
   
+  /*
+   * A method that runs the command dialog with the instrument: wake it, stop
+   * its sampling, collect its metadata with either the XML or the legacy DS
+   * and DCal commands, sync its clock, and restart its sampling.  Each step
+   * completes as soon as the instrument answers.
+   *
+   * @return true if the dialog completed, false if the output type is unknown
+   */
+  private boolean runInstrumentDialog() 
+    throws IOException, TimeoutException, ParseException {
+    
+    CommandResponseEngine engine = new CommandResponseEngine(this.channel);
+    
+    try {
+      wakeInstrument(engine);
+      engine.expect("Stop", this.commandPrefix + this.stopSamplingCommand + 
+                    this.commandSuffix, ACKNOWLEDGED, COMMAND_TIMEOUT, COMMAND_ATTEMPTS);
+      this.samplingIsStopped = true;
+      
+      // for newer firmware CTDs, use xml-based query commands
+      if ( getOutputType().equals("xml") ) {
+        this.ctdParser = new CTDParser();
+        
+        if ( !this.ctdParser.getHasStatusMetadata() ) {
+          queryMetadata(engine, this.getStatusCommand);
+        }
+        if ( !this.ctdParser.getHasConfigurationMetadata() ) {
+          queryMetadata(engine, this.getConfigurationCommand);
+        }
+        if ( !this.ctdParser.getHasCalibrationMetadata() ) {
+          queryMetadata(engine, this.getCalibrationCommand);
+        }
+        if ( !this.ctdParser.getHasEventMetadata() ) {
+          queryMetadata(engine, this.getEventsCommand);
+        }
+        if ( !this.ctdParser.getHasHardwareMetadata() ) {
+          queryMetadata(engine, this.getHardwareCommand);
+        }
+        
+      // otherwise, use text-based query commands
+      } else if ( getOutputType().equals("text") ) {
+        String status = engine.expect(this.displayStatusCommand, 
+          this.commandPrefix + this.displayStatusCommand + this.commandSuffix, 
+          PROMPT, COMMAND_TIMEOUT, COMMAND_ATTEMPTS);
+        String calibration = engine.expect(this.displayCalibrationCommand, 
+          this.commandPrefix + this.displayCalibrationCommand + this.commandSuffix, 
+          PROMPT, COMMAND_TIMEOUT, COMMAND_ATTEMPTS);
+        
+        // build the CTDParser object with legacy DS and DCal metadata, adding
+        // the data delimiter expected in the CTDParser
+        this.ctdParser = new CTDParser(status + calibration + "*END*\r\n\r\n");
+        
+      } else {
+        log.info("The CTD output type is not recognized. " +
+                 "Please set the output type to either "   +
+                 "'xml' or 'text'.");
+        return false;
+        
+      }
+      
+      // sync the clock if it is not synced, and restart the sampling
+      if ( !this.clockIsSynced ) {
+        syncClock(engine);
+        
+      }
+      this.hasMetadata = true;
+      startSampling(engine);
+      log.info("Instrument dialog latencies (ms): " + engine.getLatencies());
+      return true;
+      
+    } finally {
+      engine.release();
+      
+    }
+  }
+  
+  /*
+   * A method that wakes the instrument with a bare command suffix.  An
+   * instrument that is already awake and sampling may not prompt, so a
+   * missing prompt is logged rather than treated as a failure.
+   */
+  private void wakeInstrument(CommandResponseEngine engine) throws IOException {
+    try {
+      engine.expect("Wake", this.commandSuffix, ACKNOWLEDGED, WAKE_TIMEOUT, 2);
+      
+    } catch ( TimeoutException te ) {
+      log.info("The instrument did not prompt after waking. Continuing.");
+      
+    }
+  }
+  
+  /*
+   * A method that sends an XML query command and sets the CTD metadata from
+   * its response, which ends with <Executed/>
+   */
+  private void queryMetadata(CommandResponseEngine engine, String queryCommand) 
+    throws IOException, TimeoutException, ParseException {
+    
+    this.responseString = engine.expect(queryCommand, 
+      this.commandPrefix + queryCommand + this.commandSuffix, 
+      EXECUTED, COMMAND_TIMEOUT, COMMAND_ATTEMPTS).trim();
+    this.ctdParser.setMetadata(this.responseString);
+    
+  }
+  
+  /*
+   * A method that sets the instrument clock, first stopping the sampling if
+   * it is still running
+   */
+  private void syncClock(CommandResponseEngine engine) 
+    throws IOException, TimeoutException {
+    
+    // is sampling stopped?
+    if ( !this.samplingIsStopped ) {
+      wakeInstrument(engine);
+      engine.expect("Stop", this.commandPrefix + this.stopSamplingCommand + 
+                    this.commandSuffix, ACKNOWLEDGED, COMMAND_TIMEOUT, COMMAND_ATTEMPTS);
+      this.samplingIsStopped = true;
+      
+    }
+    
+    // now set the clock
+    this.clockSyncDate = new Date();
+    DATE_FORMAT.setTimeZone(TZ);
+    String dateAsString = DATE_FORMAT.format(this.clockSyncDate);
+    engine.expect("DateTime", this.commandPrefix + this.setDateTimeCommand + 
+                  dateAsString + this.commandSuffix, 
+                  ACKNOWLEDGED, COMMAND_TIMEOUT, COMMAND_ATTEMPTS);
+    this.clockIsSynced = true;
+    log.info("The instrument clock has been synced at " + 
+             this.clockSyncDate.toString());
+    
+  }
+  
+  /*
+   * A method that restarts the instrument sampling
+   */
+  private void startSampling(CommandResponseEngine engine) 
+    throws IOException, TimeoutException {
+    
+    if ( this.samplingIsStopped ) {
+      engine.expect("StartNow", this.commandPrefix + this.startSamplingCommand + 
+                    this.commandSuffix, ACKNOWLEDGED, COMMAND_TIMEOUT, COMMAND_ATTEMPTS);
+      this.samplingIsStopped = false;
+      
+    }
+  }
+  
    /**
    * A method used to the TCP socket of the remote source host for communication
    */
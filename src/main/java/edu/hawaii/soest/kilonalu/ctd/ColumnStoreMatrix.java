@@ -0,0 +1,137 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A RealMatrix view over a flat, column-ordered double array
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.ctd;
+
+import org.apache.commons.math.linear.AbstractRealMatrix;
+import org.apache.commons.math.linear.MatrixIndexException;
+import org.apache.commons.math.linear.RealMatrix;
+
+/**
+ *  A RealMatrix view over a flat double array that stores each column
+ *  contiguously, so the entry at (row, column) is stored at
+ *  column * rowDimension + row.  The CTDParser decodes each data variable into
+ *  its own column of the array, and this view lets existing matrix code read
+ *  and write the same values without copying them.
+ */
+public class ColumnStoreMatrix extends AbstractRealMatrix {
+
+  /*  The column-ordered values */
+  private final double[] values;
+
+  /*  The number of rows (scans) */
+  private final int rowDimension;
+
+  /*  The number of columns (variables) */
+  private final int columnDimension;
+
+  /**
+   *  Constructor:  Builds a view over the given column-ordered values.  The
+   *  array is not copied.
+   *
+   *  @param values           the column-ordered values
+   *  @param rowDimension     the number of rows
+   *  @param columnDimension  the number of columns
+   */
+  public ColumnStoreMatrix(double[] values, int rowDimension, int columnDimension) {
+    if ( values.length < rowDimension * columnDimension ) {
+      throw new IllegalArgumentException("The array holds " + values.length +
+        " values, but the matrix is " + rowDimension + " x " + columnDimension + ".");
+    }
+    this.values = values;
+    this.rowDimension = rowDimension;
+    this.columnDimension = columnDimension;
+  }
+
+  /**
+   *  Constructor:  Builds an empty matrix of the given size.
+   *
+   *  @param rowDimension     the number of rows
+   *  @param columnDimension  the number of columns
+   */
+  public ColumnStoreMatrix(int rowDimension, int columnDimension) {
+    this(new double[rowDimension * columnDimension], rowDimension, columnDimension);
+  }
+
+  /**
+   *  A method that returns the underlying column-ordered values
+   */
+  public double[] getValues() {
+    return this.values;
+  }
+
+  /**
+   *  A method that returns the offset of a column in the underlying values
+   */
+  public int getColumnOffset(int column) {
+    return column * this.rowDimension;
+  }
+
+  public RealMatrix createMatrix(int rowDimension, int columnDimension) {
+    return new ColumnStoreMatrix(rowDimension, columnDimension);
+  }
+
+  public RealMatrix copy() {
+    return new ColumnStoreMatrix(this.values.clone(), this.rowDimension, this.columnDimension);
+  }
+
+  public double getEntry(int row, int column) {
+    return this.values[index(row, column)];
+  }
+
+  public void setEntry(int row, int column, double value) {
+    this.values[index(row, column)] = value;
+  }
+
+  public void addToEntry(int row, int column, double increment) {
+    this.values[index(row, column)] += increment;
+  }
+
+  public void multiplyEntry(int row, int column, double factor) {
+    this.values[index(row, column)] *= factor;
+  }
+
+  public int getRowDimension() {
+    return this.rowDimension;
+  }
+
+  public int getColumnDimension() {
+    return this.columnDimension;
+  }
+
+  public double[] getColumn(int column) {
+    if ( column < 0 || column >= this.columnDimension ) {
+      throw new MatrixIndexException("column index {0} out of allowed range [{1}, {2}]",
+        column, 0, this.columnDimension - 1);
+    }
+    double[] result = new double[this.rowDimension];
+    System.arraycopy(this.values, column * this.rowDimension, result, 0, this.rowDimension);
+    return result;
+  }
+
+  /*  Returns the array index of an entry, checking the row and column */
+  private int index(int row, int column) {
+    if ( row < 0 || row >= this.rowDimension ||
+         column < 0 || column >= this.columnDimension ) {
+      throw new MatrixIndexException("no entry at indices ({0}, {1}) in a {2}x{3} matrix",
+        row, column, this.rowDimension, this.columnDimension);
+    }
+    return column * this.rowDimension + row;
+  }
+}
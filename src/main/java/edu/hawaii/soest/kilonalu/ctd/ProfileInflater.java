@@ -0,0 +1,206 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that inflates a zlib compressed CTD file as its blocks
+ *             arrive and hands out its complete lines
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.ctd;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ *  A class that inflates a zlib compressed CTD file incrementally, as the
+ *  compressed blocks of a transfer arrive, so the file's scans can be parsed
+ *  and published before the transfer is done.  Only the inflated text that
+ *  hasn't been handed out yet is kept, so memory use depends on the block
+ *  size rather than the file size.
+ *  <p>
+ *  A data file starts with a metadata header ending in "*END*\r\n".  When the
+ *  header is expected, it is held back until it is complete and is returned
+ *  once by {@link #getHeader()}, and only the lines after it are returned by
+ *  {@link #nextLines()}.  Lines are handed out whole, ending at the last line
+ *  feed received so far.
+ *  <p>
+ *  One Inflater is reused for each file until {@link #end()} is called.
+ */
+public class ProfileInflater {
+
+  /*  The delimiter that ends the metadata header */
+  private static final String HEADER_DELIMITER = "*END*\r\n";
+
+  /*  The inflater, reset for each file */
+  private final Inflater inflater = new Inflater();
+
+  /*  The buffer that each inflate() call writes into */
+  private final byte[] chunk;
+
+  /*  The inflated text that hasn't been handed out yet */
+  private final StringBuilder text = new StringBuilder();
+
+  /*  Whether or not the file starts with a metadata header */
+  private boolean expectHeader;
+
+  /*  The header, once it is complete, until it is handed out */
+  private String header;
+
+  /*  Whether or not the header has been found */
+  private boolean headerFound;
+
+  /*  The number of inflated bytes in the current file */
+  private long inflatedCount;
+
+  /**
+   *  Constructor:  Builds an inflater that inflates up to chunkSize bytes at
+   *  a time.
+   *
+   *  @param chunkSize  the size of the inflate buffer
+   */
+  public ProfileInflater(int chunkSize) {
+    this.chunk = new byte[chunkSize];
+    reset(false);
+  }
+
+  /**
+   *  A method that starts a new file, discarding anything left of the last.
+   *
+   *  @param expectHeader  true if the file starts with a metadata header
+   */
+  public void reset(boolean expectHeader) {
+    this.inflater.reset();
+    this.text.setLength(0);
+    this.expectHeader = expectHeader;
+    this.header = null;
+    this.headerFound = false;
+    this.inflatedCount = 0;
+  }
+
+  /**
+   *  A method that inflates a block of the compressed file.  Bytes past the
+   *  end of the compressed stream are ignored.
+   *
+   *  @param compressed  the array holding the block
+   *  @param offset      the offset of the block
+   *  @param length      the length of the block
+   *  @throws DataFormatException  if the block isn't valid zlib data
+   */
+  public void put(byte[] compressed, int offset, int length)
+    throws DataFormatException {
+
+    if ( this.inflater.finished() ) {
+      return;
+
+    }
+    this.inflater.setInput(compressed, offset, length);
+
+    while ( !this.inflater.finished() ) {
+      int count = this.inflater.inflate(this.chunk);
+      if ( count == 0 ) {
+        if ( this.inflater.needsInput() || this.inflater.needsDictionary() ) {
+          break;
+
+        }
+        continue;
+
+      }
+      for ( int index = 0; index < count; index++ ) {
+        this.text.append((char) (this.chunk[index] & 0xFF));
+
+      }
+      this.inflatedCount += count;
+    }
+
+    if ( this.expectHeader && !this.headerFound ) {
+      int headerEnd = this.text.indexOf(HEADER_DELIMITER);
+      if ( headerEnd >= 0 ) {
+        headerEnd += HEADER_DELIMITER.length();
+        this.header = this.text.substring(0, headerEnd);
+        this.text.delete(0, headerEnd);
+        this.headerFound = true;
+
+      }
+    }
+  }
+
+  /**
+   *  A method that returns the metadata header, through its "*END*\r\n"
+   *  delimiter, the first time it is called after the header is complete.
+   *
+   *  @return header  the header, or null if it isn't complete or was returned
+   */
+  public String getHeader() {
+    String completeHeader = this.header;
+    this.header = null;
+    return completeHeader;
+  }
+
+  /**
+   *  A method that returns the complete lines inflated since the last call,
+   *  each ending in its line feed.  While an expected header isn't complete,
+   *  no lines are returned.
+   *
+   *  @return lines  the complete lines, or an empty string if there are none
+   */
+  public String nextLines() {
+    if ( this.expectHeader && !this.headerFound ) {
+      return "";
+
+    }
+    int end = this.text.lastIndexOf("\n") + 1;
+    String lines = this.text.substring(0, end);
+    this.text.delete(0, end);
+    return lines;
+  }
+
+  /**
+   *  A method that returns the text left after the last complete line, such
+   *  as a partial last scan, and discards it.
+   *
+   *  @return remainder  the remaining text
+   */
+  public String remainder() {
+    String remainder = this.text.toString();
+    this.text.setLength(0);
+    return remainder;
+  }
+
+  /**
+   *  A method that indicates whether the end of the compressed file has been
+   *  inflated.
+   *
+   *  @return finished  true if the whole file has been inflated
+   */
+  public boolean isFinished() {
+    return this.inflater.finished();
+  }
+
+  /**
+   *  A method that returns the number of bytes inflated from the current file.
+   *
+   *  @return inflatedCount  the inflated byte count
+   */
+  public long getInflatedCount() {
+    return this.inflatedCount;
+  }
+
+  /**
+   *  A method that releases the inflater.  The object can't be used after.
+   */
+  public void end() {
+    this.inflater.end();
+  }
+}
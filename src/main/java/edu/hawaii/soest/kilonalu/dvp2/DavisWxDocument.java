@@ -0,0 +1,200 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that holds the newest weather values shown on the HTML
+ *             weather page and renders them as ad hoc XML
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.dvp2;
+
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.SAPIException;
+
+import java.text.DateFormat;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  A class that holds the newest formatted value of each weather channel
+ *  shown on the HTML weather page, keyed by its XML element.  Values are
+ *  updated from the channel maps fetched from the DataTurbine, and the
+ *  document is rendered in the ad hoc XML syntax the page reads, with the
+ *  elements in a fixed order.  Values are compared as formatted strings, so a
+ *  change smaller than the displayed precision isn't a change.
+ */
+public class DavisWxDocument {
+
+  /*
+   *  The XML elements in document order, each with its channel name and its
+   *  format, where a null format means the channel is a string
+   */
+  private static final String[][] ELEMENTS = {
+    {"barotrend",  "barTrendAsString",          null   },
+    {"baropress",  "barometer",                 "%5.3f"},
+    {"outtemp",    "outsideTemperature",        "%4.1f"},
+    {"intemp",     "insideTemperature",         "%4.1f"},
+    {"inrelhum",   "insideHumidity",            "%3d"  },
+    {"outrelhum",  "outsideHumidity",           "%3d"  },
+    {"windspd",    "windSpeed",                 "%3d"  },
+    {"winddir",    "windDirection",             "%3d"  },
+    {"windavg",    "tenMinuteAverageWindSpeed", "%3d"  },
+    {"todayrain",  "dailyRain",                 "%4.2f"},
+    {"monthrain",  "monthlyRain",               "%4.2f"},
+    {"rainrate",   "rainRate",                  "%4.2f"},
+    {"uv",         "uvRadiation",               "%4d"  },
+    {"solrad",     "solarRadiation",            "%4.0f"},
+    {"forecast",   "forecastAsString",          null   }
+  };
+
+  /*  The formatted values, keyed by element */
+  private final Map<String, String> values = new HashMap<String, String>();
+
+  /*  The formatted time of the values, or null before the first update */
+  private String updateTime;
+
+  /*  The newest sample time seen by the last update, in seconds */
+  private double newestTime;
+
+  /**
+   *  A method that adds each of the document's channels to the map, for a
+   *  request or subscription.
+   *
+   *  @param requestMap  the channel map to add the channels to
+   *  @param sourcePath  the full path of the source, ending in "/"
+   *  @throws SAPIException  if a channel can't be added
+   */
+  public static void addChannels(ChannelMap requestMap, String sourcePath)
+    throws SAPIException {
+    for ( String[] element : ELEMENTS ) {
+      requestMap.Add(sourcePath + element[1]);
+
+    }
+  }
+
+  /**
+   *  A method that updates the values from the newest sample of each of the
+   *  document's channels in the map.  Channels missing from the map keep
+   *  their values.
+   *
+   *  @param responseMap  the fetched channel map
+   *  @param sourcePath   the full path of the source, ending in "/"
+   *  @return changed     true if any value changed
+   */
+  public boolean update(ChannelMap responseMap, String sourcePath) {
+    boolean changed = false;
+    this.newestTime = 0.0;
+
+    for ( String[] element : ELEMENTS ) {
+      int index = responseMap.GetIndex(sourcePath + element[1]);
+      if ( index < 0 ) {
+        continue;
+
+      }
+      Object value;
+      if ( element[2] == null ) {
+        String[] data = responseMap.GetDataAsString(index);
+        value = data[data.length - 1];
+
+      } else if ( responseMap.GetType(index) == ChannelMap.TYPE_INT32 ) {
+        int[] data = responseMap.GetDataAsInt32(index);
+        value = data[data.length - 1];
+
+      } else {
+        float[] data = responseMap.GetDataAsFloat32(index);
+        value = data[data.length - 1];
+
+      }
+      double[] times = responseMap.GetTimes(index);
+      if ( setValue(element[1], value, times[times.length - 1]) ) {
+        changed = true;
+
+      }
+    }
+    return changed;
+  }
+
+  /**
+   *  A method that updates the value of one of the document's channels.
+   *
+   *  @param channelName  the channel name, such as "barometer"
+   *  @param value        the String, Integer, or Float value
+   *  @param time         the sample time in seconds since the epoch
+   *  @return changed     true if the formatted value changed
+   */
+  public boolean setValue(String channelName, Object value, double time) {
+    for ( String[] element : ELEMENTS ) {
+      if ( element[1].equals(channelName) ) {
+        String formatted = ( element[2] == null ) ?
+          value.toString() : String.format(element[2], value);
+        this.newestTime = Math.max(this.newestTime, time);
+        return ! formatted.equals(this.values.put(element[0], formatted));
+
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  A method that returns the newest sample time seen by the last update.
+   *
+   *  @return newestTime  the time in seconds since the epoch
+   */
+  public double getNewestTime() {
+    return this.newestTime;
+  }
+
+  /**
+   *  A method that sets the update time shown in the document.
+   *
+   *  @param timestamp  the time in seconds since the epoch
+   */
+  public void setUpdateTime(double timestamp) {
+    // convert sec to millisec
+    Date updateDate = new Date((long) (timestamp * 1000.0));
+    this.updateTime = DateFormat.getDateTimeInstance(DateFormat.LONG,
+                                                     DateFormat.LONG).format(updateDate);
+  }
+
+  /**
+   *  A method that renders the document as ad hoc XML.  Elements that haven't
+   *  been updated yet are left out.
+   *
+   *  @return xml  the XML document
+   */
+  public String toXML() {
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("<?xml version=\"1.0\"?>\n");
+    sb.append("<wx>\n");
+    if ( this.updateTime != null ) {
+      sb.append("  <updatetime>").append(this.updateTime).append("</updatetime>\n");
+
+    }
+    for ( String[] element : ELEMENTS ) {
+      String value = this.values.get(element[0]);
+      if ( value != null ) {
+        sb.append("  <").append(element[0]).append(">")
+          .append(value)
+          .append("</").append(element[0]).append(">\n");
+
+      }
+    }
+    sb.append("</wx>\n");
+    return sb.toString();
+  }
+}
@@ -22,14 +22,9 @@ import java.io.File;
 import java.io.FileInputStream; 
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-
-import org.apache.commons.codec.binary.Hex;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -44,6 +39,12 @@ import org.apache.commons.logging.LogFactory;
  *  Note: LOOP Multi-byte binary values are generally stored and sent least 
  *  significant byte first. Negative numbers use 2's complement notation. 
  *  CRC values are sent and received most significant byte first.
+ * 
+ *  The parser is a view of the packet:  parse() checks the packet's CRC and
+ *  each getter reads its field at the field's fixed offset in the packet
+ *  buffer, so one instance can be reused for every packet in a stream.  The
+ *  getters also read the fields that LOOP2 packets share with LOOP packets,
+ *  and the getLoop2 getters read the LOOP2 only fields.
  */
 public class DavisWxParser {
     
@@ -62,20 +63,47 @@ public class DavisWxParser {
    */
   private static Log log = LogFactory.getLog(DavisWxParser.class);
   
+  /**
+   *  The length of a LOOP or LOOP2 packet, from the 'L' through the CRC
+   */
+  public static final int LOOP_PACKET_SIZE = 99;
+  
   /*
-   *  A field that stores the binary LOOP packet input as a ByteBuffer
+   *  The CRC-CCITT (polynomial 0x1021) lookup table used to check each packet
    */
-  private ByteBuffer packetBuffer = ByteBuffer.allocate(99);
+  private static final int[] CRC_TABLE = new int[256];
+  
+  static {
+    for ( int index = 0; index < CRC_TABLE.length; index++ ) {
+      int crc = index << 8;
+      for ( int bit = 0; bit < 8; bit++ ) {
+        crc = ( (crc & 0x8000) != 0 ) ? (crc << 1) ^ 0x1021 : crc << 1;
+        
+      }
+      CRC_TABLE[index] = crc & 0xFFFF;
+    }
+  }
+  
+  /*
+   *  A field that stores the buffer holding the binary LOOP packet, which is
+   *  read in place rather than copied
+   */
+  private ByteBuffer packetBuffer;
+  
+  /*
+   *  The index of the first byte of the LOOP packet in the packet buffer
+   */
+  private int packetOffset;
   
   /**
-   *  A field that stores the LOOP packet identifier (three bytes) in a ByteBuffer
+   *  The offset of the field that stores the LOOP packet identifier (three bytes)
    *  which contains the three letters 'LOO'.  The 'P' slot is now used in Rev 'B'
    *  packets to store the barometric trend.
    */
-  private ByteBuffer loopID = ByteBuffer.allocate(3);
+  private static final int LOOP_ID = 0;
   
   /**
-   *  A field that stores the signed byte that indicates the current 3-hour 
+   *  The offset of the field that stores the signed byte that indicates the current 3-hour 
    *  barometer trend.  It is one of these values:
    *
    *  -60 = Falling Rapidly  = 196 (as an unsigned byte) 
@@ -88,195 +116,195 @@ public class DavisWxParser {
    *  hours of bar data needed to determine the bar trend. 
    
    *  */
-  private ByteBuffer barTrend = ByteBuffer.allocate(1);
+  private static final int BAR_TREND = 3;
 
   /**
-   *  A field that stores the LOOP packet type (one byte) in a ByteBuffer
+   *  The offset of the field that stores the LOOP packet type (one byte)
    *  which contains the value zero.  In the future Davis may define new LOOP 
    *  packet formats and assign a different value to this field.  
    */
-  private ByteBuffer packetType = ByteBuffer.allocate(1);
+  private static final int PACKET_TYPE = 4;
 
   /**
-   *  A field that stores the next record value (two bytes) in a ByteBuffer
+   *  The offset of the field that stores the next record value (two bytes)
    *  which is the location in the archive memory where the next data packet 
    *  will be written. This can be monitored to detect when a new record is 
    *  created. 
    */
-  private ByteBuffer nextRecord = ByteBuffer.allocate(2);
+  private static final int NEXT_RECORD = 5;
 
   /**
-   *  A field that stores the current barometer value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the current barometer value (two bytes).
    *  Units are (in Hg / 1000). The barometric value should be between 20 
    *  inches and 32.5 inches in Vantage Pro and between 20 inches and 32.5 
    *  inches in both Vantatge Pro Vantage Pro2.  Values outside these ranges 
    *  will not be logged.
    */
-  private ByteBuffer barometer = ByteBuffer.allocate(2);
+  private static final int BAROMETER = 7;
 
   /**
-   *  A field that stores the inside temperature value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the inside temperature value (two bytes).
    *  The value is sent as 10th of a degree in F.  For example, 795 is 
    *  returned for 79.5°F.
    */
-  private ByteBuffer insideTemperature = ByteBuffer.allocate(2);
+  private static final int INSIDE_TEMPERATURE = 9;
 
   /**
-   *  A field that stores the inside humidity value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the inside humidity value (one byte).
    *  This is the relative humidity in %, such as 50 is returned for 50%.
    */
-  private ByteBuffer insideHumidity = ByteBuffer.allocate(1);
+  private static final int INSIDE_HUMIDITY = 11;
 
   /**
-   *  A field that stores the outside temperature value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the outside temperature value (two bytes).
    *  The value is sent as 10th of a degree in F.  For example, 795 is 
    *  returned for 79.5°F.
    */
-  private ByteBuffer outsideTemperature = ByteBuffer.allocate(2);
+  private static final int OUTSIDE_TEMPERATURE = 12;
 
   /**
-   *  A field that stores the wind speed value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the wind speed value (one byte).
    *  It is a byte unsigned value in mph.  If the wind speed is dashed 
    *  because it lost synchronization with the radio or due to some 
    *  other reason, the wind speed is forced to be 0. 
    */
-  private ByteBuffer windSpeed = ByteBuffer.allocate(1);
+  private static final int WIND_SPEED = 14;
 
   /**
-   *  A field that stores the ten minute averagewind speed value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the ten minute averagewind speed value (one byte).
    *  It is a byte unsigned value in mph.
    */
-  private ByteBuffer tenMinuteAverageWindSpeed = ByteBuffer.allocate(1);
+  private static final int TEN_MINUTE_AVERAGE_WIND_SPEED = 15;
 
   /**
-   *  A field that stores the wind direction value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the wind direction value (two bytes).
    *  It is a two byte unsigned value from 0 to 360 degrees.  (0° is 
    *  North, 90° is East, 180° is South and 270° is West.) 
    */
-  private ByteBuffer windDirection = ByteBuffer.allocate(2);
+  private static final int WIND_DIRECTION = 16;
 
   /**
-   *  A field that stores seven extra temperature values (seven bytes) in a ByteBuffer.
+   *  The offset of the field that stores seven extra temperature values (seven bytes).
    *  This field supports seven extra temperature stations. 
    *  Each byte is one extra temperature value in whole degrees F with 
    *  an offset of 90 degrees.  For example, a value of 0 = -90°F ; a 
    *  value of 100 = 10°F ; and a value of 169 = 79°F.
    */
-  private ByteBuffer extraTemperatures = ByteBuffer.allocate(7);
+  private static final int EXTRA_TEMPERATURES = 18;
 
   /**
-   *  A field that stores soil temperature values (four bytes) in a ByteBuffer.
+   *  The offset of the field that stores soil temperature values (four bytes).
    *  This field supports four soil temperature sensors.
    *  Each byte is one temperature value in whole degrees F with 
    *  an offset of 90 degrees.  For example, a value of 0 = -90°F ; a 
    *  value of 100 = 10°F ; and a value of 169 = 79°F.
    */
-  private ByteBuffer soilTemperatures = ByteBuffer.allocate(4);
+  private static final int SOIL_TEMPERATURES = 25;
 
   /**
-   *  A field that stores leaf temperature values (four bytes) in a ByteBuffer.
+   *  The offset of the field that stores leaf temperature values (four bytes).
    *  This field supports four soil temperature sensors.
    *  Each byte is one temperature value in whole degrees F with 
    *  an offset of 90 degrees.  For example, a value of 0 = -90°F ; a 
    *  value of 100 = 10°F ; and a value of 169 = 79°F.
    */
-  private ByteBuffer leafTemperatures = ByteBuffer.allocate(4);
+  private static final int LEAF_TEMPERATURES = 29;
 
   /**
-   *  A field that stores the outside humidity value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the outside humidity value (one byte).
    *  This is the relative humidity in %, such as 50 is returned for 50%.
    */
-  private ByteBuffer outsideHumidity = ByteBuffer.allocate(1);
+  private static final int OUTSIDE_HUMIDITY = 33;
 
   /**
-   *  A field that stores seven extra humidity values (seven bytes) in a ByteBuffer.
+   *  The offset of the field that stores seven extra humidity values (seven bytes).
    *  Relative humidity in % for extra seven humidity stations.  
    */
-  private ByteBuffer extraHumidities = ByteBuffer.allocate(7);
+  private static final int EXTRA_HUMIDITIES = 34;
 
   /**
-   *  A field that stores the rain rate value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the rain rate value (two bytes).
    *  This value is sent as 100 of a inch per hour.  For example, 256 
    *  represent 2.56 inches/hour. 
    */
-  private ByteBuffer rainRate = ByteBuffer.allocate(2);
+  private static final int RAIN_RATE = 41;
 
   /**
-   *  A field that stores the UV radiation value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the UV radiation value (one byte).
    *  The unit is in UV index.
    */
-  private ByteBuffer uvRadiation = ByteBuffer.allocate(1);
+  private static final int UV_RADIATION = 43;
 
   /**
-   *  A field that stores the solar radiation value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the solar radiation value (two bytes).
    *  The unit is in watt/meter^2.
    */
-  private ByteBuffer solarRadiation = ByteBuffer.allocate(2);
+  private static final int SOLAR_RADIATION = 44;
 
   /**
-   *  A field that stores the storm rain value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the storm rain value (two bytes).
    *  The storm is stored as 100th of an inch. 
    */
-  private ByteBuffer stormRain = ByteBuffer.allocate(2);
+  private static final int STORM_RAIN = 46;
 
   /**
-   *  A field that stores the current storm start date (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the current storm start date (two bytes).
    *  Bit 15 to bit 12 is the month, bit 11 to bit 7 is the day and bit 6 to 
    *  bit 0 is the year offseted by 2000.
    */
-  private ByteBuffer currentStormStartDate = ByteBuffer.allocate(2);
+  private static final int CURRENT_STORM_START_DATE = 48;
 
   /**
-   *  A field that stores the daily rain value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the daily rain value (two bytes).
    *  The storm is stored as 100th of an inch. 
    */
-  private ByteBuffer dailyRain = ByteBuffer.allocate(2);
+  private static final int DAILY_RAIN = 50;
 
   /**
-   *  A field that stores the monthly rain value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the monthly rain value (two bytes).
    *  The storm is stored as 100th of an inch. 
    */
-  private ByteBuffer monthlyRain = ByteBuffer.allocate(2);
+  private static final int MONTHLY_RAIN = 52;
 
   /**
-   *  A field that stores the yearly rain value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the yearly rain value (two bytes).
    *  The storm is stored as 100th of an inch. 
    */
-  private ByteBuffer yearlyRain = ByteBuffer.allocate(2);
+  private static final int YEARLY_RAIN = 54;
 
   /**
-   *  A field that stores the daily evapotranspiration value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the daily evapotranspiration value (two bytes).
    *  The storm is stored as 100th of an inch. 
    */
-  private ByteBuffer dailyEvapoTranspiration = ByteBuffer.allocate(2);
+  private static final int DAILY_EVAPO_TRANSPIRATION = 56;
 
   /**
-   *  A field that stores the monthly evapotranspiration value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the monthly evapotranspiration value (two bytes).
    *  The storm is stored as 100th of an inch. 
    */
-  private ByteBuffer monthlyEvapoTranspiration = ByteBuffer.allocate(2);
+  private static final int MONTHLY_EVAPO_TRANSPIRATION = 58;
 
   /**
-   *  A field that stores the yearly evapotranspiration value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the yearly evapotranspiration value (two bytes).
    *  The storm is stored as 100th of an inch. 
    */
-  private ByteBuffer yearlyEvapoTranspiration = ByteBuffer.allocate(2);
+  private static final int YEARLY_EVAPO_TRANSPIRATION = 60;
 
   /**
-   *  A field that stores soil moisture values (four bytes) in a ByteBuffer.
+   *  The offset of the field that stores soil moisture values (four bytes).
    *  The unit is in centibar.  It supports four soil sensors. 
    */
-  private ByteBuffer soilMoistures = ByteBuffer.allocate(4);
+  private static final int SOIL_MOISTURES = 62;
 
   /**
-   *  A field that stores leaf wetness values (four bytes) in a ByteBuffer.
+   *  The offset of the field that stores leaf wetness values (four bytes).
    *  This is a scale number from 0 to 15 with 0 meaning very dry and 
    *  15 meaning very wet.  It supports four leaf sensors. 
    */
-  private ByteBuffer leafWetnesses = ByteBuffer.allocate(4);
+  private static final int LEAF_WETNESSES = 66;
 
   /**
-   *  A field that stores the currently active inside alarm value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the currently active inside alarm value (one byte).
    *  Field                         Bit #  
    *  Inside Alarms                 Currently active inside alarms.  
    *  Falling bar trend alarm       0  
@@ -287,10 +315,10 @@ public class DavisWxParser {
    *  High inside hum alarm         5  
    *  Time alarm                    6  
    */
-  private ByteBuffer insideAlarm = ByteBuffer.allocate(1);
+  private static final int INSIDE_ALARM = 70;
 
   /**
-   *  A field that stores the currently active rain alarm value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the currently active rain alarm value (one byte).
    *  Field                       Bit #  
    *  Rain Alarms                 Currently active rain alarms.  
    *  High rain rate alarm        0  
@@ -299,10 +327,10 @@ public class DavisWxParser {
    *  storm total rain alarm      3  
    *  daily ET  alarm             4  
    */
-  private ByteBuffer rainAlarm = ByteBuffer.allocate(1);
+  private static final int RAIN_ALARM = 71;
 
   /**
-   *  A field that stores the currently outside alarm values (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the currently outside alarm values (two bytes).
    *  Field                       Bit #  of Byte 1
    *  Low outside temp alarm      0  
    *  High outside temp alarm     1  
@@ -318,11 +346,11 @@ public class DavisWxParser {
    *  High UV alarm               2  
    *  UV Dose alarm               3  
    */
-  private ByteBuffer outsideAlarms = ByteBuffer.allocate(2);
+  private static final int OUTSIDE_ALARMS = 72;
 
   /**
-   *  A field that stores the extra temperature and humidity alarm values 
-   * (eight bytes) in a ByteBuffer.
+   *  The offset of the field that stores the extra temperature and humidity alarm values 
+   * (eight bytes).
    *  Field                       Bit #  of Byte 1
    *  Low Humidity alarm          1  Currently active outside humidity alarms.
    *  Low Humidity alarm          2  
@@ -337,11 +365,11 @@ public class DavisWxParser {
    *    temperature alarms for a single station will be found in 
    *    different bytes.
    */
-  private ByteBuffer extraTemperatureHumidityAlarms = ByteBuffer.allocate(8);
+  private static final int EXTRA_TEMPERATURE_HUMIDITY_ALARMS = 74;
 
   /**
-   *  A field that stores the soil and leaf alarm values 
-   * (four bytes) in a ByteBuffer.
+   *  The offset of the field that stores the soil and leaf alarm values 
+   * (four bytes).
    *  Field                       Bit #  of Byte 1
    *  Low leaf wetness X alarm    0  
    *  High leaf wetness X alarm   1  
@@ -352,21 +380,21 @@ public class DavisWxParser {
    *  Low soil temp X alarm       6  
    *  High soil temp X alarm      7  
    */
-  private ByteBuffer soilLeafAlarms = ByteBuffer.allocate(4);
+  private static final int SOIL_LEAF_ALARMS = 82;
 
   /**
-   *  A field that stores the transmitter battery status value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the transmitter battery status value (one byte).
    */
-  private ByteBuffer transmitterBatteryStatus = ByteBuffer.allocate(1);
+  private static final int TRANSMITTER_BATTERY_STATUS = 86;
 
   /**
-   *  A field that stores the console battery voltage value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the console battery voltage value (two bytes).
    *  Voltage = ((Data * 300)/512)/100.0
    */
-  private ByteBuffer consoleBatteryVoltage = ByteBuffer.allocate(2);
+  private static final int CONSOLE_BATTERY_VOLTAGE = 87;
 
   /**
-   *  A field that stores the forecast icon values (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the forecast icon values (one byte).
    *  Forecast Icons      Bit maps for forecast icons on the console screen. 
    *  Rain                0  
    *  Cloud               1  
@@ -390,33 +418,33 @@ public class DavisWxParser {
    *  23            0x17       Partial Sun + Cloud +   Partially Cloudy, Rain or Snow within 12 hours
    *                           Rain + Snow 
    */
-  private ByteBuffer forecastIconValues = ByteBuffer.allocate(1);
+  private static final int FORECAST_ICON_VALUES = 89;
 
   /**
-   *  A field that stores the forecast rule number value (one byte) in a ByteBuffer.
+   *  The offset of the field that stores the forecast rule number value (one byte).
    */
-  private ByteBuffer forecastRuleNumber = ByteBuffer.allocate(1);
+  private static final int FORECAST_RULE_NUMBER = 90;
 
   /**
-   *  A field that stores the time of sunrise (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the time of sunrise (two bytes).
    *  The time is stored as hour * 100 + min. 
    */
-  private ByteBuffer timeOfSunrise = ByteBuffer.allocate(2);
+  private static final int TIME_OF_SUNRISE = 91;
 
   /**
-   *  A field that stores the time of sunset (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores the time of sunset (two bytes).
    *  The time is stored as hour * 100 + min. 
    */
-  private ByteBuffer timeOfSunset = ByteBuffer.allocate(2);
+  private static final int TIME_OF_SUNSET = 93;
 
   /**
-   *  A field that stores record delimiter (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores record delimiter (two bytes).
    *  The values are "\n" <LF> = 0x0A and then "\r" <CR> = 0x0D 
    */
-  private ByteBuffer recordDelimiter = ByteBuffer.allocate(2);
+  private static final int RECORD_DELIMITER = 95;
 
   /**
-   *  A field that stores CRC checksum value (two bytes) in a ByteBuffer.
+   *  The offset of the field that stores CRC checksum value (two bytes).
    *  The CRC checking used by the WeatherLink is based on the CRC-CCITT 
    *  standard. The heart of the method involves a CRC-accumulator that 
    *  uses the following formula on each successive data byte. After all 
@@ -435,206 +463,319 @@ public class DavisWxParser {
    *  crc = crc_table [(crc >> 8) ^ data] ^ (crc << 8);
    * 
    */
-  private ByteBuffer crcChecksum = ByteBuffer.allocate(2);
+  private static final int CRC_CHECKSUM = 97;
+
+  /**
+   *  The offset of the field that stores the 10 minute average wind speed of
+   *  a LOOP2 packet (two bytes), in tenths of a mile per hour.
+   */
+  private static final int LOOP2_TEN_MINUTE_AVERAGE_WIND_SPEED = 18;
+
+  /**
+   *  The offset of the field that stores the 2 minute average wind speed of
+   *  a LOOP2 packet (two bytes), in tenths of a mile per hour.
+   */
+  private static final int LOOP2_TWO_MINUTE_AVERAGE_WIND_SPEED = 20;
+
+  /**
+   *  The offset of the field that stores the 10 minute wind gust of a LOOP2
+   *  packet (two bytes), in miles per hour.
+   */
+  private static final int LOOP2_TEN_MINUTE_WIND_GUST = 22;
+
+  /**
+   *  The offset of the field that stores the dew point of a LOOP2 packet
+   *  (two bytes), in whole degrees F.
+   */
+  private static final int LOOP2_DEW_POINT = 30;
+
+  /**
+   *  The offset of the field that stores the heat index of a LOOP2 packet
+   *  (two bytes), in whole degrees F.
+   */
+  private static final int LOOP2_HEAT_INDEX = 35;
+
+  /**
+   *  The offset of the field that stores the wind chill of a LOOP2 packet
+   *  (two bytes), in whole degrees F.
+   */
+  private static final int LOOP2_WIND_CHILL = 37;
 
+  /*
+   *  The forecast strings, indexed by forecast rule number
+   */
+  private static final String[] FORECAST_RULES = {
+    "Mostly clear and cooler.",
+    "Mostly clear with little temperature change.",
+    "Mostly clear for 12 hours with little temperature change.",
+    "Mostly clear for 12 to 24 hours and cooler.",
+    "Mostly clear with little temperature change.",
+    "Partly cloudy and cooler.",
+    "Partly cloudy with little temperature change.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear and warmer.",
+    "Partly cloudy with little temperature change.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 24 to 48 hours.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds with little temperature change. Precipitation possible within 24 hours.",
+    "Mostly clear with little temperature change.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds with little temperature change. Precipitation possible within 12 hours.",
+    "Mostly clear with little temperature change.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 24 hours.",
+    "Mostly clear and warmer. Increasing winds.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 hours. Increasing winds.",
+    "Mostly clear and warmer. Increasing winds.",
+    "Increasing clouds and warmer.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 hours. Increasing winds.",
+    "Mostly clear and warmer. Increasing winds.",
+    "Increasing clouds and warmer.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 hours. Increasing winds.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly clear and warmer. Precipitation possible within 48 hours.",
+    "Mostly clear and warmer.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds with little temperature change. Precipitation possible within 24 to 48 hours.",
+    "Increasing clouds with little temperature change.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 6 to 12 hours.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 6 to 12 hours. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation possible within 12 hours.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and warmer. Precipitation likley.",
+    "Clearing and cooler. Precipitation ending within 6 hours.",
+    "Partly cloudy with little temperature change.",
+    "Clearing and cooler. Precipitation ending within 6 hours.",
+    "Mostly clear with little temperature change.",
+    "Clearing and cooler. Precipitation ending within 6 hours.",
+    "Partly cloudy and cooler.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear and cooler.",
+    "Clearing and cooler. Precipitation ending within 6 hours.",
+    "Mostly clear with little temperature change.",
+    "Clearing and cooler. Precipitation ending within 6 hours.",
+    "Mostly clear and cooler.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds with little temperature change. Precipitation possible within 24 hours.",
+    "Mostly cloudy and cooler. Precipitation continuing.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation likely.",
+    "Mostly cloudy with little temperature change. Precipitation continuing.",
+    "Mostly cloudy with little temperature change. Precipitation likely.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible and windy within 6 hours.",
+    "Increasing clouds with little temperature change. Precipitation possible and windy within 6 hours.",
+    "Mostly cloudy and cooler. Precipitation continuing. Increasing winds.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation likely. Increasing winds.",
+    "Mostly cloudy with little temperature change. Precipitation continuing. Increasing winds.",
+    "Mostly cloudy with little temperature change. Precipitation likely. Increasing winds.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible within 12 to 24 hours possible wind shift to the W, NW, or N.",
+    "Increasing clouds with little temperature change. Precipitation possible within 12 to 24 hours possible wind shift to the W, NW, or N.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.",
+    "Increasing clouds with little temperature change. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.",
+    "Mostly cloudy and cooler. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.",
+    "Mostly cloudy and cooler. Possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Possible wind shift to the W, NW, or N.",
+    "Mostly cloudy and cooler. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation possible within 24 hours possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation possible within 24 hours possible wind shift to the W, NW, or N.",
+    "Clearing, cooler and windy. Precipitation ending within 6 hours.",
+    "Clearing, cooler and windy.",
+    "Mostly cloudy and cooler. Precipitation ending within 6 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy and cooler. Windy with possible wind shift o the W, NW, or N.",
+    "Clearing, cooler and windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy with little temperature change. Precipitation possible within 12 hours. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible within 12 hours, possibly heavy at times. Windy.",
+    "Mostly cloudy and cooler. Precipitation ending within 6 hours. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation possible within 12 hours. Windy.",
+    "Mostly cloudy and cooler. Precipitation ending in 12 to 24 hours.",
+    "Mostly cloudy and cooler.",
+    "Mostly cloudy and cooler. Precipitation continuing, possible heavy at times. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation possible within 6 to 12 hours. Windy.",
+    "Mostly cloudy with little temperature change. Precipitation continuing, possibly heavy at times. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy with little temperature change. Precipitation possible within 6 to 12 hours. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds with little temperature change. Precipitation possible within 12 hours, possibly heavy at times. Windy.",
+    "Mostly cloudy and cooler. Windy.",
+    "Mostly cloudy and cooler. Precipitation continuing, possibly heavy at times. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation likely, possibly heavy at times. Windy.",
+    "Mostly cloudy with little temperature change. Precipitation continuing, possibly heavy at times. Windy.",
+    "Mostly cloudy with little temperature change. Precipitation likely, possibly heavy at times. Windy.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible within 6 hours. Windy.",
+    "Increasing clouds with little temperature change. Precipitation possible within 6 hours. Windy",
+    "Increasing clouds and cooler. Precipitation continuing. Windy with possible wind shift to the W, NW, or N.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation likely. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation continuing. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation likely. Windy with possible wind shift to the W, NW, or N.",
+    "Increasing clouds and cooler. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.",
+    "Increasing clouds with little temperature change. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Increasing clouds with little temperature change. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Increasing clouds with little temperature change. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Increasing clouds and cooler. Precipitation possible within 12 to 24 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Increasing clouds with little temperature change. Precipitation possible within 12 to 24 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy and cooler. Precipitation possibly heavy at times and ending within 12 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation possible within 6 to 12 hours, possibly heavy at times. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation ending within 12 hours. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation possible within 6 to 12 hours, possibly heavy at times. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy and cooler. Precipitation continuing.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation likely. Windy with possible wind shift to the W, NW, or N.",
+    "Mostly cloudy with little temperature change. Precipitation continuing.",
+    "Mostly cloudy with little temperature change. Precipitation likely.",
+    "Partly cloudy with little temperature change.",
+    "Mostly clear with little temperature change.",
+    "Mostly cloudy and cooler. Precipitation possible within 12 hours, possibly heavy at times. Windy.",
+    "FORECAST REQUIRES 3 HOURS OF RECENT DATA",
+    "Mostly clear and cooler.",
+    "Mostly clear and cooler.",
+    "Mostly clear and cooler."
+  };
+  
+  /**
+   *  Constructor:  Builds a parser with no packet.  Call parse() with each
+   *  LOOP packet, so that one instance can be reused for every sample.
+   */
+  public DavisWxParser() {
+    
+  }
   
   /**
    *  Constructor:  Builds all of the components of the LOOP packet from
    *  the ByteBuffer data being passed in.
    *
    *  @param packetBuffer  the ByteBuffer that contains the binary LOOP packet data
+   *  @throws IllegalArgumentException  if the packet is short or fails its CRC check
    */
   public DavisWxParser(ByteBuffer packetBuffer) {
     
-    this.packetBuffer = packetBuffer;
     // prepare the buffer for reading
-    this.packetBuffer.flip();
-    
-    // Each of the LOOP packet fields get set upon instantiation of the parser:
-    
-    // set the loopID field from offset 0-2
-    this.loopID.put(this.packetBuffer.get());
-    this.loopID.put(this.packetBuffer.get());
-    this.loopID.put(this.packetBuffer.get());
-    
-    // set the barTrend field from offset 3
-    this.barTrend.put(this.packetBuffer.get());
-    
-    // set the packetType field from offset 4
-    this.packetType.put(this.packetBuffer.get());
-    
-    // set the nextRecord field from offset 5-6
-    this.nextRecord.put(this.packetBuffer.get());
-    this.nextRecord.put(this.packetBuffer.get());
+    packetBuffer.flip();
     
-    // set the barometer field from offset 7-8
-    this.barometer.put(this.packetBuffer.get());
-    this.barometer.put(this.packetBuffer.get());
-    
-    // set the insideTemperature field from offset 9-10
-    this.insideTemperature.put(this.packetBuffer.get());
-    this.insideTemperature.put(this.packetBuffer.get());
-    
-    // set the insideHumidity field from offset 11
-    this.insideHumidity.put(this.packetBuffer.get());
-    
-    // set the outsideTemperature field from offset 12-13
-    this.outsideTemperature.put(this.packetBuffer.get());
-    this.outsideTemperature.put(this.packetBuffer.get());
-    
-    // set the windSpeed field from offset 14
-    this.windSpeed.put(this.packetBuffer.get());
-    
-    // set the tenMinuteAverageWindSpeed field from offset 15
-    this.tenMinuteAverageWindSpeed.put(this.packetBuffer.get());
-    
-    // set the windDirection field from offset 16-17
-    this.windDirection.put(this.packetBuffer.get());
-    this.windDirection.put(this.packetBuffer.get());
-    
-    // set the extraTemperatures field from offset 18-24
-    this.extraTemperatures.put(this.packetBuffer.get());
-    this.extraTemperatures.put(this.packetBuffer.get());
-    this.extraTemperatures.put(this.packetBuffer.get());
-    this.extraTemperatures.put(this.packetBuffer.get());
-    this.extraTemperatures.put(this.packetBuffer.get());
-    this.extraTemperatures.put(this.packetBuffer.get());
-    this.extraTemperatures.put(this.packetBuffer.get());
-    
-    // set the soilTemperatures field from offset 25-28
-    this.soilTemperatures.put(this.packetBuffer.get());
-    this.soilTemperatures.put(this.packetBuffer.get());
-    this.soilTemperatures.put(this.packetBuffer.get());
-    this.soilTemperatures.put(this.packetBuffer.get());
-    
-    // set the leafTemperatures field from offset 29-32
-    this.leafTemperatures.put(this.packetBuffer.get());
-    this.leafTemperatures.put(this.packetBuffer.get());
-    this.leafTemperatures.put(this.packetBuffer.get());
-    this.leafTemperatures.put(this.packetBuffer.get());
-    
-    // set the outsideHumidity field from offset 33
-    this.outsideHumidity.put(this.packetBuffer.get());
-    
-    // set the extraHumidities field from offset 34-40
-    this.extraHumidities.put(this.packetBuffer.get());
-    this.extraHumidities.put(this.packetBuffer.get());
-    this.extraHumidities.put(this.packetBuffer.get());
-    this.extraHumidities.put(this.packetBuffer.get());
-    this.extraHumidities.put(this.packetBuffer.get());
-    this.extraHumidities.put(this.packetBuffer.get());
-    this.extraHumidities.put(this.packetBuffer.get());
-    
-    // set the rainRate field from offset 41-42
-    this.rainRate.put(this.packetBuffer.get());
-    this.rainRate.put(this.packetBuffer.get());
-    
-    // set the uvRadiation field from offset 43
-    this.uvRadiation.put(this.packetBuffer.get());
-    
-    // set the solarRadiation field from offset 44-45
-    this.solarRadiation.put(this.packetBuffer.get());
-    this.solarRadiation.put(this.packetBuffer.get());
-    
-    // set the stormRain field from offset 46-47
-    this.stormRain.put(this.packetBuffer.get());
-    this.stormRain.put(this.packetBuffer.get());
-    
-    // set the currentStormStartDate field from offset 48-49
-    this.currentStormStartDate.put(this.packetBuffer.get());
-    this.currentStormStartDate.put(this.packetBuffer.get());
-    
-    // set the dailyRain field from offset 50-51
-    this.dailyRain.put(this.packetBuffer.get());
-    this.dailyRain.put(this.packetBuffer.get());
-    
-    // set the monthlyRain field from offset 52-53
-    this.monthlyRain.put(this.packetBuffer.get());
-    this.monthlyRain.put(this.packetBuffer.get());
-    
-    // set the yearlyRain field from offset 54-55
-    this.yearlyRain.put(this.packetBuffer.get());
-    this.yearlyRain.put(this.packetBuffer.get());
-    
-    // set the dailyEvapoTranspiration field from offset 56-57
-    this.dailyEvapoTranspiration.put(this.packetBuffer.get());
-    this.dailyEvapoTranspiration.put(this.packetBuffer.get());
-    
-    // set the monthlyEvapoTranspiration field from offset 58-59
-    this.monthlyEvapoTranspiration.put(this.packetBuffer.get());
-    this.monthlyEvapoTranspiration.put(this.packetBuffer.get());
-    
-    // set the yearlyEvapoTranspiration field from offset 60-61
-    this.yearlyEvapoTranspiration.put(this.packetBuffer.get());
-    this.yearlyEvapoTranspiration.put(this.packetBuffer.get());
-    
-    // set the soilMoistures field from offset 62-65
-    this.soilMoistures.put(this.packetBuffer.get());
-    this.soilMoistures.put(this.packetBuffer.get());
-    this.soilMoistures.put(this.packetBuffer.get());
-    this.soilMoistures.put(this.packetBuffer.get());
-    
-    // set the leafWetnesses field from offset 66-69
-    this.leafWetnesses.put(this.packetBuffer.get());
-    this.leafWetnesses.put(this.packetBuffer.get());
-    this.leafWetnesses.put(this.packetBuffer.get());
-    this.leafWetnesses.put(this.packetBuffer.get());
-    
-    // set the insideAlarm field from offset 70
-    this.insideAlarm.put(this.packetBuffer.get());
-    
-    // set the rainAlarm field from offset 71
-    this.rainAlarm.put(this.packetBuffer.get());
-    
-    // set the outsideAlarms field from offset 72-73
-    this.outsideAlarms.put(this.packetBuffer.get());
-    this.outsideAlarms.put(this.packetBuffer.get());
-    
-    // set the extraTemperatureHumidityAlarms field from offset 74-81
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    this.extraTemperatureHumidityAlarms.put(this.packetBuffer.get());
-    
-    // set the soilLeafAlarms field from offset 82-85
-    this.soilLeafAlarms.put(this.packetBuffer.get());
-    this.soilLeafAlarms.put(this.packetBuffer.get());
-    this.soilLeafAlarms.put(this.packetBuffer.get());
-    this.soilLeafAlarms.put(this.packetBuffer.get());
-    
-    // set the transmitterBatteryStatus field from offset 86
-    this.transmitterBatteryStatus.put(this.packetBuffer.get());
-    
-    // set the consoleBatteryVoltage field from offset 87-88
-    this.consoleBatteryVoltage.put(this.packetBuffer.get());
-    this.consoleBatteryVoltage.put(this.packetBuffer.get());
-    
-    // set the forecastIconValues field from offset 89
-    this.forecastIconValues.put(this.packetBuffer.get());
-    
-    // set the forecastRuleNumber field from offset 90
-    this.forecastRuleNumber.put(this.packetBuffer.get());
-    
-    // set the timeOfSunrise field from offset 91-92
-    this.timeOfSunrise.put(this.packetBuffer.get());
-    this.timeOfSunrise.put(this.packetBuffer.get());
-    
-    // set the timeOfSunset field from offset 93-94
-    this.timeOfSunset.put(this.packetBuffer.get());
-    this.timeOfSunset.put(this.packetBuffer.get());
-    
-    // set the recordDelimiter field from offset 95-96
-    this.recordDelimiter.put(this.packetBuffer.get());
-    this.recordDelimiter.put(this.packetBuffer.get());
-    
-    // set the crcChecksum field from offset 97-98
-    this.crcChecksum.put(this.packetBuffer.get());
-    this.crcChecksum.put(this.packetBuffer.get());
+    if ( ! parse(packetBuffer) ) {
+      throw new IllegalArgumentException("The LOOP packet is short or failed " +
+                                         "its CRC check.");
+      
+    }
+  }
+  
+  /**
+   *  A method that points the parser at the LOOP or LOOP2 packet starting at
+   *  the buffer's position.  The packet's CRC is checked before anything is
+   *  decoded, and the getters then read each field at its fixed offset in the
+   *  buffer, so nothing is copied or allocated here.  The buffer's position
+   *  and limit aren't changed, and it must not be modified while the packet's
+   *  values are still being read.
+   *
+   *  @param packetBuffer  the buffer holding the packet at its position
+   *  @return valid  true if the packet is complete and its CRC is correct
+   */
+  public boolean parse(ByteBuffer packetBuffer) {
+    this.packetBuffer = null;
     
+    if ( packetBuffer.remaining() < LOOP_PACKET_SIZE ) {
+      return false;
+      
+    }
+    int offset = packetBuffer.position();
+    if ( crc16(packetBuffer, offset, LOOP_PACKET_SIZE) != 0 ) {
+      return false;
+      
+    }
+    this.packetBuffer = packetBuffer;
+    this.packetOffset = offset;
+    return true;
+  }
+  
+  /**
+   *  A method that runs the CRC-CCITT accumulator described above over a
+   *  range of the buffer, one table lookup per byte.  Run over a whole packet,
+   *  including its CRC bytes, the result is zero if the packet is intact.
+   *
+   *  @param buffer  the buffer holding the bytes
+   *  @param offset  the index of the first byte
+   *  @param length  the number of bytes
+   *  @return crc  the 16 bit CRC accumulator value
+   */
+  public static int crc16(ByteBuffer buffer, int offset, int length) {
+    int crc = 0;
+    for ( int index = offset; index < offset + length; index++ ) {
+      crc = CRC_TABLE[((crc >> 8) ^ buffer.get(index)) & 0xFF] ^ ((crc << 8) & 0xFFFF);
+      
+    }
+    return crc;
   }
   
   /*
@@ -741,26 +882,55 @@ public class DavisWxParser {
     this.logConfigurationFile = logConfigurationFile;
   }
   
+  /*
+   *  Returns the signed byte at the given field offset of the packet
+   */
+  private int getByte(int field) {
+    return this.packetBuffer.get(this.packetOffset + field);
+  }
+  
+  /*
+   *  Returns the unsigned byte at the given field offset of the packet
+   */
+  private int getUnsignedByte(int field) {
+    return getByte(field) & 0xFF;
+  }
+  
+  /*
+   *  Returns the least significant byte first short at the given field offset
+   *  of the packet
+   */
+  private short getShort(int field) {
+    return (short) ((getUnsignedByte(field + 1) << 8) | getUnsignedByte(field));
+  }
+  
+  /*
+   *  Returns a view of the given field of the packet
+   */
+  private ByteBuffer getField(int field, int length) {
+    ByteBuffer fieldBuffer = this.packetBuffer.duplicate();
+    fieldBuffer.limit(this.packetOffset + field + length);
+    fieldBuffer.position(this.packetOffset + field);
+    return fieldBuffer.slice();
+  }
+  
+  /*
+   *  Returns the hour * 100 + min time at the given field offset as "HH:mm"
+   */
+  private String getTime(int field) {
+    short time = getShort(field);
+    return String.format("%02d:%02d", time / 100, time % 100);
+  }
+  
   /**
    * get the value from the loopID field
    *
    * @return loopID - the loopID as a String
    */
   public String getLoopID(){
-    this.loopID.flip();
-    
-    String loopString;
-    try {
-      loopString =              new String(new byte[]{this.loopID.get()});
-      loopString = loopString + new String(new byte[]{this.loopID.get()});
-      loopString = loopString + new String(new byte[]{this.loopID.get()});
-      
-      //loopString = new String(this.loopID.order(ByteOrder.LITTLE_ENDIAN).array(), "US-ASCII");
-    } catch (Exception e) {
-      e.printStackTrace();
-      loopString = "BAD";
-    }
-    return loopString;
+    return new String(new char[]{(char) getUnsignedByte(LOOP_ID),
+                                 (char) getUnsignedByte(LOOP_ID + 1),
+                                 (char) getUnsignedByte(LOOP_ID + 2)});
   }
   
   /**
@@ -769,8 +939,7 @@ public class DavisWxParser {
    * @return barTrend - the barTrend as an integer
    */
   public int getBarTrend(){
-    this.barTrend.flip();
-    return (this.barTrend.get() & 0xFF);
+    return getUnsignedByte(BAR_TREND);
   }
   
   /**
@@ -779,9 +948,8 @@ public class DavisWxParser {
    * @return barTrend - the barTrend as a String
    */
   public String getBarTrendAsString(){
-    this.barTrend.flip();
     String barTrendString = "Trend not available";
-    int barTrend = this.barTrend.get();
+    int barTrend = getByte(BAR_TREND);
     
     if ( barTrend == -60 ) {
       barTrendString = "Falling Rapidly";
@@ -800,13 +968,26 @@ public class DavisWxParser {
   }
   
   /**
-   * get the value from the packetType field
+   * get the value from the packetType field, which is 0 for a LOOP packet
+   * and 1 for a LOOP2 packet
    *
    * @return packetType - the packetType as an integer
    */
   public int getPacketType(){
-    this.packetType.flip();
-    return (this.packetType.get() & 0xFF);
+    return getUnsignedByte(PACKET_TYPE);
+  }
+  
+  /**
+   * indicate whether the packet is a LOOP2 packet.  The fields from barTrend
+   * through windDirection, outsideHumidity through stormRain and
+   * currentStormStartDate, dailyRain, and dailyEvapoTranspiration are shared
+   * by both formats.  The other LOOP fields are only valid for a LOOP packet,
+   * and the LOOP2 fields only for a LOOP2 packet.
+   *
+   * @return isLoop2 - true if the packetType is 1
+   */
+  public boolean isLoop2(){
+    return getPacketType() == 1;
   }
   
   /**
@@ -815,8 +996,7 @@ public class DavisWxParser {
    * @return nextRecord - the nextRecord as an integer
    */
   public int getNextRecord(){
-    this.nextRecord.flip();
-    return (int) this.nextRecord.order(ByteOrder.LITTLE_ENDIAN).getShort();
+    return (int) getShort(NEXT_RECORD);
   }
   
   /**
@@ -825,8 +1005,7 @@ public class DavisWxParser {
    * @return barometer - the barometer as a float
    */
   public float getBarometer(){
-    this.barometer.flip();
-    return (float) (this.barometer.order(ByteOrder.LITTLE_ENDIAN).getShort())/1000;
+    return (float) (getShort(BAROMETER))/1000;
   }
   
   /**
@@ -835,8 +1014,7 @@ public class DavisWxParser {
    * @return insideTemperature - the insideTemperature as a float
    */
   public float getInsideTemperature(){
-    this.insideTemperature.flip();
-    return (float) (this.insideTemperature.order(ByteOrder.LITTLE_ENDIAN).getShort())/10;
+    return (float) (getShort(INSIDE_TEMPERATURE))/10;
   }
   
   /**
@@ -845,8 +1023,7 @@ public class DavisWxParser {
    * @return insideHumidity - the insideHumidity as an integer
    */
   public int getInsideHumidity(){
-    this.insideHumidity.flip();
-    return (this.insideHumidity.get() & 0xFF);
+    return getUnsignedByte(INSIDE_HUMIDITY);
   }
   
   /**
@@ -855,8 +1032,7 @@ public class DavisWxParser {
    * @return outsideTemperature - the outsideTemperature as a float
    */
   public float getOutsideTemperature(){
-    this.outsideTemperature.flip();
-    return (float) (this.outsideTemperature.order(ByteOrder.LITTLE_ENDIAN).getShort())/10;
+    return (float) (getShort(OUTSIDE_TEMPERATURE))/10;
   }
   
   /**
@@ -865,8 +1041,7 @@ public class DavisWxParser {
    * @return windSpeed - the windSpeed as an integer
    */
   public int getWindSpeed(){
-    this.windSpeed.flip();
-    return (this.windSpeed.get() & 0xFF);
+    return getUnsignedByte(WIND_SPEED);
   }
   
   /**
@@ -875,8 +1050,7 @@ public class DavisWxParser {
    * @return tenMinuteAverageWindSpeed - the tenMinuteAverageWindSpeed as an integer
    */
   public int getTenMinuteAverageWindSpeed(){
-    this.tenMinuteAverageWindSpeed.flip();
-    return (this.tenMinuteAverageWindSpeed.get() & 0xFF);
+    return getUnsignedByte(TEN_MINUTE_AVERAGE_WIND_SPEED);
   }
   
   /**
@@ -885,8 +1059,7 @@ public class DavisWxParser {
    * @return windDirection - the windDirection as an integer
    */
   public int getWindDirection(){
-    this.windDirection.flip();
-    return (this.windDirection.get() & 0xFF);
+    return getUnsignedByte(WIND_DIRECTION);
   }
   
   /**
@@ -895,14 +1068,7 @@ public class DavisWxParser {
    * @return extraTemperatures - the extraTemperatures as an float array
    */
   public float[] getExtraTemperatures(){
-    this.extraTemperatures.flip();
-    
-    // add each of the temperature values to a float array
-    float[] extraTemperatures = new float[7];
-    for (int i = 0; i < extraTemperatures.length; i++ ) {
-      extraTemperatures[i] = (float) ((this.extraTemperatures.get() & 0xFF) - 90.0 )/10;
-    }
-    return extraTemperatures;
+    return getTemperatures(EXTRA_TEMPERATURES, 7);
   }
   
   /**
@@ -911,14 +1077,7 @@ public class DavisWxParser {
    * @return soilTemperatures - the soilTemperatures as an float array
    */
   public float[] getSoilTemperatures(){
-    this.soilTemperatures.flip();
-    
-    // add each of the temperature values to a float array
-    float[] soilTemperatures = new float[4];
-    for (int i = 0; i < soilTemperatures.length; i++ ) {
-      soilTemperatures[i] = (float) ((this.soilTemperatures.get() & 0xFF) - 90.0 )/10;
-    }
-    return soilTemperatures;
+    return getTemperatures(SOIL_TEMPERATURES, 4);
   }
   
   /**
@@ -927,14 +1086,20 @@ public class DavisWxParser {
    * @return leafTemperatures - the leafTemperatures as an float array
    */
   public float[] getLeafTemperatures(){
-    this.leafTemperatures.flip();
+    return getTemperatures(LEAF_TEMPERATURES, 4);
+  }
+  
+  /*
+   *  Returns the offset one byte temperatures at the given field offset
+   */
+  private float[] getTemperatures(int field, int count) {
     
     // add each of the temperature values to a float array
-    float[] leafTemperatures = new float[4];
-    for (int i = 0; i < leafTemperatures.length; i++ ) {
-      leafTemperatures[i] = (float) ((this.leafTemperatures.get() & 0xFF) - 90.0 )/10;
+    float[] temperatures = new float[count];
+    for (int i = 0; i < temperatures.length; i++ ) {
+      temperatures[i] = (float) (getUnsignedByte(field + i) - 90.0 )/10;
     }
-    return leafTemperatures;
+    return temperatures;
   }
   
   /**
@@ -943,8 +1108,7 @@ public class DavisWxParser {
    * @return outsideHumidity - the outsideHumidity as an integer
    */
   public int getOutsideHumidity(){
-    this.outsideHumidity.flip();
-    return (this.outsideHumidity.get() & 0xFF);
+    return getUnsignedByte(OUTSIDE_HUMIDITY);
   }
   
   /**
@@ -953,12 +1117,11 @@ public class DavisWxParser {
    * @return extraHumidities - the extraHumidities as an int array
    */
   public int[] getExtraHumidities(){
-    this.extraHumidities.flip();
     
     // add each of the humidity values to a float array
     int[] extraHumidities = new int[7];
     for (int i = 0; i < extraHumidities.length; i++ ) {
-      extraHumidities[i] = (int) this.extraHumidities.get();
+      extraHumidities[i] = getByte(EXTRA_HUMIDITIES + i);
     }
     return extraHumidities;
   }
@@ -969,8 +1132,7 @@ public class DavisWxParser {
    * @return rainRate - the rainRate as a float
    */
   public float getRainRate(){
-    this.rainRate.flip();
-    return (float) (this.rainRate.order(ByteOrder.LITTLE_ENDIAN).getShort())/100;
+    return (float) (getShort(RAIN_RATE))/100;
   }
   
   /**
@@ -979,8 +1141,7 @@ public class DavisWxParser {
    * @return uvRadiation - the uvRadiation as an integer
    */
   public int getUvRadiation(){
-    this.uvRadiation.flip();
-    return (this.uvRadiation.get() & 0xFF);
+    return getUnsignedByte(UV_RADIATION);
   }
   
   /**
@@ -989,8 +1150,7 @@ public class DavisWxParser {
    * @return solarRadiation - the solarRadiation as a float
    */
   public float getSolarRadiation(){
-    this.solarRadiation.flip();
-    return (float) (this.solarRadiation.order(ByteOrder.LITTLE_ENDIAN).getShort());
+    return (float) (getShort(SOLAR_RADIATION));
   }
   
   /**
@@ -999,8 +1159,7 @@ public class DavisWxParser {
    * @return stormRain - the stormRain as a float
    */
   public float getStormRain(){
-    this.stormRain.flip();
-    return (float) (this.stormRain.order(ByteOrder.LITTLE_ENDIAN).getShort()/100);
+    return (float) (getShort(STORM_RAIN)/100);
   }
   
   /**
@@ -1009,26 +1168,21 @@ public class DavisWxParser {
    * @return currentStormStartDate - the currentStormStartDate as a String
    */
   public String getCurrentStormStartDate(){
-    this.currentStormStartDate.flip();
-    int currentStormStartDate = (int)
-      this.currentStormStartDate.order(ByteOrder.LITTLE_ENDIAN).getShort();
+    int currentStormStartDate = (int) getShort(CURRENT_STORM_START_DATE);
       
     int month = currentStormStartDate;
         month = (month >> 11); // clear bits 0-11
-    String monthString = (new Integer(month)).toString();
     
     int day   = currentStormStartDate;
         day   = (day << 21) >> 27; // clear bits 16-32, then 0-11
-        String dayString = (new Integer(day)).toString();
           
     int year  = currentStormStartDate;
         year  = (year << 25) >> 25; // clear bits 7-32
     int centuryYear = 2000 + year;
-          String centuryYearString = (new Integer(centuryYear)).toString();
-    if ( monthString.equals("-1") || dayString.equals("-1") ) {
+    if ( month == -1 || day == -1 ) {
       return "01-01-1999";
     } else {
-      return( monthString + "-" + dayString + "-" + centuryYearString );
+      return( month + "-" + day + "-" + centuryYear );
     }
   }
   
@@ -1038,8 +1192,7 @@ public class DavisWxParser {
    * @return dailyRain - the dailyRain as a float
    */
   public float getDailyRain(){
-    this.dailyRain.flip();
-    return (float) (this.dailyRain.order(ByteOrder.LITTLE_ENDIAN).getShort()/100);
+    return (float) (getShort(DAILY_RAIN)/100);
   }
   
   /**
@@ -1048,8 +1201,7 @@ public class DavisWxParser {
    * @return monthlyRain - the monthlyRain as a float
    */
   public float getMonthlyRain(){
-    this.monthlyRain.flip();
-    return (float) (this.monthlyRain.order(ByteOrder.LITTLE_ENDIAN).getShort()/100);
+    return (float) (getShort(MONTHLY_RAIN)/100);
   }
   
   /**
@@ -1058,8 +1210,7 @@ public class DavisWxParser {
    * @return yearlyRain - the yearlyRain as a float
    */
   public float getYearlyRain(){
-    this.yearlyRain.flip();
-    return (float) (this.yearlyRain.order(ByteOrder.LITTLE_ENDIAN).getShort()/100);
+    return (float) (getShort(YEARLY_RAIN)/100);
   }
   
   /**
@@ -1068,8 +1219,7 @@ public class DavisWxParser {
    * @return dailyEvapoTranspiration - the dailyEvapoTranspiration as a float
    */
   public float getDailyEvapoTranspiration(){
-    this.dailyEvapoTranspiration.flip();
-    return (float) (this.dailyEvapoTranspiration.order(ByteOrder.LITTLE_ENDIAN).getShort()/100);
+    return (float) (getShort(DAILY_EVAPO_TRANSPIRATION)/100);
   }
   
   /**
@@ -1078,8 +1228,7 @@ public class DavisWxParser {
    * @return monthlyEvapoTranspiration - the monthlyEvapoTranspiration as a float
    */
   public float getMonthlyEvapoTranspiration(){
-    this.monthlyEvapoTranspiration.flip();
-    return (float) (this.monthlyEvapoTranspiration.order(ByteOrder.LITTLE_ENDIAN).getShort()/100);
+    return (float) (getShort(MONTHLY_EVAPO_TRANSPIRATION)/100);
   }
   
   /**
@@ -1088,8 +1237,7 @@ public class DavisWxParser {
    * @return yearlyEvapoTranspiration - the yearlyEvapoTranspiration as a float
    */
   public float getYearlyEvapoTranspiration(){
-    this.yearlyEvapoTranspiration.flip();
-    return (float) (this.yearlyEvapoTranspiration.order(ByteOrder.LITTLE_ENDIAN).getShort()/100);
+    return (float) (getShort(YEARLY_EVAPO_TRANSPIRATION)/100);
   }
   
   /**
@@ -1098,12 +1246,11 @@ public class DavisWxParser {
    * @return soilTemperatures - the soilMoistures values as a float array
    */
   public float[] getSoilMoistures(){
-    this.soilMoistures.flip();
     
     // add each of the soilMoistures values to a float array
     float[] soilMoistures = new float[4];
     for (int i = 0; i < soilMoistures.length; i++ ) {
-      soilMoistures[i] = (float) this.soilMoistures.get();
+      soilMoistures[i] = (float) getByte(SOIL_MOISTURES + i);
     }
     return soilMoistures;
   }
@@ -1114,12 +1261,11 @@ public class DavisWxParser {
    * @return leafWetnesses - the leafWetnesses values as a float array
    */
   public float[] getLeafWetnesses(){
-    this.leafWetnesses.flip();
     
     // add each of the leafWetnesses values to a float array
     float[] leafWetnesses = new float[4];
     for (int i = 0; i < leafWetnesses.length; i++ ) {
-      leafWetnesses[i] = (float) this.leafWetnesses.get();
+      leafWetnesses[i] = (float) getByte(LEAF_WETNESSES + i);
     }
     return leafWetnesses;
   }
@@ -1128,35 +1274,35 @@ public class DavisWxParser {
    * get the value from the insideAlarm field
    */
   public ByteBuffer getInsideAlarm(){
-    return this.insideAlarm;
+    return getField(INSIDE_ALARM, 1);
   }
   
   /**
    * get the value from the rainAlarm field
    */
   public ByteBuffer getRainAlarm(){
-    return this.rainAlarm;
+    return getField(RAIN_ALARM, 1);
   }
   
   /**
    * get the value from the outsideAlarm field
    */
   public ByteBuffer getOutsideAlarms(){
-    return this.outsideAlarms;
+    return getField(OUTSIDE_ALARMS, 2);
   }
   
   /**
    * get the value from the extraTemperatureHumidityAlarms field
    */
   public ByteBuffer getExtraTemperatureHumidityAlarms(){
-    return this.extraTemperatureHumidityAlarms;
+    return getField(EXTRA_TEMPERATURE_HUMIDITY_ALARMS, 8);
   }
   
   /**
    * get the value from the soilLeafAlarms field
    */
   public ByteBuffer getSoilLeafAlarms(){
-    return this.soilLeafAlarms;
+    return getField(SOIL_LEAF_ALARMS, 4);
   }
   
   /**
@@ -1165,8 +1311,7 @@ public class DavisWxParser {
    * @return transmitterBatteryStatus - the transmitterBatteryStatus as an integer
    */
   public byte[] getTransmitterBatteryStatus(){
-    this.transmitterBatteryStatus.flip();
-    return new byte[]{this.transmitterBatteryStatus.get()};
+    return new byte[]{(byte) getByte(TRANSMITTER_BATTERY_STATUS)};
   }
   
   /**
@@ -1175,9 +1320,7 @@ public class DavisWxParser {
    * @return consoleBatteryVoltage - the consoleBatteryVoltage as a float
    */
   public float getConsoleBatteryVoltage(){
-    this.consoleBatteryVoltage.flip();
-    float consoleBatteryVoltage = (float)
-      this.consoleBatteryVoltage.order(ByteOrder.LITTLE_ENDIAN).getShort();
+    float consoleBatteryVoltage = (float) getShort(CONSOLE_BATTERY_VOLTAGE);
     
     consoleBatteryVoltage = ((consoleBatteryVoltage * 300.0f)/512.0f)/100.0f; // from the instrument guide
     return consoleBatteryVoltage;
@@ -1189,8 +1332,7 @@ public class DavisWxParser {
    * @return forecastIconValueString - the forecastIconValue as a String
    */
   public String getForecastAsString(){
-    this.forecastIconValues.flip();
-    byte forecastIconValue = this.forecastIconValues.get();
+    int forecastIconValue = getByte(FORECAST_ICON_VALUES);
     String forecastIconValueString = "Forecast not available";
     
     // from the instrument guide:
@@ -1236,211 +1378,13 @@ public class DavisWxParser {
    * @return forecastRuleNumberAsString - the forecastRuleNumberAsString as a string
    */
   public String getForecastRuleNumberAsString(){
-    this.forecastRuleNumber.flip();
-    int forecastRuleNumber = (this.forecastRuleNumber.get() & 0xFF);
+    int forecastRuleNumber = getUnsignedByte(FORECAST_RULE_NUMBER);
     
     String forecastRuleNumberAsString = "No forecast rule string available";
-    Map<Integer, String> forecastRuleMap = new HashMap<Integer,String>();
-    
-    forecastRuleMap.put(  0, "Mostly clear and cooler.");
-    forecastRuleMap.put(  1, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(  2, "Mostly clear for 12 hours with little temperature change.");
-    forecastRuleMap.put(  3, "Mostly clear for 12 to 24 hours and cooler.");
-    forecastRuleMap.put(  4, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(  5, "Partly cloudy and cooler.");
-    forecastRuleMap.put(  6, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(  7, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(  8, "Mostly clear and warmer.");
-    forecastRuleMap.put(  9, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 10, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 11, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 12, "Increasing clouds and warmer. Precipitation possible within 24 to 48 hours.");
-    forecastRuleMap.put( 13, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 14, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 15, "Increasing clouds with little temperature change. Precipitation possible within 24 hours.");
-    forecastRuleMap.put( 16, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 17, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 18, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 19, "Increasing clouds with little temperature change. Precipitation possible within 12 hours.");
-    forecastRuleMap.put( 20, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 21, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 22, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 23, "Increasing clouds and warmer. Precipitation possible within 24 hours.");
-    forecastRuleMap.put( 24, "Mostly clear and warmer. Increasing winds.");
-    forecastRuleMap.put( 25, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 26, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 27, "Increasing clouds and warmer. Precipitation possible within 12 hours. Increasing winds.");
-    forecastRuleMap.put( 28, "Mostly clear and warmer. Increasing winds.");
-    forecastRuleMap.put( 29, "Increasing clouds and warmer.");
-    forecastRuleMap.put( 30, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 31, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 32, "Increasing clouds and warmer. Precipitation possible within 12 hours. Increasing winds.");
-    forecastRuleMap.put( 33, "Mostly clear and warmer. Increasing winds.");
-    forecastRuleMap.put( 34, "Increasing clouds and warmer.");
-    forecastRuleMap.put( 35, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 36, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 37, "Increasing clouds and warmer. Precipitation possible within 12 hours. Increasing winds.");
-    forecastRuleMap.put( 38, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 39, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 40, "Mostly clear and warmer. Precipitation possible within 48 hours.");
-    forecastRuleMap.put( 41, "Mostly clear and warmer.");
-    forecastRuleMap.put( 42, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 43, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 44, "Increasing clouds with little temperature change. Precipitation possible within 24 to 48 hours.");
-    forecastRuleMap.put( 45, "Increasing clouds with little temperature change.");
-    forecastRuleMap.put( 46, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 47, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 48, "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours.");
-    forecastRuleMap.put( 49, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 50, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 51, "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours. Windy.");
-    forecastRuleMap.put( 52, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 53, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 54, "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours. Windy.");
-    forecastRuleMap.put( 55, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 56, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 57, "Increasing clouds and warmer. Precipitation possible within 6 to 12 hours.");
-    forecastRuleMap.put( 58, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 59, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 60, "Increasing clouds and warmer. Precipitation possible within 6 to 12 hours. Windy.");
-    forecastRuleMap.put( 61, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 62, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 63, "Increasing clouds and warmer. Precipitation possible within 12 to 24 hours. Windy.");
-    forecastRuleMap.put( 64, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 65, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 66, "Increasing clouds and warmer. Precipitation possible within 12 hours.");
-    forecastRuleMap.put( 67, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 68, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 69, "Increasing clouds and warmer. Precipitation likley.");
-    forecastRuleMap.put( 70, "Clearing and cooler. Precipitation ending within 6 hours.");
-    forecastRuleMap.put( 71, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 72, "Clearing and cooler. Precipitation ending within 6 hours.");
-    forecastRuleMap.put( 73, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 74, "Clearing and cooler. Precipitation ending within 6 hours.");
-    forecastRuleMap.put( 75, "Partly cloudy and cooler.");
-    forecastRuleMap.put( 76, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 77, "Mostly clear and cooler.");
-    forecastRuleMap.put( 78, "Clearing and cooler. Precipitation ending within 6 hours.");
-    forecastRuleMap.put( 79, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 80, "Clearing and cooler. Precipitation ending within 6 hours.");
-    forecastRuleMap.put( 81, "Mostly clear and cooler.");
-    forecastRuleMap.put( 82, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 83, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 84, "Increasing clouds with little temperature change. Precipitation possible within 24 hours.");
-    forecastRuleMap.put( 85, "Mostly cloudy and cooler. Precipitation continuing.");
-    forecastRuleMap.put( 86, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 87, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 88, "Mostly cloudy and cooler. Precipitation likely.");
-    forecastRuleMap.put( 89, "Mostly cloudy with little temperature change. Precipitation continuing.");
-    forecastRuleMap.put( 90, "Mostly cloudy with little temperature change. Precipitation likely.");
-    forecastRuleMap.put( 91, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 92, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 93, "Increasing clouds and cooler. Precipitation possible and windy within 6 hours.");
-    forecastRuleMap.put( 94, "Increasing clouds with little temperature change. Precipitation possible and windy within 6 hours.");
-    forecastRuleMap.put( 95, "Mostly cloudy and cooler. Precipitation continuing. Increasing winds.");
-    forecastRuleMap.put( 96, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put( 97, "Mostly clear with little temperature change.");
-    forecastRuleMap.put( 98, "Mostly cloudy and cooler. Precipitation likely. Increasing winds.");
-    forecastRuleMap.put( 99, "Mostly cloudy with little temperature change. Precipitation continuing. Increasing winds.");
-    forecastRuleMap.put(100, "Mostly cloudy with little temperature change. Precipitation likely. Increasing winds.");
-    forecastRuleMap.put(101, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(102, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(103, "Increasing clouds and cooler. Precipitation possible within 12 to 24 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(104, "Increasing clouds with little temperature change. Precipitation possible within 12 to 24 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(105, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(106, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(107, "Increasing clouds and cooler. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(108, "Increasing clouds with little temperature change. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(109, "Mostly cloudy and cooler. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(110, "Mostly cloudy and cooler. Possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(111, "Mostly cloudy with little temperature change. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(112, "Mostly cloudy with little temperature change. Possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(113, "Mostly cloudy and cooler. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(114, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(115, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(116, "Mostly cloudy and cooler. Precipitation possible within 24 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(117, "Mostly cloudy with little temperature change. Precipitation ending within 12 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(118, "Mostly cloudy with little temperature change. Precipitation possible within 24 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(119, "Clearing, cooler and windy. Precipitation ending within 6 hours.");
-    forecastRuleMap.put(120, "Clearing, cooler and windy.");
-    forecastRuleMap.put(121, "Mostly cloudy and cooler. Precipitation ending within 6 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(122, "Mostly cloudy and cooler. Windy with possible wind shift o the W, NW, or N.");
-    forecastRuleMap.put(123, "Clearing, cooler and windy.");
-    forecastRuleMap.put(124, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(125, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(126, "Mostly cloudy with little temperature change. Precipitation possible within 12 hours. Windy.");
-    forecastRuleMap.put(127, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(128, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(129, "Increasing clouds and cooler. Precipitation possible within 12 hours, possibly heavy at times. Windy.");
-    forecastRuleMap.put(130, "Mostly cloudy and cooler. Precipitation ending within 6 hours. Windy.");
-    forecastRuleMap.put(131, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(132, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(133, "Mostly cloudy and cooler. Precipitation possible within 12 hours. Windy.");
-    forecastRuleMap.put(134, "Mostly cloudy and cooler. Precipitation ending in 12 to 24 hours.");
-    forecastRuleMap.put(135, "Mostly cloudy and cooler.");
-    forecastRuleMap.put(136, "Mostly cloudy and cooler. Precipitation continuing, possible heavy at times. Windy.");
-    forecastRuleMap.put(137, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(138, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(139, "Mostly cloudy and cooler. Precipitation possible within 6 to 12 hours. Windy.");
-    forecastRuleMap.put(140, "Mostly cloudy with little temperature change. Precipitation continuing, possibly heavy at times. Windy.");
-    forecastRuleMap.put(141, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(142, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(143, "Mostly cloudy with little temperature change. Precipitation possible within 6 to 12 hours. Windy.");
-    forecastRuleMap.put(144, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(145, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(146, "Increasing clouds with little temperature change. Precipitation possible within 12 hours, possibly heavy at times. Windy.");
-    forecastRuleMap.put(147, "Mostly cloudy and cooler. Windy.");
-    forecastRuleMap.put(148, "Mostly cloudy and cooler. Precipitation continuing, possibly heavy at times. Windy.");
-    forecastRuleMap.put(149, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(150, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(151, "Mostly cloudy and cooler. Precipitation likely, possibly heavy at times. Windy.");
-    forecastRuleMap.put(152, "Mostly cloudy with little temperature change. Precipitation continuing, possibly heavy at times. Windy.");
-    forecastRuleMap.put(153, "Mostly cloudy with little temperature change. Precipitation likely, possibly heavy at times. Windy.");
-    forecastRuleMap.put(154, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(155, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(156, "Increasing clouds and cooler. Precipitation possible within 6 hours. Windy.");
-    forecastRuleMap.put(157, "Increasing clouds with little temperature change. Precipitation possible within 6 hours. Windy");
-    forecastRuleMap.put(158, "Increasing clouds and cooler. Precipitation continuing. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(159, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(160, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(161, "Mostly cloudy and cooler. Precipitation likely. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(162, "Mostly cloudy with little temperature change. Precipitation continuing. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(163, "Mostly cloudy with little temperature change. Precipitation likely. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(164, "Increasing clouds and cooler. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(165, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(166, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(167, "Increasing clouds and cooler. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(168, "Increasing clouds with little temperature change. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(169, "Increasing clouds with little temperature change. Precipitation possible within 6 hours possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(170, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(171, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(172, "Increasing clouds and cooler. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(173, "Increasing clouds with little temperature change. Precipitation possible within 6 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(174, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(175, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(176, "Increasing clouds and cooler. Precipitation possible within 12 to 24 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(177, "Increasing clouds with little temperature change. Precipitation possible within 12 to 24 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(178, "Mostly cloudy and cooler. Precipitation possibly heavy at times and ending within 12 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(179, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(180, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(181, "Mostly cloudy and cooler. Precipitation possible within 6 to 12 hours, possibly heavy at times. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(182, "Mostly cloudy with little temperature change. Precipitation ending within 12 hours. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(183, "Mostly cloudy with little temperature change. Precipitation possible within 6 to 12 hours, possibly heavy at times. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(184, "Mostly cloudy and cooler. Precipitation continuing.");
-    forecastRuleMap.put(185, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(186, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(187, "Mostly cloudy and cooler. Precipitation likely. Windy with possible wind shift to the W, NW, or N.");
-    forecastRuleMap.put(188, "Mostly cloudy with little temperature change. Precipitation continuing.");
-    forecastRuleMap.put(189, "Mostly cloudy with little temperature change. Precipitation likely.");
-    forecastRuleMap.put(190, "Partly cloudy with little temperature change.");
-    forecastRuleMap.put(191, "Mostly clear with little temperature change.");
-    forecastRuleMap.put(192, "Mostly cloudy and cooler. Precipitation possible within 12 hours, possibly heavy at times. Windy.");
-    forecastRuleMap.put(193, "FORECAST REQUIRES 3 HOURS OF RECENT DATA");
-    forecastRuleMap.put(194, "Mostly clear and cooler.");
-    forecastRuleMap.put(195, "Mostly clear and cooler.");
-    forecastRuleMap.put(196, "Mostly clear and cooler.");
-    
-    forecastRuleNumberAsString = forecastRuleMap.get(forecastRuleNumber);
+    if ( forecastRuleNumber < FORECAST_RULES.length ) {
+      forecastRuleNumberAsString = FORECAST_RULES[forecastRuleNumber];
+      
+    }
     return forecastRuleNumberAsString;               
   }
   
@@ -1450,29 +1394,7 @@ public class DavisWxParser {
    * @return timeOfSunrise - the timeOfSunrise value as a String
    */
   public String getTimeOfSunrise(){
-    this.timeOfSunrise.flip();
-    short timeOfSunrise = this.timeOfSunrise.order(ByteOrder.LITTLE_ENDIAN).getShort();
-    double timeOfSunriseAsDouble = (double) timeOfSunrise;
-    timeOfSunriseAsDouble        = timeOfSunriseAsDouble/100;
-    
-    String hour                  = "";
-    String minute                = "";
-    String timeOfSunriseString   = "";
-    
-    // use the modulo to get the fraction and integer of the time
-    double fraction = timeOfSunriseAsDouble % 1;
-    double integral = timeOfSunriseAsDouble - fraction;
-           fraction = fraction * 100;
-    int integralInt = (new Double(integral)).intValue();
-    
-    //convert the exponent to a minute string
-    hour = String.format("%02d", (Object) integralInt);
-    
-    //convert the exponent to a minute string
-    minute = String.format("%02d", (Object) Math.round(fraction));
-    
-    timeOfSunriseString = hour + ":" + minute;
-    return timeOfSunriseString;
+    return getTime(TIME_OF_SUNRISE);
   }
   
   /**
@@ -1481,29 +1403,7 @@ public class DavisWxParser {
    * @return timeOfSunset - the timeOfSunset value as a String
    */
   public String getTimeOfSunset(){
-    this.timeOfSunset.flip();
-    short timeOfSunset = this.timeOfSunset.order(ByteOrder.LITTLE_ENDIAN).getShort();
-    double timeOfSunsetAsDouble = (double) timeOfSunset;
-    timeOfSunsetAsDouble        = timeOfSunsetAsDouble/100;
-    
-    String hour                 = "";
-    String minute               = "";
-    String timeOfSunsetString   = "";
-    
-    // use the modulo to get the fraction and integer of the time
-    double fraction = timeOfSunsetAsDouble % 1;
-    double integral = timeOfSunsetAsDouble - fraction;
-           fraction = fraction * 100;
-    int integralInt = (new Double(integral)).intValue();
-    
-    //convert the exponent to a minute string
-    hour = String.format("%02d", (Object) integralInt);
-    
-    //convert the exponent to a minute string
-    minute = String.format("%02d", (Object) Math.round(fraction));
-    
-    timeOfSunsetString = hour + ":" + minute;
-    return timeOfSunsetString;
+    return getTime(TIME_OF_SUNSET);
   }
   
   /**
@@ -1512,19 +1412,69 @@ public class DavisWxParser {
    * @return recordDelimiter - the recordDelimiter as a Hex encoded String
    */
   public String getRecordDelimiterAsHexString(){
-    this.recordDelimiter.flip();
-    String delim1 = new String(Hex.encodeHex(new byte[]{this.recordDelimiter.get()}));
-    String delim2 = new String(Hex.encodeHex(new byte[]{this.recordDelimiter.get()}));
-    
-    String recordDelimiter = delim1 + delim2;
-    return recordDelimiter;
+    return String.format("%02x%02x", getUnsignedByte(RECORD_DELIMITER),
+                                     getUnsignedByte(RECORD_DELIMITER + 1));
   }
   
   /**
    * get the value from the crcChecksum field
    */
   public ByteBuffer getCrcChecksum(){
-    return this.crcChecksum;
+    return getField(CRC_CHECKSUM, 2);
+  }
+  
+  /**
+   * get the 10 minute average wind speed from a LOOP2 packet
+   *
+   * @return tenMinuteAverageWindSpeed - the wind speed in mph as a float
+   */
+  public float getLoop2TenMinuteAverageWindSpeed(){
+    return (float) getShort(LOOP2_TEN_MINUTE_AVERAGE_WIND_SPEED)/10;
+  }
+  
+  /**
+   * get the 2 minute average wind speed from a LOOP2 packet
+   *
+   * @return twoMinuteAverageWindSpeed - the wind speed in mph as a float
+   */
+  public float getLoop2TwoMinuteAverageWindSpeed(){
+    return (float) getShort(LOOP2_TWO_MINUTE_AVERAGE_WIND_SPEED)/10;
+  }
+  
+  /**
+   * get the 10 minute wind gust from a LOOP2 packet
+   *
+   * @return tenMinuteWindGust - the wind gust in mph as an integer
+   */
+  public int getLoop2TenMinuteWindGust(){
+    return (int) getShort(LOOP2_TEN_MINUTE_WIND_GUST);
+  }
+  
+  /**
+   * get the dew point from a LOOP2 packet
+   *
+   * @return dewPoint - the dew point in degrees F as an integer
+   */
+  public int getLoop2DewPoint(){
+    return (int) getShort(LOOP2_DEW_POINT);
+  }
+  
+  /**
+   * get the heat index from a LOOP2 packet
+   *
+   * @return heatIndex - the heat index in degrees F as an integer
+   */
+  public int getLoop2HeatIndex(){
+    return (int) getShort(LOOP2_HEAT_INDEX);
+  }
+  
+  /**
+   * get the wind chill from a LOOP2 packet
+   *
+   * @return windChill - the wind chill in degrees F as an integer
+   */
+  public int getLoop2WindChill(){
+    return (int) getShort(LOOP2_WIND_CHILL);
   }
                                                 
-}                                               
+}
@@ -31,6 +31,8 @@ import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 
 import java.text.SimpleDateFormat;
@@ -159,6 +161,18 @@ public class DavisWxSource extends RBNBSource {
    */ 
   private String command;
   
+  /**
+   * The number of LOOP packets requested at a time in streaming mode, or zero
+   * to request one packet per sample with the takeSampleCommand
+   */
+  private int loopBatchSize = 0;
+  
+  /*
+   * The time, in milliseconds, to wait for a LOOP packet in streaming mode
+   * before requesting a new batch.  The console sends a packet every 2 seconds.
+   */
+  private final long STREAM_TIMEOUT = 10000L;
+  
   /**
    * The number of bytes in the ensemble as each byte is read from the stream
    */
@@ -216,7 +230,7 @@ public class DavisWxSource extends RBNBSource {
    * The instance of the DavisWxParser object used to parse the binary LOOP
    * data packet and retrieve each of the data fields
    */
-   private DavisWxParser davisWxParser = null;
+   private DavisWxParser davisWxParser = new DavisWxParser();
    
   /**
    * Constructor - create an empty instance of the DavisWxSource object, using
@@ -441,6 +455,14 @@ public class DavisWxSource extends RBNBSource {
 
     // allow time for the instrument response
     streamingThread.sleep(2000);
+    
+    // stream batches of LOOP packets, if configured to
+    if ( this.loopBatchSize > 0 ) {
+      streamLoopPackets(buffer, rbnbChannelMap);
+      this.socketChannel.close();
+      return !failed;
+      
+    }
     this.command = this.commandPrefix + 
                    this.takeSampleCommand +
                    this.commandSuffix;
@@ -573,20 +595,11 @@ public class DavisWxSource extends RBNBSource {
                }
                state = 0;
                
-               // extract just the length of the sample bytes out of the
-               // sample buffer, and place it in the channel map as a 
-               // byte array.  Then, send it to the data turbine.
-               byte[] sampleArray = new byte[sampleByteCount];
-               
-               try {
-                 sampleBuffer.flip();
-                 sampleBuffer.get(sampleArray);
-                 
-                 // parse and send the sample to the data turbine
-                 this.davisWxParser = new DavisWxParser(sampleBuffer);
-                 
-               } catch (java.lang.Exception e) {
-                 log.info("There was a problem parsing the binary weather LOOP packet. Skipping this sample.");
+               // check the sample's CRC and parse it in place.  A corrupt or
+               // short sample is skipped, and a new one is requested
+               sampleBuffer.flip();
+               if ( ! this.davisWxParser.parse(sampleBuffer) ) {
+                 log.info("The binary weather LOOP packet failed its CRC check. Skipping this sample.");
                  byteOne   = 0x00;
                  byteTwo   = 0x00;
                  byteThree = 0x00;
@@ -594,236 +607,18 @@ public class DavisWxSource extends RBNBSource {
                  sampleBuffer.clear();
                  sampleByteCount = 0;
                  rbnbChannelMap.Clear();                      
-                 break;
-               }
-               
-               // create a character string to store characters from the TCP stream
-               StringBuilder decimalASCIISampleData = new StringBuilder();
-               
-               rbnbChannelMap.PutTimeAuto("server");
-               
-               // add the raw binary LOOP packet data
-               //channelIndex = rbnbChannelMap.Add(getRBNBChannelName());
-               //rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               //rbnbChannelMap.PutDataAsByteArray(channelIndex, sampleArray);         // raw binary LOOP packet
-               
-               // add the barTrendAsString field data
-               channelIndex = rbnbChannelMap.Add("barTrendAsString");                // Falling Slowly
-               rbnbChannelMap.PutMime(channelIndex, "text/plain");
-               rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getBarTrendAsString());
-               decimalASCIISampleData.append(String.format("\"%16s\"", davisWxParser.getBarTrendAsString())).append(", ");
-               
-               // add the packetType field to the ASCII string only
-               decimalASCIISampleData.append(String.format("%1d", davisWxParser.getPacketType())).append(", ");
-               
-               // add the nextRecord field to the ASCII string only
-               decimalASCIISampleData.append(String.format("%04d", davisWxParser.getNextRecord())).append(", ");
-
-               // add the barometer field data
-               channelIndex = rbnbChannelMap.Add("barometer");                      // 29.9
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getBarometer()});
-               decimalASCIISampleData.append(String.format("%06.4f", davisWxParser.getBarometer())).append(", ");
-               
-               // add the insideTemperature field data
-               channelIndex = rbnbChannelMap.Add("insideTemperature");               // 83.9
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getInsideTemperature()});
-               decimalASCIISampleData.append(String.format("%05.2f", davisWxParser.getInsideTemperature())).append(", ");
-               
-               // add the insideHumidity field data
-               channelIndex = rbnbChannelMap.Add("insideHumidity");                  // 51
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getInsideHumidity()});
-               decimalASCIISampleData.append(String.format("%03d", davisWxParser.getInsideHumidity())).append(", ");
-               
-               // add the outsideTemperature field data
-               channelIndex = rbnbChannelMap.Add("outsideTemperature");              // 76.7
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getOutsideTemperature()});
-               decimalASCIISampleData.append(String.format("%05.2f", davisWxParser.getOutsideTemperature())).append(", ");
-               
-               // add the windSpeed field data
-               channelIndex = rbnbChannelMap.Add("windSpeed");                       // 5
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getWindSpeed()});
-               decimalASCIISampleData.append(String.format("%03d", davisWxParser.getWindSpeed())).append(", ");
-               
-               // add the tenMinuteAverageWindSpeed field data
-               channelIndex = rbnbChannelMap.Add("tenMinuteAverageWindSpeed");      // 4
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getTenMinuteAverageWindSpeed()});
-               decimalASCIISampleData.append(String.format("%03d", davisWxParser.getTenMinuteAverageWindSpeed())).append(", ");
-               
-               // add the windDirection field data
-               channelIndex = rbnbChannelMap.Add("windDirection");                   // 80
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getWindDirection()});
-               decimalASCIISampleData.append(String.format("%03d", davisWxParser.getWindDirection())).append(", ");
-               
-               
-               // add the extraTemperature fields as ASCII only
-               float[] extraTemperatures = davisWxParser.getExtraTemperatures();
-               for (float temperature : extraTemperatures) {
-                 decimalASCIISampleData.append(String.format("%05.2f", temperature)).append(", ");
-                 
-               }
-
-               // add the soilTemperature fields as ASCII only
-               float[] soilTemperatures = davisWxParser.getSoilTemperatures();
-               for (float soil : soilTemperatures) {
-                 decimalASCIISampleData.append(String.format("%05.2f", soil)).append(", ");
-                 
-               }
-               
-               // add the leafTemperature fields as ASCII only
-               float[] leafTemperatures = davisWxParser.getLeafTemperatures();
-               for (float leaf : leafTemperatures) {
-                 decimalASCIISampleData.append(String.format("%05.2f", leaf)).append(", ");
                  
+                 streamingThread.sleep(2000);
+                 this.sentCommand = queryInstrument(this.command);
+                 break;
                }
                
-               // add the outsideHumidity field data
-               channelIndex = rbnbChannelMap.Add("outsideHumidity");                 // 73
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getOutsideHumidity()});
-               decimalASCIISampleData.append(String.format("%03d", davisWxParser.getOutsideHumidity())).append(", ");
-               
-               // add the rainRate field data
-               channelIndex = rbnbChannelMap.Add("rainRate");                        // 0.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getRainRate()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getRainRate())).append(", ");
-               
-               // add the uvRadiation field data
-               channelIndex = rbnbChannelMap.Add("uvRadiation");                     // 0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getUvRadiation()});
-               decimalASCIISampleData.append(String.format("%03d", davisWxParser.getUvRadiation())).append(", ");
-               
-               // add the solarRadiation field data
-               channelIndex = rbnbChannelMap.Add("solarRadiation");                  // 0.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getSolarRadiation()});
-               decimalASCIISampleData.append(String.format("%04.1f", davisWxParser.getSolarRadiation())).append(", ");
-               
-               // add the stormRain field data
-               channelIndex = rbnbChannelMap.Add("stormRain");                       // 0.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getStormRain()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getStormRain())).append(", ");
-               
-               // add the currentStormStartDate field data
-               channelIndex = rbnbChannelMap.Add("currentStormStartDate");           // -1--1-1999
-               rbnbChannelMap.PutMime(channelIndex, "text/plain");
-               rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getCurrentStormStartDate());
-               decimalASCIISampleData.append(String.format("%10s", davisWxParser.getCurrentStormStartDate())).append(", ");
-               
-               // add the dailyRain field data
-               channelIndex = rbnbChannelMap.Add("dailyRain");                       // 0.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getDailyRain()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getDailyRain())).append(", ");
-               
-               // add the monthlyRain field data
-               channelIndex = rbnbChannelMap.Add("monthlyRain");                     // 0.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getMonthlyRain()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getMonthlyRain())).append(", ");
-                              
-               // add the yearlyRain field data
-               channelIndex = rbnbChannelMap.Add("yearlyRain");                      // 15.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getYearlyRain()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getYearlyRain())).append(", ");
-                              
-               // add the dailyEvapoTranspiration field data
-               channelIndex = rbnbChannelMap.Add("dailyEvapoTranspiration");         // 0.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getDailyEvapoTranspiration()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getDailyEvapoTranspiration())).append(", ");
-                              
-               // add the monthlyEvapoTranspiration field data
-               channelIndex = rbnbChannelMap.Add("monthlyEvapoTranspiration");       // 0.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getMonthlyEvapoTranspiration()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getMonthlyEvapoTranspiration())).append(", ");
-                              
-               // add the yearlyEvapoTranspiration field data
-               channelIndex = rbnbChannelMap.Add("yearlyEvapoTranspiration");        // 93.0
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getYearlyEvapoTranspiration()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getYearlyEvapoTranspiration())).append(", ");
-               
-               // add the consoleBatteryVoltage field data
-               channelIndex = rbnbChannelMap.Add("consoleBatteryVoltage");           // 4.681640625
-               rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
-               rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getConsoleBatteryVoltage()});
-               decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getConsoleBatteryVoltage())).append(", ");
-               
-               // add the forecastAsString field data
-               channelIndex = rbnbChannelMap.Add("forecastAsString");                // Partially Cloudy
-               rbnbChannelMap.PutMime(channelIndex, "text/plain");
-               rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getForecastAsString());
-               decimalASCIISampleData.append(String.format("\"%47s\"", davisWxParser.getForecastAsString())).append(", ");
-                              
-               // add the forecastRuleNumberAsString field data as ASCII only
-               decimalASCIISampleData.append(String.format("\"%167s\"", davisWxParser.getForecastRuleNumberAsString())).append(", ");
-               
-               // add the timeOfSunrise field data
-               channelIndex = rbnbChannelMap.Add("timeOfSunrise");                   // 05:49
-               rbnbChannelMap.PutMime(channelIndex, "text/plain");
-               rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getTimeOfSunrise());
-               decimalASCIISampleData.append(String.format("%5s", davisWxParser.getTimeOfSunrise())).append(", ");
-                              
-               // add the timeOfSunset field data
-               channelIndex = rbnbChannelMap.Add("timeOfSunset");                    // 19:11
-               rbnbChannelMap.PutMime(channelIndex, "text/plain");
-               rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getTimeOfSunset());
-               decimalASCIISampleData.append(String.format("%5s", davisWxParser.getTimeOfSunset())).append(", ");
-               
-               // then add a timestamp to the end of the sample
-               DATE_FORMAT.setTimeZone(TZ);
-               String sampleDateAsString = DATE_FORMAT.format(new Date()).toString();
-               decimalASCIISampleData.append(sampleDateAsString);
-               decimalASCIISampleData.append("\n");
-               
-               // add the ASCII CSV string of selected fields as a channel
-               channelIndex = rbnbChannelMap.Add(getRBNBChannelName());                    // 19:11
-               rbnbChannelMap.PutMime(channelIndex, "text/plain");
-               rbnbChannelMap.PutDataAsString(channelIndex, decimalASCIISampleData.toString());
+               // extract just the length of the sample bytes out of the
+               // sample buffer for logging
+               byte[] sampleArray = new byte[sampleByteCount];
+               sampleBuffer.get(sampleArray);
                
-               // finally, send the channel map of data to the DataTurbine
-               getSource().Flush(rbnbChannelMap);
-               String sampleString = new String(Hex.encodeHex(sampleArray));
-               log.info("Sample: " + sampleString);
-               log.debug("barTrendAsString:               " + davisWxParser.getBarTrendAsString());
-               log.debug("barometer:                      " + davisWxParser.getBarometer());
-               log.debug("insideTemperature:              " + davisWxParser.getInsideTemperature());
-               log.debug("insideHumidity:                 " + davisWxParser.getInsideHumidity());
-               log.debug("outsideTemperature:             " + davisWxParser.getOutsideTemperature());
-               log.debug("windSpeed:                      " + davisWxParser.getWindSpeed());
-               log.debug("tenMinuteAverageWindSpeed:      " + davisWxParser.getTenMinuteAverageWindSpeed());
-               log.debug("windDirection:                  " + davisWxParser.getWindDirection());
-               log.debug("outsideHumidity:                " + davisWxParser.getOutsideHumidity());
-               log.debug("rainRate:                       " + davisWxParser.getRainRate());
-               log.debug("uvRadiation:                    " + davisWxParser.getUvRadiation());
-               log.debug("solarRadiation:                 " + davisWxParser.getSolarRadiation());
-               log.debug("stormRain:                      " + davisWxParser.getStormRain());
-               log.debug("currentStormStartDate:          " + davisWxParser.getCurrentStormStartDate());
-               log.debug("dailyRain:                      " + davisWxParser.getDailyRain());
-               log.debug("monthlyRain:                    " + davisWxParser.getMonthlyRain());
-               log.debug("yearlyRain:                     " + davisWxParser.getYearlyRain());
-               log.debug("dailyEvapoTranspiration:        " + davisWxParser.getDailyEvapoTranspiration());
-               log.debug("monthlyEvapoTranspiration:      " + davisWxParser.getMonthlyEvapoTranspiration());
-               log.debug("yearlyEvapoTranspiration:       " + davisWxParser.getYearlyEvapoTranspiration());
-               log.debug("transmitterBatteryStatus:       " + Arrays.toString(davisWxParser.getTransmitterBatteryStatus()));
-               log.debug("consoleBatteryVoltage:          " + davisWxParser.getConsoleBatteryVoltage());
-               log.debug("forecastAsString:               " + davisWxParser.getForecastAsString());
-               //log.debug("forecastRuleNumberAsString:     " + davisWxParser.getForecastRuleNumberAsString());
-               log.debug("timeOfSunrise:                  " + davisWxParser.getTimeOfSunrise());
-               log.debug("timeOfSunset:                   " + davisWxParser.getTimeOfSunset());
-               log.info(" flushed data to the DataTurbine. ");
+               flushSample(rbnbChannelMap, sampleArray);
                
                  byteOne   = 0x00;
                  byteTwo   = 0x00;
@@ -873,6 +668,328 @@ public class DavisWxSource extends RBNBSource {
       return !failed;
   } // end if (  !isConnected() ) 
   
+  /*
+   * A method that publishes the LOOP packet last parsed by the davisWxParser
+   * to the DataTurbine as one frame of channels, along with the decimal ASCII
+   * rendering of the sample
+   */
+  private void flushSample(ChannelMap rbnbChannelMap, byte[] sampleArray)
+    throws SAPIException {
+    
+    int channelIndex = 0;
+    
+    // create a character string to store characters from the TCP stream
+    StringBuilder decimalASCIISampleData = new StringBuilder();
+    
+    rbnbChannelMap.PutTimeAuto("server");
+    
+    // add the raw binary LOOP packet data
+    //channelIndex = rbnbChannelMap.Add(getRBNBChannelName());
+    //rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    //rbnbChannelMap.PutDataAsByteArray(channelIndex, sampleArray);         // raw binary LOOP packet
+    
+    // add the barTrendAsString field data
+    channelIndex = rbnbChannelMap.Add("barTrendAsString");                // Falling Slowly
+    rbnbChannelMap.PutMime(channelIndex, "text/plain");
+    rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getBarTrendAsString());
+    decimalASCIISampleData.append(String.format("\"%16s\"", davisWxParser.getBarTrendAsString())).append(", ");
+    
+    // add the packetType field to the ASCII string only
+    decimalASCIISampleData.append(String.format("%1d", davisWxParser.getPacketType())).append(", ");
+    
+    // add the nextRecord field to the ASCII string only
+    decimalASCIISampleData.append(String.format("%04d", davisWxParser.getNextRecord())).append(", ");
+
+    // add the barometer field data
+    channelIndex = rbnbChannelMap.Add("barometer");                      // 29.9
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getBarometer()});
+    decimalASCIISampleData.append(String.format("%06.4f", davisWxParser.getBarometer())).append(", ");
+    
+    // add the insideTemperature field data
+    channelIndex = rbnbChannelMap.Add("insideTemperature");               // 83.9
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getInsideTemperature()});
+    decimalASCIISampleData.append(String.format("%05.2f", davisWxParser.getInsideTemperature())).append(", ");
+    
+    // add the insideHumidity field data
+    channelIndex = rbnbChannelMap.Add("insideHumidity");                  // 51
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getInsideHumidity()});
+    decimalASCIISampleData.append(String.format("%03d", davisWxParser.getInsideHumidity())).append(", ");
+    
+    // add the outsideTemperature field data
+    channelIndex = rbnbChannelMap.Add("outsideTemperature");              // 76.7
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getOutsideTemperature()});
+    decimalASCIISampleData.append(String.format("%05.2f", davisWxParser.getOutsideTemperature())).append(", ");
+    
+    // add the windSpeed field data
+    channelIndex = rbnbChannelMap.Add("windSpeed");                       // 5
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getWindSpeed()});
+    decimalASCIISampleData.append(String.format("%03d", davisWxParser.getWindSpeed())).append(", ");
+    
+    // add the tenMinuteAverageWindSpeed field data
+    channelIndex = rbnbChannelMap.Add("tenMinuteAverageWindSpeed");      // 4
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getTenMinuteAverageWindSpeed()});
+    decimalASCIISampleData.append(String.format("%03d", davisWxParser.getTenMinuteAverageWindSpeed())).append(", ");
+    
+    // add the windDirection field data
+    channelIndex = rbnbChannelMap.Add("windDirection");                   // 80
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getWindDirection()});
+    decimalASCIISampleData.append(String.format("%03d", davisWxParser.getWindDirection())).append(", ");
+    
+    
+    // add the extraTemperature fields as ASCII only
+    float[] extraTemperatures = davisWxParser.getExtraTemperatures();
+    for (float temperature : extraTemperatures) {
+      decimalASCIISampleData.append(String.format("%05.2f", temperature)).append(", ");
+    
+    }
+
+    // add the soilTemperature fields as ASCII only
+    float[] soilTemperatures = davisWxParser.getSoilTemperatures();
+    for (float soil : soilTemperatures) {
+      decimalASCIISampleData.append(String.format("%05.2f", soil)).append(", ");
+    
+    }
+    
+    // add the leafTemperature fields as ASCII only
+    float[] leafTemperatures = davisWxParser.getLeafTemperatures();
+    for (float leaf : leafTemperatures) {
+      decimalASCIISampleData.append(String.format("%05.2f", leaf)).append(", ");
+    
+    }
+    
+    // add the outsideHumidity field data
+    channelIndex = rbnbChannelMap.Add("outsideHumidity");                 // 73
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getOutsideHumidity()});
+    decimalASCIISampleData.append(String.format("%03d", davisWxParser.getOutsideHumidity())).append(", ");
+    
+    // add the rainRate field data
+    channelIndex = rbnbChannelMap.Add("rainRate");                        // 0.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getRainRate()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getRainRate())).append(", ");
+    
+    // add the uvRadiation field data
+    channelIndex = rbnbChannelMap.Add("uvRadiation");                     // 0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsInt32(channelIndex, new int[]{davisWxParser.getUvRadiation()});
+    decimalASCIISampleData.append(String.format("%03d", davisWxParser.getUvRadiation())).append(", ");
+    
+    // add the solarRadiation field data
+    channelIndex = rbnbChannelMap.Add("solarRadiation");                  // 0.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getSolarRadiation()});
+    decimalASCIISampleData.append(String.format("%04.1f", davisWxParser.getSolarRadiation())).append(", ");
+    
+    // add the stormRain field data
+    channelIndex = rbnbChannelMap.Add("stormRain");                       // 0.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getStormRain()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getStormRain())).append(", ");
+    
+    // add the currentStormStartDate field data
+    channelIndex = rbnbChannelMap.Add("currentStormStartDate");           // -1--1-1999
+    rbnbChannelMap.PutMime(channelIndex, "text/plain");
+    rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getCurrentStormStartDate());
+    decimalASCIISampleData.append(String.format("%10s", davisWxParser.getCurrentStormStartDate())).append(", ");
+    
+    // add the dailyRain field data
+    channelIndex = rbnbChannelMap.Add("dailyRain");                       // 0.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getDailyRain()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getDailyRain())).append(", ");
+    
+    // add the monthlyRain field data
+    channelIndex = rbnbChannelMap.Add("monthlyRain");                     // 0.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getMonthlyRain()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getMonthlyRain())).append(", ");
+    
+    // add the yearlyRain field data
+    channelIndex = rbnbChannelMap.Add("yearlyRain");                      // 15.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getYearlyRain()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getYearlyRain())).append(", ");
+    
+    // add the dailyEvapoTranspiration field data
+    channelIndex = rbnbChannelMap.Add("dailyEvapoTranspiration");         // 0.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getDailyEvapoTranspiration()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getDailyEvapoTranspiration())).append(", ");
+    
+    // add the monthlyEvapoTranspiration field data
+    channelIndex = rbnbChannelMap.Add("monthlyEvapoTranspiration");       // 0.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getMonthlyEvapoTranspiration()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getMonthlyEvapoTranspiration())).append(", ");
+    
+    // add the yearlyEvapoTranspiration field data
+    channelIndex = rbnbChannelMap.Add("yearlyEvapoTranspiration");        // 93.0
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getYearlyEvapoTranspiration()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getYearlyEvapoTranspiration())).append(", ");
+    
+    // add the consoleBatteryVoltage field data
+    channelIndex = rbnbChannelMap.Add("consoleBatteryVoltage");           // 4.681640625
+    rbnbChannelMap.PutMime(channelIndex, "application/octet-stream");
+    rbnbChannelMap.PutDataAsFloat32(channelIndex, new float[]{davisWxParser.getConsoleBatteryVoltage()});
+    decimalASCIISampleData.append(String.format("%04.2f", davisWxParser.getConsoleBatteryVoltage())).append(", ");
+    
+    // add the forecastAsString field data
+    channelIndex = rbnbChannelMap.Add("forecastAsString");                // Partially Cloudy
+    rbnbChannelMap.PutMime(channelIndex, "text/plain");
+    rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getForecastAsString());
+    decimalASCIISampleData.append(String.format("\"%47s\"", davisWxParser.getForecastAsString())).append(", ");
+    
+    // add the forecastRuleNumberAsString field data as ASCII only
+    decimalASCIISampleData.append(String.format("\"%167s\"", davisWxParser.getForecastRuleNumberAsString())).append(", ");
+    
+    // add the timeOfSunrise field data
+    channelIndex = rbnbChannelMap.Add("timeOfSunrise");                   // 05:49
+    rbnbChannelMap.PutMime(channelIndex, "text/plain");
+    rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getTimeOfSunrise());
+    decimalASCIISampleData.append(String.format("%5s", davisWxParser.getTimeOfSunrise())).append(", ");
+    
+    // add the timeOfSunset field data
+    channelIndex = rbnbChannelMap.Add("timeOfSunset");                    // 19:11
+    rbnbChannelMap.PutMime(channelIndex, "text/plain");
+    rbnbChannelMap.PutDataAsString(channelIndex, davisWxParser.getTimeOfSunset());
+    decimalASCIISampleData.append(String.format("%5s", davisWxParser.getTimeOfSunset())).append(", ");
+    
+    // then add a timestamp to the end of the sample
+    DATE_FORMAT.setTimeZone(TZ);
+    String sampleDateAsString = DATE_FORMAT.format(new Date()).toString();
+    decimalASCIISampleData.append(sampleDateAsString);
+    decimalASCIISampleData.append("\n");
+    
+    // add the ASCII CSV string of selected fields as a channel
+    channelIndex = rbnbChannelMap.Add(getRBNBChannelName());                    // 19:11
+    rbnbChannelMap.PutMime(channelIndex, "text/plain");
+    rbnbChannelMap.PutDataAsString(channelIndex, decimalASCIISampleData.toString());
+    
+    // finally, send the channel map of data to the DataTurbine
+    getSource().Flush(rbnbChannelMap);
+    String sampleString = new String(Hex.encodeHex(sampleArray));
+    log.info("Sample: " + sampleString);
+    log.debug("barTrendAsString:               " + davisWxParser.getBarTrendAsString());
+    log.debug("barometer:                      " + davisWxParser.getBarometer());
+    log.debug("insideTemperature:              " + davisWxParser.getInsideTemperature());
+    log.debug("insideHumidity:                 " + davisWxParser.getInsideHumidity());
+    log.debug("outsideTemperature:             " + davisWxParser.getOutsideTemperature());
+    log.debug("windSpeed:                      " + davisWxParser.getWindSpeed());
+    log.debug("tenMinuteAverageWindSpeed:      " + davisWxParser.getTenMinuteAverageWindSpeed());
+    log.debug("windDirection:                  " + davisWxParser.getWindDirection());
+    log.debug("outsideHumidity:                " + davisWxParser.getOutsideHumidity());
+    log.debug("rainRate:                       " + davisWxParser.getRainRate());
+    log.debug("uvRadiation:                    " + davisWxParser.getUvRadiation());
+    log.debug("solarRadiation:                 " + davisWxParser.getSolarRadiation());
+    log.debug("stormRain:                      " + davisWxParser.getStormRain());
+    log.debug("currentStormStartDate:          " + davisWxParser.getCurrentStormStartDate());
+    log.debug("dailyRain:                      " + davisWxParser.getDailyRain());
+    log.debug("monthlyRain:                    " + davisWxParser.getMonthlyRain());
+    log.debug("yearlyRain:                     " + davisWxParser.getYearlyRain());
+    log.debug("dailyEvapoTranspiration:        " + davisWxParser.getDailyEvapoTranspiration());
+    log.debug("monthlyEvapoTranspiration:      " + davisWxParser.getMonthlyEvapoTranspiration());
+    log.debug("yearlyEvapoTranspiration:       " + davisWxParser.getYearlyEvapoTranspiration());
+    log.debug("transmitterBatteryStatus:       " + Arrays.toString(davisWxParser.getTransmitterBatteryStatus()));
+    log.debug("consoleBatteryVoltage:          " + davisWxParser.getConsoleBatteryVoltage());
+    log.debug("forecastAsString:               " + davisWxParser.getForecastAsString());
+    //log.debug("forecastRuleNumberAsString:     " + davisWxParser.getForecastRuleNumberAsString());
+    log.debug("timeOfSunrise:                  " + davisWxParser.getTimeOfSunrise());
+    log.debug("timeOfSunset:                   " + davisWxParser.getTimeOfSunset());
+    log.info(" flushed data to the DataTurbine. ");
+    
+  }
+  
+  /*
+   * A method that streams LOOP packets in batches of loopBatchSize rather than
+   * requesting one packet at a time.  The console sends the packets of a batch
+   * back to back, and the request for the next batch is sent as soon as the
+   * last packet of the current one arrives, so there is no wake-up or sleep
+   * between samples.  Packets are framed by their "LOO" identifier, fixed
+   * length, and CRC rather than by their delimiter, and the stream is
+   * resynchronized a byte at a time after a corrupt packet.  If no packets
+   * arrive for STREAM_TIMEOUT milliseconds, such as when a lost packet left a
+   * batch short, the console is woken and a new batch is requested.
+   */
+  private void streamLoopPackets(ByteBuffer buffer, ChannelMap rbnbChannelMap)
+    throws IOException, SAPIException, InterruptedException {
+    
+    String loopCommand = this.commandPrefix + "LOOP " + 
+                         this.loopBatchSize + this.commandSuffix;
+    byte[] sampleArray = new byte[DavisWxParser.LOOP_PACKET_SIZE];
+    int packetsRemaining = this.loopBatchSize;
+    
+    this.socketChannel.configureBlocking(false);
+    Selector selector = Selector.open();
+    
+    try {
+      this.socketChannel.register(selector, SelectionKey.OP_READ);
+      this.sentCommand = queryInstrument(loopCommand);
+      buffer.clear();
+      
+      while ( ! Thread.currentThread().isInterrupted() ) {
+        
+        if ( selector.select(STREAM_TIMEOUT) == 0 ) {
+          log.info("No LOOP packets received in " + STREAM_TIMEOUT + 
+                   " ms. Requesting a new batch.");
+          queryInstrument(this.commandSuffix);
+          Thread.sleep(2000);
+          this.sentCommand = queryInstrument(loopCommand);
+          packetsRemaining = this.loopBatchSize;
+          continue;
+          
+        }
+        selector.selectedKeys().clear();
+        
+        if ( this.socketChannel.read(buffer) == -1 ) {
+          break;
+          
+        }
+        buffer.flip();
+        
+        // frame each complete packet in the buffer
+        while ( buffer.remaining() >= DavisWxParser.LOOP_PACKET_SIZE ) {
+          int start = buffer.position();
+          
+          if ( buffer.get(start)     == 0x4C &&
+               buffer.get(start + 1) == 0x4F &&
+               buffer.get(start + 2) == 0x4F &&
+               this.davisWxParser.parse(buffer) ) {
+            
+            // ask for the next batch before publishing the last packet of
+            // this one, so the console's reply overlaps the flush
+            packetsRemaining--;
+            if ( packetsRemaining == 0 ) {
+              this.sentCommand = queryInstrument(loopCommand);
+              packetsRemaining = this.loopBatchSize;
+              
+            }
+            buffer.get(sampleArray);
+            flushSample(rbnbChannelMap, sampleArray);
+            rbnbChannelMap.Clear();
+            
+          } else {
+            // not a packet, or a corrupt one; resynchronize
+            buffer.position(start + 1);
+            
+          }
+        }
+        buffer.compact();
+      }
+    } finally {
+      selector.close();
+      
+    }
+  }
+  
    /**
    * A method used to the TCP socket of the remote source host for communication
    */
@@ -947,6 +1064,14 @@ public class DavisWxSource extends RBNBSource {
     return this.sourceHostPort;
   }
 
+  /**
+   * A method that returns the number of LOOP packets requested at a time in
+   * streaming mode, or zero if packets are requested one per sample
+   */
+  public int getLoopBatchSize(){
+    return this.loopBatchSize;
+  }
+
   /**
    * A method that queries the instrument to obtain its ID
    */
@@ -1108,6 +1233,21 @@ public class DavisWxSource extends RBNBSource {
       }
     }
 
+    // handle the -L option, test if it's an integer
+    if ( command.hasOption("L") ) {
+      String loopBatchSize = command.getOptionValue("L");
+      if ( loopBatchSize != null ) {
+        try {
+          setLoopBatchSize(Integer.parseInt(loopBatchSize));
+          
+        } catch ( NumberFormatException nfe ){
+          log.info("Error: Enter a numeric value for the LOOP batch size. " +
+                             loopBatchSize + " is not a valid number.");
+          return false;
+        }
+      }
+    }
+
     return true;
   }
 
@@ -1151,6 +1291,21 @@ public class DavisWxSource extends RBNBSource {
     this.sourceHostPort = hostPort;
   }
 
+  /**
+   * A method that sets the number of LOOP packets requested at a time.  A
+   * batch size above zero streams the packets continuously (the console
+   * accepts up to 65535 per request), and zero requests one per sample.
+   *
+   * @param loopBatchSize  the number of LOOP packets per request
+   */
+  public void setLoopBatchSize(int loopBatchSize) {
+    if ( loopBatchSize < 0 || loopBatchSize > 65535 ) {
+      throw new IllegalArgumentException("The LOOP batch size must be " +
+                                         "between 0 and 65535.");
+    }
+    this.loopBatchSize = loopBatchSize;
+  }
+
   /**
    * A method that sets the command line options for this class.  This method 
    * calls the <code>RBNBSource.setBaseOptions()</code> method in order to set
@@ -1176,6 +1331,7 @@ public class DavisWxSource extends RBNBSource {
     options.addOption("H", true, "Source host name or IP *" + getHostName());
     options.addOption("P", true, "Source host port number *" + getHostPort());    
     options.addOption("C", true, "RBNB source channel name *" + getRBNBChannelName());
+    options.addOption("L", true, "LOOP packets per streaming request, 0 for one per sample *" + getLoopBatchSize());
     //options.addOption("M", true, "RBNB archive mode *" + getArchiveMode());    
                       
     return options;
@@ -22,12 +22,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.FileOutputStream;
 
-import java.text.DateFormat;
+import java.nio.file.Files;
 
-import java.util.Arrays;
 import java.util.Date;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.zip.GZIPOutputStream;
 
 
 import com.rbnb.sapi.ChannelMap;
@@ -39,12 +39,18 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import edu.hawaii.soest.kilonalu.utilities.FileArchiveUtility;
+import edu.hawaii.soest.kilonalu.utilities.SyncPolicy;
+
 import org.nees.rbnb.RBNBBase;
+import org.nees.rbnb.SinkConnectionManager;
 
 /**
  * This class grabs data from a Davis Instruments Vantage Pro 2 weather station
  * data source and converts certain channels to an ad hoc XML syntax used to 
- * update an HTML weather page.
+ * update an HTML weather page.  By default the newest values are fetched
+ * every export interval; with -u the weather channels are subscribed to and
+ * the file is only rewritten when a value changes.
  * 
  * @author Christopher Jones
  */
@@ -57,13 +63,25 @@ public class DavisWxXMLSink extends RBNBBase {
   /** the export file */
   private File xmlFile;
   
-  /** the export file output stream*/
-  private FileOutputStream fileOutputStream;
+  /** whether or not a gzip compressed copy of the export file is also written */
+  private boolean compressedCopy = false;
+  
+  /** whether or not the file is updated as frames arrive, rather than on a schedule */
+  private boolean updateOnChange = false;
+  
+  /** the newest weather values, rendered as the export file */
+  private DavisWxDocument wxDocument = new DavisWxDocument();
+  
+  /** the time to wait for a subscribed frame before fetching again (in milliseconds) */
+  private static final long SUBSCRIBE_FETCH_TIMEOUT = 60000L;
+  
+  /** the time to wait before subscribing again after an error (in milliseconds) */
+  private static final long RETRY_INTERVAL = 5000L;
   
   /** the RBNB sink name */
   private String sinkName = "DavisWxXMLSink";
 
-  /** the RBNB sink */
+  /** the RBNB sink, borrowed from the connection manager during an export */
   private Sink sink;
   
   /** the RBNB source name */
@@ -94,7 +112,6 @@ public class DavisWxXMLSink extends RBNBBase {
    */
   public DavisWxXMLSink() {
     super();    
-    sink = new Sink();
   }
   
   /**
@@ -108,6 +125,13 @@ public class DavisWxXMLSink extends RBNBBase {
         
     if ( davisWxXMLSink.parseArgs(args) ) {
       
+      if ( davisWxXMLSink.updateOnChange ) {
+        
+        // export data as it changes
+        davisWxXMLSink.stream();
+        
+      } else {
+        
         // export data on a schedule
 
         TimerTask exportXML = new TimerTask() {
@@ -121,7 +145,7 @@ public class DavisWxXMLSink extends RBNBBase {
         // run the exportXML timer task on the hour, every hour
         exportTimer.scheduleAtFixedRate(exportXML, 
           new Date(), davisWxXMLSink.exportInterval);      
-
+      }
     }
   }
   
@@ -132,6 +156,8 @@ public class DavisWxXMLSink extends RBNBBase {
   protected Options setOptions() {
     Options opt = setBaseOptions(new Options()); // uses h, s, p
     opt.addOption("f", true, "File output path of the XML file");
+    opt.addOption("u", false, "Update the XML file when a value changes, rather than every export interval");
+    opt.addOption("g", false, "Also write a gzip compressed copy of the XML file, with a .gz suffix");
     
     return opt;
   }
@@ -149,6 +175,9 @@ public class DavisWxXMLSink extends RBNBBase {
         this.xmlFile = new File(a);
     }
     
+    this.updateOnChange = cmd.hasOption('u');
+    this.compressedCopy = cmd.hasOption('g');
+    
     return setBaseArgs(cmd);
     
   }
@@ -184,55 +213,8 @@ public class DavisWxXMLSink extends RBNBBase {
     
       try {
         ChannelMap requestMap = new ChannelMap();
-        
-        String fullSourceName = "/KNHIGCampusDataTurbine" + 
-                                "/" + this.getRBNBClientName() + "/";
-        int channelIndex = 0;
-        
-        // add the barTrendAsString field data
-        channelIndex = requestMap.Add(fullSourceName + "barTrendAsString");                // Falling Slowly
-        
-        // add the barometer field data
-        channelIndex = requestMap.Add(fullSourceName + "barometer");                      // 29.9
-        
-        // add the insideTemperature field data
-        channelIndex = requestMap.Add(fullSourceName + "insideTemperature");               // 83.9
-        
-        // add the insideHumidity field data
-        channelIndex = requestMap.Add(fullSourceName + "insideHumidity");                  // 51
-        
-        // add the outsideTemperature field data
-        channelIndex = requestMap.Add(fullSourceName + "outsideTemperature");              // 76.7
-        
-        // add the windSpeed field data
-        channelIndex = requestMap.Add(fullSourceName + "windSpeed");                       // 5
-        
-        // add the tenMinuteAverageWindSpeed field data
-        channelIndex = requestMap.Add(fullSourceName + "tenMinuteAverageWindSpeed");      // 4
-        
-        // add the windDirection field data
-        channelIndex = requestMap.Add(fullSourceName + "windDirection");                   // 80
-        
-        // add the outsideHumidity field data
-        channelIndex = requestMap.Add(fullSourceName + "outsideHumidity");                 // 73
-        
-        // add the rainRate field data
-        channelIndex = requestMap.Add(fullSourceName + "rainRate");                        // 0.0
-        
-        // add the uvRadiation field data
-        channelIndex = requestMap.Add(fullSourceName + "uvRadiation");                     // 0
-        
-        // add the solarRadiation field data
-        channelIndex = requestMap.Add(fullSourceName + "solarRadiation");                  // 0.0
-        
-        // add the dailyRain field data
-        channelIndex = requestMap.Add(fullSourceName + "dailyRain");                       // 0.0
-        
-        // add the monthlyRain field data
-        channelIndex = requestMap.Add(fullSourceName + "monthlyRain");                     // 0.0
-        
-        // add the forecastAsString field data
-        channelIndex = requestMap.Add(fullSourceName + "forecastAsString");                // Partially Cloudy
+        String fullSourceName = getFullSourceName();
+        DavisWxDocument.addChannels(requestMap, fullSourceName);
       
         // make the request to the DataTurbine for the above channels
         sink.Request(requestMap, 0.0, 0.0, "newest");
@@ -242,44 +224,9 @@ public class DavisWxXMLSink extends RBNBBase {
         int index = responseMap.GetIndex(fullSourceName + "barTrendAsString");
         
         if ( index >= 0 ) {
-          // convert sec to millisec
-          double timestamp = responseMap.GetTimes(index)[0];
-          long unixTime = (long) (timestamp * 1000.0);        
-
-          // get the updateDate
-          Date updateDate = new Date(unixTime);
-          String updateDateString = 
-            DateFormat.getDateTimeInstance(DateFormat.LONG, 
-                                           DateFormat.LONG).format(updateDate);
-          
-          // create the ad hoc XML file from the data from the DataTurbine
-          this.fileOutputStream = new FileOutputStream(xmlFile);
-          StringBuilder sb = new StringBuilder();
-
-          sb.append("<?xml version=\"1.0\"?>\n");
-          sb.append("<wx>\n");
-          sb.append("  <updatetime>"  + updateDateString + "</updatetime>\n");
-          sb.append("  <barotrend>"   + responseMap.GetDataAsString(responseMap.GetIndex(fullSourceName             + "barTrendAsString")         )[0]              + "</barotrend>\n" );
-          sb.append("  <baropress>"   + String.format("%5.3f",  (Object)(new Float(responseMap.GetDataAsFloat32(responseMap.GetIndex(fullSourceName + "barometer")                )[0]))) + "</baropress>\n" );
-          sb.append("  <outtemp>"     + String.format("%4.1f",  (Object)(new Float(responseMap.GetDataAsFloat32(responseMap.GetIndex(fullSourceName + "outsideTemperature")       )[0]))) + "</outtemp>\n"   );
-          sb.append("  <intemp>"      + String.format("%4.1f",  (Object)(new Float(responseMap.GetDataAsFloat32(responseMap.GetIndex(fullSourceName + "insideTemperature")        )[0]))) + "</intemp>\n"    );
-          sb.append("  <inrelhum>"    + String.format("%3d",    (Object)(new Integer(responseMap.GetDataAsInt32(responseMap.GetIndex(fullSourceName + "insideHumidity")           )[0]))) + "</inrelhum>\n"  );
-          sb.append("  <outrelhum>"   + String.format("%3d",    (Object)(new Integer(responseMap.GetDataAsInt32(responseMap.GetIndex(fullSourceName + "outsideHumidity")          )[0]))) + "</outrelhum>\n" );
-          sb.append("  <windspd>"     + String.format("%3d",    (Object)(new Integer(responseMap.GetDataAsInt32(responseMap.GetIndex(fullSourceName + "windSpeed")                )[0]))) + "</windspd>\n"   );
-          sb.append("  <winddir>"     + String.format("%3d",    (Object)(new Integer(responseMap.GetDataAsInt32(responseMap.GetIndex(fullSourceName + "windDirection")            )[0]))) + "</winddir>\n"   );
-          sb.append("  <windavg>"     + String.format("%3d",    (Object)(new Integer(responseMap.GetDataAsInt32(responseMap.GetIndex(fullSourceName + "tenMinuteAverageWindSpeed"))[0]))) + "</windavg>\n"   );
-          sb.append("  <todayrain>"   + String.format("%4.2f",  (Object)(new Float(responseMap.GetDataAsFloat32(responseMap.GetIndex(fullSourceName + "dailyRain")                )[0]))) + "</todayrain>\n" );
-          sb.append("  <monthrain>"   + String.format("%4.2f",  (Object)(new Float(responseMap.GetDataAsFloat32(responseMap.GetIndex(fullSourceName + "monthlyRain")              )[0]))) + "</monthrain>\n" );
-          sb.append("  <rainrate>"    + String.format("%4.2f",  (Object)(new Float(responseMap.GetDataAsFloat32(responseMap.GetIndex(fullSourceName + "rainRate")                 )[0]))) + "</rainrate>\n"  );
-          sb.append("  <uv>"          + String.format("%4d",    (Object)(new Integer(responseMap.GetDataAsInt32(responseMap.GetIndex(fullSourceName + "uvRadiation")              )[0]))) + "</uv>\n"        );
-          sb.append("  <solrad>"      + String.format("%4.0f",  (Object)(new Float(responseMap.GetDataAsFloat32(responseMap.GetIndex(fullSourceName + "solarRadiation")           )[0]))) + "</solrad>\n"    );
-          sb.append("  <forecast>"    + responseMap.GetDataAsString(responseMap.GetIndex(fullSourceName             + "forecastAsString")         )[0]              + "</forecast>\n"  );
-          sb.append("</wx>\n");
-          
-          log.info("\n" + sb.toString());
-          
-          this.fileOutputStream.write(sb.toString().getBytes());
-          this.fileOutputStream.close();
+          this.wxDocument.update(responseMap, fullSourceName);
+          this.wxDocument.setUpdateTime(responseMap.GetTimes(index)[0]);
+          writeDocument();
           
         } else {
           log.debug("The index is out of bounds: " + index);
@@ -302,6 +249,7 @@ public class DavisWxXMLSink extends RBNBBase {
         return false;
         
       }
+      release();
       return true;
       
     } else {
@@ -311,6 +259,108 @@ public class DavisWxXMLSink extends RBNBBase {
   }
   
 
+  /**
+   * Export data to disk as it changes.  A subscription to the weather channels
+   * is kept open, each frame updates the document, and the file is rewritten
+   * only when a displayed value changes, so the update time in the file is
+   * the time of the newest change.  The subscription is opened again after a
+   * DataTurbine or file error.  This method returns when the thread is
+   * interrupted.
+   * 
+   * The subscription holds its connection for as long as it runs, so it uses
+   * a dedicated sink rather than one borrowed from the connection manager.
+   */
+  public void stream() {
+    log.trace("DavisWxXMLSink.stream() called.");
+    
+    this.sinkName = this.getRBNBClientName();
+    
+    while ( ! Thread.currentThread().isInterrupted() ) {
+      
+      Sink subscribeSink = new Sink();
+      try {
+        subscribeSink.OpenRBNBConnection(getServer(), this.sinkName);
+        
+        ChannelMap subscribeMap = new ChannelMap();
+        String fullSourceName = getFullSourceName();
+        DavisWxDocument.addChannels(subscribeMap, fullSourceName);
+        subscribeSink.Subscribe(subscribeMap, 0.0, 0.0, "newest");
+        
+        while ( ! Thread.currentThread().isInterrupted() ) {
+          ChannelMap responseMap = subscribeSink.Fetch(SUBSCRIBE_FETCH_TIMEOUT);
+          if ( responseMap.GetIfFetchTimedOut() ) {
+            continue;
+            
+          }
+          
+          if ( this.wxDocument.update(responseMap, fullSourceName) ) {
+            this.wxDocument.setUpdateTime(this.wxDocument.getNewestTime());
+            writeDocument();
+            
+          }
+        }
+      } catch ( java.io.IOException ioe ) {
+        log.debug("Error: There was a problem writing to the XML file.");
+        log.debug("Error message: " + ioe.getMessage());
+        
+      } catch ( com.rbnb.sapi.SAPIException sapie ){
+        log.debug("Error: There was a problem with the DataTurbine connection.");
+        log.debug("Error message: " + sapie.getMessage());
+        
+      } finally {
+        subscribeSink.CloseRBNBConnection();
+        
+      }
+      
+      try {
+        Thread.sleep(RETRY_INTERVAL);
+        
+      } catch ( InterruptedException ie ) {
+        return;
+        
+      }
+    }
+  }
+  
+  /*
+   * Writes the document to the XML file, and its compressed copy if enabled.
+   * Each file is written next to its target and renamed into place, so the
+   * web server never reads a partial file.
+   */
+  private void writeDocument() throws IOException {
+    String xml = this.wxDocument.toXML();
+    log.info("\n" + xml);
+    
+    byte[] xmlBytes = xml.getBytes();
+    File tempFile = FileArchiveUtility.createTempFile(this.xmlFile);
+    try {
+      Files.write(tempFile.toPath(), xmlBytes);
+      FileArchiveUtility.publishFile(tempFile, this.xmlFile, SyncPolicy.NONE);
+      
+      if ( this.compressedCopy ) {
+        File compressedFile = new File(this.xmlFile.getPath() + ".gz");
+        tempFile = FileArchiveUtility.createTempFile(compressedFile);
+        try ( GZIPOutputStream gzipOutputStream = 
+                new GZIPOutputStream(new FileOutputStream(tempFile)) ) {
+          gzipOutputStream.write(xmlBytes);
+          
+        }
+        FileArchiveUtility.publishFile(tempFile, compressedFile, SyncPolicy.NONE);
+      }
+    } finally {
+      Files.deleteIfExists(tempFile.toPath());
+      
+    }
+  }
+  
+  /*
+   * Returns the full DataTurbine path of the weather source, ending in "/"
+   */
+  private String getFullSourceName() {
+    return "/KNHIGCampusDataTurbine" + 
+           "/" + this.getRBNBClientName() + "/";
+  }
+  
   /**
    * Connect to the RBNB server.
    * 
@@ -323,7 +373,7 @@ public class DavisWxXMLSink extends RBNBBase {
     }
     
     try {
-      sink.OpenRBNBConnection(getServer(), sinkName);
+      sink = SinkConnectionManager.getInstance().borrowSink(getServer());
       
     } catch ( SAPIException e ) {
       log.debug("Error: Unable to connect to server.");
@@ -337,7 +387,7 @@ public class DavisWxXMLSink extends RBNBBase {
   }
   
   /**
-   * Disconnects from the RBNB server.
+   * Disconnects from the RBNB server, discarding the borrowed connection.
    */
   private void disconnect() {
     log.trace("DavisWxXMLSink.disconnect() called.");
@@ -345,14 +395,22 @@ public class DavisWxXMLSink extends RBNBBase {
       return;
     }
 
-    try {
-      sink.CloseRBNBConnection();
-      this.fileOutputStream.close();
-      
-    } catch (java.io.IOException ioe){
-       ioe.printStackTrace();
-       connected = false;
+    SinkConnectionManager.getInstance().invalidateSink(sink);
+    sink = null;
+    connected = false;
+  }
+  
+  /**
+   * Returns the borrowed connection to the connection manager for reuse.
+   */
+  private void release() {
+    log.trace("DavisWxXMLSink.release() called.");
+    if (!isConnected()) {
+      return;
     }
+
+    SinkConnectionManager.getInstance().releaseSink(sink);
+    sink = null;
     connected = false;
   }
   
@@ -0,0 +1,174 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The position of a streaming archiver: the timestamp of the last frame
+ * written, the archive file it was written to, and the length of that file
+ * after the write.  On restart, the archive file is truncated back to the
+ * recorded length and frames at or before the recorded time are skipped, so
+ * no frame is written twice.  The checkpoint is a small properties file that
+ * is replaced atomically each time it is saved.
+ */
+public class ArchiveCheckpoint {
+
+    /** The Logger instance used to log system messages */
+    private static final Log log = LogFactory.getLog(ArchiveCheckpoint.class);
+
+    /* The properties file holding the checkpoint */
+    private final File checkpointFile;
+
+    /* The timestamp of the last frame written, in seconds since the epoch */
+    private double lastFrameTime = -Double.MAX_VALUE;
+
+    /* The archive file the last frame was written to */
+    private File archiveFile;
+
+    /* The length of the archive file after the last frame was written */
+    private long archiveFileLength;
+
+    /**
+     * Construct a checkpoint stored in the given file
+     * @param checkpointFile the properties file holding the checkpoint
+     */
+    public ArchiveCheckpoint(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Load the checkpoint from its file, if it exists
+     * @return true if a checkpoint was loaded
+     * @throws IOException if the checkpoint file can't be read
+     */
+    public boolean load() throws IOException {
+        if ( ! checkpointFile.exists() ) {
+            return false;
+        }
+
+        Properties properties = new Properties();
+        try ( InputStream in = new FileInputStream(checkpointFile) ) {
+            properties.load(in);
+        }
+
+        try {
+            lastFrameTime = Double.parseDouble(properties.getProperty("lastFrameTime"));
+            archiveFile = new File(properties.getProperty("archiveFile"));
+            archiveFileLength = Long.parseLong(properties.getProperty("archiveFileLength"));
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IOException("The checkpoint " + checkpointFile.getPath() + " is incomplete.");
+        }
+        return true;
+    }
+
+    /**
+     * Truncate the checkpointed archive file back to its recorded length,
+     * dropping anything written after the checkpoint was saved
+     * @throws IOException if the archive file can't be truncated
+     */
+    public void restore() throws IOException {
+        if ( archiveFile == null || ! archiveFile.exists() ) {
+            return;
+        }
+
+        if ( archiveFile.length() > archiveFileLength ) {
+            log.info("Truncating " + archiveFile.getPath() + " from " + archiveFile.length() +
+                " to " + archiveFileLength + " bytes to resume from the checkpoint.");
+            try ( FileChannel channel = FileChannel.open(archiveFile.toPath(), StandardOpenOption.WRITE) ) {
+                channel.truncate(archiveFileLength);
+            }
+        }
+    }
+
+    /**
+     * Record and save the archiver position
+     * @param lastFrameTime the timestamp of the last frame written
+     * @param archiveFile the archive file the frame was written to
+     * @param archiveFileLength the length of the archive file after the write
+     * @param syncPolicy the policy used to force the checkpoint to disk
+     * @throws IOException if the checkpoint can't be written
+     */
+    public void save(double lastFrameTime, File archiveFile, long archiveFileLength,
+                     SyncPolicy syncPolicy) throws IOException {
+        this.lastFrameTime = lastFrameTime;
+        this.archiveFile = archiveFile;
+        this.archiveFileLength = archiveFileLength;
+
+        Properties properties = new Properties();
+        properties.setProperty("lastFrameTime", Double.toString(lastFrameTime));
+        properties.setProperty("archiveFile", archiveFile.getPath());
+        properties.setProperty("archiveFileLength", Long.toString(archiveFileLength));
+
+        FileArchiveUtility.confirmCreateDirPath(checkpointFile.getAbsoluteFile().getParentFile());
+        File temp = FileArchiveUtility.createTempFile(checkpointFile);
+        try {
+            try ( OutputStream out = new FileOutputStream(temp) ) {
+                properties.store(out, "Streaming archiver checkpoint");
+            }
+            FileArchiveUtility.publishFile(temp, checkpointFile, syncPolicy);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Get the timestamp of the last frame written
+     * @return lastFrameTime the timestamp in seconds since the epoch
+     */
+    public double getLastFrameTime() {
+        return lastFrameTime;
+    }
+
+    /**
+     * Get the archive file the last frame was written to
+     * @return archiveFile the archive file, or null if nothing was written
+     */
+    public File getArchiveFile() {
+        return archiveFile;
+    }
+
+    /**
+     * Get the length of the archive file after the last frame was written
+     * @return archiveFileLength the length in bytes
+     */
+    public long getArchiveFileLength() {
+        return archiveFileLength;
+    }
+
+    /**
+     * Get the properties file holding the checkpoint
+     * @return checkpointFile the checkpoint file
+     */
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: A class that sends commands to an instrument and waits for the
+ *             expected responses
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ *  A class that runs an expect-style command dialog with an instrument over a
+ *  ByteChannel.  Each step sends a command and returns as soon as the
+ *  instrument's response matches an expected pattern, such as a prompt,
+ *  rather than sleeping for a fixed time.  A step that sees no match within
+ *  its timeout sends the command again, up to its number of attempts, and
+ *  then fails with a TimeoutException.  The time each step took to answer is
+ *  logged and kept for {@link #getLatencies()}, and each completed step is
+ *  added to a timeline that can be started over for each session, such as a
+ *  modem call, to measure where the session's time went.
+ *  <p>
+ *  Socket channels are switched to non-blocking mode and read through a
+ *  Selector, so a timeout is honored even if the instrument goes quiet.
+ *  A {@link TimedByteChannel}, like the SerialChannel, is read with timed
+ *  reads of the raw bytes, so it honors timeouts and sees unterminated
+ *  prompts too.  Any other channel is read with blocking reads, and its
+ *  timeouts are only checked between reads.  Call {@link #release()} when
+ *  the dialog is done to return the channel to blocking mode for streaming.
+ */
+public class CommandResponseEngine {
+
+  /* The Logger instance used to log system messages */
+  private static Log log = LogFactory.getLog(CommandResponseEngine.class);
+
+  /*  The default time the input must be quiet before a command is sent, in ms */
+  private static final long DEFAULT_QUIET_PERIOD = 100L;
+
+  /*  The channel used to talk to the instrument */
+  private final ByteChannel channel;
+
+  /*  The selector used to wait for input, or null if the channel blocks */
+  private Selector selector;
+
+  /*  The channel as a timed channel, or null if it isn't one */
+  private final TimedByteChannel timedChannel;
+
+  /*  The buffer that each read from the channel goes into */
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+
+  /*  The text received since the last command was sent */
+  private final StringBuilder received = new StringBuilder();
+
+  /*  The latency of each completed step, in ms, in the order they ran */
+  private final Map<String, Long> latencies = new LinkedHashMap<String, Long>();
+
+  /*  The time the input must be quiet before a command is sent, in ms */
+  private long quietPeriod = DEFAULT_QUIET_PERIOD;
+
+  /*  The steps completed since the timeline was started, in order */
+  private final List<TimelineEntry> timeline = new ArrayList<TimelineEntry>();
+
+  /*  The time the timeline was started, in ns */
+  private long timelineStart = System.nanoTime();
+
+  /**
+   *  Constructor:  Builds an engine for the given instrument channel.  A
+   *  selectable channel is switched to non-blocking mode until release().
+   *
+   *  @param channel  the channel connected to the instrument
+   *  @throws IOException  if the channel can't be registered for reading
+   */
+  public CommandResponseEngine(ByteChannel channel) throws IOException {
+    this.channel = channel;
+    this.timedChannel = ( channel instanceof TimedByteChannel ) ?
+      (TimedByteChannel) channel : null;
+
+    if ( channel instanceof SelectableChannel ) {
+      SelectableChannel selectableChannel = (SelectableChannel) channel;
+      selectableChannel.configureBlocking(false);
+      this.selector = Selector.open();
+      selectableChannel.register(this.selector, SelectionKey.OP_READ);
+
+    }
+  }
+
+  /**
+   *  A method that sends a command and waits for a response matching the
+   *  expected pattern.  Input left over from earlier commands is discarded
+   *  first, once the channel has been quiet for the quiet period.
+   *
+   *  @param step      the name of the step, used in the log and latencies
+   *  @param command   the command to send, including any line terminator
+   *  @param expected  the pattern that ends the response
+   *  @param timeout   the time to wait for each attempt, in ms
+   *  @param attempts  the number of times to send the command
+   *  @return response  the text received before the match
+   *  @throws IOException  if the channel fails or is closed by the instrument
+   *  @throws TimeoutException  if no attempt saw a match in time
+   */
+  public String expect(String step, String command, final Pattern expected,
+                       long timeout, int attempts)
+    throws IOException, TimeoutException {
+
+    Completion completion = new Completion() {
+      public int[] find(CharSequence text) {
+        Matcher matcher = expected.matcher(text);
+        return matcher.find() ? new int[] {matcher.start(), matcher.end()} : null;
+      }
+    };
+    return run(step, command, true, completion,
+               "matching '" + expected.pattern() + "'", timeout, attempts);
+  }
+
+  /**
+   *  A method that sends a command and waits for a response of a fixed
+   *  number of bytes, such as a block of a file transfer.  The command is
+   *  only sent once, since sending it again would start a second transfer.
+   *
+   *  @param step     the name of the step, used in the log and latencies
+   *  @param command  the command to send, including any line terminator
+   *  @param length   the number of bytes in the response
+   *  @param timeout  the time to wait for the whole response, in ms
+   *  @return response  the bytes of the response
+   *  @throws IOException  if the channel fails or is closed by the instrument
+   *  @throws TimeoutException  if the response wasn't complete in time
+   */
+  public byte[] expectBytes(String step, String command, final int length,
+                            long timeout)
+    throws IOException, TimeoutException {
+
+    Completion completion = new Completion() {
+      public int[] find(CharSequence text) {
+        return text.length() >= length ? new int[] {length, length} : null;
+      }
+    };
+    String response = run(step, command, true, completion,
+                          "of " + length + " bytes", timeout, 1);
+    return response.getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   *  A method that waits for unsolicited input matching the expected pattern,
+   *  such as a modem's RING, without sending a command.  Input that arrived
+   *  after the previous step's response is kept.
+   *
+   *  @param step      the name of the step, used in the log and latencies
+   *  @param expected  the pattern to wait for
+   *  @param timeout   the time to wait, in ms
+   *  @return response  the text received before the match
+   *  @throws IOException  if the channel fails or is closed by the instrument
+   *  @throws TimeoutException  if there was no match in time
+   */
+  public String await(String step, final Pattern expected, long timeout)
+    throws IOException, TimeoutException {
+
+    Completion completion = new Completion() {
+      public int[] find(CharSequence text) {
+        Matcher matcher = expected.matcher(text);
+        return matcher.find() ? new int[] {matcher.start(), matcher.end()} : null;
+      }
+    };
+    return run(step, null, false, completion,
+               "matching '" + expected.pattern() + "'", timeout, 1);
+  }
+
+  /**
+   *  A method that sends a command without waiting for a response.
+   *
+   *  @param command  the command to send, including any line terminator
+   *  @throws IOException  if the channel fails
+   */
+  public void send(String command) throws IOException {
+    ByteBuffer commandBuffer =
+      ByteBuffer.wrap(command.getBytes(StandardCharsets.US_ASCII));
+
+    while ( commandBuffer.hasRemaining() ) {
+      if ( this.channel.write(commandBuffer) == 0 ) {
+        Thread.yield();
+
+      }
+    }
+    log.debug("Wrote " + command.trim() + " to the instrument channel.");
+  }
+
+  /**
+   *  A method that returns the latency of each completed step, in ms, in the
+   *  order the steps ran.  A step that ran more than once keeps its last time.
+   *
+   *  @return latencies  the step latencies by step name
+   */
+  public Map<String, Long> getLatencies() {
+    return Collections.unmodifiableMap(this.latencies);
+  }
+
+  /**
+   *  A method that starts the timeline over, such as at the start of a modem
+   *  call.  Later step offsets are measured from now.
+   */
+  public void startTimeline() {
+    this.timeline.clear();
+    this.timelineStart = System.nanoTime();
+  }
+
+  /**
+   *  A method that returns the steps completed since the timeline was started,
+   *  in the order they completed.
+   *
+   *  @return timeline  the timeline entries
+   */
+  public List<TimelineEntry> getTimeline() {
+    return Collections.unmodifiableList(this.timeline);
+  }
+
+  /**
+   *  A method that returns the time since the timeline was started.
+   *
+   *  @return elapsed  the elapsed time, in ms
+   */
+  public long getTimelineElapsed() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.timelineStart);
+  }
+
+  /**
+   *  A method that sets the time the input must be quiet before a command is
+   *  sent.  Use 0 to only discard input that has already arrived.
+   *
+   *  @param quietPeriod  the quiet period, in ms
+   */
+  public void setQuietPeriod(long quietPeriod) {
+    this.quietPeriod = Math.max(0L, quietPeriod);
+  }
+
+  /**
+   *  A method that ends the dialog.  The selector is closed, and a selectable
+   *  channel is put back in blocking mode.  The channel itself stays open.
+   *
+   *  @throws IOException  if the channel mode can't be restored
+   */
+  public void release() throws IOException {
+    if ( this.selector != null ) {
+      this.selector.close();
+      this.selector = null;
+      ((SelectableChannel) this.channel).configureBlocking(true);
+
+    }
+  }
+
+  /*
+   *  Sends the command, if any, and reads until the completion finds the end
+   *  of the response, sending the command again after each timeout until the
+   *  attempts are used up.  Returns the response and consumes it and its
+   *  terminator from the received text.
+   */
+  private String run(String step, String command, boolean discard,
+                     Completion completion, String description,
+                     long timeout, int attempts)
+    throws IOException, TimeoutException {
+
+    for ( int attempt = 1; attempt <= attempts; attempt++ ) {
+      if ( discard ) {
+        discardInput();
+
+      }
+      long start = System.nanoTime();
+      long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+      if ( command != null ) {
+        send(command);
+
+      }
+
+      while ( true ) {
+        int[] found = completion.find(this.received);
+        if ( found != null ) {
+          String response = this.received.substring(0, found[0]);
+          this.received.delete(0, found[1]);
+
+          long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+          this.latencies.put(step, latency);
+          this.timeline.add(new TimelineEntry(step,
+            TimeUnit.NANOSECONDS.toMillis(start - this.timelineStart), latency, attempt));
+          log.info(step + " answered in " + latency + " ms" +
+                   (attempt > 1 ? " on attempt " + attempt + "." : "."));
+          return response;
+
+        }
+
+        if ( Thread.currentThread().isInterrupted() ) {
+          throw new InterruptedIOException(step + " was interrupted.");
+
+        }
+        long remaining = deadline - System.nanoTime();
+        if ( remaining <= 0 ) {
+          break;
+
+        }
+        if ( read(TimeUnit.NANOSECONDS.toMillis(remaining) + 1) < 0 ) {
+          throw new EOFException("The instrument closed the connection during " +
+                                 step + ".");
+        }
+      }
+      log.info(step + " got no response in " + timeout + " ms " +
+               "(attempt " + attempt + " of " + attempts + ").");
+    }
+
+    throw new TimeoutException(step + " got no response " + description +
+                               " in " + attempts + " attempts.");
+  }
+
+  /*
+   *  Discards the received text, and with a selector or timed channel, any
+   *  input that arrives until the channel has been quiet for the quiet period
+   */
+  private void discardInput() throws IOException {
+    if ( this.selector != null || this.timedChannel != null ) {
+      while ( read(this.quietPeriod) > 0 ) {
+        // keep reading until the instrument is quiet
+      }
+    }
+    this.received.setLength(0);
+  }
+
+  /*
+   *  Reads what is available into the received text, waiting up to the given
+   *  time when there is a selector or timed channel.  Returns the bytes read,
+   *  or -1 at the end of the stream.
+   */
+  private int read(long timeout) throws IOException {
+    if ( this.selector != null ) {
+      int ready = timeout > 0 ? this.selector.select(timeout) : this.selector.selectNow();
+      this.selector.selectedKeys().clear();
+      if ( ready == 0 ) {
+        return 0;
+
+      }
+    }
+
+    this.readBuffer.clear();
+    int count = ( this.timedChannel != null ) ?
+      this.timedChannel.read(this.readBuffer, timeout) :
+      this.channel.read(this.readBuffer);
+    this.readBuffer.flip();
+    while ( this.readBuffer.hasRemaining() ) {
+      this.received.append((char) (this.readBuffer.get() & 0xFF));
+
+    }
+    return count;
+  }
+
+  /*
+   *  Finds the end of a response in the received text, returning the end of
+   *  the response and the end of its terminator, or null if it isn't complete
+   */
+  private interface Completion {
+    int[] find(CharSequence text);
+  }
+
+  /**
+   *  A completed step of a dialog, with the time its command was sent relative
+   *  to the start of the timeline and the time it took to answer.
+   */
+  public static class TimelineEntry {
+
+    /*  The name of the step */
+    private final String step;
+
+    /*  The time the step's command was sent, in ms from the timeline start */
+    private final long offset;
+
+    /*  The time the step took to answer, in ms */
+    private final long latency;
+
+    /*  The attempt that was answered */
+    private final int attempt;
+
+    /*
+     *  Builds an entry for a completed step
+     */
+    private TimelineEntry(String step, long offset, long latency, int attempt) {
+      this.step = step;
+      this.offset = offset;
+      this.latency = latency;
+      this.attempt = attempt;
+    }
+
+    /**
+     *  @return step  the name of the step
+     */
+    public String getStep() {
+      return this.step;
+    }
+
+    /**
+     *  @return offset  the time the step's command was sent, in ms from the
+     *                  timeline start
+     */
+    public long getOffset() {
+      return this.offset;
+    }
+
+    /**
+     *  @return latency  the time the step took to answer, in ms
+     */
+    public long getLatency() {
+      return this.latency;
+    }
+
+    /**
+     *  @return attempt  the attempt that was answered, starting at 1
+     */
+    public int getAttempt() {
+      return this.attempt;
+    }
+
+    /**
+     *  @return entry  the entry as "step +offset ms: latency ms"
+     */
+    public String toString() {
+      return this.step + " +" + this.offset + " ms: " + this.latency + " ms" +
+             (this.attempt > 1 ? " (attempt " + this.attempt + ")" : "");
+    }
+  }
+}
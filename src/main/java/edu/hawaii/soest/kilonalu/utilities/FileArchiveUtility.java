@@ -29,10 +29,17 @@
 package edu.hawaii.soest.kilonalu.utilities;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.TimeZone;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -175,4 +182,71 @@ public class FileArchiveUtility {
     return testPath.mkdirs();
   }
 
+  /**
+   * Create an empty temporary file next to the given archive file.  Writing
+   * to a sibling (rather than to the system temp directory) keeps the final
+   * rename on the same file system, so it can be done atomically.  The name
+   * starts with a dot so directory crawlers ignore it while it is written.
+   *
+   * @param target the archive file that will eventually be published
+   * @return the temporary file
+   * @throws IOException if the temporary file can't be created
+   */
+  public static File createTempFile(File target) throws IOException {
+    log.trace("FileArchiveUtility.createTempFile() called.");
+    File parent = target.getAbsoluteFile().getParentFile();
+    return File.createTempFile("." + target.getName() + ".", ".tmp", parent);
+  }
+
+  /**
+   * Publish a fully written temporary file at the target path.  The temporary
+   * file is synced according to the given policy and renamed into place
+   * atomically, so readers see either the old file or the complete new one.
+   * If the target already holds identical bytes, the temporary file is
+   * discarded and the target is left untouched, which keeps its modification
+   * time stable for downstream change detection.
+   *
+   * @param temp the completely written temporary file
+   * @param target the archive file to publish
+   * @param syncPolicy the policy used to force the data to disk
+   * @return true if the target was replaced, false if it was unchanged
+   * @throws IOException if the temporary file can't be synced or moved
+   */
+  public static boolean publishFile(File temp, File target, SyncPolicy syncPolicy)
+    throws IOException {
+    log.trace("FileArchiveUtility.publishFile() called.");
+
+    if ( target.exists() && FileUtils.contentEquals(temp, target) ) {
+      Files.deleteIfExists(temp.toPath());
+      log.debug("Skipped publishing " + target.getPath() + ", the content is unchanged.");
+      return false;
+    }
+
+    if ( syncPolicy != SyncPolicy.NONE ) {
+      try ( FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE) ) {
+        channel.force(true);
+      }
+    }
+
+    try {
+      Files.move(temp.toPath(), target.toPath(),
+        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      log.warn("Atomic rename isn't supported for " + target.getPath() +
+        ", replacing it non-atomically.");
+      Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    if ( syncPolicy == SyncPolicy.DIRECTORY ) {
+      // Not every platform can open a directory for syncing, so this is best effort
+      File parent = target.getAbsoluteFile().getParentFile();
+      try ( FileChannel channel = FileChannel.open(parent.toPath(), StandardOpenOption.READ) ) {
+        channel.force(true);
+      } catch (IOException e) {
+        log.debug("Couldn't sync directory " + parent.getPath() + ": " + e.getMessage());
+      }
+    }
+    return true;
+  }
+
 }
\ No newline at end of file
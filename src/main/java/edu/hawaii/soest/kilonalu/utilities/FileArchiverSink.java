@@ -28,10 +28,13 @@ package edu.hawaii.soest.kilonalu.utilities;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.time.ZoneOffset;
 import java.text.SimpleDateFormat;
@@ -176,6 +179,24 @@ public class FileArchiverSink extends RBNBBase {
     /* The data prefix character from the configuration */
     private Character dataPrefix = null;
 
+    /* The policy used to force archive files to disk before publishing them */
+    private SyncPolicy syncPolicy = SyncPolicy.NONE;
+
+    /* True if frames are streamed to rolling files rather than archived on a schedule */
+    private boolean streaming = false;
+
+    /* The checkpoint file used to resume streaming, defaults to one in the archive directory */
+    private File checkpointFile;
+
+    /* The interval file currently being appended to when streaming */
+    private File streamFile;
+
+    /* The stream to the current interval file when streaming */
+    private FileOutputStream streamOutput;
+
+    /* The start of the current interval when streaming, in milliseconds since the epoch */
+    private long streamIntervalStart = -1L;
+
     /**
      * Constructor: creates FileArchiverSink.
      */
@@ -198,8 +219,12 @@ public class FileArchiverSink extends RBNBBase {
             setupShutdownHook(fileArchiverSink);
             setupProgressListener(fileArchiverSink);
 
+            // stream data continuously to rolling interval files
+            if ( fileArchiverSink.isStreaming() ) {
+                fileArchiverSink.stream();
+
             // archive data on a schedule
-            if ( fileArchiverSink.getArchiveInterval() > 0 ) {
+            } else if ( fileArchiverSink.getArchiveInterval() > 0 ) {
                 // override the command line start and end times
                 fileArchiverSink.setupArchiveTime();
 
@@ -398,6 +423,8 @@ public class FileArchiverSink extends RBNBBase {
             .hasOptionalArg()
             .create("M"));
         opt.addOption("B", true, "Number of seconds to go back from now to set start time\n Mututally exclusive with -E and -S");
+        opt.addOption("F", true, "File sync policy (none, file, or directory, defaults to none)");
+        opt.addOption("R", false, "Stream data continuously to files rolled at each interval\n Requires -I");
 
         setNotes("Writes data frames between start time and end time to the " +
                  "directory structure starting at the base directory. The time " +
@@ -546,6 +573,26 @@ public class FileArchiverSink extends RBNBBase {
             }
         }
 
+        if ( cmd.hasOption("F") ) {
+            String a = cmd.getOptionValue("F");
+            if ( a != null ) {
+                try {
+                    setSyncPolicy(SyncPolicy.fromString(a));
+                } catch (IllegalArgumentException iae) {
+                    log.debug("[" + getSourceName() + "] " + "Please enter either none, file, or directory for the sync policy.");
+                    return false;
+                }
+            }
+        }
+
+        if ( cmd.hasOption("R") ) {
+            if ( getArchiveInterval() <= 0 ) {
+                log.debug("[" + getSourceName() + "] " + "Please enter an archiving interval (-I) when streaming.");
+                return false;
+            }
+            setStreaming(true);
+        }
+
         channelPath = sourceName + "/" + channelName;
 
         return validateSetup();
@@ -710,7 +757,7 @@ public class FileArchiverSink extends RBNBBase {
             timeRanges.add(new TimeRange(startTime, endTime));
         } else {
             try {
-                timeRanges = MarkerUtilities.getTimeRanges(sink, eventMarkerFilter, startTime, endTime);
+                timeRanges = MarkerUtilities.getTimeRanges(sink, getServer(), eventMarkerFilter, startTime, endTime);
             } catch (SAPIException e) {
                 log.error("[" + getSourceName() + "] " + "Error retrieving event markers from server.");
                 return false;
@@ -748,7 +795,8 @@ public class FileArchiverSink extends RBNBBase {
         log.trace("[" + getSourceName() + "] " + "FileArchiverSink.checkTimeRanges() called.");
         Node channelMetadata;
         try {
-            channelMetadata = RBNBUtilities.getMetadata(getServer(), channelPath);
+            // the start and duration move on every run, so skip the metadata cache
+            channelMetadata = RBNBUtilities.getMetadata(getServer(), channelPath, true);
         } catch (SAPIException e) {
             log.debug("[" + getSourceName() + "] " + "Error retrieving channel metadata from the server.");
             return false;
@@ -875,6 +923,59 @@ public class FileArchiverSink extends RBNBBase {
         this.dataPrefix = dataPrefix;
     }
 
+    /**
+     * Get the policy used to force archive files to disk before publishing them
+     * @return syncPolicy the sync policy
+     */
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Set the policy used to force archive files to disk before publishing them
+     * @param syncPolicy the sync policy
+     */
+    public void setSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    /**
+     * Decide if frames are streamed to rolling interval files
+     * @return true if streaming
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Set the streaming flag.  When streaming, the archiver holds a subscription
+     * on the channel and appends each frame to the file for its archive interval.
+     * @param streaming true if frames should be streamed
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Get the checkpoint file used to resume streaming
+     * @return checkpointFile the checkpoint file
+     */
+    public File getCheckpointFile() {
+        if ( checkpointFile == null ) {
+            return new File(archiveDirectory,
+                "." + channelPath.replace('/', '_') + ".checkpoint");
+        }
+        return checkpointFile;
+    }
+
+    /**
+     * Set the checkpoint file used to resume streaming
+     * @param checkpointFile the checkpoint file
+     */
+    public void setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
     /**
      * Set the convert samples flag
      * @param convertSamples true if the samples should be converted
@@ -1056,11 +1157,13 @@ public class FileArchiverSink extends RBNBBase {
 
             if (FileArchiveUtility.confirmCreateDirPath(output.getParentFile())) {
 
+                // Write to a sibling temporary file, and publish it when complete
+                File tempOutput = FileArchiveUtility.createTempFile(output);
                 FileOutputStream out = null;
                 try {
                     byte[] data = m.GetData(index);
                     int numberOfFrames = (m.GetTimes(index)).length;
-                    out = new FileOutputStream(output);
+                    out = new FileOutputStream(tempOutput);
 
                     // Convert the data to a new format or write the raw data to file
                     InputStream samples;
@@ -1086,6 +1189,14 @@ public class FileArchiverSink extends RBNBBase {
                         }
                     }
                     doExport = false;
+                    out.close();
+                    out = null;
+
+                    if ( ! FileArchiveUtility.publishFile(tempOutput, output, syncPolicy) ) {
+                        log.info("[" + getSourceName() + "] " + "Skipped export to " +
+                            output.getPath() + ", the content is unchanged.");
+                        continue;
+                    }
 
                     // test the file write success
                     String newFileName = output.getPath();
@@ -1103,6 +1214,8 @@ public class FileArchiverSink extends RBNBBase {
                     if (out != null){
                         out.close();
                     }
+                    // Clean up the temporary file if it wasn't published
+                    Files.deleteIfExists(tempOutput.toPath());
                 }
 
             } else {
@@ -1113,6 +1226,256 @@ public class FileArchiverSink extends RBNBBase {
         return frameCount;
     }
 
+    /**
+     * Stream data to disk until stopped.  A subscription is held on the channel,
+     * and each fetched frame is appended to the file for the archive interval
+     * it falls in, named by makePathFromTime() for the interval start.  When a
+     * frame falls in the next interval, the current file is closed and a new
+     * one is started.  The position is checkpointed after each fetch, so a
+     * restart resumes after the last frame written, without duplicates.  If
+     * the connection fails, the subscription is re-established from the
+     * checkpoint.
+     *
+     * @return true if streaming stopped cleanly, false on a write error
+     */
+    public boolean stream() {
+        log.trace("[" + getSourceName() + "] " + "FileArchiverSink.stream() called.");
+        if ( getArchiveInterval() <= 0 ) {
+            log.error("[" + getSourceName() + "] " + "Error: Streaming requires an archive interval.");
+            return false;
+        }
+        doExport = true;
+        ArchiveCheckpoint checkpoint = new ArchiveCheckpoint(getCheckpointFile());
+        int dataFramesExported = 0;
+
+        try {
+            FileArchiveUtility.confirmCreateDirPath(archiveDirectory);
+            if ( checkpoint.load() ) {
+                checkpoint.restore();
+                log.info("[" + getSourceName() + "] " + "Resuming streaming after " +
+                    RBNBUtilities.secondsToISO8601(checkpoint.getLastFrameTime()) + ".");
+            }
+
+            while (doExport) {
+                if (!connect()) {
+                    pauseStreaming();
+                    continue;
+                }
+                try {
+                    dataFramesExported += streamData(checkpoint);
+                } catch (SAPIException e) {
+                    log.warn("[" + getSourceName() + "] " + "Error getting data from server: " +
+                        e.getMessage() + ". Resubscribing.");
+                    disconnect();
+                    pauseStreaming();
+                }
+            }
+        } catch (IOException e) {
+            log.error("[" + getSourceName() + "] " + "Error writing data to file: " + e.getMessage() + ".");
+            return false;
+        } finally {
+            closeStreamFile();
+            disconnect();
+        }
+
+        log.debug("[" + getSourceName() + "] " + "Streaming stopped. Wrote " + dataFramesExported + " data frames.");
+        return true;
+    }
+
+    /**
+     * Subscribes to the channel from the checkpoint and appends frames until
+     * streaming is stopped.
+     *
+     * @param checkpoint the checkpoint to resume from and update
+     * @return the number of data frames written to disk
+     * @throws SAPIException if there is an error getting the data from the server
+     * @throws IOException if there is an error writing the file
+     */
+    private int streamData(ArchiveCheckpoint checkpoint) throws SAPIException, IOException {
+        log.trace("[" + getSourceName() + "] " + "FileArchiverSink.streamData() called.");
+
+        ChannelMap map = new ChannelMap();
+        map.Add(channelPath);
+        // resume from the checkpoint, or start from the start time on the first run
+        double subscribeTime = checkpoint.getArchiveFile() != null ?
+            checkpoint.getLastFrameTime() : startTime;
+        sink.Subscribe(map, subscribeTime, 0.0, "absolute");
+        log.debug("[" + getSourceName() + "] " + "Subscribed to " + channelPath + " from " +
+            RBNBUtilities.secondsToISO8601(subscribeTime) + ".");
+
+        int frameCount = 0;
+        while (doExport) {
+            ChannelMap m = sink.Fetch(60000);
+            if (m.GetIfFetchTimedOut()) {
+                continue;
+            }
+
+            int index = m.GetIndex(channelPath);
+            if (index < 0) {
+                continue;
+            }
+
+            double[] times = m.GetTimes(index);
+            byte[][] frames = getFrames(m, index);
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            double resumeTime = checkpoint.getLastFrameTime();
+            double batchTime = resumeTime;
+            int batchFrames = 0;
+
+            for (int i = 0; i < times.length; i++) {
+                // frames at or before the checkpoint have already been written
+                if (times[i] <= resumeTime) {
+                    continue;
+                }
+
+                long unixTime = (long) (times[i] * 1000.0);
+                long intervalStart = unixTime - Math.floorMod(unixTime, getArchiveInterval() * 1000L);
+                if (intervalStart != streamIntervalStart) {
+                    frameCount += writeBatch(batch, batchFrames, batchTime, checkpoint);
+                    batchFrames = 0;
+                    rollStreamFile(intervalStart, batchTime, checkpoint);
+                }
+                batch.write(frames[i]);
+                batchFrames++;
+                batchTime = times[i];
+            }
+            frameCount += writeBatch(batch, batchFrames, batchTime, checkpoint);
+        }
+        return frameCount;
+    }
+
+    /**
+     * Splits the data of a channel into one byte array per frame.
+     *
+     * @param map the fetched channel map
+     * @param index the channel index
+     * @return the frame bytes
+     */
+    private byte[][] getFrames(ChannelMap map, int index) {
+        int numberOfFrames = map.GetTimes(index).length;
+        byte[][] frames;
+
+        switch (map.GetType(index)) {
+            case ChannelMap.TYPE_BYTEARRAY:
+                frames = map.GetDataAsByteArray(index);
+                break;
+            case ChannelMap.TYPE_STRING:
+                String[] strings = map.GetDataAsString(index);
+                frames = new byte[numberOfFrames][];
+                for (int i = 0; i < numberOfFrames; i++) {
+                    frames[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+                }
+                break;
+            default:
+                // fixed size numeric frames
+                byte[] data = map.GetData(index);
+                int frameSize = data.length / numberOfFrames;
+                frames = new byte[numberOfFrames][];
+                for (int i = 0; i < numberOfFrames; i++) {
+                    frames[i] = new byte[frameSize];
+                    System.arraycopy(data, i * frameSize, frames[i], 0, frameSize);
+                }
+                break;
+        }
+        return frames;
+    }
+
+    /**
+     * Appends the batched frames to the current interval file, converting them
+     * first if configured, then saves the checkpoint.
+     *
+     * @param batch the batched frame bytes, reset after writing
+     * @param batchFrames the number of frames in the batch
+     * @param batchTime the timestamp of the last frame in the batch
+     * @param checkpoint the checkpoint to save
+     * @return the number of frames or converted samples written
+     * @throws IOException if there is an error writing the file
+     */
+    private int writeBatch(ByteArrayOutputStream batch, int batchFrames, double batchTime,
+                           ArchiveCheckpoint checkpoint) throws IOException {
+        if (batch.size() == 0 || streamOutput == null) {
+            return 0;
+        }
+
+        int frameCount;
+        if ( convertSamples ) {
+            converter.parse(new BufferedInputStream(new ByteArrayInputStream(batch.toByteArray())));
+            converter.convert();
+            frameCount = converter.write(streamOutput);
+        } else {
+            batch.writeTo(streamOutput);
+            frameCount = batchFrames;
+        }
+        streamOutput.flush();
+        if ( syncPolicy != SyncPolicy.NONE ) {
+            streamOutput.getChannel().force(true);
+        }
+        batch.reset();
+
+        checkpoint.save(batchTime, streamFile, streamOutput.getChannel().position(), syncPolicy);
+        return frameCount;
+    }
+
+    /**
+     * Closes the current interval file and opens the file for the given
+     * interval for appending.  The checkpoint is moved to the new file before
+     * anything is written to it, so a restart never appends to a file the
+     * checkpoint doesn't account for.
+     *
+     * @param intervalStart the interval start in milliseconds since the epoch
+     * @param lastFrameTime the timestamp of the last frame written
+     * @param checkpoint the checkpoint to save
+     * @throws IOException if the file can't be opened
+     */
+    private void rollStreamFile(long intervalStart, double lastFrameTime,
+                                ArchiveCheckpoint checkpoint) throws IOException {
+        closeStreamFile();
+
+        File output = FileArchiveUtility.makePathFromTime(archiveDirectory, intervalStart,
+            filePrefix, filePathDepth, fileExtension);
+        if ( ! FileArchiveUtility.confirmCreateDirPath(output.getParentFile()) ) {
+            throw new IOException("Couldn't confirm path was created to :" + output.getParentFile().getPath());
+        }
+        streamOutput = new FileOutputStream(output, true);
+        streamFile = output;
+        streamIntervalStart = intervalStart;
+        // before the first frame is written, resume from just before the start time
+        double checkpointTime = lastFrameTime > -Double.MAX_VALUE ? lastFrameTime : Math.nextDown(startTime);
+        checkpoint.save(checkpointTime, streamFile, streamOutput.getChannel().size(), syncPolicy);
+        log.info("[" + getSourceName() + "] " + "Streaming data to " + output.getPath());
+    }
+
+    /**
+     * Closes the current interval file, if any.
+     */
+    private void closeStreamFile() {
+        if ( streamOutput == null ) {
+            return;
+        }
+        try {
+            if ( syncPolicy != SyncPolicy.NONE ) {
+                streamOutput.getChannel().force(true);
+            }
+            streamOutput.close();
+        } catch (IOException e) {
+            log.warn("[" + getSourceName() + "] " + "Couldn't close " + streamFile.getPath() + ": " + e.getMessage());
+        }
+        streamOutput = null;
+        streamIntervalStart = -1L;
+    }
+
+    /**
+     * Waits before reconnecting after a streaming error.
+     */
+    private void pauseStreaming() {
+        try {
+            Thread.sleep(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            doExport = false;
+        }
+    }
+
     /**
      * Connect to the RBNB server.
      *
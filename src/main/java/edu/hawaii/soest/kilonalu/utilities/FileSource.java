@@ -19,7 +19,6 @@
 package edu.hawaii.soest.kilonalu.utilities;
 
 import com.rbnb.sapi.ChannelMap;
-import com.rbnb.sapi.Sink;
 import com.rbnb.sapi.SAPIException;
 
 import java.io.BufferedReader;
@@ -51,6 +50,7 @@ import org.apache.commons.logging.LogFactory;
 
 
 import org.nees.rbnb.RBNBSource;
+import org.nees.rbnb.SinkConnectionManager;
 
 /**
  * A class used to harvest ASCII data lines from a file.
@@ -209,11 +209,11 @@ public class FileSource extends RBNBSource {
       ChannelMap requestMap = new ChannelMap();
       int entryIndex = requestMap.Add(getRBNBClientName() + "/" + getRBNBChannelName());
       log.debug("Request Map: " + requestMap.toString());
-      Sink sink = new Sink();
-      sink.OpenRBNBConnection(getServer(), "lastEntrySink");
-      
-      sink.Request(requestMap, 0., 1., "newest");
-      ChannelMap responseMap = sink.Fetch(5000); // get data within 5 seconds 
+      // use a pooled sink rather than connecting for each query
+      ChannelMap responseMap = SinkConnectionManager.getInstance().execute(getServer(), sink -> {
+        sink.Request(requestMap, 0., 1., "newest");
+        return sink.Fetch(5000); // get data within 5 seconds
+      });
       // initialize the last sample date 
       Date initialDate = new Date();
       long lastSampleTimeAsSecondsSinceEpoch = initialDate.getTime()/1000L;
@@ -240,8 +240,6 @@ public class FileSource extends RBNBSource {
                      
       }
       
-      sink.CloseRBNBConnection();
-      
       // poll the data file for new lines of data and insert them into the RBNB
       while (true) {
         String line = fileReader.readLine();
@@ -27,7 +27,6 @@ import java.io.InputStreamReader;
 import java.nio.BufferOverflowException;
 import java.nio.ReadOnlyBufferException;
 import java.nio.ByteBuffer;
-import java.nio.channels.ByteChannel;
 
 import gnu.io.CommPort;
 import gnu.io.CommPortIdentifier;
@@ -43,7 +42,7 @@ import org.apache.commons.logging.LogFactory;
 /**
  *
  */
-public class SerialChannel implements ByteChannel {
+public class SerialChannel implements TimedByteChannel {
     
   /* The input stream underlying serial communication reads */
   private InputStream in;
@@ -212,6 +211,54 @@ public class SerialChannel implements ByteChannel {
     
   }
   
+  /**
+   * A method used to read the bytes that arrive within the timeout, without
+   * waiting for a line terminator, so an unterminated prompt like S> is
+   * returned when it arrives.  The bytes are read through the same reader as
+   * read(ByteBuffer), so none are lost when the two are mixed, and null
+   * characters are filtered out in the same way.
+   *
+   * @param readBuffer - the ByteBuffer used to store the bytes read
+   * @param timeout - the time to wait for input, in ms
+   * @return count - the number of bytes read, 0 if none arrived in time, or
+   *                 -1 at the end of the stream
+   */
+  public int read(ByteBuffer readBuffer, long timeout) throws IOException {
+    
+    long deadline = System.currentTimeMillis() + timeout;
+    
+    try {
+      while ( !this.serialReader.ready() ) {
+        if ( System.currentTimeMillis() >= deadline ) {
+          return 0;
+          
+        }
+        Thread.sleep(10);
+        
+      }
+    } catch ( InterruptedException ie ) {
+      Thread.currentThread().interrupt();
+      return 0;
+      
+    }
+    
+    char[] chars = new char[readBuffer.remaining()];
+    int length = this.serialReader.read(chars, 0, chars.length);
+    if ( length < 0 ) {
+      return -1;
+      
+    }
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      if ( chars[i] != 0x00 ) {
+        readBuffer.put((byte) chars[i]);
+        count++;
+      }
+    }
+    return count;
+    
+  }
+  
   /**
    * A method used to get the status of the serial port connection
    *
@@ -0,0 +1,50 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+/**
+ * An enumerated type that represents how hard an archiver works to get a
+ * newly written archive file onto disk before it is published.
+ */
+public enum SyncPolicy {
+
+    /* Leave flushing to the operating system */
+    NONE,
+
+    /* Force the temporary file contents to disk before the rename */
+    FILE,
+
+    /* Force the file contents, and the parent directory after the rename */
+    DIRECTORY;
+
+    /**
+     * Get the sync policy for the given name, ignoring case.  Null or empty
+     * names default to NONE.
+     *
+     * @param name the sync policy name (none, file, or directory)
+     * @return the sync policy
+     * @throws IllegalArgumentException if the name is not a sync policy
+     */
+    public static SyncPolicy fromString(String name) {
+        if ( name == null || name.trim().isEmpty() ) {
+            return NONE;
+        }
+        return SyncPolicy.valueOf(name.trim().toUpperCase());
+    }
+}
@@ -30,11 +30,14 @@ package edu.hawaii.soest.kilonalu.utilities;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Calendar;
 import java.util.List;
-import java.util.TimeZone;
 
 
 import org.apache.commons.cli.CommandLine;
@@ -56,6 +59,7 @@ import com.rbnb.sapi.Source;
 import com.rbnb.sapi.ChannelTree.Node;
 
 import edu.hawaii.soest.kilonalu.adcp.Ensemble;
+import edu.hawaii.soest.kilonalu.adcp.EnsembleDataType;
 /**
  * This class grabs data from an RBNB data source and saves it to a
  * directory structure where the data for the time stamp
@@ -130,6 +134,46 @@ public class TextOutputPlugin extends RBNBBase {
   /** number of seconds to go back from now to set a start time */
   private int secondsResetStart;
 
+  /** the offset from UTC of the ADCP real time clocks, set to HST */
+  private static final ZoneOffset ENSEMBLE_CLOCK_OFFSET = ZoneOffset.ofHours(-10);
+
+  /** the ensemble field published in each output channel, by channel index */
+  private EnsembleField[] channelFields = new EnsembleField[0];
+
+  /**
+   * The ensemble fields that can be published, and their output channel names
+   */
+  private enum EnsembleField {
+    TEMPERATURE("temperature", null),
+    PRESSURE("pressure", null),
+    SALINITY("salinity", null),
+    VELOCITY("velocity", EnsembleDataType.VELOCITY_PROFILE),
+    CORRELATION("correlation", EnsembleDataType.CORRELATION_PROFILE),
+    ECHO_INTENSITY("echoIntensity", EnsembleDataType.ECHOINTENSITY_PROFILE),
+    PERCENT_GOOD("percentGood", EnsembleDataType.PERCENTGOOD_PROFILE);
+    
+    /** the output channel name */
+    private final String channelName;
+    
+    /** the profile data type, or null for leader fields */
+    private final EnsembleDataType dataType;
+    
+    EnsembleField(String channelName, EnsembleDataType dataType) {
+      this.channelName = channelName;
+      this.dataType = dataType;
+    }
+    
+    /** Returns the field published in the named channel, or null */
+    static EnsembleField forChannel(String channelName) {
+      for (EnsembleField field : values()) {
+        if ( field.channelName.equals(channelName) ) {
+          return field;
+        }
+      }
+      return null;
+    }
+  }
+
   /**
    * Constructor: creates TextOutputPlugin.
    */
@@ -441,7 +485,7 @@ public class TextOutputPlugin extends RBNBBase {
       timeRanges.add(new TimeRange(startTime, endTime));
     } else {
       try {
-        timeRanges = MarkerUtilities.getTimeRanges(sink, eventMarkerFilter, startTime, endTime);
+        timeRanges = MarkerUtilities.getTimeRanges(sink, getServer(), eventMarkerFilter, startTime, endTime);
       } catch (SAPIException e) {
         log.debug("Error retreiving event markers from server.");
         return false;
@@ -463,7 +507,8 @@ public class TextOutputPlugin extends RBNBBase {
     log.trace("TextOutputPlugin.checkTimeRanges() called.");
     Node channelMetadata;
     try {
-      channelMetadata = RBNBUtilities.getMetadata(getServer(), channelPath);
+      // the start and duration move on every run, so skip the metadata cache
+      channelMetadata = RBNBUtilities.getMetadata(getServer(), channelPath, true);
     } catch (SAPIException e) {
       log.debug("Error retreiving channel metadata from the server.");
       return false;
@@ -595,13 +640,7 @@ public class TextOutputPlugin extends RBNBBase {
       ChannelMap sMap = new ChannelMap();
       sMap.Add(channelPath);
       
-      ChannelMap cMap = new ChannelMap();
-      String temperatureChannel = "temperature";
-      String pressureChannel    = "pressure";
-      String salinityChannel    = "salinity";
-      int temperatureIndex = cMap.Add(temperatureChannel);
-      int pressureIndex    = cMap.Add(pressureChannel);
-      int salinityIndex    = cMap.Add(salinityChannel);
+      ChannelMap cMap = createOutputChannelMap();
       
       if (timeRanges.get(timeRanges.size()-1).getEndTime() == Double.MAX_VALUE) {
         duration = Double.MAX_VALUE;
@@ -664,6 +703,32 @@ public class TextOutputPlugin extends RBNBBase {
     return true;
   }
 
+  /**
+   * Creates the output channel map, resolving the ensemble field published
+   * in each channel once, by channel index.
+   * 
+   * @return                the output channel map
+   * @throws SAPIException  if a channel can't be added
+   */
+  ChannelMap createOutputChannelMap() throws SAPIException {
+    ChannelMap cMap = new ChannelMap();
+    cMap.Add("temperature");
+    cMap.Add("pressure");
+    cMap.Add("salinity");
+    
+    // each profile is sent as one float array per ensemble
+    cMap.Add("velocity");
+    cMap.Add("correlation");
+    cMap.Add("echoIntensity");
+    cMap.Add("percentGood");
+    
+    channelFields = new EnsembleField[cMap.NumberOfChannels()];
+    for (int j = 0; j < channelFields.length; j++) {
+      channelFields[j] = EnsembleField.forChannel(cMap.GetName(j));
+    }
+    return cMap;
+  }
+
   /**
    * Converts data for a time range.
    * 
@@ -706,70 +771,32 @@ public class TextOutputPlugin extends RBNBBase {
         break;
       }
             
-      byte[][] data = m.GetDataAsByteArray(index); // uses local byte order??
+      // decode the fetched ensembles, then flush them as one multi-frame map
+      byte[][] data = m.GetDataAsByteArray(index);
+      Ensemble[] ensembles = new Ensemble[data.length];
+      double[] times = new double[data.length];
+      int count = 0;
       for ( int i = 0; i < data.length; i++ ) {
-        ByteBuffer ensembleBuffer = ByteBuffer.allocate(data[i].length);
-        // create an Ensemble
-        ensembleBuffer.put(data[i]);
-        Ensemble ensemble = new Ensemble(ensembleBuffer);
-        log.info("Ensemble is valid: " + ensemble.isValid());
-        
-        if ( ensemble.isValid() ) {
-          int ensYear =      (ensemble.getRealTimeY2KClockCentury() * 100) +
-                              ensemble.getRealTimeY2KClockYear();
-          int ensMonth =      ensemble.getRealTimeY2KClockMonth() - 1; // 0 start
-          int ensDay =        ensemble.getRealTimeY2KClockDay();
-          int ensHour =       ensemble.getRealTimeY2KClockHour();
-          int ensMinute =     ensemble.getRealTimeY2KClockMinute();
-          int ensSecond =     ensemble.getRealTimeY2KClockSecond();
-          int ensHundredths = ensemble.getRealTimeY2KClockHundredths();
-          
-          log.debug("ensYear      : " + ensYear        );
-          log.debug("ensMonth     : " + ensMonth       );
-          log.debug("ensDay       : " + ensDay         );
-          log.debug("ensHour      : " + ensHour        );
-          log.debug("ensMinute    : " + ensMinute      );
-          log.debug("ensSecond    : " + ensSecond      );
-          log.debug("ensHundredths: " + ensHundredths  );
-          
-          Calendar ensCalendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-          ensCalendar.set(ensYear, ensMonth, ensDay, ensHour, ensMinute, ensSecond);
-          ensCalendar.add(Calendar.HOUR, 10); // set observation time to GMT
-          ensCalendar.add(Calendar.MILLISECOND, ensHundredths * 10);
-          
-          // set the data frame timestamp to the observation timestamp
-          double[] times = new double[1];
-          times[0] = (double) (ensCalendar.getTime().getTime()/1000);
-          log.debug("Observation time: = " + RBNBUtilities.secondsToISO8601(times[0]));
-          cmap.PutTimes(times);
-          
-          String[] channelList = new String[cmap.NumberOfChannels()];
-          for (int j=0; j < channelList.length; j++) {
-            channelList[j] = cmap.GetName(j);
-            // add temperature data channel
-            if ( channelList[j].equals("temperature") ) {
-              //log.debug("Temperature: " + ensemble.getTemperature());
-              cmap.PutDataAsFloat32(cmap.GetIndex(channelList[j]), 
-                new float[] {ensemble.getTemperature()});
-            }            
-            // add pressure data channel
-            if ( channelList[j].equals("pressure") ) {
-              //log.debug("Pressure: " + ensemble.getPressure());
-              cmap.PutDataAsFloat32(cmap.GetIndex(channelList[j]), 
-                new float[] {ensemble.getPressure()});
-            }            
-            // add salinity data channel
-            if ( channelList[j].equals("salinity") ) {
-              //log.debug("Salinity: " + ensemble.getSalinity());
-              cmap.PutDataAsInt32(cmap.GetIndex(channelList[j]), 
-                new int[] {ensemble.getSalinity()});
-            }            
-          }
-          // Flush the data frame to rbnb
-          source.Flush(cmap);
-          log.debug("Flushed data to data turbine.");
+        Ensemble ensemble = new Ensemble(ByteBuffer.wrap(data[i]));
+        if ( ! ensemble.isValid() ) {
+          log.info("Skipped an ensemble with an invalid checksum.");
+          continue;
         }
-        
+        try {
+          times[count] = getObservationTime(ensemble);
+        } catch ( DateTimeException dte ) {
+          log.info("Skipped an ensemble with an invalid clock: " + dte.getMessage());
+          continue;
+        }
+        ensembles[count++] = ensemble;
+      }
+      
+      if ( count > 0 ) {
+        putChannels(cmap, ensembles, times, count);
+        source.Flush(cmap);
+        frameCount += count;
+        log.debug("Flushed " + count + " data frames to data turbine, ending at " +
+                  RBNBUtilities.secondsToISO8601(times[count - 1]) + ".");
       }
       //doTextConversion = false;
     }
@@ -777,6 +804,115 @@ public class TextOutputPlugin extends RBNBBase {
     return frameCount;
   }
 
+  /**
+   * Returns the observation time of an ensemble from its real time clock,
+   * which is set to Hawaii Standard Time.
+   * 
+   * @param ensemble           the ensemble
+   * @return                   the observation time in seconds since the epoch
+   * @throws DateTimeException if the clock fields aren't a valid date
+   */
+  private double getObservationTime(Ensemble ensemble) {
+    LocalDateTime clock = LocalDateTime.of(
+      ensemble.getRealTimeY2KClockCentury() * 100 + ensemble.getRealTimeY2KClockYear(),
+      ensemble.getRealTimeY2KClockMonth(),
+      ensemble.getRealTimeY2KClockDay(),
+      ensemble.getRealTimeY2KClockHour(),
+      ensemble.getRealTimeY2KClockMinute(),
+      ensemble.getRealTimeY2KClockSecond(),
+      ensemble.getRealTimeY2KClockHundredths() * 10000000);
+    return clock.toInstant(ENSEMBLE_CLOCK_OFFSET).toEpochMilli() / 1000d;
+  }
+
+  /**
+   * Puts the fields of the given ensembles in each output channel, one frame
+   * per ensemble, using the channel fields resolved when the map was built.
+   * 
+   * @param cmap            the output channel map
+   * @param ensembles       the ensembles
+   * @param times           the observation time of each ensemble
+   * @param count           the number of ensembles
+   * @throws SAPIException  if the data can't be put in the channel map
+   */
+  void putChannels(ChannelMap cmap, Ensemble[] ensembles, double[] times, 
+    int count) throws SAPIException {
+    double[] frameTimes = Arrays.copyOf(times, count);
+    
+    for (int j = 0; j < channelFields.length; j++) {
+      EnsembleField field = channelFields[j];
+      if ( field == null ) {
+        continue;
+      }
+      
+      switch ( field ) {
+        case TEMPERATURE:
+          float[] temperatures = new float[count];
+          for (int i = 0; i < count; i++) {
+            temperatures[i] = ensembles[i].getTemperature();
+          }
+          cmap.PutTimes(frameTimes);
+          cmap.PutDataAsFloat32(j, temperatures);
+          break;
+        
+        case PRESSURE:
+          float[] pressures = new float[count];
+          for (int i = 0; i < count; i++) {
+            pressures[i] = ensembles[i].getPressure();
+          }
+          cmap.PutTimes(frameTimes);
+          cmap.PutDataAsFloat32(j, pressures);
+          break;
+        
+        case SALINITY:
+          int[] salinities = new int[count];
+          for (int i = 0; i < count; i++) {
+            salinities[i] = ensembles[i].getSalinity();
+          }
+          cmap.PutTimes(frameTimes);
+          cmap.PutDataAsInt32(j, salinities);
+          break;
+        
+        default:
+          putProfiles(cmap, j, field, ensembles, times, count);
+          break;
+      }
+    }
+  }
+
+  /**
+   * Puts the profile of each ensemble that has one in the given channel as
+   * one float array per ensemble.  Each profile is put with the observation
+   * time of its ensemble, so it is flushed as a frame of its own holding the
+   * whole array.
+   * 
+   * @param cmap            the output channel map
+   * @param channelIndex    the index of the profile channel
+   * @param field           the profile field
+   * @param ensembles       the ensembles
+   * @param times           the observation time of each ensemble
+   * @param count           the number of ensembles
+   * @throws SAPIException  if the data can't be put in the channel map
+   */
+  private void putProfiles(ChannelMap cmap, int channelIndex, EnsembleField field, 
+    Ensemble[] ensembles, double[] times, int count) throws SAPIException {
+    
+    for (int i = 0; i < count; i++) {
+      Ensemble ensemble = ensembles[i];
+      if ( ! ensemble.hasDataType(field.dataType) ) {
+        continue;
+      }
+      float[] profile = new float[ensemble.getProfileLength()];
+      switch ( field ) {
+        case VELOCITY:       ensemble.getVelocities(profile);       break;
+        case CORRELATION:    ensemble.getCorrelations(profile);     break;
+        case ECHO_INTENSITY: ensemble.getEchoIntensities(profile);  break;
+        default:             ensemble.getPercentGood(profile);      break;
+      }
+      cmap.PutTime(times[i], 0d);
+      cmap.PutDataAsFloat32(channelIndex, profile);
+    }
+  }
+
   /**
    * Connect to the RBNB server.
    * 
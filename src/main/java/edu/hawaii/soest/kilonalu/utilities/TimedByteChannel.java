@@ -0,0 +1,49 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *    Purpose: An interface for byte channels that can't be selected, but can
+ *             be read with a timeout
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+
+/**
+ *  An interface for byte channels, like the SerialChannel, that can't be
+ *  registered with a Selector but can wait a limited time for input.  The
+ *  CommandResponseEngine reads them this way so that its step timeouts are
+ *  honored, and a prompt without a line terminator is seen when it arrives.
+ */
+public interface TimedByteChannel extends ByteChannel {
+
+  /**
+   *  A method that reads the bytes that arrive within the timeout, as they
+   *  arrive rather than a line at a time.  It returns as soon as some bytes
+   *  are read, or when the timeout passes with none.
+   *
+   *  @param readBuffer  the ByteBuffer used to store the bytes read
+   *  @param timeout     the time to wait for input, in ms, or 0 to only read
+   *                     the bytes that have already arrived
+   *  @return count  the number of bytes read, 0 if none arrived in time, or
+   *                 -1 at the end of the stream
+   *  @throws IOException  if the channel fails
+   */
+  int read(ByteBuffer readBuffer, long timeout) throws IOException;
+}
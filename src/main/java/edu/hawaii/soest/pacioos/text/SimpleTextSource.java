@@ -25,7 +25,6 @@ package edu.hawaii.soest.pacioos.text;
 
 import com.rbnb.sapi.ChannelMap;
 import com.rbnb.sapi.SAPIException;
-import com.rbnb.sapi.Sink;
 import edu.hawaii.soest.pacioos.text.configure.Configuration;
 import edu.hawaii.soest.pacioos.text.convert.RawToPacIOOS2020Converter;
 import org.apache.commons.cli.Options;
@@ -35,6 +34,7 @@ import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nees.rbnb.RBNBSource;
+import org.nees.rbnb.SinkConnectionManager;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
@@ -748,41 +748,39 @@ public abstract class SimpleTextSource extends RBNBSource {
      */
     public long getLastSampleTime() throws SAPIException {
         
-            // query the DT to find the timestamp of the last sample inserted
-        Sink sink = new Sink();
+        // query the DT to find the timestamp of the last sample inserted
         long lastSampleTimeAsSecondsSinceEpoch = Instant.now().getEpochSecond();
         
-        try {
-            ChannelMap requestMap = new ChannelMap();
-            int entryIndex = requestMap.Add(getRBNBClientName() + "/" + getChannelName());
-            log.debug("[" + getIdentifier() + "/" + getChannelName() + " ] " +
-                "Request Map: " + requestMap.toString());
-            sink.OpenRBNBConnection(getServer(), "lastEntrySink");
-            
+        ChannelMap requestMap = new ChannelMap();
+        int entryIndex = requestMap.Add(getRBNBClientName() + "/" + getChannelName());
+        log.debug("[" + getIdentifier() + "/" + getChannelName() + " ] " +
+            "Request Map: " + requestMap.toString());
+
+        // use a pooled sink rather than connecting for each query
+        ChannelMap responseMap = SinkConnectionManager.getInstance().execute(getServer(), sink -> {
             sink.Request(requestMap, 0., 1., "newest");
-            ChannelMap responseMap = sink.Fetch(5000); // get data within 5 seconds 
-            // initialize the last sample date 
-            log.debug("[" + getIdentifier() + " ] " +
-                "Initialized the last sample date to: " + Instant.ofEpochSecond(lastSampleTimeAsSecondsSinceEpoch));
+            return sink.Fetch(5000); // get data within 5 seconds
+        });
+
+        // initialize the last sample date 
+        log.debug("[" + getIdentifier() + " ] " +
+            "Initialized the last sample date to: " + Instant.ofEpochSecond(lastSampleTimeAsSecondsSinceEpoch));
+        log.debug("[" + getIdentifier() + " ] " +
+            "The last sample date as a long is: " + lastSampleTimeAsSecondsSinceEpoch);
+        
+        if ( responseMap.NumberOfChannels() == 0 )    {
+            // set the last sample time to 0 since there are no channels yet
+            lastSampleTimeAsSecondsSinceEpoch = 0L;
             log.debug("[" + getIdentifier() + " ] " +
-                "The last sample date as a long is: " + lastSampleTimeAsSecondsSinceEpoch);
-            
-            if ( responseMap.NumberOfChannels() == 0 )    {
-                // set the last sample time to 0 since there are no channels yet
-                lastSampleTimeAsSecondsSinceEpoch = 0L;
-                log.debug("[" + getIdentifier() + " ] " +
-                    "Resetting the last sample date to the epoch: " + Instant.ofEpochSecond(0));
-            
-            } else if ( responseMap.NumberOfChannels() > 0 )    {
-                lastSampleTimeAsSecondsSinceEpoch = 
-                    new Double(responseMap.GetTimeStart(entryIndex)).longValue();
-                log.debug("[" + getIdentifier() + "/" + getChannelName() + " ] " +
-                    "There are existing channels. Last sample time: " +
-                        Instant.ofEpochSecond(lastSampleTimeAsSecondsSinceEpoch));
-                                         
-            }
-        } finally {
-            sink.CloseRBNBConnection();
+                "Resetting the last sample date to the epoch: " + Instant.ofEpochSecond(0));
+        
+        } else if ( responseMap.NumberOfChannels() > 0 )    {
+            lastSampleTimeAsSecondsSinceEpoch = 
+                new Double(responseMap.GetTimeStart(entryIndex)).longValue();
+            log.debug("[" + getIdentifier() + "/" + getChannelName() + " ] " +
+                "There are existing channels. Last sample time: " +
+                    Instant.ofEpochSecond(lastSampleTimeAsSecondsSinceEpoch));
+                                     
         }
         return lastSampleTimeAsSecondsSinceEpoch;
     }
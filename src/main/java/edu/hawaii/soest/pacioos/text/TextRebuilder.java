@@ -23,6 +23,7 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import edu.hawaii.soest.helpers.ConsoleColors;
+import edu.hawaii.soest.kilonalu.utilities.SyncPolicy;
 import edu.hawaii.soest.pacioos.text.concurrent.ReadResult;
 import edu.hawaii.soest.pacioos.text.concurrent.ReaderTask;
 import edu.hawaii.soest.pacioos.text.concurrent.WriteResult;
@@ -371,7 +372,8 @@ public class TextRebuilder {
                 );
                 WriterTask dailyWriterTask =
                     new WriterTask(previousInstant, currentInstant, basePath,
-                        sortedTable, configuration, "pacioos-2020-format");
+                        sortedTable, configuration, "pacioos-2020-format",
+                        SyncPolicy.fromString(configuration.getArchiveSyncPolicy(0, 1)));
                 // Submit the writer task for execution
                 Future<WriteResult> dailyWriteResult = executor.submit(dailyWriterTask);
                 writeQueue.add(dailyWriteResult);
@@ -406,7 +408,8 @@ public class TextRebuilder {
                         nextHourlyInstant,
                         basePath,
                         sortedTable,
-                        configuration, "raw");
+                        configuration, "raw",
+                        SyncPolicy.fromString(configuration.getArchiveSyncPolicy(0, 0)));
                     Future<WriteResult> hourlyWriteResult = executor.submit(hourlyWriterTask);
                     writeQueue.add(hourlyWriteResult);
                 }
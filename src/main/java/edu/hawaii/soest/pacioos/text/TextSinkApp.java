@@ -19,6 +19,7 @@
 package edu.hawaii.soest.pacioos.text;
 
 import edu.hawaii.soest.kilonalu.utilities.FileArchiverSink;
+import edu.hawaii.soest.kilonalu.utilities.SyncPolicy;
 import edu.hawaii.soest.pacioos.text.configure.Configuration;
 import edu.hawaii.soest.pacioos.text.convert.RawToPacIOOS2020Converter;
 import org.apache.commons.configuration.ConfigurationException;
@@ -92,8 +93,21 @@ public class TextSinkApp {
                     config.hasArchiveDateRange(channelIndex, archiverIndex)) {
                     FileArchiverSink archiver = getArchiver(config, channelIndex, archiverIndex);
 
+                    // Stream the data continuously to rolling interval files
+                    if (archiver.isStreaming()) {
+                        archiver.setStartTime(System.currentTimeMillis() / 1000d);
+                        Thread streamThread = new Thread(archiver::stream,
+                            config.getIdentifier() +
+                            "-" +
+                            config.getArchiveType(channelIndex, archiverIndex) +
+                            "-archiver-stream"
+                        );
+                        log.debug("[" +  config.getIdentifier() + "] " + "Starting streaming archiver to " +
+                            archiver.getArchiveDirectory().getPath());
+                        streamThread.start();
+
                     // Archive the data on a schedule
-                    if (archiver.getArchiveInterval() > 0) {
+                    } else if (archiver.getArchiveInterval() > 0) {
                         // override the command line start and end times
                         archiver.validateSetup();
                         archiver.setupArchiveTime();
@@ -200,6 +214,10 @@ public class TextSinkApp {
         archiver.setSourceName(config.getIdentifier());
         archiver.setFilePrefix(config.getIdentifier() + "_");
         archiver.setDataPrefix(dataPrefix.charAt(0));
+        archiver.setSyncPolicy(
+            SyncPolicy.fromString(config.getArchiveSyncPolicy(channelIndex, archiverIndex)));
+        archiver.setStreaming("streaming".equals(config.getArchiveMode(channelIndex, archiverIndex)) &&
+            config.hasArchiveInterval(channelIndex, archiverIndex));
 
         // Get the archive interval
         int archiveInterval = config.getArchiveInterval(channelIndex, archiverIndex);
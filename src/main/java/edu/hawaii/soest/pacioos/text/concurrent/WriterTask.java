@@ -19,6 +19,8 @@
 package edu.hawaii.soest.pacioos.text.concurrent;
 
 import edu.hawaii.soest.helpers.ConsoleColors;
+import edu.hawaii.soest.kilonalu.utilities.FileArchiveUtility;
+import edu.hawaii.soest.kilonalu.utilities.SyncPolicy;
 import edu.hawaii.soest.pacioos.text.configure.Configuration;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,6 +33,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
@@ -63,6 +66,8 @@ public class WriterTask implements Callable<WriteResult> {
     private Table table;
     /* The archive format to write, raw or pacioos-2020-format */
     private final String archiveFormat;
+    /* The policy used to force the written file to disk before publishing it */
+    private final SyncPolicy syncPolicy;
 
     /**
      * Construct a writer task
@@ -74,12 +79,27 @@ public class WriterTask implements Callable<WriteResult> {
      */
     public WriterTask(Instant beginDate, Instant endDate,
                       Path basePath, Table sortedTable, Configuration config, String archiveFormat) {
+        this(beginDate, endDate, basePath, sortedTable, config, archiveFormat, SyncPolicy.NONE);
+    }
+
+    /**
+     * Construct a writer task with a sync policy
+     * @param beginDate the begin date of the samples to write
+     * @param endDate the end date of the samples to write
+     * @param basePath the base path to the base instrument folder for writing
+     * @param config the instrument configuration
+     * @param archiveFormat the archive format - raw or pacioos-2020-format
+     * @param syncPolicy the policy used to force the file to disk before publishing it
+     */
+    public WriterTask(Instant beginDate, Instant endDate, Path basePath, Table sortedTable,
+                      Configuration config, String archiveFormat, SyncPolicy syncPolicy) {
         this.beginDate = beginDate;
         this.endDate = endDate;
         this.basePath = basePath;
         this.sortedTable = sortedTable;
         this.config = config;
         this.archiveFormat = archiveFormat;
+        this.syncPolicy = syncPolicy;
     }
     /**
      * Generates a write result, or throws an exception if unable to do so.
@@ -120,8 +140,10 @@ public class WriterTask implements Callable<WriteResult> {
             return writeResult;
         }
 
-        // Write the data to the file path after locking it
+        // Write the data to a temporary sibling of the file path after locking it
         FileLock fileLock = null;
+        FileChannel fileChannel = null;
+        Path tempPath = null;
         StringBuilder sample = new StringBuilder();
         DateTimeFormatter processedFormatter = DateTimeFormatter.ISO_INSTANT;
 
@@ -162,11 +184,12 @@ public class WriterTask implements Callable<WriteResult> {
 
             // Handle raw and processed files separately
             if ( archiveFormat.equals("raw") ) {
-                FileChannel rawFileChannel = FileChannel.open(filePath,
+                tempPath = FileArchiveUtility.createTempFile(filePath.toFile()).toPath();
+                FileChannel rawFileChannel = FileChannel.open(tempPath,
                     StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.WRITE,
-                    StandardOpenOption.CREATE
+                    StandardOpenOption.WRITE
                     );
+                fileChannel = rawFileChannel;
                 fileLock = rawFileChannel.lock();
                 currentDayTable.sortOn(currentDayTable.columnCount() - 1)
                     .stream().iterator().forEachRemaining(row -> {
@@ -231,11 +254,12 @@ public class WriterTask implements Callable<WriteResult> {
                     sample.delete(0, sample.length());
                 });
             } else if ( archiveFormat.equals("pacioos-2020-format") ) {
-                FileChannel processedFileChannel = FileChannel.open(filePath,
+                tempPath = FileArchiveUtility.createTempFile(filePath.toFile()).toPath();
+                FileChannel processedFileChannel = FileChannel.open(tempPath,
                     StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.WRITE,
-                    StandardOpenOption.CREATE
+                    StandardOpenOption.WRITE
                 );
+                fileChannel = processedFileChannel;
                 fileLock = processedFileChannel.lock();
                 currentDayTable.sortOn(currentDayTable.columnCount() - 1)
                     .stream().iterator().forEachRemaining(row -> {
@@ -279,6 +303,16 @@ public class WriterTask implements Callable<WriteResult> {
                     "Didn't recognize archive format: " + archiveFormat + ". Skipping." +
                     ConsoleColors.RESET);
             }
+
+            // Publish the completed file atomically, unless it is unchanged
+            if ( fileChannel != null ) {
+                fileLock.close();
+                fileLock = null;
+                fileChannel.close();
+                if ( ! FileArchiveUtility.publishFile(tempPath.toFile(), filePath.toFile(), syncPolicy) ) {
+                    log.debug("Skipped " + filePath + ", the content is unchanged.");
+                }
+            }
             writeResult.setMessage("COMPLETE");
 
         } catch (IOException e) {
@@ -303,6 +337,13 @@ public class WriterTask implements Callable<WriteResult> {
             if ( fileLock != null ) {
                 fileLock.close();
             }
+            if ( fileChannel != null ) {
+                fileChannel.close();
+            }
+            // Remove the temporary file if it wasn't published
+            if ( tempPath != null ) {
+                Files.deleteIfExists(tempPath);
+            }
         }
 
         log.debug("Wrote " + currentDayTable.name() + ", " + currentDayTable.rowCount() + " samples.");
@@ -33,6 +33,12 @@ public class ArchiverConfiguration {
     /* The archive base directory for storing data */
     private String archiveBaseDirectory;
 
+    /* The sync policy (none, file, directory) used when publishing files */
+    private String syncPolicy;
+
+    /* The archive mode (scheduled, streaming) */
+    private String archiveMode;
+
     /**
      * Construct an empty archive configuration
      */
@@ -53,6 +59,19 @@ public class ArchiverConfiguration {
         this.archiveBaseDirectory = archiveBaseDirectory;
     }
 
+    /**
+     * Construct an archiver configuration with a sync policy
+     * @param archiveType the archive type
+     * @param archiveInterval the archive interval
+     * @param archiveBaseDirectory the archive base directory
+     * @param syncPolicy the sync policy
+     */
+    public ArchiverConfiguration(String archiveType, int archiveInterval,
+                                 String archiveBaseDirectory, String syncPolicy) {
+        this(archiveType, archiveInterval, archiveBaseDirectory);
+        this.syncPolicy = syncPolicy;
+    }
+
     /**
      * Get the archive type
      * @return archiveType the archive type
@@ -100,4 +119,36 @@ public class ArchiverConfiguration {
     public void setArchiveBaseDirectory(String archiveBaseDirectory) {
         this.archiveBaseDirectory = archiveBaseDirectory;
     }
+
+    /**
+     * Get the sync policy
+     * @return syncPolicy the sync policy
+     */
+    public String getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Set the sync policy
+     * @param syncPolicy  the sync policy
+     */
+    public void setSyncPolicy(String syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    /**
+     * Get the archive mode
+     * @return archiveMode the archive mode
+     */
+    public String getArchiveMode() {
+        return archiveMode;
+    }
+
+    /**
+     * Set the archive mode
+     * @param archiveMode  the archive mode
+     */
+    public void setArchiveMode(String archiveMode) {
+        this.archiveMode = archiveMode;
+    }
 }
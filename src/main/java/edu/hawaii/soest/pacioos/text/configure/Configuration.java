@@ -108,8 +108,10 @@ public class Configuration {
                 new ArchiverConfiguration(
                     getArchiveType(channelIndex, archiverIndex),
                     getArchiveInterval(channelIndex, archiverIndex),
-                    getArchiveBaseDirectory(channelIndex, archiverIndex)
+                    getArchiveBaseDirectory(channelIndex, archiverIndex),
+                    getArchiveSyncPolicy(channelIndex, archiverIndex)
                 );
+            archiverConfiguration.setArchiveMode(getArchiveMode(channelIndex, archiverIndex));
             archiverConfigurations.add(archiverConfiguration);
         }
         return archiverConfigurations;
@@ -441,6 +443,30 @@ public class Configuration {
                 "(" + archiverIndex + ")." + "archiveBaseDirectory");
     }
 
+    /**
+     * Get the archive sync policy
+     * @param channelIndex the desired channel index
+     * @param archiverIndex the desired archiver index
+     * @return syncPolicy the archive sync policy (none, file, or directory)
+     */
+    public String getArchiveSyncPolicy(int channelIndex, int archiverIndex) {
+        return xmlConfig.getString(
+            "channels.channel(" + channelIndex + ").archivers.archiver" +
+                "(" + archiverIndex + ")." + "syncPolicy", "none");
+    }
+
+    /**
+     * Get the archive mode
+     * @param channelIndex the desired channel index
+     * @param archiverIndex the desired archiver index
+     * @return archiveMode the archive mode (scheduled or streaming)
+     */
+    public String getArchiveMode(int channelIndex, int archiverIndex) {
+        return xmlConfig.getString(
+            "channels.channel(" + channelIndex + ").archivers.archiver" +
+                "(" + archiverIndex + ")." + "archiveMode", "scheduled");
+    }
+
     /**
      * Get the field delimiter
      * @param channelIndex the desired channel index
@@ -0,0 +1,289 @@
+package org.nees.rbnb;
+
+import com.rbnb.sapi.ChannelMap;
+
+/**
+ * The frames of a single DataTurbine channel, as put to or fetched from a
+ * {@link DataTurbineClient}. Each frame has one timestamp and one value, and
+ * the values are held in a single typed array (<code>double[]</code>,
+ * <code>float[]</code>, <code>int[]</code>, <code>String[]</code>, or
+ * <code>byte[][]</code>) rather than one object per frame. The data types
+ * use the <code>ChannelMap.TYPE_*</code> constants.
+ */
+public class ChannelData {
+
+  /** The channel name, relative to the source for puts */
+  private final String name;
+
+  /** The channel MIME type */
+  private String mime;
+
+  /** The channel user info, typically units=... */
+  private String userInfo;
+
+  /** The ChannelMap data type of the values */
+  private int type = ChannelMap.TYPE_UNKNOWN;
+
+  /** The frame timestamps, in seconds since the epoch */
+  private double[] times = new double[0];
+
+  /** The frame values, as a typed array */
+  private Object data;
+
+  /** The start time of the channel, for registration metadata */
+  private double start;
+
+  /** The duration of the channel, for registration metadata */
+  private double duration;
+
+  /**
+   * Creates empty channel data.
+   *
+   * @param name  the channel name
+   */
+  public ChannelData(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Creates channel data with registration metadata.
+   *
+   * @param name      the channel name
+   * @param mime      the channel MIME type
+   * @param userInfo  the channel user info
+   */
+  public ChannelData(String name, String mime, String userInfo) {
+    this.name = name;
+    this.mime = mime;
+    this.userInfo = userInfo;
+  }
+
+  /**
+   * Sets 64-bit floating point frames.
+   *
+   * @param times   the frame timestamps
+   * @param values  the frame values, one per timestamp
+   */
+  public void putFloat64(double[] times, double[] values) {
+    put(times, values, values.length, ChannelMap.TYPE_FLOAT64);
+  }
+
+  /**
+   * Sets 32-bit floating point frames.
+   *
+   * @param times   the frame timestamps
+   * @param values  the frame values, one per timestamp
+   */
+  public void putFloat32(double[] times, float[] values) {
+    put(times, values, values.length, ChannelMap.TYPE_FLOAT32);
+  }
+
+  /**
+   * Sets 32-bit integer frames.
+   *
+   * @param times   the frame timestamps
+   * @param values  the frame values, one per timestamp
+   */
+  public void putInt32(double[] times, int[] values) {
+    put(times, values, values.length, ChannelMap.TYPE_INT32);
+  }
+
+  /**
+   * Sets string frames.
+   *
+   * @param times   the frame timestamps
+   * @param values  the frame values, one per timestamp
+   */
+  public void putString(double[] times, String[] values) {
+    put(times, values, values.length, ChannelMap.TYPE_STRING);
+  }
+
+  /**
+   * Sets byte array frames.
+   *
+   * @param times   the frame timestamps
+   * @param values  the frame values, one per timestamp
+   */
+  public void putByteArray(double[] times, byte[][] values) {
+    put(times, values, values.length, ChannelMap.TYPE_BYTEARRAY);
+  }
+
+  /**
+   * Sets the frames from an array of the given type.
+   *
+   * @param times   the frame timestamps
+   * @param values  the typed frame values array
+   * @param length  the number of values
+   * @param type    the ChannelMap data type
+   */
+  void put(double[] times, Object values, int length, int type) {
+    if ( times.length != length ) {
+      throw new IllegalArgumentException("Channel " + name + " has " + times.length +
+        " timestamps but " + length + " values.");
+    }
+    this.times = times;
+    this.data = values;
+    this.type = type;
+    if ( times.length > 0 ) {
+      this.start = times[0];
+      this.duration = times[times.length - 1] - times[0];
+    }
+  }
+
+  /**
+   * Gets the channel name.
+   *
+   * @return  the channel name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the channel MIME type.
+   *
+   * @return  the MIME type, or null if not set
+   */
+  public String getMime() {
+    return mime;
+  }
+
+  /**
+   * Sets the channel MIME type.
+   *
+   * @param mime  the MIME type
+   */
+  public void setMime(String mime) {
+    this.mime = mime;
+  }
+
+  /**
+   * Gets the channel user info.
+   *
+   * @return  the user info, or null if not set
+   */
+  public String getUserInfo() {
+    return userInfo;
+  }
+
+  /**
+   * Sets the channel user info.
+   *
+   * @param userInfo  the user info
+   */
+  public void setUserInfo(String userInfo) {
+    this.userInfo = userInfo;
+  }
+
+  /**
+   * Gets the ChannelMap data type of the values.
+   *
+   * @return  the data type
+   */
+  public int getType() {
+    return type;
+  }
+
+  /**
+   * Gets the number of frames.
+   *
+   * @return  the frame count
+   */
+  public int getNumberOfFrames() {
+    return times.length;
+  }
+
+  /**
+   * Gets the frame timestamps.
+   *
+   * @return  the timestamps in seconds since the epoch
+   */
+  public double[] getTimes() {
+    return times;
+  }
+
+  /**
+   * Gets the typed values array.
+   *
+   * @return  the values, or null if there are none
+   */
+  public Object getData() {
+    return data;
+  }
+
+  /**
+   * Gets the 64-bit floating point values.
+   *
+   * @return  the values
+   */
+  public double[] getDataAsFloat64() {
+    return (double[]) data;
+  }
+
+  /**
+   * Gets the 32-bit floating point values.
+   *
+   * @return  the values
+   */
+  public float[] getDataAsFloat32() {
+    return (float[]) data;
+  }
+
+  /**
+   * Gets the 32-bit integer values.
+   *
+   * @return  the values
+   */
+  public int[] getDataAsInt32() {
+    return (int[]) data;
+  }
+
+  /**
+   * Gets the string values.
+   *
+   * @return  the values
+   */
+  public String[] getDataAsString() {
+    return (String[]) data;
+  }
+
+  /**
+   * Gets the byte array values.
+   *
+   * @return  the values
+   */
+  public byte[][] getDataAsByteArray() {
+    return (byte[][]) data;
+  }
+
+  /**
+   * Gets the start time of the frames, or of the channel for registration
+   * metadata.
+   *
+   * @return  the start time in seconds since the epoch
+   */
+  public double getStart() {
+    return start;
+  }
+
+  /**
+   * Gets the duration of the frames, or of the channel for registration
+   * metadata.
+   *
+   * @return  the duration in seconds
+   */
+  public double getDuration() {
+    return duration;
+  }
+
+  /**
+   * Sets the time range of the channel, for registration metadata.
+   *
+   * @param start     the start time in seconds since the epoch
+   * @param duration  the duration in seconds
+   */
+  public void setTimeRange(double start, double duration) {
+    this.start = start;
+    this.duration = duration;
+  }
+}
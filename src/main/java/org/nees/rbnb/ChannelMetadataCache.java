@@ -0,0 +1,329 @@
+package org.nees.rbnb;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.ChannelTree;
+import com.rbnb.sapi.SAPIException;
+
+/**
+ * A time-to-live cache of channel registration metadata, keyed by server
+ * address and channel path. Archivers and sinks that plan their work on every
+ * scheduled run can look up metadata here rather than fetching a registration
+ * from the server each time. Sorted child lists and channel name lists are
+ * computed once per cached tree. Callers that need current start and
+ * duration times ask for fresh metadata, which is fetched and cached for the
+ * others.
+ *
+ * Metadata is fetched with pooled connections from the
+ * {@link SinkConnectionManager}. Entries older than the time to live are
+ * refetched, and may be dropped early with the invalidate methods.
+ */
+public final class ChannelMetadataCache {
+
+  /** The Logger instance used to log system messages */
+  private static final Log log = LogFactory.getLog(ChannelMetadataCache.class);
+
+  /** The default time to live of cached metadata, in milliseconds */
+  public static final long DEFAULT_TIME_TO_LIVE = 60000L;
+
+  /** The channel path used to key the full registry of a server */
+  private static final String ALL_CHANNELS = "";
+
+  /** The shared process-wide instance */
+  private static final ChannelMetadataCache instance = new ChannelMetadataCache();
+
+  /** The cached entries, keyed by server address and then channel path */
+  private final Map<String, Map<String, Entry>> entries =
+    new ConcurrentHashMap<String, Map<String, Entry>>();
+
+  /** The time to live of cached metadata, in milliseconds */
+  private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+  /** The number of lookups served from the cache */
+  private final AtomicLong hitCount = new AtomicLong();
+
+  /** The number of lookups that fetched from the server */
+  private final AtomicLong missCount = new AtomicLong();
+
+  /** The fetcher of registration metadata from the server */
+  private final MetadataFetcher metadataFetcher;
+
+  /**
+   * Fetches the registration metadata of a channel, or of all channels, from
+   * a server. Tests supply their own so the cache can be exercised without a
+   * server.
+   */
+  interface MetadataFetcher {
+    ChannelMap fetch(String serverAddress, String channel) throws SAPIException;
+  }
+
+  /** Fetches metadata with pooled connections from the connection manager */
+  private static final MetadataFetcher RBNB_METADATA_FETCHER = (serverAddress, channel) -> {
+    if ( ALL_CHANNELS.equals(channel) ) {
+      return SinkConnectionManager.getInstance().execute(serverAddress,
+        sink -> RBNBUtilities.getMetadata(sink));
+    }
+    return RBNBUtilities.getMetadata(serverAddress, Collections.singletonList(channel));
+  };
+
+  /**
+   * A cached channel tree and the lists derived from it.
+   */
+  private static final class Entry {
+    /** The cached channel tree */
+    private final ChannelTree channelTree;
+
+    /** The time the tree was fetched, in milliseconds since the epoch */
+    private final long fetchTime;
+
+    /** The sorted child lists, keyed by node full name and hidden flag */
+    private final Map<String, List<ChannelTree.Node>> sortedChildren =
+      new ConcurrentHashMap<String, List<ChannelTree.Node>>();
+
+    /** The channel name lists, keyed by the hidden flag */
+    private final Map<Boolean, List<String>> channelNames =
+      new ConcurrentHashMap<Boolean, List<String>>();
+
+    private Entry(ChannelTree channelTree, long fetchTime) {
+      this.channelTree = channelTree;
+      this.fetchTime = fetchTime;
+    }
+  }
+
+  /**
+   * Creates a metadata cache. Most callers should use the shared instance
+   * from {@link #getInstance()}.
+   */
+  public ChannelMetadataCache() {
+    this(RBNB_METADATA_FETCHER);
+  }
+
+  /**
+   * Creates a metadata cache that fetches with the given fetcher.
+   *
+   * @param metadataFetcher  the fetcher of metadata from the server
+   */
+  ChannelMetadataCache(MetadataFetcher metadataFetcher) {
+    this.metadataFetcher = metadataFetcher;
+  }
+
+  /**
+   * Gets the shared process-wide metadata cache.
+   *
+   * @return  the shared metadata cache
+   */
+  public static ChannelMetadataCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets the metadata for the specified channel.
+   *
+   * @param serverAddress   the address of the RBNB server
+   * @param channel         the channel to get the metadata for
+   * @return                the channel metadata, or null if the channel is not
+   *                        found
+   * @throws SAPIException  if there is an error connecting to the server
+   */
+  public ChannelTree.Node getMetadata(String serverAddress, String channel) throws SAPIException {
+    return getMetadata(serverAddress, channel, false);
+  }
+
+  /**
+   * Gets the metadata for the specified channel. Fresh metadata is always
+   * fetched from the server, and replaces the cached entry.
+   *
+   * @param serverAddress   the address of the RBNB server
+   * @param channel         the channel to get the metadata for
+   * @param fresh           bypass the cached entry
+   * @return                the channel metadata, or null if the channel is not
+   *                        found
+   * @throws SAPIException  if there is an error connecting to the server
+   */
+  public ChannelTree.Node getMetadata(String serverAddress, String channel, boolean fresh)
+    throws SAPIException {
+    return getEntry(serverAddress, channel, fresh).channelTree.findNode(channel);
+  }
+
+  /**
+   * Gets the channel tree of all channels registered on the server.
+   *
+   * @param serverAddress   the address of the RBNB server
+   * @return                the channel tree
+   * @throws SAPIException  if there is an error connecting to the server
+   */
+  public ChannelTree getChannelTree(String serverAddress) throws SAPIException {
+    return getEntry(serverAddress, ALL_CHANNELS, false).channelTree;
+  }
+
+  /**
+   * Gets the sorted children of the node at the given path in the server's
+   * channel tree. An empty path gives the children of the root.
+   *
+   * @param serverAddress       the address of the RBNB server
+   * @param path                the full name of the parent node
+   * @param showHiddenChildren  include/discard hidden children
+   * @return                    a sorted, unmodifiable list of children
+   * @throws SAPIException      if there is an error connecting to the server
+   * @see                       RBNBUtilities#getSortedChildren(ChannelTree.Node, boolean)
+   */
+  @SuppressWarnings("unchecked")
+  public List<ChannelTree.Node> getSortedChildren(String serverAddress, String path,
+    boolean showHiddenChildren) throws SAPIException {
+    Entry entry = getEntry(serverAddress, ALL_CHANNELS, false);
+    String key = path + (showHiddenChildren ? "|hidden" : "|visible");
+
+    List<ChannelTree.Node> children = entry.sortedChildren.get(key);
+    if ( children == null ) {
+      if ( path == null || path.isEmpty() ) {
+        children = RBNBUtilities.getSortedChildren(entry.channelTree, showHiddenChildren);
+      } else {
+        ChannelTree.Node node = entry.channelTree.findNode(path);
+        if ( node == null ) {
+          return Collections.emptyList();
+        }
+        children = RBNBUtilities.getSortedChildren(node, showHiddenChildren);
+      }
+      children = Collections.unmodifiableList(children);
+      entry.sortedChildren.put(key, children);
+    }
+    return children;
+  }
+
+  /**
+   * Gets the names of all channels registered on the server.
+   *
+   * @param serverAddress   the address of the RBNB server
+   * @param hidden          include hidden channels
+   * @return                an unmodifiable list of channel names
+   * @throws SAPIException  if there is an error connecting to the server
+   * @see                   RBNBUtilities#getAllChannels(ChannelTree, boolean)
+   */
+  @SuppressWarnings("unchecked")
+  public List<String> getAllChannels(String serverAddress, boolean hidden) throws SAPIException {
+    Entry entry = getEntry(serverAddress, ALL_CHANNELS, false);
+
+    List<String> channels = entry.channelNames.get(hidden);
+    if ( channels == null ) {
+      channels = Collections.unmodifiableList(
+        RBNBUtilities.getAllChannels(entry.channelTree, hidden));
+      entry.channelNames.put(hidden, channels);
+    }
+    return channels;
+  }
+
+  /**
+   * Drops all cached metadata for the server.
+   *
+   * @param serverAddress  the address of the RBNB server
+   */
+  public void invalidate(String serverAddress) {
+    entries.remove(serverAddress);
+  }
+
+  /**
+   * Drops the cached metadata for a channel, and the server's full registry
+   * which includes it.
+   *
+   * @param serverAddress  the address of the RBNB server
+   * @param channel        the channel path
+   */
+  public void invalidate(String serverAddress, String channel) {
+    Map<String, Entry> serverEntries = entries.get(serverAddress);
+    if ( serverEntries != null ) {
+      serverEntries.remove(channel);
+      serverEntries.remove(ALL_CHANNELS);
+    }
+  }
+
+  /**
+   * Drops all cached metadata.
+   */
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  /**
+   * Gets the time to live of cached metadata.
+   *
+   * @return  the time to live in milliseconds
+   */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Sets the time to live of cached metadata. A time to live of zero
+   * disables caching.
+   *
+   * @param timeToLive  the time to live in milliseconds
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Gets the number of lookups served from the cache.
+   *
+   * @return  the hit count
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Gets the number of lookups that fetched from the server.
+   *
+   * @return  the miss count
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Gets a current cache entry for the channel, fetching it when it is
+   * missing, has expired, or fresh metadata is asked for.
+   *
+   * @param serverAddress   the address of the RBNB server
+   * @param channel         the channel path, or empty for all channels
+   * @param fresh           bypass the cached entry
+   * @return                the cache entry
+   * @throws SAPIException  if there is an error connecting to the server
+   */
+  private Entry getEntry(String serverAddress, String channel, boolean fresh)
+    throws SAPIException {
+    Map<String, Entry> serverEntries = entries.get(serverAddress);
+    if ( serverEntries == null ) {
+      serverEntries = new ConcurrentHashMap<String, Entry>();
+      Map<String, Entry> existing = entries.putIfAbsent(serverAddress, serverEntries);
+      if ( existing != null ) {
+        serverEntries = existing;
+      }
+    }
+
+    long now = System.currentTimeMillis();
+    Entry entry = serverEntries.get(channel);
+    if ( !fresh && entry != null && now - entry.fetchTime < timeToLive ) {
+      hitCount.incrementAndGet();
+      return entry;
+    }
+
+    missCount.incrementAndGet();
+    ChannelMap cmap = metadataFetcher.fetch(serverAddress, channel);
+    log.debug("Fetched channel metadata for " + serverAddress + "/" + channel);
+
+    entry = new Entry(ChannelTree.createFromChannelMap(cmap), now);
+    if ( timeToLive > 0 ) {
+      serverEntries.put(channel, entry);
+    }
+    return entry;
+  }
+}
@@ -0,0 +1,91 @@
+package org.nees.rbnb;
+
+import java.util.List;
+
+import com.rbnb.sapi.SAPIException;
+
+/**
+ * The DataTurbine operations used by the sources and sinks: registering and
+ * flushing channel frames on the source side, and requesting registrations
+ * and frames on the sink side. {@link SAPIDataTurbineClient} talks to an RBNB
+ * server, and {@link LocalDataTurbineClient} keeps frames in in-process ring
+ * buffers so ingest, archive, and reload throughput can be measured without a
+ * server.
+ *
+ * Channels are put relative to the client name (the source), and requested by
+ * their full source/channel path, as with the RBNB SAPI.
+ */
+public interface DataTurbineClient {
+
+  /**
+   * Opens the connection to the server.
+   *
+   * @param serverAddress   the address of the server
+   * @param clientName      the name of this client (the source name)
+   * @throws SAPIException  if the connection can't be opened
+   */
+  void open(String serverAddress, String clientName) throws SAPIException;
+
+  /**
+   * Closes the connection, keeping any flushed frames on the server.
+   */
+  void close();
+
+  /**
+   * Sees if the client is connected.
+   *
+   * @return  true if connected
+   */
+  boolean isConnected();
+
+  /**
+   * Registers channels of this source, with their MIME types and user info.
+   *
+   * @param channels        the channels to register
+   * @throws SAPIException  if there is an error talking to the server
+   */
+  void register(List<ChannelData> channels) throws SAPIException;
+
+  /**
+   * Puts and flushes the frames of the given channels of this source.
+   *
+   * @param channels        the channel frames to flush
+   * @return                the number of channels flushed
+   * @throws SAPIException  if there is an error talking to the server
+   */
+  int flush(List<ChannelData> channels) throws SAPIException;
+
+  /**
+   * Gets the registration metadata of the given channels, or of all channels
+   * if the list is empty. The frames of the returned channel data are empty,
+   * and the start and duration give each channel's time range.
+   *
+   * @param channels        the full channel paths
+   * @return                the registration metadata
+   * @throws SAPIException  if there is an error talking to the server
+   */
+  List<ChannelData> requestRegistration(List<String> channels) throws SAPIException;
+
+  /**
+   * Requests frames of the given channels, to be retrieved with
+   * {@link #fetch(long)}.
+   *
+   * @param channels        the full channel paths
+   * @param start           the start time, relative to the reference
+   * @param duration        the duration of the request
+   * @param reference       the time reference: absolute, newest, or oldest
+   * @throws SAPIException  if there is an error talking to the server
+   */
+  void request(List<String> channels, double start, double duration, String reference)
+    throws SAPIException;
+
+  /**
+   * Fetches the frames of the last request.
+   *
+   * @param timeout         the timeout in milliseconds, or -1 to wait forever
+   * @return                the fetched channel frames, empty if the fetch
+   *                        timed out
+   * @throws SAPIException  if there is an error talking to the server
+   */
+  List<ChannelData> fetch(long timeout) throws SAPIException;
+}
@@ -0,0 +1,389 @@
+package org.nees.rbnb;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.SAPIException;
+
+/**
+ * A {@link DataTurbineClient} that keeps channel frames in in-process ring
+ * buffers rather than on an RBNB server. Clients opened with the same server
+ * address share the same channels, so a source and a sink in one process
+ * see each other's frames. A configurable latency is added to every call to
+ * approximate the round trip to a real server.
+ *
+ * This is meant for benchmarking and load testing ingest, archive, and
+ * reload code on one machine. Only the absolute, newest, and oldest request
+ * references are supported.
+ */
+public class LocalDataTurbineClient implements DataTurbineClient {
+
+  /** The default number of frames kept per channel */
+  public static final int DEFAULT_CACHE_FRAMES = 100000;
+
+  /** The in-process servers, keyed by server address */
+  private static final Map<String, Map<String, FrameRingBuffer>> servers =
+    new ConcurrentHashMap<String, Map<String, FrameRingBuffer>>();
+
+  /** The number of frames kept per channel */
+  private final int cacheFrames;
+
+  /** The simulated latency added to each call, in milliseconds */
+  private volatile long latency = 0L;
+
+  /** The channels of the connected server */
+  private Map<String, FrameRingBuffer> channels;
+
+  /** The client name */
+  private String clientName;
+
+  /** The pending request */
+  private List<String> requestChannels;
+  private double requestStart;
+  private double requestDuration;
+  private String requestReference;
+
+  /**
+   * Creates a client keeping the default number of frames per channel.
+   */
+  public LocalDataTurbineClient() {
+    this(DEFAULT_CACHE_FRAMES);
+  }
+
+  /**
+   * Creates a client.
+   *
+   * @param cacheFrames  the number of frames kept per channel
+   */
+  public LocalDataTurbineClient(int cacheFrames) {
+    this.cacheFrames = cacheFrames;
+  }
+
+  /**
+   * Discards the channels of an in-process server.
+   *
+   * @param serverAddress  the address of the server
+   */
+  public static void clearServer(String serverAddress) {
+    servers.remove(serverAddress);
+  }
+
+  /**
+   * Gets the simulated latency added to each call.
+   *
+   * @return  the latency in milliseconds
+   */
+  public long getLatency() {
+    return latency;
+  }
+
+  /**
+   * Sets the simulated latency added to each call.
+   *
+   * @param latency  the latency in milliseconds
+   */
+  public void setLatency(long latency) {
+    this.latency = latency;
+  }
+
+  public void open(String serverAddress, String clientName) throws SAPIException {
+    simulateLatency();
+    Map<String, FrameRingBuffer> serverChannels = servers.get(serverAddress);
+    if ( serverChannels == null ) {
+      serverChannels = new ConcurrentHashMap<String, FrameRingBuffer>();
+      Map<String, FrameRingBuffer> existing = servers.putIfAbsent(serverAddress, serverChannels);
+      if ( existing != null ) {
+        serverChannels = existing;
+      }
+    }
+    this.channels = serverChannels;
+    this.clientName = clientName;
+  }
+
+  public void close() {
+    channels = null;
+    requestChannels = null;
+  }
+
+  public boolean isConnected() {
+    return channels != null;
+  }
+
+  public void register(List<ChannelData> channelList) throws SAPIException {
+    assertOpen();
+    simulateLatency();
+    for (ChannelData channel : channelList) {
+      FrameRingBuffer buffer = getBuffer(clientName + "/" + channel.getName());
+      buffer.setMetadata(channel.getMime(), channel.getUserInfo());
+    }
+  }
+
+  public int flush(List<ChannelData> channelList) throws SAPIException {
+    assertOpen();
+    simulateLatency();
+    for (ChannelData channel : channelList) {
+      FrameRingBuffer buffer = getBuffer(clientName + "/" + channel.getName());
+      if ( channel.getMime() != null ) {
+        buffer.setMetadata(channel.getMime(), null);
+      }
+      buffer.append(channel);
+    }
+    return channelList.size();
+  }
+
+  public List<ChannelData> requestRegistration(List<String> channelList) throws SAPIException {
+    assertOpen();
+    simulateLatency();
+    List<String> names = new ArrayList<String>(channelList.isEmpty() ? channels.keySet() : channelList);
+    Collections.sort(names);
+
+    List<ChannelData> metadata = new ArrayList<ChannelData>();
+    for (String name : names) {
+      FrameRingBuffer buffer = channels.get(name);
+      if ( buffer != null ) {
+        metadata.add(buffer.getMetadata(name));
+      }
+    }
+    return metadata;
+  }
+
+  public void request(List<String> channelList, double start, double duration, String reference)
+    throws SAPIException {
+    assertOpen();
+    if ( ! "absolute".equals(reference) && ! "newest".equals(reference) &&
+         ! "oldest".equals(reference) ) {
+      throw new SAPIException("Unsupported request reference: " + reference);
+    }
+    simulateLatency();
+    this.requestChannels = new ArrayList<String>(channelList);
+    this.requestStart = start;
+    this.requestDuration = duration;
+    this.requestReference = reference;
+  }
+
+  public List<ChannelData> fetch(long timeout) throws SAPIException {
+    assertOpen();
+    if ( requestChannels == null ) {
+      throw new SAPIException("There is no pending request to fetch.");
+    }
+    simulateLatency();
+
+    List<ChannelData> result = new ArrayList<ChannelData>();
+    for (String name : requestChannels) {
+      FrameRingBuffer buffer = channels.get(name);
+      if ( buffer != null ) {
+        ChannelData channel = buffer.read(name, requestStart, requestDuration, requestReference);
+        if ( channel.getNumberOfFrames() > 0 ) {
+          result.add(channel);
+        }
+      }
+    }
+    requestChannels = null;
+    return result;
+  }
+
+  /**
+   * Gets the ring buffer of a channel, creating it if needed.
+   *
+   * @param name  the full channel path
+   * @return      the ring buffer
+   */
+  private FrameRingBuffer getBuffer(String name) {
+    FrameRingBuffer buffer = channels.get(name);
+    if ( buffer == null ) {
+      buffer = new FrameRingBuffer(cacheFrames);
+      FrameRingBuffer existing = channels.putIfAbsent(name, buffer);
+      if ( existing != null ) {
+        buffer = existing;
+      }
+    }
+    return buffer;
+  }
+
+  /**
+   * Sleeps for the simulated latency.
+   *
+   * @throws SAPIException  if interrupted while sleeping
+   */
+  private void simulateLatency() throws SAPIException {
+    if ( latency > 0 ) {
+      try {
+        Thread.sleep(latency);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SAPIException(e);
+      }
+    }
+  }
+
+  /**
+   * Checks that the client has been opened.
+   *
+   * @throws SAPIException  if the client isn't open
+   */
+  private void assertOpen() throws SAPIException {
+    if ( channels == null ) {
+      throw new SAPIException("The client is not connected.");
+    }
+  }
+
+  /**
+   * A fixed capacity ring buffer of the frames of one channel. The values are
+   * kept in a single typed array of the channel's data type, so appending and
+   * reading frames copies arrays rather than boxing each value.
+   */
+  private static final class FrameRingBuffer {
+
+    /** The capacity in frames */
+    private final int capacity;
+
+    /** The frame timestamps, in ring order */
+    private final double[] times;
+
+    /** The frame values, a typed array in ring order */
+    private Object values;
+
+    /** The ChannelMap data type, fixed by the first put */
+    private int type = ChannelMap.TYPE_UNKNOWN;
+
+    /** The index of the oldest frame */
+    private int head = 0;
+
+    /** The number of frames held */
+    private int size = 0;
+
+    /** The channel MIME type */
+    private String mime;
+
+    /** The channel user info */
+    private String userInfo;
+
+    private FrameRingBuffer(int capacity) {
+      this.capacity = capacity;
+      this.times = new double[capacity];
+    }
+
+    private synchronized void setMetadata(String mime, String userInfo) {
+      if ( mime != null ) {
+        this.mime = mime;
+      }
+      if ( userInfo != null ) {
+        this.userInfo = userInfo;
+      }
+    }
+
+    private synchronized ChannelData getMetadata(String name) {
+      ChannelData metadata = new ChannelData(name, mime, userInfo);
+      if ( size > 0 ) {
+        double start = times[head];
+        metadata.setTimeRange(start, times[(head + size - 1) % capacity] - start);
+      }
+      return metadata;
+    }
+
+    private synchronized void append(ChannelData channel) throws SAPIException {
+      int count = channel.getNumberOfFrames();
+      if ( count == 0 ) {
+        return;
+      }
+      if ( values == null ) {
+        type = channel.getType();
+        values = Array.newInstance(channel.getData().getClass().getComponentType(), capacity);
+      } else if ( type != channel.getType() ) {
+        throw new SAPIException("Channel " + channel.getName() + " data type changed.");
+      }
+
+      // only the newest frames survive if more than the capacity are put
+      int offset = Math.max(0, count - capacity);
+      for (int frame = offset; frame < count; ) {
+        int tail = (head + size) % capacity;
+        int run = Math.min(count - frame, capacity - tail);
+        System.arraycopy(channel.getTimes(), frame, times, tail, run);
+        System.arraycopy(channel.getData(), frame, values, tail, run);
+        frame += run;
+        size += run;
+        if ( size > capacity ) {
+          head = (head + size - capacity) % capacity;
+          size = capacity;
+        }
+      }
+    }
+
+    private synchronized ChannelData read(String name, double start, double duration,
+      String reference) {
+      ChannelData channel = new ChannelData(name, mime, userInfo);
+      if ( size == 0 ) {
+        return channel;
+      }
+
+      // find the requested frame range in ring order
+      int first;
+      int last;
+      if ( "newest".equals(reference) ) {
+        double end = times[(head + size - 1) % capacity] - start;
+        last = lastAtOrBefore(end);
+        first = duration > 0 ? firstAtOrAfter(end - duration) : last;
+      } else if ( "oldest".equals(reference) ) {
+        double begin = times[head] + start;
+        first = firstAtOrAfter(begin);
+        last = duration > 0 ? lastAtOrBefore(begin + duration) : first;
+      } else {
+        first = firstAtOrAfter(start);
+        last = lastAtOrBefore(start + duration);
+      }
+
+      int count = last - first + 1;
+      if ( first < 0 || last < 0 || count <= 0 ) {
+        channel.put(new double[0], Array.newInstance(values.getClass().getComponentType(), 0), 0, type);
+        return channel;
+      }
+
+      double[] frameTimes = new double[count];
+      Object frameValues = Array.newInstance(values.getClass().getComponentType(), count);
+      for (int frame = 0; frame < count; ) {
+        int index = (head + first + frame) % capacity;
+        int run = Math.min(count - frame, capacity - index);
+        System.arraycopy(times, index, frameTimes, frame, run);
+        System.arraycopy(values, index, frameValues, frame, run);
+        frame += run;
+      }
+      channel.put(frameTimes, frameValues, count, type);
+      return channel;
+    }
+
+    /** Gets the ring order of the first frame at or after the time, or -1 */
+    private int firstAtOrAfter(double time) {
+      int low = 0;
+      int high = size;
+      while ( low < high ) {
+        int middle = (low + high) >>> 1;
+        if ( times[(head + middle) % capacity] < time ) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low < size ? low : -1;
+    }
+
+    /** Gets the ring order of the last frame at or before the time, or -1 */
+    private int lastAtOrBefore(double time) {
+      int low = 0;
+      int high = size;
+      while ( low < high ) {
+        int middle = (low + high) >>> 1;
+        if ( times[(head + middle) % capacity] <= time ) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low - 1;
+    }
+  }
+}
@@ -416,6 +416,33 @@ public final class RBNBUtilities {
     return channelMap;
   }
   
+  /**
+   * Gets a channel map with the channels with the specified MIME types added to
+   * it, using the cached channel tree of the server.
+   * 
+   * @param serverAddress   the address of the RBNB server
+   * @param desiredMime     the mime type to look for
+   * @return                a channel map with channels of the specified mime
+   *                        type
+   * @throws SAPIException  if there is an error connecting to the server
+   * @see                   ChannelMetadataCache
+   */
+  public static ChannelMap getChannelMap(String serverAddress, String desiredMime) throws SAPIException {
+    ChannelMetadataCache cache = ChannelMetadataCache.getInstance();
+    ChannelTree metadataChannelTree = cache.getChannelTree(serverAddress);
+    
+    ChannelMap channelMap = new ChannelMap();
+    
+    for (String channel : cache.getAllChannels(serverAddress, true)) {
+      String mime = metadataChannelTree.findNode(channel).getMime();
+      if (mime != null && mime.compareToIgnoreCase(desiredMime) == 0) {
+        channelMap.Add(channel);
+      }
+    }
+
+    return channelMap;
+  }
+  
   /**
    * Get the metadata for all channels using the specified sink.
    * 
@@ -443,47 +470,59 @@ public final class RBNBUtilities {
   }
   
   /**
-   * Get the metadata for the specified channel.
+   * Get the metadata for the specified channel. The metadata is served from
+   * the shared metadata cache, and may be up to its time to live old.
    * 
    * @param serverAddress   the address of the RBNB server
    * @param channel         the channel to get the metadata for
    * @return                the channel metadata, or null if the channel is not
    *                        found
    * @throws SAPIException  if there is an error connecting to the server
+   * @see                   ChannelMetadataCache
    */
   public static Node getMetadata(String serverAddress, String channel) throws SAPIException {
-    ChannelMap cmap = getMetadata(serverAddress, Collections.singletonList(channel));
-    ChannelTree ctree = ChannelTree.createFromChannelMap(cmap);
-    return ctree.findNode(channel);
+    return ChannelMetadataCache.getInstance().getMetadata(serverAddress, channel);
+  }
+  
+  /**
+   * Get the metadata for the specified channel. Fresh metadata is fetched from
+   * the server rather than served from the shared metadata cache, and updates
+   * the cache for other callers.
+   * 
+   * @param serverAddress   the address of the RBNB server
+   * @param channel         the channel to get the metadata for
+   * @param fresh           bypass the cached metadata
+   * @return                the channel metadata, or null if the channel is not
+   *                        found
+   * @throws SAPIException  if there is an error connecting to the server
+   * @see                   ChannelMetadataCache
+   */
+  public static Node getMetadata(String serverAddress, String channel, boolean fresh)
+    throws SAPIException {
+    return ChannelMetadataCache.getInstance().getMetadata(serverAddress, channel, fresh);
   }
   
   /**
    * Gets the metadata channel map from the specified server for the specified
-   * channels.
+   * channels, using a pooled sink connection.
    * 
    * @param serverAddress   the address of the server
    * @param channels        the list of channels
    * @return                the metadata channel map
    * @throws SAPIException  if there is an error connecting to the server
+   * @see                   SinkConnectionManager
    */
   public static ChannelMap getMetadata(String serverAddress, List<String> channels) throws SAPIException {
-    ChannelMap cmap = new ChannelMap();
+    final ChannelMap cmap = new ChannelMap();
     
     for (String channel : channels) {
       cmap.Add(channel);
     }
     
-    Sink sink = new Sink();
-    
-    try {
-      sink.OpenRBNBConnection(serverAddress, "RBNBUtilities");
+    return SinkConnectionManager.getInstance().execute(serverAddress, sink -> {
       sink.RequestRegistration(cmap);
-      cmap = sink.Fetch(-1);
-    } finally {
-      sink.CloseRBNBConnection();
-    }
-    
-    return cmap;
+      return sink.Fetch(-1);
+    });
   }
   
   /** left "CVS" in name for legacy compatibility */
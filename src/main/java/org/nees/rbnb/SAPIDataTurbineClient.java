@@ -0,0 +1,269 @@
+package org.nees.rbnb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.SAPIException;
+import com.rbnb.sapi.Sink;
+import com.rbnb.sapi.Source;
+
+/**
+ * A {@link DataTurbineClient} that talks to an RBNB server with the SAPI.
+ * The source and sink connections are opened on first use, so a client
+ * that only flushes never opens a sink, and vice versa.
+ */
+public class SAPIDataTurbineClient implements DataTurbineClient {
+
+  /** The Logger instance used to log system messages */
+  private static final Log log = LogFactory.getLog(SAPIDataTurbineClient.class);
+
+  /** The source cache size, in frames */
+  private final int cacheSize;
+
+  /** The source archive mode */
+  private final String archiveMode;
+
+  /** The source archive size, in frames */
+  private final int archiveSize;
+
+  /** The server address */
+  private String serverAddress;
+
+  /** The client name */
+  private String clientName;
+
+  /** The source connection, opened on the first register or flush */
+  private Source source;
+
+  /** The sink connection, opened on the first request */
+  private Sink sink;
+
+  /** a flag to indicate if the client has been opened */
+  private boolean connected = false;
+
+  /**
+   * Creates a client with a source that has no archive.
+   *
+   * @param cacheSize  the source cache size, in frames
+   */
+  public SAPIDataTurbineClient(int cacheSize) {
+    this(cacheSize, "none", 0);
+  }
+
+  /**
+   * Creates a client.
+   *
+   * @param cacheSize    the source cache size, in frames
+   * @param archiveMode  the source archive mode (none, create, append)
+   * @param archiveSize  the source archive size, in frames
+   */
+  public SAPIDataTurbineClient(int cacheSize, String archiveMode, int archiveSize) {
+    this.cacheSize = cacheSize;
+    this.archiveMode = archiveMode;
+    this.archiveSize = archiveSize;
+  }
+
+  public void open(String serverAddress, String clientName) throws SAPIException {
+    this.serverAddress = serverAddress;
+    this.clientName = clientName;
+    this.connected = true;
+  }
+
+  public void close() {
+    if ( source != null ) {
+      if ( archiveSize > 0 ) {
+        source.Detach(); // close and keep the archive
+      } else {
+        source.CloseRBNBConnection();
+      }
+      source = null;
+    }
+    if ( sink != null ) {
+      sink.CloseRBNBConnection();
+      sink = null;
+    }
+    connected = false;
+  }
+
+  public boolean isConnected() {
+    return connected;
+  }
+
+  public void register(List<ChannelData> channels) throws SAPIException {
+    ChannelMap registerMap = new ChannelMap();
+    for (ChannelData channel : channels) {
+      int index = registerMap.Add(channel.getName());
+      if ( channel.getMime() != null ) {
+        registerMap.PutMime(index, channel.getMime());
+      }
+      if ( channel.getUserInfo() != null ) {
+        registerMap.PutUserInfo(index, channel.getUserInfo());
+      }
+    }
+    getSource().Register(registerMap);
+  }
+
+  public int flush(List<ChannelData> channels) throws SAPIException {
+    ChannelMap flushMap = new ChannelMap();
+    for (ChannelData channel : channels) {
+      int index = flushMap.Add(channel.getName());
+      if ( channel.getMime() != null ) {
+        flushMap.PutMime(index, channel.getMime());
+      }
+      putFrames(flushMap, index, channel);
+    }
+    return getSource().Flush(flushMap, true);
+  }
+
+  public List<ChannelData> requestRegistration(List<String> channels) throws SAPIException {
+    ChannelMap requestMap = new ChannelMap();
+    for (String channel : channels) {
+      requestMap.Add(channel);
+    }
+    Sink registrationSink = getSink();
+    registrationSink.RequestRegistration(requestMap);
+    ChannelMap metadataMap = registrationSink.Fetch(-1);
+
+    List<ChannelData> metadata = new ArrayList<ChannelData>();
+    for (int index = 0; index < metadataMap.NumberOfChannels(); index++) {
+      ChannelData channel = new ChannelData(metadataMap.GetName(index),
+        metadataMap.GetMime(index), metadataMap.GetUserInfo(index));
+      channel.setTimeRange(metadataMap.GetTimeStart(index), metadataMap.GetTimeDuration(index));
+      metadata.add(channel);
+    }
+    return metadata;
+  }
+
+  public void request(List<String> channels, double start, double duration, String reference)
+    throws SAPIException {
+    ChannelMap requestMap = new ChannelMap();
+    for (String channel : channels) {
+      requestMap.Add(channel);
+    }
+    getSink().Request(requestMap, start, duration, reference);
+  }
+
+  public List<ChannelData> fetch(long timeout) throws SAPIException {
+    ChannelMap responseMap = getSink().Fetch(timeout);
+    List<ChannelData> channels = new ArrayList<ChannelData>();
+    if ( responseMap.GetIfFetchTimedOut() ) {
+      log.debug("Fetch from " + serverAddress + " timed out.");
+      return channels;
+    }
+
+    for (int index = 0; index < responseMap.NumberOfChannels(); index++) {
+      ChannelData channel = new ChannelData(responseMap.GetName(index));
+      channel.setMime(responseMap.GetMime(index));
+      double[] times = responseMap.GetTimes(index);
+
+      switch (responseMap.GetType(index)) {
+        case ChannelMap.TYPE_FLOAT64:
+          channel.putFloat64(times, responseMap.GetDataAsFloat64(index));
+          break;
+        case ChannelMap.TYPE_FLOAT32:
+          channel.putFloat32(times, responseMap.GetDataAsFloat32(index));
+          break;
+        case ChannelMap.TYPE_INT32:
+          channel.putInt32(times, responseMap.GetDataAsInt32(index));
+          break;
+        case ChannelMap.TYPE_STRING:
+          channel.putString(times, responseMap.GetDataAsString(index));
+          break;
+        default:
+          channel.putByteArray(times, responseMap.GetDataAsByteArray(index));
+          break;
+      }
+      channels.add(channel);
+    }
+    return channels;
+  }
+
+  /**
+   * Puts the frames of the channel into the channel map.
+   *
+   * @param map             the channel map to put to
+   * @param index           the channel index
+   * @param channel         the channel frames
+   * @throws SAPIException  if the frames can't be put
+   */
+  private void putFrames(ChannelMap map, int index, ChannelData channel) throws SAPIException {
+    double[] times = channel.getTimes();
+
+    switch (channel.getType()) {
+      case ChannelMap.TYPE_FLOAT64:
+        map.PutTimes(times);
+        map.PutDataAsFloat64(index, channel.getDataAsFloat64());
+        break;
+      case ChannelMap.TYPE_FLOAT32:
+        map.PutTimes(times);
+        map.PutDataAsFloat32(index, channel.getDataAsFloat32());
+        break;
+      case ChannelMap.TYPE_INT32:
+        map.PutTimes(times);
+        map.PutDataAsInt32(index, channel.getDataAsInt32());
+        break;
+      case ChannelMap.TYPE_STRING:
+        // strings and byte arrays are put one frame at a time
+        String[] strings = channel.getDataAsString();
+        for (int frame = 0; frame < times.length; frame++) {
+          map.PutTime(times[frame], 0d);
+          map.PutDataAsString(index, strings[frame]);
+        }
+        break;
+      case ChannelMap.TYPE_BYTEARRAY:
+        byte[][] arrays = channel.getDataAsByteArray();
+        for (int frame = 0; frame < times.length; frame++) {
+          map.PutTime(times[frame], 0d);
+          map.PutDataAsByteArray(index, arrays[frame]);
+        }
+        break;
+      default:
+        throw new SAPIException("Unsupported data type for channel " + channel.getName());
+    }
+  }
+
+  /**
+   * Gets the source connection, opening it on first use.
+   *
+   * @return                the source
+   * @throws SAPIException  if the source can't be opened
+   */
+  private Source getSource() throws SAPIException {
+    assertOpen();
+    if ( source == null ) {
+      source = new Source(cacheSize, archiveMode, archiveSize);
+      source.OpenRBNBConnection(serverAddress, clientName);
+    }
+    return source;
+  }
+
+  /**
+   * Gets the sink connection, opening it on first use.
+   *
+   * @return                the sink
+   * @throws SAPIException  if the sink can't be opened
+   */
+  private Sink getSink() throws SAPIException {
+    assertOpen();
+    if ( sink == null ) {
+      sink = new Sink();
+      sink.OpenRBNBConnection(serverAddress, clientName + "Sink");
+    }
+    return sink;
+  }
+
+  /**
+   * Checks that the client has been opened.
+   *
+   * @throws SAPIException  if the client isn't open
+   */
+  private void assertOpen() throws SAPIException {
+    if ( ! connected ) {
+      throw new SAPIException("The client is not connected.");
+    }
+  }
+}
@@ -0,0 +1,456 @@
+package org.nees.rbnb;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.SAPIException;
+import com.rbnb.sapi.Sink;
+
+/**
+ * Hands out pooled <code>Sink</code> connections to RBNB servers for short
+ * metadata and request/fetch operations, so a process keeps a handful of open
+ * connections rather than opening and closing one per query. Idle connections
+ * are verified before they are handed out, and broken ones are replaced
+ * transparently.
+ *
+ * Sinks borrowed from the manager must be returned with
+ * {@link #releaseSink(Sink)}, or dropped with {@link #invalidateSink(Sink)}
+ * when an operation fails. Long-lived <code>Subscribe</code> or
+ * <code>Monitor</code> sinks should keep their own connection.
+ */
+public final class SinkConnectionManager {
+
+  /** The Logger instance used to log system messages */
+  private static final Log log = LogFactory.getLog(SinkConnectionManager.class);
+
+  /** The default number of idle connections kept per server */
+  public static final int DEFAULT_MAX_IDLE_PER_SERVER = 4;
+
+  /** The base client name used for pooled sinks */
+  private static final String SINK_NAME = "PooledSink";
+
+  /** The shared process-wide instance */
+  private static final SinkConnectionManager instance = new SinkConnectionManager();
+
+  /** The idle sinks, keyed by server address */
+  private final Map<String, Deque<Sink>> idleSinks = new HashMap<String, Deque<Sink>>();
+
+  /** The server address of each sink currently lent out */
+  private final Map<Sink, String> activeSinks = new IdentityHashMap<Sink, String>();
+
+  /** The number of idle connections kept per server */
+  private int maxIdlePerServer = DEFAULT_MAX_IDLE_PER_SERVER;
+
+  /** A counter used to give each pooled sink a unique client name */
+  private long sinkCounter = 0;
+
+  /** The number of connections opened */
+  private long openedCount = 0;
+
+  /** The number of connections closed */
+  private long closedCount = 0;
+
+  /** The number of times a sink was borrowed */
+  private long borrowedCount = 0;
+
+  /** The number of borrows served from an idle connection */
+  private long reusedCount = 0;
+
+  /** The number of idle connections that failed verification */
+  private long failedVerificationCount = 0;
+
+  /** The number of operations retried on a fresh connection */
+  private long reconnectCount = 0;
+
+  /** The number of sinks discarded after a timed out fetch */
+  private long timedOutCount = 0;
+
+  /**
+   * An operation run against a pooled sink. An operation that fetches should
+   * return the fetched <code>ChannelMap</code>, so a timed out fetch can be
+   * seen and its connection discarded.
+   *
+   * @param <T>  the result type of the operation
+   */
+  public interface SinkOperation<T> {
+    /**
+     * Runs the operation.
+     *
+     * @param sink            the connected sink to use
+     * @return                the result of the operation
+     * @throws SAPIException  if there is an error talking to the server
+     */
+    T run(Sink sink) throws SAPIException;
+  }
+
+  /**
+   * Opens and verifies the pooled connections. Tests substitute one that
+   * doesn't need a server.
+   */
+  interface SinkFactory {
+    /**
+     * Opens a new sink connection.
+     *
+     * @param serverAddress   the address of the RBNB server
+     * @param sinkName        the client name of the sink
+     * @return                the connected sink
+     * @throws SAPIException  if the connection can't be opened
+     */
+    Sink open(String serverAddress, String sinkName) throws SAPIException;
+
+    /**
+     * Checks that an idle sink is still connected before it is reused.
+     *
+     * @param sink  the idle sink
+     * @return      true if the sink is still connected
+     */
+    boolean verify(Sink sink);
+  }
+
+  /** The factory that opens connections to RBNB servers */
+  private static final SinkFactory RBNB_SINK_FACTORY = new SinkFactory() {
+    public Sink open(String serverAddress, String sinkName) throws SAPIException {
+      Sink sink = new Sink();
+      sink.OpenRBNBConnection(serverAddress, sinkName);
+      return sink;
+    }
+
+    public boolean verify(Sink sink) {
+      return sink.VerifyConnection();
+    }
+  };
+
+  /** The factory used to open and verify connections */
+  private final SinkFactory sinkFactory;
+
+  /**
+   * Creates a connection manager. Most callers should use the shared
+   * instance from {@link #getInstance()}.
+   */
+  public SinkConnectionManager() {
+    this(RBNB_SINK_FACTORY);
+  }
+
+  /**
+   * Creates a connection manager that opens its connections with the given
+   * factory.
+   *
+   * @param sinkFactory  the factory used to open and verify connections
+   */
+  SinkConnectionManager(SinkFactory sinkFactory) {
+    this.sinkFactory = sinkFactory;
+  }
+
+  /**
+   * Gets the shared process-wide connection manager.
+   *
+   * @return  the shared connection manager
+   */
+  public static SinkConnectionManager getInstance() {
+    return instance;
+  }
+
+  /**
+   * Borrows a connected sink for the given server, reusing an idle
+   * connection when a verified one is available.
+   *
+   * @param serverAddress   the address of the RBNB server
+   * @return                a connected sink
+   * @throws SAPIException  if a new connection can't be opened
+   */
+  public Sink borrowSink(String serverAddress) throws SAPIException {
+    Sink sink = null;
+    String sinkName;
+
+    synchronized (this) {
+      borrowedCount++;
+      Deque<Sink> idle = idleSinks.get(serverAddress);
+      while ( idle != null && ! idle.isEmpty() ) {
+        Sink candidate = idle.pop();
+        if ( sinkFactory.verify(candidate) ) {
+          sink = candidate;
+          reusedCount++;
+          break;
+        }
+        failedVerificationCount++;
+        closeSink(candidate);
+      }
+
+      if ( sink != null ) {
+        activeSinks.put(sink, serverAddress);
+        return sink;
+      }
+      sinkName = SINK_NAME + "-" + (++sinkCounter);
+    }
+
+    // Open new connections outside the lock so slow servers don't block others
+    sink = sinkFactory.open(serverAddress, sinkName);
+    log.debug("Opened pooled sink " + sinkName + " to " + serverAddress);
+
+    synchronized (this) {
+      openedCount++;
+      activeSinks.put(sink, serverAddress);
+    }
+    return sink;
+  }
+
+  /**
+   * Returns a borrowed sink to the pool. The sink is closed if its server
+   * already has the maximum number of idle connections.
+   *
+   * @param sink  the borrowed sink
+   */
+  public synchronized void releaseSink(Sink sink) {
+    if ( sink == null ) {
+      return;
+    }
+    String serverAddress = activeSinks.remove(sink);
+    if ( serverAddress == null ) {
+      log.warn("Released a sink that wasn't borrowed from the pool.");
+      return;
+    }
+
+    Deque<Sink> idle = idleSinks.get(serverAddress);
+    if ( idle == null ) {
+      idle = new ArrayDeque<Sink>();
+      idleSinks.put(serverAddress, idle);
+    }
+
+    if ( idle.size() < maxIdlePerServer ) {
+      idle.push(sink);
+    } else {
+      closeSink(sink);
+    }
+  }
+
+  /**
+   * Closes a borrowed sink and removes it from the pool, typically after an
+   * operation on it failed.
+   *
+   * @param sink  the borrowed sink
+   */
+  public synchronized void invalidateSink(Sink sink) {
+    if ( sink == null ) {
+      return;
+    }
+    activeSinks.remove(sink);
+    closeSink(sink);
+  }
+
+  /**
+   * Runs an operation on a pooled sink for the given server. If the
+   * operation fails, the connection is discarded and the operation is retried
+   * once on a fresh connection. If the operation returns a channel map whose
+   * fetch timed out, the request is still outstanding on the connection, so
+   * the connection is discarded rather than reused, and the map is returned.
+   *
+   * @param serverAddress   the address of the RBNB server
+   * @param operation       the operation to run
+   * @param <T>             the result type of the operation
+   * @return                the result of the operation
+   * @throws SAPIException  if the operation fails on a fresh connection too
+   */
+  public <T> T execute(String serverAddress, SinkOperation<T> operation) throws SAPIException {
+    Sink sink = borrowSink(serverAddress);
+    try {
+      return run(sink, operation);
+
+    } catch (SAPIException e) {
+      log.debug("Pooled sink operation failed, reconnecting to " +
+        serverAddress + ": " + e.getMessage());
+    }
+
+    synchronized (this) {
+      reconnectCount++;
+    }
+    return run(borrowSink(serverAddress), operation);
+  }
+
+  /**
+   * Runs an operation on a borrowed sink, releasing the sink if it can be
+   * reused and invalidating it otherwise, including when the operation
+   * throws.
+   *
+   * @param sink            the borrowed sink
+   * @param operation       the operation to run
+   * @param <T>             the result type of the operation
+   * @return                the result of the operation
+   * @throws SAPIException  if the operation fails
+   */
+  private <T> T run(Sink sink, SinkOperation<T> operation) throws SAPIException {
+    boolean reusable = false;
+    try {
+      T result = operation.run(sink);
+      if ( result instanceof ChannelMap && ((ChannelMap) result).GetIfFetchTimedOut() ) {
+        synchronized (this) {
+          timedOutCount++;
+        }
+      } else {
+        reusable = true;
+      }
+      return result;
+
+    } finally {
+      if ( reusable ) {
+        releaseSink(sink);
+      } else {
+        invalidateSink(sink);
+      }
+    }
+  }
+
+  /**
+   * Closes all idle connections. Borrowed sinks are closed when they are
+   * released or invalidated.
+   */
+  public synchronized void closeIdleSinks() {
+    for (Deque<Sink> idle : idleSinks.values()) {
+      while ( ! idle.isEmpty() ) {
+        closeSink(idle.pop());
+      }
+    }
+    idleSinks.clear();
+  }
+
+  /**
+   * Closes a sink connection, counting it.
+   *
+   * @param sink  the sink to close
+   */
+  private void closeSink(Sink sink) {
+    try {
+      sink.CloseRBNBConnection();
+    } catch (Exception e) {
+      log.debug("Couldn't cleanly close pooled sink: " + e.getMessage());
+    }
+    closedCount++;
+  }
+
+  /**
+   * Gets the number of idle connections kept per server.
+   *
+   * @return  the maximum number of idle connections per server
+   */
+  public synchronized int getMaxIdlePerServer() {
+    return maxIdlePerServer;
+  }
+
+  /**
+   * Sets the number of idle connections kept per server.
+   *
+   * @param maxIdlePerServer  the maximum number of idle connections per server
+   */
+  public synchronized void setMaxIdlePerServer(int maxIdlePerServer) {
+    this.maxIdlePerServer = maxIdlePerServer;
+  }
+
+  /**
+   * Gets the number of idle connections across all servers.
+   *
+   * @return  the idle connection count
+   */
+  public synchronized int getIdleCount() {
+    int count = 0;
+    for (Deque<Sink> idle : idleSinks.values()) {
+      count += idle.size();
+    }
+    return count;
+  }
+
+  /**
+   * Gets the number of connections currently lent out.
+   *
+   * @return  the active connection count
+   */
+  public synchronized int getActiveCount() {
+    return activeSinks.size();
+  }
+
+  /**
+   * Gets the number of connections opened by the manager.
+   *
+   * @return  the opened connection count
+   */
+  public synchronized long getOpenedCount() {
+    return openedCount;
+  }
+
+  /**
+   * Gets the number of connections closed by the manager.
+   *
+   * @return  the closed connection count
+   */
+  public synchronized long getClosedCount() {
+    return closedCount;
+  }
+
+  /**
+   * Gets the number of times a sink was borrowed.
+   *
+   * @return  the borrow count
+   */
+  public synchronized long getBorrowedCount() {
+    return borrowedCount;
+  }
+
+  /**
+   * Gets the number of borrows served by an idle connection.
+   *
+   * @return  the reused connection count
+   */
+  public synchronized long getReusedCount() {
+    return reusedCount;
+  }
+
+  /**
+   * Gets the number of idle connections that failed verification.
+   *
+   * @return  the failed verification count
+   */
+  public synchronized long getFailedVerificationCount() {
+    return failedVerificationCount;
+  }
+
+  /**
+   * Gets the number of operations retried on a fresh connection.
+   *
+   * @return  the reconnect count
+   */
+  public synchronized long getReconnectCount() {
+    return reconnectCount;
+  }
+
+  /**
+   * Gets the number of sinks discarded after a timed out fetch.
+   *
+   * @return  the timed out fetch count
+   */
+  public synchronized long getTimedOutCount() {
+    return timedOutCount;
+  }
+
+  /**
+   * Summarizes the pool metrics for logging.
+   *
+   * @return  the pool metrics
+   */
+  @Override
+  public synchronized String toString() {
+    return "SinkConnectionManager[active=" + activeSinks.size() +
+      ", idle=" + getIdleCount() +
+      ", opened=" + openedCount +
+      ", closed=" + closedCount +
+      ", borrowed=" + borrowedCount +
+      ", reused=" + reusedCount +
+      ", failedVerifications=" + failedVerificationCount +
+      ", reconnects=" + reconnectCount +
+      ", timedOut=" + timedOutCount + "]";
+  }
+}
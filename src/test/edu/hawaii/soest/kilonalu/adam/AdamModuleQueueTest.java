@@ -0,0 +1,110 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.XMLConfiguration;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the bounded per-module packet queue
+ */
+public class AdamModuleQueueTest {
+
+    /**
+     * A source that records the first byte of each packet, after waiting
+     * for the test to release it
+     */
+    private static class RecordingSource extends AdamSource {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<Byte> firstBytes = new CopyOnWriteArrayList<Byte>();
+        final List<String> addresses = new CopyOnWriteArrayList<String>();
+
+        @Override
+        protected boolean process(String datagramAddress, XMLConfiguration xmlConfig,
+                                  ByteBuffer sampleBuffer) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // the parser flips the buffer it's given
+            sampleBuffer.flip();
+            addresses.add(datagramAddress);
+            firstBytes.add(sampleBuffer.get());
+            return true;
+        }
+    }
+
+    private static ByteBuffer packet(int first) {
+        ByteBuffer packet = ByteBuffer.allocate(8);
+        packet.put((byte) first).put(new byte[7]).flip();
+        return packet;
+    }
+
+    /**
+     * Test that packets beyond the queue capacity are dropped and counted
+     * while the worker is busy, and that the queued packets are processed in
+     * order once it is free
+     */
+    @Test
+    public void testDropsWhenFullAndDrainsInOrder() throws InterruptedException {
+        RecordingSource source = new RecordingSource();
+        AdamModuleQueue queue = new AdamModuleQueue("192.168.100.21", source, null, 2, 16);
+        queue.start();
+
+        // the first packet is taken by the worker, which blocks
+        assertTrue(queue.offer(packet(1)));
+        assertTrue(source.started.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.offer(packet(2)));
+        assertTrue(queue.offer(packet(3)));
+        assertFalse(queue.offer(packet(4)));
+        assertEquals(2, queue.getDepth());
+        assertEquals(2, queue.getMaxDepth());
+
+        source.release.countDown();
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (queue.getProcessedCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        queue.stop();
+
+        assertEquals(4, queue.getReceivedCount());
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(3, queue.getProcessedCount());
+        assertEquals(0, queue.getDepth());
+        assertEquals(3, source.firstBytes.size());
+        assertEquals(Byte.valueOf((byte) 1), source.firstBytes.get(0));
+        assertEquals(Byte.valueOf((byte) 2), source.firstBytes.get(1));
+        assertEquals(Byte.valueOf((byte) 3), source.firstBytes.get(2));
+        assertEquals("192.168.100.21", source.addresses.get(0));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adam;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.XMLConfiguration;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the compiled ADAM channel mapping and in-place decoding
+ */
+public class AdamSourceTest {
+
+    /**
+     * Test that the mapping of a module is resolved from its sensor entry in
+     * voltage channel order, and that a mismatched address maps nothing
+     */
+    @Test
+    public void testCompilesChannelMapping() throws ConfigurationException {
+        XMLConfiguration xmlConfig =
+            new XMLConfiguration(getClass().getResource("/sensor.properties.xml"));
+        AdamSource source = new AdamSource("localhost", "3333", "append", 1, 1,
+            "KN00XX_012ADAM012R01");
+
+        AdamSource.ChannelMapping mapping =
+            source.compileChannelMapping(xmlConfig, "192.168.100.208");
+        assertEquals("192.168.100.208", mapping.getAddress());
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6, 7}, mapping.getVoltageChannels());
+        assertArrayEquals(new String[] {
+            "port/1/currentImpedance", "port/2/currentImpedance",
+            "port/3/currentImpedance", "port/4/currentImpedance",
+            "port/1/temperature", "port/2/temperature",
+            "port/3/leak", "port/4/temperature"}, mapping.getChannelNames());
+
+        assertNull(mapping.getVoltageWindow());
+        assertTrue(mapping.isKeepingRaw());
+
+        mapping = source.compileChannelMapping(xmlConfig, "192.168.100.209");
+        assertEquals(0, mapping.getVoltageChannels().length);
+    }
+
+    /**
+     * Test that a sensor window turns on the statistics, and can drop the
+     * per-packet stream
+     */
+    @Test
+    public void testCompilesWindow() throws ConfigurationException {
+        XMLConfiguration xmlConfig =
+            new XMLConfiguration(getClass().getResource("/sensor.properties.xml"));
+        xmlConfig.addProperty("sensor(0).window[@seconds]", "60");
+        xmlConfig.addProperty("sensor(0).window[@keepRaw]", "false");
+        AdamSource source = new AdamSource("localhost", "3333", "append", 1, 1,
+            "KN00XX_012ADAM012R01");
+
+        AdamSource.ChannelMapping mapping =
+            source.compileChannelMapping(xmlConfig, "192.168.100.208");
+        assertEquals(60d, mapping.getVoltageWindow().getLength(), 0d);
+        assertFalse(mapping.isKeepingRaw());
+        assertEquals(8, mapping.getChannelNames().length);
+    }
+
+    /**
+     * Test that decoding a field in place matches the parser's getters
+     */
+    @Test
+    public void testDecodesInPlace() {
+        ByteBuffer packet = ByteBuffer.allocate(AdamParser.PACKET_SIZE);
+        for (int i = 0; i < AdamParser.PACKET_SIZE; i++) {
+            packet.put((byte) (i * 37 + 11));
+        }
+        ByteBuffer copy = ByteBuffer.allocate(AdamParser.PACKET_SIZE);
+        copy.put(packet.array());
+        AdamParser parser = new AdamParser(copy);
+
+        assertEquals(parser.getChannelZero(), AdamParser.getVoltage(packet, 0), 0f);
+        assertEquals(parser.getChannelThree(), AdamParser.getVoltage(packet, 3), 0f);
+        assertEquals(parser.getChannelSeven(), AdamParser.getVoltage(packet, 7), 0f);
+        assertEquals(parser.getChannelAverage(),
+            AdamParser.getVoltage(packet, AdamParser.CHANNEL_AVERAGE), 0f);
+        assertEquals(parser.getChannelFiveMax(),
+            AdamParser.getVoltage(packet, AdamParser.CHANNELS_PER_GROUP + 5), 0f);
+        assertEquals(parser.getChannelAverageMin(), AdamParser.getVoltage(packet,
+            2 * AdamParser.CHANNELS_PER_GROUP + AdamParser.CHANNEL_AVERAGE), 0f);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the windowed voltage channel statistics
+ */
+public class VoltageWindowTest {
+
+    /**
+     * Test that the statistics of each channel match the samples of the
+     * window, and that the window closes on its aligned boundary
+     */
+    @Test
+    public void testStatisticsAndClose() {
+        VoltageWindow window = new VoltageWindow(2, 60d);
+        float[][] samples = {{1.0f, -2.0f}, {3.0f, -2.0f}, {2.0f, -5.0f}, {6.0f, -3.0f}};
+        double time = 1200d * 60d + 5d;
+
+        for (float[] sample : samples) {
+            assertFalse(window.isClosedBy(time));
+            window.add(sample, time);
+            time += 10d;
+        }
+        // still in the same minute, then the next one
+        assertFalse(window.isClosedBy(1200d * 60d + 59.9d));
+        assertTrue(window.isClosedBy(1201d * 60d));
+
+        assertEquals(4, window.getCount());
+        assertEquals(1200d * 60d, window.getStartTime(), 0d);
+        assertEquals(3.0f, window.getMean(0), 1e-6f);
+        assertEquals(1.0f, window.getMinimum(0), 0f);
+        assertEquals(6.0f, window.getMaximum(0), 0f);
+        assertEquals(3.5f, window.getVariance(0), 1e-5f);
+        assertEquals(-3.0f, window.getMean(1), 1e-6f);
+        assertEquals(-5.0f, window.getMinimum(1), 0f);
+        assertEquals(-2.0f, window.getMaximum(1), 0f);
+        assertEquals(1.5f, window.getVariance(1), 1e-5f);
+
+        window.reset();
+        assertEquals(0, window.getCount());
+        assertFalse(window.isClosedBy(1201d * 60d));
+        assertTrue(Float.isNaN(window.getMean(0)));
+        window.add(new float[] {7.0f, 7.0f}, 1201d * 60d);
+        assertEquals(7.0f, window.getMinimum(0), 0f);
+        assertEquals(1201d * 60d, window.getStartTime(), 0d);
+    }
+}
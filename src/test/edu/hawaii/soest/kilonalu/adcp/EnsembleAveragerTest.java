@@ -0,0 +1,84 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the running ensemble profile averager
+ */
+public class EnsembleAveragerTest {
+
+    /**
+     * Test that the mean and variance leave out bad velocities
+     */
+    @Test
+    public void testAveragesByCount() {
+        ByteBuffer first = EnsembleViewTest.buildEnsemble(0);
+        ByteBuffer second = EnsembleViewTest.buildEnsemble(0);
+        EnsembleView view = new EnsembleView(second, 0);
+        int velocity = view.getDataTypeOffset(3) + 2;
+        second.putShort(velocity, (short) 200);
+
+        EnsembleAverager averager = new EnsembleAverager(3, 0);
+        assertFalse(averager.add(new EnsembleView(first, 0), 0d));
+        assertFalse(averager.add(view, 1d));
+        assertTrue(averager.add(new EnsembleView(first, 0), 2d));
+        assertEquals(3, averager.getEnsembleCount());
+        assertTrue(averager.hasVelocities());
+        assertFalse(averager.hasCorrelations());
+
+        float[] means = new float[averager.getProfileLength()];
+        float[] variances = new float[averager.getProfileLength()];
+        assertEquals(8, averager.getMeanVelocities(means));
+        averager.getVelocityVariances(variances);
+
+        // cell 0, beam 0 saw 0, 0.2, and 0 m/s
+        assertEquals(0.2f / 3, means[0], 1e-6f);
+        assertEquals(0.04f / 3 - (0.2f / 3) * (0.2f / 3), variances[0], 1e-6f);
+        assertEquals(0.099f, means[5], 1e-6f);
+        assertEquals(0f, variances[5], 1e-6f);
+        assertTrue(Float.isNaN(means[7]));
+        assertTrue(Float.isNaN(variances[7]));
+
+        averager.reset();
+        assertEquals(0, averager.getEnsembleCount());
+        assertFalse(averager.hasVelocities());
+    }
+
+    /**
+     * Test that an average completes once the interval has passed
+     */
+    @Test
+    public void testAveragesByInterval() {
+        EnsembleView view = new EnsembleView(EnsembleViewTest.buildEnsemble(0), 0);
+        EnsembleAverager averager = new EnsembleAverager(0, 60d);
+        assertFalse(averager.add(view, 100d));
+        assertFalse(averager.add(view, 130d));
+        assertTrue(averager.add(view, 160d));
+        averager.reset();
+        assertFalse(averager.add(view, 161d));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise framing PD0 ensembles out of a byte stream
+ */
+public class EnsembleFramerTest {
+
+    /* Gets the bytes of the test ensemble */
+    private static byte[] ensembleBytes() {
+        ByteBuffer buffer = EnsembleViewTest.buildEnsemble(0);
+        EnsembleView view = new EnsembleView(buffer, 0);
+        return Arrays.copyOf(buffer.array(), view.getLength());
+    }
+
+    /**
+     * Test that ensembles are framed out of noise, false header IDs, and a
+     * corrupted ensemble, when the stream arrives in small pieces
+     */
+    @Test
+    public void testFramesStream() {
+        byte[] ensemble = ensembleBytes();
+        byte[] corrupted = ensembleBytes();
+        corrupted[20] ^= 0x01;
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(new byte[] {0x01, 0x7F, 0x7F, 0x10, 0x00, 0x00, 0x7F}, 0, 7);
+        stream.write(ensemble, 0, ensemble.length);
+        stream.write(corrupted, 0, corrupted.length);
+        stream.write(new byte[] {0x7F, 0x7F, 0x02}, 0, 3);
+        stream.write(ensemble, 0, ensemble.length);
+        byte[] bytes = stream.toByteArray();
+
+        EnsembleFramer framer = new EnsembleFramer(0);
+        List<byte[]> framed = new ArrayList<byte[]>();
+        for (int offset = 0; offset < bytes.length; offset += 13) {
+            ByteBuffer piece = ByteBuffer.wrap(bytes, offset, Math.min(13, bytes.length - offset));
+            while (piece.hasRemaining()) {
+                framer.put(piece);
+                byte[] next;
+                while ((next = framer.next()) != null) {
+                    framed.add(next.clone());
+                    framer.release(next);
+                }
+            }
+        }
+
+        assertEquals(2, framed.size());
+        assertArrayEquals(ensemble, framed.get(0));
+        assertArrayEquals(ensemble, framed.get(1));
+        assertEquals(2, framer.getEnsembleCount());
+        assertEquals(1, framer.getInvalidCount());
+    }
+
+    /**
+     * Test that released arrays are reused for ensembles of the same length
+     */
+    @Test
+    public void testReusesReleasedArrays() {
+        byte[] ensemble = ensembleBytes();
+        EnsembleFramer framer = new EnsembleFramer();
+
+        framer.put(ByteBuffer.wrap(ensemble));
+        byte[] first = framer.next();
+        assertNull(framer.next());
+        framer.release(first);
+
+        framer.put(ByteBuffer.wrap(ensemble));
+        assertSame(first, framer.next());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the flyweight PD0 ensemble view and the Ensemble facade
+ */
+public class EnsembleViewTest {
+
+    /* The offsets of the data types in the test ensemble */
+    private static final int FIXED_LEADER = 12;
+    private static final int VARIABLE_LEADER = FIXED_LEADER + 59;
+    private static final int VELOCITY = VARIABLE_LEADER + 65;
+
+    /* The number of bytes in the test ensemble, up to the checksum */
+    private static final int NUMBER_OF_BYTES = VELOCITY + 2 + 4 * 2 * 2 + 2;
+
+    /**
+     * Build a four beam, two cell ensemble with a Fixed Leader, Variable
+     * Leader, and Velocity Profile, at the given offset in a larger buffer
+     */
+    public static ByteBuffer buildEnsemble(int offset) {
+        ByteBuffer buffer = ByteBuffer.allocate(offset + NUMBER_OF_BYTES + 2 + 7);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(offset);
+        ByteBuffer ensemble = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        ensemble.putShort(0, (short) 0x7f7f);
+        ensemble.putShort(2, (short) NUMBER_OF_BYTES);
+        ensemble.put(5, (byte) 3);
+        ensemble.putShort(6, (short) FIXED_LEADER);
+        ensemble.putShort(8, (short) VARIABLE_LEADER);
+        ensemble.putShort(10, (short) VELOCITY);
+
+        ensemble.putShort(FIXED_LEADER, (short) 0x0000);
+        ensemble.put(FIXED_LEADER + 2, (byte) 16);
+        ensemble.putShort(FIXED_LEADER + 4, (short) 0xC24C);
+        ensemble.put(FIXED_LEADER + 8, (byte) 4);
+        ensemble.put(FIXED_LEADER + 9, (byte) 2);
+        ensemble.putShort(FIXED_LEADER + 12, (short) 25);
+        ensemble.putShort(FIXED_LEADER + 26, (short) -1250);
+        ensemble.putInt(FIXED_LEADER + 54, 12345);
+        ensemble.put(FIXED_LEADER + 58, (byte) 20);
+
+        ensemble.putShort(VARIABLE_LEADER, (short) 0x0080);
+        ensemble.putShort(VARIABLE_LEADER + 2, (short) 42);
+        ensemble.putShort(VARIABLE_LEADER + 18, (short) 27015);
+        ensemble.putShort(VARIABLE_LEADER + 26, (short) 2450);
+        ensemble.putInt(VARIABLE_LEADER + 48, 123456);
+        ensemble.put(VARIABLE_LEADER + 57, (byte) 20);
+        ensemble.put(VARIABLE_LEADER + 58, (byte) 20);
+        ensemble.put(VARIABLE_LEADER + 59, (byte) 6);
+
+        ensemble.putShort(VELOCITY, (short) 0x0100);
+        for (int cell = 0; cell < 2; cell++) {
+            for (int beam = 0; beam < 4; beam++) {
+                ensemble.putShort(VELOCITY + 2 + (cell * 4 + beam) * 2, (short) (cell * 100 - beam));
+            }
+        }
+        ensemble.putShort(VELOCITY + 2 + 7 * 2, EnsembleView.BAD_VELOCITY);
+
+        int sum = 0;
+        for (int index = 0; index < NUMBER_OF_BYTES; index++) {
+            sum += ensemble.get(index) & 0xFF;
+        }
+        ensemble.putShort(NUMBER_OF_BYTES, (short) sum);
+        return buffer;
+    }
+
+    /**
+     * Test that fields are read at their offsets without moving the buffer
+     */
+    @Test
+    public void testReadsFieldsInPlace() {
+        ByteBuffer buffer = buildEnsemble(5);
+        buffer.position(3);
+
+        EnsembleView view = new EnsembleView(buffer, 5);
+        assertTrue(view.isValid());
+        assertEquals(NUMBER_OF_BYTES + 2, view.getLength());
+        assertEquals(3, view.getNumberOfDataTypes());
+        assertTrue(view.hasDataType(EnsembleDataType.VELOCITY_PROFILE));
+        assertFalse(view.hasDataType(EnsembleDataType.PERCENTGOOD_PROFILE));
+        assertEquals(3, view.getDataTypeNumber(EnsembleDataType.VELOCITY_PROFILE));
+
+        assertEquals(4, view.getNumberOfBeams());
+        assertEquals(2, view.getNumberOfCells());
+        assertEquals(12345, view.getSerialNumber());
+        assertEquals(20, view.getBeamAngle());
+        assertEquals(42, view.getEnsembleNumber());
+        assertEquals(123456, view.getPressure());
+        assertEquals(-3, view.getVelocity(0, 3));
+        assertEquals(99, view.getVelocity(1, 1));
+        assertEquals(EnsembleView.BAD_VELOCITY, view.getVelocity(1, 3));
+
+        short[] velocities = new short[8];
+        assertEquals(8, view.getVelocities(velocities));
+        assertEquals(-2, velocities[2]);
+        assertEquals(98, velocities[6]);
+
+        // the buffer is left as it was found
+        assertEquals(3, buffer.position());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+
+        // a corrupted byte fails the checksum
+        buffer.put(5 + VELOCITY + 2, (byte) 0x7f);
+        assertFalse(view.isValid());
+    }
+
+    /**
+     * Test that the Ensemble facade converts the raw values
+     */
+    @Test
+    public void testEnsembleFacade() {
+        ByteBuffer source = buildEnsemble(0);
+        ByteBuffer buffer = ByteBuffer.allocate(source.capacity());
+        buffer.put(source);
+
+        Ensemble ensemble = new Ensemble(buffer);
+        assertTrue(ensemble.isValid());
+        assertEquals(0x7f7f, ensemble.getHeaderID());
+        assertEquals((short) 0xC24C, ensemble.getSystemConfiguration());
+        assertEquals(4, ensemble.getNumberOfBeams());
+        assertEquals(25, ensemble.getDepthCellLength());
+        assertEquals(-12.5f, ensemble.getHeadingAlignment(), 0f);
+        assertEquals(270.15f, ensemble.getHeading(), 0.001f);
+        assertEquals(24.5f, ensemble.getTemperature(), 0.001f);
+        assertEquals(12.3456f, ensemble.getPressure(), 0.0001f);
+        assertEquals(2020, ensemble.getRealTimeY2KClockCentury() * 100 +
+            ensemble.getRealTimeY2KClockYear());
+        assertEquals(6, ensemble.getRealTimeY2KClockMonth());
+        assertEquals(3, ensemble.getDataTypeNumber(EnsembleDataType.VELOCITY_PROFILE));
+
+        float[] velocities = new float[ensemble.getProfileLength()];
+        assertEquals(8, ensemble.getVelocities(velocities));
+        assertEquals(0f, velocities[0], 0f);
+        assertEquals(-0.003f, velocities[3], 0f);
+        assertEquals(0.099f, velocities[5], 0f);
+        assertTrue(Float.isNaN(velocities[7]));
+        assertFalse(ensemble.hasDataType(EnsembleDataType.ECHOINTENSITY_PROFILE));
+
+        // repeated reads return the same values
+        assertEquals(4, ensemble.getNumberOfBeams());
+        assertEquals(42, ensemble.getEnsembleNumber());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.adcp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.rbnb.sapi.SAPIException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.nees.rbnb.ChannelData;
+import org.nees.rbnb.LocalDataTurbineClient;
+
+/**
+ * Tests that exercise the parallel PD0 file ingester
+ */
+public class PD0FileIngesterTest {
+
+    private static final String SERVER = "local-test:3333";
+
+    /* 2020-06-01 00:00:00 UTC */
+    private static final double JUNE_FIRST = 1590969600d;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        LocalDataTurbineClient.clearServer(SERVER);
+    }
+
+    /**
+     * Build a test ensemble with its clock set to the given day and minute
+     */
+    private static byte[] buildEnsemble(int day, int minute) {
+        ByteBuffer buffer = EnsembleViewTest.buildEnsemble(0);
+        EnsembleView view = new EnsembleView(buffer, 0);
+        int clock = view.getDataTypeOffset(2) + 60;
+        buffer.put(clock, (byte) day);
+        buffer.put(clock + 2, (byte) minute);
+
+        int numberOfBytes = view.getNumberOfBytesInEnsemble();
+        int sum = 0;
+        for (int index = 0; index < numberOfBytes; index++) {
+            sum += buffer.get(index) & 0xFF;
+        }
+        buffer.put(numberOfBytes, (byte) sum);
+        buffer.put(numberOfBytes + 1, (byte) (sum >> 8));
+
+        byte[] ensemble = new byte[numberOfBytes + 2];
+        buffer.position(0);
+        buffer.get(ensemble);
+        return ensemble;
+    }
+
+    /**
+     * Load a file into a local server with the given chunk size, returning
+     * the flushed channel and checking the skipped count
+     */
+    private static ChannelData ingest(File pd0File, String sourceName, int chunkSize,
+                                      long expectedSkipped) throws IOException, SAPIException {
+        PD0FileIngester ingester = new PD0FileIngester();
+        ingester.setFile(pd0File);
+        ingester.setChunkSize(chunkSize);
+        ingester.setThreads(3);
+        ingester.setBatchSize(3);
+        ingester.setTimeZone(ZoneOffset.UTC);
+        ingester.setClient(new LocalDataTurbineClient());
+        ingester.setServerName("local-test");
+        ingester.setServerPort(3333);
+        ingester.setRBNBClientName(sourceName);
+        ingester.ingest();
+        assertEquals(expectedSkipped, ingester.getSkippedCount());
+
+        LocalDataTurbineClient sink = new LocalDataTurbineClient();
+        sink.open(SERVER, "TestSink");
+        sink.request(Collections.singletonList(sourceName + "/BinaryPD0EnsembleData"),
+            JUNE_FIRST, 3600d, "absolute");
+        List<ChannelData> result = sink.fetch(1000);
+        sink.close();
+        return result.get(0);
+    }
+
+    /**
+     * Test that a file with out-of-order clocks gives the same frames
+     * whatever the chunk size, keeping file order and skipping regressions
+     */
+    @Test
+    public void testOutputIndependentOfChunkSize() throws IOException, SAPIException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        int[] minutes = {0, 1, 4, 2, 3, 5, 9, 6, 7, 10, 8, 11};
+        for (int minute : minutes) {
+            file.write(buildEnsemble(1, minute));
+        }
+        File pd0File = folder.newFile("ADCP02.000");
+        Files.write(pd0File.toPath(), file.toByteArray());
+
+        ChannelData small = ingest(pd0File, "ADCP02", 300, 5);
+        ChannelData large = ingest(pd0File, "ADCP03", 1 << 20, 5);
+
+        double[] expected = new double[7];
+        int[] kept = {0, 1, 4, 5, 9, 10, 11};
+        for (int i = 0; i < kept.length; i++) {
+            expected[i] = JUNE_FIRST + kept[i] * 60;
+        }
+        assertArrayEquals(expected, small.getTimes(), 0d);
+        assertArrayEquals(expected, large.getTimes(), 0d);
+        for (int i = 0; i < kept.length; i++) {
+            assertArrayEquals(small.getDataAsByteArray()[i], large.getDataAsByteArray()[i]);
+        }
+    }
+
+    /**
+     * Test that the ensembles of a file are flushed in timestamp order across
+     * chunks, skipping garbage, unreadable clocks, and earlier timestamps
+     */
+    @Test
+    public void testIngestsInTimestampOrder() throws IOException, SAPIException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        byte[] garbage = {0x7F, 0x7F, 0x12, 0x00, 0x7F, 0x33};
+        for (int minute = 0; minute < 20; minute++) {
+            file.write(buildEnsemble(1, minute));
+            file.write(garbage, 0, minute % garbage.length);
+        }
+        // a bad clock, then a timestamp earlier than those already loaded
+        file.write(buildEnsemble(0, 30));
+        file.write(buildEnsemble(1, 5));
+        File pd0File = folder.newFile("ADCP01.000");
+        Files.write(pd0File.toPath(), file.toByteArray());
+
+        PD0FileIngester ingester = new PD0FileIngester();
+        ingester.setFile(pd0File);
+        ingester.setChunkSize(500);
+        ingester.setThreads(3);
+        ingester.setBatchSize(3);
+        ingester.setTimeZone(ZoneOffset.UTC);
+        LocalDataTurbineClient source = new LocalDataTurbineClient();
+        ingester.setClient(source);
+        ingester.setServerName("local-test");
+        ingester.setServerPort(3333);
+        ingester.setRBNBClientName("ADCP01");
+
+        assertEquals(20, ingester.ingest());
+        assertEquals(2, ingester.getSkippedCount());
+
+        LocalDataTurbineClient sink = new LocalDataTurbineClient();
+        sink.open(SERVER, "TestSink");
+        sink.request(Collections.singletonList("ADCP01/BinaryPD0EnsembleData"), JUNE_FIRST, 3600d, "absolute");
+        List<ChannelData> result = sink.fetch(1000);
+        sink.close();
+
+        double[] expected = new double[20];
+        for (int minute = 0; minute < 20; minute++) {
+            expected[minute] = JUNE_FIRST + minute * 60;
+        }
+        assertArrayEquals(expected, result.get(0).getTimes(), 0d);
+        assertArrayEquals(buildEnsemble(1, 7), result.get(0).getDataAsByteArray()[7]);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.ctd;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.text.ParseException;
+
+import org.apache.commons.math.linear.RealMatrix;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the column-wise CTD engineering unit conversion
+ */
+public class CTDBatchConverterTest {
+
+    private static final String SCANS =
+        "03B7DA1909A2086F85510B6E950574D157\r\n" +
+        "03B7E51909A9087090510B6F1B05C7E0FD\r\n" +
+        "03B7F11909C00871B751106D32057AEBEC\r\n" +
+        "03A8BD191E9408521F51127E200577EC90\r\n" +
+        "039A7C1933400831D851167AF7059FE1F3\r\n" +
+        "S>\r\n";
+
+    /**
+     * Assert that a value is within the documented tolerance, relative for
+     * large values and absolute near zero
+     */
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual,
+            CTDBatchConverter.getAllowedDifference(expected, actual));
+    }
+
+    /**
+     * Test that the converted values match the term-by-term calibration sheet
+     * formulas within the documented tolerance
+     */
+    @Test
+    public void testMatchesCalibrationFormulas() throws ParseException {
+        CTDParser parser = new CTDParser(CTDParserTest.HEADER + SCANS);
+        CTDParser.Coefficients c = parser.getCoefficients();
+        RealMatrix raw = parser.getConvertedMatrix();
+
+        CTDConverter converter = new CTDConverter(parser);
+        converter.convert();
+        RealMatrix converted = converter.getConvertedDataValuesMatrix();
+
+        for (int row = 0; row < raw.getRowDimension(); row++) {
+            double mv = (raw.getEntry(row, 0) - 524288d) / 1.6e+007;
+            double r = (mv * 2.900e+009 + 1.024e+008) / (2.048e+004 - mv * 2.0e+005);
+            double temperature = 1 / (c.getTemperatureCoefficientTA0() +
+                c.getTemperatureCoefficientTA1() * Math.log(r) +
+                c.getTemperatureCoefficientTA2() * Math.pow(Math.log(r), 2) +
+                c.getTemperatureCoefficientTA3() * Math.pow(Math.log(r), 3)) - 273.15d;
+
+            double ptc = raw.getEntry(row, 3);
+            double t = c.getPressureCoefficientPTEMPA0() +
+                c.getPressureCoefficientPTEMPA1() * ptc +
+                c.getPressureCoefficientPTEMPA2() * Math.pow(ptc, 2);
+            double x = raw.getEntry(row, 2) - c.getPressureCoefficientPTCA0() -
+                c.getPressureCoefficientPTCA1() * t -
+                c.getPressureCoefficientPTCA2() * Math.pow(t, 2);
+            double n = x * c.getPressureCoefficientPTCB0() /
+                (c.getPressureCoefficientPTCB0() + c.getPressureCoefficientPTCB1() * t +
+                 c.getPressureCoefficientPTCB2() * Math.pow(t, 2));
+            double pressure = (c.getPressureCoefficientPA0() +
+                c.getPressureCoefficientPA1() * n +
+                c.getPressureCoefficientPA2() * Math.pow(n, 2) - 14.7d) * 0.689476d;
+
+            double f = raw.getEntry(row, 1) / 1000d;
+            double conductivity = (c.getConductivityCoefficientG() +
+                c.getConductivityCoefficientH() * Math.pow(f, 2) +
+                c.getConductivityCoefficientI() * Math.pow(f, 3) +
+                c.getConductivityCoefficientJ() * Math.pow(f, 4)) /
+                (1 + c.getConductivityCoefficientCTCOR() * temperature +
+                 c.getConductivityCoefficientCPCOR() * pressure);
+
+            assertClose(temperature, converted.getEntry(row, 0));
+            assertClose(pressure, converted.getEntry(row, 2));
+            assertClose(conductivity, converted.getEntry(row, 1));
+        }
+        // the first scan of the profile, in degrees C
+        assertEquals(26.16, converted.getEntry(0, 0), 0.01);
+    }
+
+    /**
+     * Test that the tolerance is absolute near zero and relative for large
+     * values
+     */
+    @Test
+    public void testAllowedDifference() {
+        assertEquals(1e-12, CTDBatchConverter.getAllowedDifference(0d, 0d), 0d);
+        assertEquals(1e-12, CTDBatchConverter.getAllowedDifference(-0.02d, 1e-15), 0d);
+        assertEquals(2.5e-11, CTDBatchConverter.getAllowedDifference(25d, -24d), 1e-24);
+    }
+
+    /**
+     * Test that a large profile converted in parallel matches the same
+     * profile converted serially
+     */
+    @Test
+    public void testParallelMatchesSerial() throws ParseException {
+        CTDParser parser = new CTDParser(CTDParserTest.HEADER + "S>\r\n");
+        int length = CTDBatchConverter.PARALLEL_THRESHOLD * 2 + 17;
+        double[] raw = new double[length * 4];
+        for (int i = 0; i < length; i++) {
+            raw[i] = 240000d + i % 5000;
+            raw[length + i] = 6400d + (i % 700) / 10d;
+            raw[2 * length + i] = 552000d + i % 900;
+            raw[3 * length + i] = 1.58d + (i % 100) / 10000d;
+        }
+
+        double[] serial = new double[length * 3];
+        double[] parallel = new double[length * 3];
+        convert(new CTDBatchConverter(parser.getCoefficients(), false), raw, serial, length);
+        convert(new CTDBatchConverter(parser.getCoefficients(), true), raw, parallel, length);
+        assertArrayEquals(serial, parallel, 0d);
+    }
+
+    /**
+     * Convert the temperature, pressure, and conductivity columns
+     */
+    private static void convert(CTDBatchConverter converter, double[] raw,
+                                double[] converted, int length) {
+        converter.convertTemperature(raw, 0, converted, 0, length);
+        converter.convertPressure(raw, 2 * length, raw, 3 * length,
+            converted, length, length);
+        converter.convertConductivity(raw, length, converted, 0, converted, length,
+            converted, 2 * length, length);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.ctd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+
+import org.apache.commons.math.linear.RealMatrix;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the SBE19plus CTDParser
+ */
+public class CTDParserTest {
+
+    /* The DS and DCAL output of a profiling SBE19plus in raw HEX format */
+    static final String HEADER =
+        "* Sea-Bird SBE19plus Data File:\r\n" +
+        "* FileName = sh__0002.hex\r\n" +
+        "* Software Version \r\n" +
+        "* Temperature SN =  5251\r\n" +
+        "* Conductivity SN =  5251\r\n" +
+        "* System UpLoad Time = Sep 23 2009 11:29:01\r\n" +
+        "** Cruise: Sea Engineering C&C Project\r\n" +
+        "** Station: Kilo Nalu, 20meter[D[D[D[D[D meter site \r\n" +
+        "** Ship: Huki Pau, Sea Engineering\r\n" +
+        "** Chief_Scientist: McManus\r\n" +
+        "** Organization: UH\r\n" +
+        "** Area_of_Operation: Offshore Kewalo Basin\r\n" +
+        "** Package: SH2\r\n" +
+        "** Mooring_Number: N/A\r\n" +
+        "** Latitude: \r\n" +
+        "** Longitude: \r\n" +
+        "** Sounding: 20.6 m\r\n" +
+        "** Profile_Number: 2\r\n" +
+        "** Profile_Direction: up\r\n" +
+        "** Notes: \r\n" +
+        "* ds\r\n" +
+        "* SeacatPlus V 1.6b  SERIAL NO. 5251    23 Sep 2009  11:29:02\r\n" +
+        "* vbatt = 12.0, vlith =  8.4, ioper =  61.8 ma, ipump = 134.7 ma, \r\n" +
+        "* iext01 =   5.4 ma\r\n" +
+        "* iext23 =  77.8 ma\r\n" +
+        "* \r\n" +
+        "* status = not logging\r\n" +
+        "* number of scans to average = 1\r\n" +
+        "* samples = 493446, free = 1, casts = 1\r\n" +
+        "* mode = profile, minimum cond freq = 3000, pump delay = 20 sec\r\n" +
+        "* autorun = no, ignore magnetic switch = yes\r\n" +
+        "* battery type = alkaline, battery cutoff =  7.3 volts\r\n" +
+        "* pressure sensor = strain gauge, range = 508.0\r\n" +
+        "* SBE 38 = no, Gas Tension Device = no\r\n" +
+        "* Ext Volt 0 = yes, Ext Volt 1 = no, Ext Volt 2 = yes, Ext Volt 3 = yes\r\n" +
+        "* echo commands = yes\r\n" +
+        "* output format = raw HEX\r\n" +
+        "* output salinity = yes, output sound velocity = no" +
+        "* S>\r\n" +
+        "* dcal\r\n" +
+        "* SeacatPlus V 1.6b  SERIAL NO. 5251    23 Sep 2009  11:29:08\r\n" +
+        "* temperature:  09-oct-07\r\n" +
+        "*     TA0 = 1.276108e-03\r\n" +
+        "*     TA1 = 2.615414e-04\r\n" +
+        "*     TA2 = -1.590756e-07\r\n" +
+        "*     TA3 = 1.496275e-07\r\n" +
+        "*     TOFFSET = 0.000000e+00\r\n" +
+        "* conductivity:  09-oct-07\r\n" +
+        "*     G = -1.016034e+00\r\n" +
+        "*     H = 1.583915e-01\r\n" +
+        "*     I = -5.990283e-04\r\n" +
+        "*     J = 7.154628e-05\r\n" +
+        "*     CF0 = 2.541437e+03\r\n" +
+        "*     CPCOR = -9.570000e-08\r\n" +
+        "*     CTCOR = 3.250000e-06\r\n" +
+        "*     CSLOPE = 1.000000e+00\r\n" +
+        "* pressure S/N = 2458922, range = 508 psia:  04-oct-07\r\n" +
+        "*     PA0 = 3.174352e-01\r\n" +
+        "*     PA1 = 1.542191e-03\r\n" +
+        "*     PA2 = 6.554083e-12\r\n" +
+        "*     PTCA0 = 5.251525e+05\r\n" +
+        "*     PTCA1 = 1.352052e+01\r\n" +
+        "*     PTCA2 = -1.455316e-01\r\n" +
+        "*     PTCB0 = 2.558650e+01\r\n" +
+        "*     PTCB1 = -1.500000e-03\r\n" +
+        "*     PTCB2 = 0.000000e+00\r\n" +
+        "*     PTEMPA0 = -5.795848e+01\r\n" +
+        "*     PTEMPA1 = 5.427466e+01\r\n" +
+        "*     PTEMPA2 = -5.522354e-01\r\n" +
+        "*     POFFSET = 0.000000e+00\r\n" +
+        "* volt 0: offset = -4.678210e-02, slope = 1.248624e+00\r\n" +
+        "* volt 1: offset = -4.696105e-02, slope = 1.248782e+00\r\n" +
+        "* volt 2: offset = -4.683263e-02, slope = 1.249537e+00\r\n" +
+        "* volt 3: offset = -4.670842e-02, slope = 1.249841e+00\r\n" +
+        "*     EXTFREQSF = 1.000012e+00\r\n" +
+        "* S>\r\n" +
+        "** First Sample Time: 23 Sep 2009  11:29:15\r\n" +
+        "*END*\r\n";
+
+    /**
+     * Test that raw HEX scans are decoded into the column store and matrix
+     */
+    @Test
+    public void testDecodesRawHex() throws ParseException {
+        CTDParser parser = new CTDParser(HEADER +
+            "03B7DA1909A2086F85510B6E950574D157\r\n" +
+            "03B7ZZ1909A3086FC9510C6E9A05B2E8FD\r\n" +
+            "03B7DF1909A9087032510B6E\r\n" +
+            "S>\r\n");
+
+        assertEquals(7, parser.getDataVariableNames().size());
+        assertEquals(3, parser.getNumberOfScans());
+
+        RealMatrix matrix = parser.getConvertedMatrix();
+        assertEquals(3, matrix.getRowDimension());
+        assertEquals(7, matrix.getColumnDimension());
+        assertEquals(243674d, matrix.getEntry(0, 0), 0d);
+        assertEquals(1640866d / 256d, matrix.getEntry(0, 1), 0d);
+        assertEquals(552837d, matrix.getEntry(0, 2), 0d);
+        assertEquals(20747d / 13107d, matrix.getEntry(0, 3), 0d);
+        assertEquals(53591d / 13107d, matrix.getEntry(0, 6), 0d);
+
+        // a bad hex digit or a short scan leaves NaN in place of the value
+        assertTrue(Double.isNaN(matrix.getEntry(1, 0)));
+        assertEquals(1640867d / 256d, matrix.getEntry(1, 1), 0d);
+        assertEquals(20747d / 13107d, matrix.getEntry(2, 3), 0d);
+        assertTrue(Double.isNaN(matrix.getEntry(2, 4)));
+
+        // the matrix is a view over the column store
+        double[] values = parser.getConvertedValues();
+        assertEquals(values[parser.getConvertedColumnOffset(2) + 1], matrix.getEntry(1, 2), 0d);
+        matrix.setEntry(0, 0, 1d);
+        assertEquals(1d, values[0], 0d);
+    }
+
+    /**
+     * Test that the numeric metadata are parsed once into the coefficients
+     */
+    @Test
+    public void testParsesCoefficients() throws ParseException {
+        CTDParser parser = new CTDParser(HEADER + "S>\r\n");
+        CTDParser.Coefficients coefficients = parser.getCoefficients();
+
+        assertEquals(1.276108e-03, coefficients.getTemperatureCoefficientTA0(), 0d);
+        assertEquals(-1.016034e+00, parser.getConductivityCoefficientG(), 0d);
+        assertEquals(-5.522354e-01, coefficients.getPressureCoefficientPTEMPA2(), 0d);
+        assertEquals(12.0, parser.getMainBatteryVoltage(), 0d);
+        assertEquals(61.8, parser.getOperatingCurrent(), 0d);
+        assertEquals(20, parser.getPumpDelay());
+        assertEquals(493446, parser.getNumberOfSamples());
+        assertEquals(20.6, parser.getDepthSounding(), 0d);
+        assertTrue(Double.isNaN(parser.getInstrumentLatitude()));
+    }
+
+    /**
+     * Test that the metadata pairs are split on the first colon, or else the
+     * first equals sign, and that blank data lines are skipped
+     */
+    @Test
+    public void testScansMetadataAndIndexesLines() throws ParseException {
+        CTDParser parser = new CTDParser(HEADER +
+            "03B7DA1909A2086F85510B6E950574D157\r\n\r\n" +
+            "03B7DB1909A3086FC9510C6E9A05B2E8FD\n" +
+            "S>\r\n");
+
+        assertEquals("profile", parser.getSamplingMode());
+        assertEquals("raw HEX", parser.getOutputFormat());
+        assertEquals("Kilo Nalu", parser.getStationInformation());
+        assertEquals("23 Sep 2009  11:29:15", parser.getFirstSampleTime());
+        assertEquals("09-oct-07", parser.getTemperatureCalibrationDate());
+        assertEquals("2458922", parser.getPressureSerialNumber());
+        // "range = 508 psia:  04-oct-07" splits on the colon, so the sensor
+        // range from the DS output is kept
+        assertEquals("508.0", parser.getPressureSensorRange());
+        assertEquals("no", parser.getExternalVoltageChannelOne());
+
+        assertEquals(2, parser.getNumberOfScans());
+        assertEquals(1640867d / 256d, parser.getConvertedMatrix().getEntry(1, 1), 0d);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.ctd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import org.apache.commons.math.linear.RealMatrix;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the incremental inflation of compressed CTD files
+ */
+public class ProfileInflaterTest {
+
+    private static final String SCANS =
+        "03B7DA1909A2086F85510B6E950574D157\r\n" +
+        "03B7E51909A9087090510B6F1B05C7E0FD\r\n" +
+        "03B7F11909C00871B751106D32057AEBEC\r\n" +
+        "03A8BD191E9408521F51127E200577EC90\r\n" +
+        "039A7C1933400831D851167AF7059FE1F3\r\n";
+
+    /**
+     * Compress a file with zlib
+     */
+    private static byte[] deflate(String file) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(file.getBytes(StandardCharsets.US_ASCII));
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        byte[] chunk = new byte[64];
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Test that a data file fed in small blocks comes out as its header and
+     * then whole lines, and that the scans decoded in batches match the
+     * scans decoded from the whole file
+     */
+    @Test
+    public void testInflatesInBatches() throws Exception {
+        String file = CTDParserTest.HEADER + SCANS + "S>";
+        byte[] compressed = deflate(file);
+        ProfileInflater inflater = new ProfileInflater(16);
+
+        for (int round = 0; round < 2; round++) {
+            inflater.reset(true);
+            StringBuilder lines = new StringBuilder();
+            String header = null;
+            CTDParser parser = null;
+            int scans = 0;
+            for (int offset = 0; offset < compressed.length; offset += 7) {
+                inflater.put(compressed, offset, Math.min(7, compressed.length - offset));
+                String complete = inflater.getHeader();
+                if (complete != null) {
+                    assertNull(header);
+                    header = complete;
+                    parser = new CTDParser(header + "\r\n");
+                }
+                String batch = inflater.nextLines();
+                assertTrue(batch.isEmpty() || batch.endsWith("\n"));
+                if (parser != null && !batch.isEmpty()) {
+                    parser.setScans(batch);
+                    scans += parser.getNumberOfScans();
+                }
+                lines.append(batch);
+            }
+            assertTrue(inflater.isFinished());
+            assertEquals(file.length(), inflater.getInflatedCount());
+            assertEquals("S>", inflater.remainder());
+            assertEquals(file, header + lines + "S>");
+            assertEquals(5, scans);
+        }
+
+        // the last batch decodes the same as the whole file's last scan
+        CTDParser whole = new CTDParser(file);
+        CTDParser batched = new CTDParser(CTDParserTest.HEADER + "\r\n");
+        batched.setScans(SCANS.substring(SCANS.length() - 36));
+        RealMatrix expected = whole.getConvertedMatrix();
+        RealMatrix actual = batched.getConvertedMatrix();
+        for (int column = 0; column < expected.getColumnDimension(); column++) {
+            assertEquals(expected.getEntry(4, column), actual.getEntry(0, column), 0d);
+        }
+        inflater.end();
+    }
+}
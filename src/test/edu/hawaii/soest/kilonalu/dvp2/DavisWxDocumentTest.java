@@ -0,0 +1,71 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.dvp2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the change-driven weather document
+ */
+public class DavisWxDocumentTest {
+
+    /**
+     * Set a subset of the weather channels, like a frame flushed by
+     * DavisWxSource, and return true if any displayed value changed
+     */
+    private static boolean frame(DavisWxDocument document, double time,
+                                 float barometer, int windSpeed) {
+        boolean changed = document.setValue("barTrendAsString", "Steady", time);
+        changed |= document.setValue("barometer", barometer, time);
+        changed |= document.setValue("windSpeed", windSpeed, time);
+        changed |= document.setValue("forecastAsString", "Mostly Clear", time);
+        return changed;
+    }
+
+    /**
+     * Test that the values are rendered in document order, and that a frame
+     * only counts as a change if a displayed value changes
+     */
+    @Test
+    public void testUpdatesOnlyOnChange() {
+        DavisWxDocument document = new DavisWxDocument();
+
+        assertTrue(frame(document, 1000.0, 29.9f, 5));
+        assertEquals(1000.0, document.getNewestTime(), 0.0);
+        assertEquals("<?xml version=\"1.0\"?>\n" +
+                     "<wx>\n" +
+                     "  <barotrend>Steady</barotrend>\n" +
+                     "  <baropress>29.900</baropress>\n" +
+                     "  <windspd>  5</windspd>\n" +
+                     "  <forecast>Mostly Clear</forecast>\n" +
+                     "</wx>\n", document.toXML());
+
+        // a change below the displayed precision isn't a change
+        assertFalse(frame(document, 1002.0, 29.9001f, 5));
+        assertTrue(frame(document, 1004.0, 29.9f, 7));
+        assertTrue(document.toXML().contains("<windspd>  7</windspd>"));
+
+        document.setUpdateTime(document.getNewestTime());
+        assertTrue(document.toXML().contains("<updatetime>"));
+    }
+}
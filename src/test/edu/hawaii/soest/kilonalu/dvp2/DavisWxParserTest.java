@@ -0,0 +1,131 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.dvp2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests that exercise the LOOP packet view and its CRC check
+ */
+public class DavisWxParserTest {
+
+    /**
+     * Build a LOOP packet with the given barometer and outside temperature,
+     * ending in its CRC
+     */
+    static byte[] loopPacket(int barometer, int outsideTemperature) {
+        ByteBuffer packet = ByteBuffer.allocate(DavisWxParser.LOOP_PACKET_SIZE);
+        packet.put("LOO".getBytes(StandardCharsets.US_ASCII));
+        packet.put((byte) -20);                          // falling slowly
+        packet.put((byte) 0);                            // LOOP
+        putShort(packet, 5, 1234);                       // next record
+        putShort(packet, 7, barometer);
+        putShort(packet, 9, 839);                        // inside temperature
+        packet.put(11, (byte) 51);                       // inside humidity
+        putShort(packet, 12, outsideTemperature);
+        packet.put(14, (byte) 5);                        // wind speed
+        packet.put(33, (byte) 73);                       // outside humidity
+        putShort(packet, 41, 25);                        // rain rate
+        putShort(packet, 91, 549);                       // sunrise
+        putShort(packet, 93, 1911);                      // sunset
+        packet.put(95, (byte) 0x0A);
+        packet.put(96, (byte) 0x0D);
+
+        int crc = DavisWxParser.crc16(packet, 0, 97);
+        packet.put(97, (byte) (crc >> 8));
+        packet.put(98, (byte) crc);
+        return packet.array();
+    }
+
+    private static void putShort(ByteBuffer packet, int offset, int value) {
+        packet.put(offset, (byte) value);
+        packet.put(offset + 1, (byte) (value >> 8));
+    }
+
+    /**
+     * Test that the table-driven CRC matches the CRC-CCITT (XModem) check
+     * value
+     */
+    @Test
+    public void testCrcMatchesCheckValue() {
+        ByteBuffer check = ByteBuffer.wrap("123456789".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(0x31C3, DavisWxParser.crc16(check, 0, 9));
+    }
+
+    /**
+     * Test that each field is read at its offset, and that the values can be
+     * read more than once
+     */
+    @Test
+    public void testReadsFieldsInPlace() {
+        DavisWxParser parser = new DavisWxParser();
+        assertTrue(parser.parse(ByteBuffer.wrap(loopPacket(29900, 767))));
+
+        assertEquals("LOO", parser.getLoopID());
+        assertEquals("Falling Slowly", parser.getBarTrendAsString());
+        assertFalse(parser.isLoop2());
+        assertEquals(1234, parser.getNextRecord());
+        assertEquals(29.9f, parser.getBarometer(), 0.0001f);
+        assertEquals(29.9f, parser.getBarometer(), 0.0001f);
+        assertEquals(83.9f, parser.getInsideTemperature(), 0.0001f);
+        assertEquals(51, parser.getInsideHumidity());
+        assertEquals(76.7f, parser.getOutsideTemperature(), 0.0001f);
+        assertEquals(5, parser.getWindSpeed());
+        assertEquals(73, parser.getOutsideHumidity());
+        assertEquals(0.25f, parser.getRainRate(), 0.0001f);
+        assertEquals("05:49", parser.getTimeOfSunrise());
+        assertEquals("19:11", parser.getTimeOfSunset());
+        assertEquals("0a0d", parser.getRecordDelimiterAsHexString());
+        assertEquals("Mostly clear and cooler.", parser.getForecastRuleNumberAsString());
+    }
+
+    /**
+     * Test that a reused parser reads each new packet, and rejects a corrupt
+     * or short one
+     */
+    @Test
+    public void testReusesAndRejects() {
+        DavisWxParser parser = new DavisWxParser();
+        byte[] packet = loopPacket(30012, -25);
+
+        // a packet that starts part way through the buffer
+        ByteBuffer buffer = ByteBuffer.allocate(packet.length + 4);
+        buffer.position(4);
+        buffer.put(packet);
+        buffer.position(4);
+        assertTrue(parser.parse(buffer));
+        assertEquals(4, buffer.position());
+        assertEquals(30.012f, parser.getBarometer(), 0.0001f);
+        assertEquals(-2.5f, parser.getOutsideTemperature(), 0.0001f);
+
+        assertTrue(parser.parse(ByteBuffer.wrap(loopPacket(29900, 767))));
+        assertEquals(29.9f, parser.getBarometer(), 0.0001f);
+
+        packet[12] ^= 0x10;
+        assertFalse(parser.parse(ByteBuffer.wrap(packet)));
+        assertFalse(parser.parse(ByteBuffer.wrap(packet, 0, 98)));
+    }
+}
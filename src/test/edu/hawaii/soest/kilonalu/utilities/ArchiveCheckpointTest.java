@@ -0,0 +1,80 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that exercise the streaming archiver checkpoint
+ */
+public class ArchiveCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that a saved checkpoint is loaded with the same position
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File checkpointFile = new File(folder.getRoot(), ".KN01_temperature.checkpoint");
+        File archiveFile = new File(folder.getRoot(), "KN01_20200101000000.dat");
+
+        ArchiveCheckpoint checkpoint = new ArchiveCheckpoint(checkpointFile);
+        assertFalse(checkpoint.load());
+        checkpoint.save(1577836800.5, archiveFile, 42L, SyncPolicy.NONE);
+
+        ArchiveCheckpoint loaded = new ArchiveCheckpoint(checkpointFile);
+        assertTrue(loaded.load());
+        assertEquals(1577836800.5, loaded.getLastFrameTime(), 0d);
+        assertEquals(archiveFile.getPath(), loaded.getArchiveFile().getPath());
+        assertEquals(42L, loaded.getArchiveFileLength());
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    /**
+     * Test that bytes written after the checkpoint are dropped on restore
+     */
+    @Test
+    public void testRestoreTruncates() throws IOException {
+        File checkpointFile = new File(folder.getRoot(), ".KN01_temperature.checkpoint");
+        File archiveFile = new File(folder.getRoot(), "KN01_20200101000000.dat");
+        Files.write(archiveFile.toPath(), "sample 1\r\nsample 2\r\n".getBytes(StandardCharsets.UTF_8));
+
+        ArchiveCheckpoint checkpoint = new ArchiveCheckpoint(checkpointFile);
+        checkpoint.save(1577836800.0, archiveFile, 10L, SyncPolicy.NONE);
+
+        ArchiveCheckpoint loaded = new ArchiveCheckpoint(checkpointFile);
+        loaded.load();
+        loaded.restore();
+        assertEquals("sample 1\r\n",
+            new String(Files.readAllBytes(archiveFile.toPath()), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that exercise the expect-style command/response engine against a
+ * simulated instrument on a local socket
+ */
+public class CommandResponseEngineTest {
+
+    private static final Pattern PROMPT = Pattern.compile("S>");
+
+    private ServerSocketChannel server;
+    private SocketChannel channel;
+    private Thread instrument;
+
+    @Before
+    public void setUp() throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+        channel = SocketChannel.open(server.getLocalAddress());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        channel.close();
+        server.close();
+        if (instrument != null) {
+            instrument.join(2000);
+        }
+    }
+
+    /**
+     * Start a simulated instrument that echoes each command line and answers
+     * it with the given responses in turn, where null means no answer
+     */
+    private void startInstrument(final String... responses) {
+        instrument = new Thread(() -> {
+            try (Socket socket = server.socket().accept()) {
+                BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = socket.getOutputStream();
+                for (String response : responses) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        return;
+                    }
+                    if (response != null) {
+                        out.write((line + "\r\n" + response).getBytes(StandardCharsets.US_ASCII));
+                        out.flush();
+                    }
+                }
+                reader.readLine();
+            } catch (IOException e) {
+                // the test closed the connection
+            }
+        });
+        instrument.start();
+    }
+
+    /**
+     * Test that a step completes as soon as the prompt arrives, returning the
+     * response before it
+     */
+    @Test
+    public void testCompletesOnPrompt() throws IOException, TimeoutException {
+        startInstrument("vbatt = 12.0, vlith =  8.4\r\nS>", "<Executed/>\r\nS>");
+        CommandResponseEngine engine = new CommandResponseEngine(channel);
+
+        String response = engine.expect("DS", "DS\r\n", PROMPT, 5000L, 1);
+        assertEquals("DS\r\nvbatt = 12.0, vlith =  8.4\r\n", response);
+        assertTrue(engine.getLatencies().get("DS") < 2000L);
+
+        // the trailing prompt of one response doesn't end the next
+        response = engine.expect("Stop", "Stop\r\n", Pattern.compile("<Executed/>"), 5000L, 1);
+        assertEquals("Stop\r\n", response);
+        assertEquals(2, engine.getLatencies().size());
+
+        engine.release();
+        assertTrue(channel.isBlocking());
+    }
+
+    /**
+     * Test that a command is sent again after a timeout, and that a step
+     * fails once its attempts are used up
+     */
+    @Test
+    public void testRetriesThenTimesOut() throws IOException, TimeoutException {
+        startInstrument(null, "S>", null, null);
+        CommandResponseEngine engine = new CommandResponseEngine(channel);
+        engine.setQuietPeriod(0L);
+
+        engine.expect("Wake", "\r\n", PROMPT, 200L, 2);
+        assertTrue(engine.getLatencies().containsKey("Wake"));
+
+        try {
+            engine.expect("StartNow", "StartNow\r\n", PROMPT, 100L, 2);
+            fail("Expected the step to time out");
+        } catch (TimeoutException e) {
+            assertTrue(e.getMessage().startsWith("StartNow"));
+        }
+        engine.release();
+    }
+
+    /**
+     * Test that unsolicited input is waited for without a command, that a
+     * fixed-length binary response is read exactly, and that the steps are
+     * added to the timeline in order
+     */
+    @Test
+    public void testAwaitsAndReadsBlocks() throws Exception {
+        final byte[] block = new byte[300];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) (i * 7);
+        }
+        instrument = new Thread(() -> {
+            try (Socket socket = server.socket().accept()) {
+                OutputStream out = socket.getOutputStream();
+                out.write("RING\r\n".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                byte[] command = new byte[4];
+                int count = 0;
+                while (count < command.length) {
+                    count += socket.getInputStream().read(command, count, command.length - count);
+                }
+                out.write(block);
+                out.write("BLOCKSIZE=12\r".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                socket.getInputStream().read();
+            } catch (IOException e) {
+                // the test closed the connection
+            }
+        });
+        instrument.start();
+        CommandResponseEngine engine = new CommandResponseEngine(channel);
+        engine.setQuietPeriod(0L);
+
+        engine.await("Ring", Pattern.compile("RING"), 5000L);
+        engine.startTimeline();
+        assertArrayEquals(block, engine.expectBytes("TransferBlocks", "TXB\r", block.length, 5000L));
+
+        List<CommandResponseEngine.TimelineEntry> timeline = engine.getTimeline();
+        assertEquals(1, timeline.size());
+        assertEquals("TransferBlocks", timeline.get(0).getStep());
+        assertTrue(timeline.get(0).getOffset() >= 0L);
+        assertTrue(engine.getTimelineElapsed() >= timeline.get(0).getLatency());
+        assertEquals(Arrays.asList("Ring", "TransferBlocks"),
+            Arrays.asList(engine.getLatencies().keySet().toArray()));
+        engine.release();
+    }
+
+    /**
+     * A serial-like channel that answers each command with an unterminated
+     * prompt, and whose line reads would block on that prompt forever
+     */
+    private static class PromptingChannel implements TimedByteChannel {
+        final BlockingQueue<byte[]> input = new LinkedBlockingQueue<byte[]>();
+        final List<String> commands = new ArrayList<String>();
+        boolean answering = true;
+
+        public int read(ByteBuffer readBuffer, long timeout) {
+            try {
+                byte[] bytes = input.poll(timeout, TimeUnit.MILLISECONDS);
+                if (bytes == null) {
+                    return 0;
+                }
+                readBuffer.put(bytes);
+                return bytes.length;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+        }
+
+        public int read(ByteBuffer readBuffer) {
+            throw new AssertionError("A line read blocks on an unterminated prompt");
+        }
+
+        public int write(ByteBuffer writeBuffer) {
+            int length = writeBuffer.remaining();
+            byte[] command = new byte[length];
+            writeBuffer.get(command);
+            commands.add(new String(command, StandardCharsets.US_ASCII));
+            if (answering) {
+                input.add("S>".getBytes(StandardCharsets.US_ASCII));
+            }
+            return length;
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    }
+
+    /**
+     * Test that a channel that can't be selected is read with timed reads,
+     * so an unterminated prompt completes a step and a quiet instrument
+     * times out
+     */
+    @Test
+    public void testTimedChannelSeesPromptAndTimesOut() throws IOException, TimeoutException {
+        PromptingChannel serial = new PromptingChannel();
+        CommandResponseEngine engine = new CommandResponseEngine(serial);
+        engine.setQuietPeriod(10L);
+
+        assertEquals("", engine.expect("Wake", "\r\n", PROMPT, 2000L, 1));
+        assertTrue(engine.getLatencies().get("Wake") < 1000L);
+
+        serial.answering = false;
+        long start = System.nanoTime();
+        try {
+            engine.expect("Stop", "Stop\r\n", PROMPT, 100L, 2);
+            fail("Expected the step to time out");
+        } catch (TimeoutException e) {
+            assertTrue(e.getMessage().startsWith("Stop"));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000L);
+        assertEquals(Arrays.asList("\r\n", "Stop\r\n", "Stop\r\n"), serial.commands);
+        engine.release();
+    }
+}
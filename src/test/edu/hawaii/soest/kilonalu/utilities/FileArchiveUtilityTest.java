@@ -0,0 +1,90 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that exercise the FileArchiveUtility temporary file publishing
+ */
+public class FileArchiveUtilityTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that a new file is published and the temporary file is removed
+     */
+    @Test
+    public void testPublishNewFile() throws IOException {
+        File target = new File(folder.getRoot(), "NS01_20200101000000.dat");
+        File temp = FileArchiveUtility.createTempFile(target);
+        Files.write(temp.toPath(), "sample\r\n".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(FileArchiveUtility.publishFile(temp, target, SyncPolicy.DIRECTORY));
+        assertFalse(temp.exists());
+        assertArrayEquals("sample\r\n".getBytes(StandardCharsets.UTF_8),
+            Files.readAllBytes(target.toPath()));
+    }
+
+    /**
+     * Test that an identical rewrite leaves the published file untouched
+     */
+    @Test
+    public void testPublishUnchangedFile() throws IOException {
+        File target = new File(folder.getRoot(), "NS01_20200101000000.dat");
+        Files.write(target.toPath(), "sample\r\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(target.setLastModified(1000L));
+
+        File temp = FileArchiveUtility.createTempFile(target);
+        Files.write(temp.toPath(), "sample\r\n".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(FileArchiveUtility.publishFile(temp, target, SyncPolicy.NONE));
+        assertFalse(temp.exists());
+        assertEquals(1000L, target.lastModified());
+    }
+
+    /**
+     * Test that a changed rewrite replaces the published file
+     */
+    @Test
+    public void testPublishChangedFile() throws IOException {
+        File target = new File(folder.getRoot(), "NS01_20200101000000.dat");
+        Files.write(target.toPath(), "sample\r\n".getBytes(StandardCharsets.UTF_8));
+
+        File temp = FileArchiveUtility.createTempFile(target);
+        Files.write(temp.toPath(), "sample\r\nsample\r\n".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(FileArchiveUtility.publishFile(temp, target, SyncPolicy.FILE));
+        assertEquals(16L, target.length());
+        assertEquals(1, folder.getRoot().list().length);
+    }
+}
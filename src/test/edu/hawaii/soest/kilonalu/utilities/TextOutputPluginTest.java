@@ -0,0 +1,110 @@
+/*
+ *  Copyright: 2020 Regents of the University of Hawaii and the
+ *             School of Ocean and Earth Science and Technology
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package edu.hawaii.soest.kilonalu.utilities;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rbnb.api.Server;
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.Sink;
+import com.rbnb.sapi.Source;
+
+import edu.hawaii.soest.kilonalu.adcp.Ensemble;
+import edu.hawaii.soest.kilonalu.adcp.EnsembleViewTest;
+
+/**
+ * Tests that exercise the multi-frame output of the TextOutputPlugin against
+ * a local DataTurbine
+ */
+public class TextOutputPluginTest {
+
+    private static final String ADDRESS = "127.0.0.1:33334";
+
+    private Server server;
+    private Source source;
+    private Sink sink;
+
+    @Before
+    public void setUp() throws Exception {
+        server = Server.launchNewServer(new String[] {"-a", ADDRESS});
+        source = new Source(100, "none", 0);
+        source.OpenRBNBConnection(ADDRESS, "KN02XX_020ADCP020R00_CHANNELS");
+        sink = new Sink();
+        sink.OpenRBNBConnection(ADDRESS, "TestSink");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sink.CloseRBNBConnection();
+        source.CloseRBNBConnection();
+        server.stop();
+    }
+
+    /**
+     * Test that a batch of ensembles is flushed as one frame per ensemble,
+     * with each profile frame holding the whole profile array
+     */
+    @Test
+    public void testOneProfileArrayPerFrame() throws Exception {
+        Ensemble[] ensembles = new Ensemble[3];
+        double[] times = {1000d, 1001d, 1002d};
+        for (int i = 0; i < ensembles.length; i++) {
+            ensembles[i] = new Ensemble(EnsembleViewTest.buildEnsemble(0));
+        }
+        int profileLength = ensembles[0].getProfileLength();
+        float[] profile = new float[profileLength];
+        ensembles[0].getVelocities(profile);
+
+        TextOutputPlugin plugin = new TextOutputPlugin();
+        ChannelMap cmap = plugin.createOutputChannelMap();
+        plugin.putChannels(cmap, ensembles, times, ensembles.length);
+        source.Flush(cmap);
+
+        // step through the velocity frames from the oldest
+        ChannelMap request = new ChannelMap();
+        request.Add("KN02XX_020ADCP020R00_CHANNELS/velocity");
+        sink.Request(request, 0d, 0d, "oldest");
+        ChannelMap frame = sink.Fetch(5000);
+        int frameCount = 0;
+        while (frame.NumberOfChannels() > 0) {
+            assertArrayEquals(profile, frame.GetDataAsFloat32(0), 0f);
+            double[] frameTimes = frame.GetTimes(0);
+            assertEquals(profileLength, frameTimes.length);
+            assertEquals(times[frameCount], frameTimes[0], 0d);
+            assertEquals(times[frameCount], frameTimes[profileLength - 1], 0d);
+            frameCount++;
+
+            sink.Request(request, frameTimes[0], 0d, "next");
+            frame = sink.Fetch(5000);
+        }
+        assertEquals(ensembles.length, frameCount);
+
+        // the leader fields have one value per frame
+        request = new ChannelMap();
+        request.Add("KN02XX_020ADCP020R00_CHANNELS/temperature");
+        sink.Request(request, 0d, 2000d, "absolute");
+        ChannelMap result = sink.Fetch(5000);
+        assertArrayEquals(times, result.GetTimes(0), 0d);
+    }
+}
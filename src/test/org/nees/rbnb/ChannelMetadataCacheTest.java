@@ -0,0 +1,129 @@
+package org.nees.rbnb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.ChannelTree;
+import com.rbnb.sapi.SAPIException;
+
+/**
+ * Tests that exercise the ChannelMetadataCache time to live and invalidation
+ * without a server
+ */
+public class ChannelMetadataCacheTest {
+
+    private static final String SERVER = "cache-test:3333";
+
+    private static final String CHANNEL = "KN0101_010TCHN010R00/DecimalASCIISampleData";
+
+    private final List<String> fetched = new ArrayList<String>();
+
+    private ChannelMetadataCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ChannelMetadataCache((serverAddress, channel) -> {
+            fetched.add(serverAddress + "/" + channel);
+            return new ChannelMap();
+        });
+    }
+
+    /**
+     * Test that lookups within the time to live are served from the cache,
+     * and that fresh lookups fetch and replace the cached entry
+     */
+    @Test
+    public void testHitsWithinTimeToLive() throws SAPIException {
+        ChannelTree tree = cache.getChannelTree(SERVER);
+        assertSame(tree, cache.getChannelTree(SERVER));
+        assertEquals(1, fetched.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.getMetadata(SERVER, CHANNEL);
+        cache.getMetadata(SERVER, CHANNEL);
+        assertEquals(2, fetched.size());
+        assertEquals(SERVER + "/" + CHANNEL, fetched.get(1));
+
+        cache.getMetadata(SERVER, CHANNEL, true);
+        cache.getMetadata(SERVER, CHANNEL, true);
+        assertEquals(4, fetched.size());
+        cache.getMetadata(SERVER, CHANNEL);
+        assertEquals(4, fetched.size());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    /**
+     * Test that the sorted child and channel name lists are computed once per
+     * cached tree, and again after it is refetched
+     */
+    @Test
+    public void testListsComputedOncePerTree() throws SAPIException {
+        List<ChannelTree.Node> children = cache.getSortedChildren(SERVER, "", false);
+        assertSame(children, cache.getSortedChildren(SERVER, "", false));
+        assertNotSame(children, cache.getSortedChildren(SERVER, "", true));
+        List<String> channels = cache.getAllChannels(SERVER, true);
+        assertSame(channels, cache.getAllChannels(SERVER, true));
+        assertEquals(1, fetched.size());
+
+        cache.invalidate(SERVER);
+        assertNotSame(children, cache.getSortedChildren(SERVER, "", false));
+        assertNotSame(channels, cache.getAllChannels(SERVER, true));
+        assertEquals(2, fetched.size());
+    }
+
+    /**
+     * Test that entries older than the time to live are refetched, and that a
+     * time to live of zero disables caching
+     */
+    @Test
+    public void testExpiry() throws Exception {
+        cache.setTimeToLive(20L);
+        ChannelTree tree = cache.getChannelTree(SERVER);
+        Thread.sleep(50L);
+        assertNotSame(tree, cache.getChannelTree(SERVER));
+        assertEquals(2, fetched.size());
+
+        cache.setTimeToLive(0L);
+        cache.getMetadata(SERVER, CHANNEL);
+        cache.getMetadata(SERVER, CHANNEL);
+        assertEquals(4, fetched.size());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    /**
+     * Test that invalidating a channel drops it and the server's full
+     * registry, and that invalidating a server leaves other servers cached
+     */
+    @Test
+    public void testInvalidation() throws SAPIException {
+        String other = "cache-test-other:3333";
+        ChannelTree tree = cache.getChannelTree(SERVER);
+        ChannelTree otherTree = cache.getChannelTree(other);
+        cache.getMetadata(SERVER, CHANNEL);
+        assertEquals(3, fetched.size());
+
+        cache.invalidate(SERVER, CHANNEL);
+        assertNotSame(tree, cache.getChannelTree(SERVER));
+        cache.getMetadata(SERVER, CHANNEL);
+        assertEquals(5, fetched.size());
+
+        cache.invalidate(SERVER);
+        cache.getChannelTree(SERVER);
+        assertSame(otherTree, cache.getChannelTree(other));
+        assertEquals(6, fetched.size());
+
+        cache.invalidateAll();
+        cache.getChannelTree(other);
+        assertEquals(7, fetched.size());
+    }
+}
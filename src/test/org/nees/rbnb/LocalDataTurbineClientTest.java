@@ -0,0 +1,93 @@
+package org.nees.rbnb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rbnb.sapi.SAPIException;
+
+/**
+ * Tests that exercise the LocalDataTurbineClient ring buffers
+ */
+public class LocalDataTurbineClientTest {
+
+    private static final String SERVER = "local-test:3333";
+
+    private LocalDataTurbineClient source;
+    private LocalDataTurbineClient sink;
+
+    @Before
+    public void setUp() throws SAPIException {
+        source = new LocalDataTurbineClient(4);
+        source.open(SERVER, "KN01");
+        sink = new LocalDataTurbineClient();
+        sink.open(SERVER, "TestSink");
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+        sink.close();
+        LocalDataTurbineClient.clearServer(SERVER);
+    }
+
+    /**
+     * Test that flushed frames are fetched by absolute time
+     */
+    @Test
+    public void testAbsoluteRequest() throws SAPIException {
+        ChannelData channel = new ChannelData("temperature", "application/octet-stream", "units=C");
+        channel.putFloat64(new double[] {1d, 2d, 3d}, new double[] {20.1, 20.2, 20.3});
+        source.flush(Collections.singletonList(channel));
+
+        sink.request(Collections.singletonList("KN01/temperature"), 2d, 1d, "absolute");
+        List<ChannelData> result = sink.fetch(1000);
+        assertEquals(1, result.size());
+        assertArrayEquals(new double[] {2d, 3d}, result.get(0).getTimes(), 0d);
+        assertArrayEquals(new double[] {20.2, 20.3}, result.get(0).getDataAsFloat64(), 0d);
+    }
+
+    /**
+     * Test that the ring buffer keeps only the newest frames when it wraps
+     */
+    @Test
+    public void testRingBufferWraps() throws SAPIException {
+        ChannelData channel = new ChannelData("counts");
+        channel.putInt32(new double[] {1d, 2d, 3d}, new int[] {1, 2, 3});
+        source.flush(Collections.singletonList(channel));
+        channel.putInt32(new double[] {4d, 5d, 6d}, new int[] {4, 5, 6});
+        source.flush(Collections.singletonList(channel));
+
+        sink.request(Collections.singletonList("KN01/counts"), 0d, 10d, "newest");
+        ChannelData result = sink.fetch(1000).get(0);
+        assertArrayEquals(new int[] {3, 4, 5, 6}, result.getDataAsInt32());
+
+        sink.request(Collections.singletonList("KN01/counts"), 0d, 0d, "newest");
+        assertArrayEquals(new int[] {6}, sink.fetch(1000).get(0).getDataAsInt32());
+
+        ChannelData metadata = sink.requestRegistration(Collections.<String>emptyList()).get(0);
+        assertEquals("KN01/counts", metadata.getName());
+        assertEquals(3d, metadata.getStart(), 0d);
+        assertEquals(3d, metadata.getDuration(), 0d);
+    }
+
+    /**
+     * Test that a request outside the buffered time range fetches nothing
+     */
+    @Test
+    public void testEmptyRequest() throws SAPIException {
+        ChannelData channel = new ChannelData("salinity");
+        channel.putFloat32(new double[] {1d}, new float[] {35.1f});
+        source.flush(Collections.singletonList(channel));
+
+        sink.request(Collections.singletonList("KN01/salinity"), 100d, 1d, "absolute");
+        assertTrue(sink.fetch(1000).isEmpty());
+    }
+}
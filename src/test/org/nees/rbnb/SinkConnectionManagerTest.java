@@ -0,0 +1,142 @@
+package org.nees.rbnb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rbnb.sapi.ChannelMap;
+import com.rbnb.sapi.SAPIException;
+import com.rbnb.sapi.Sink;
+
+/**
+ * Tests that exercise the SinkConnectionManager pool without a server
+ */
+public class SinkConnectionManagerTest {
+
+    private static final String SERVER = "pool-test:3333";
+
+    /**
+     * A factory whose sinks are never connected, and whose idle sinks pass
+     * verification unless told otherwise
+     */
+    private static class TestFactory implements SinkConnectionManager.SinkFactory {
+        boolean verifies = true;
+
+        public Sink open(String serverAddress, String sinkName) {
+            return new Sink();
+        }
+
+        public boolean verify(Sink sink) {
+            return verifies;
+        }
+    }
+
+    private TestFactory factory;
+    private SinkConnectionManager manager;
+
+    @Before
+    public void setUp() {
+        factory = new TestFactory();
+        manager = new SinkConnectionManager(factory);
+    }
+
+    /**
+     * Test that a released sink is reused, and that an invalidated sink or
+     * one that fails verification is replaced
+     */
+    @Test
+    public void testBorrowReleaseInvalidate() throws SAPIException {
+        Sink first = manager.borrowSink(SERVER);
+        assertEquals(1, manager.getActiveCount());
+        manager.releaseSink(first);
+        assertEquals(0, manager.getActiveCount());
+        assertEquals(1, manager.getIdleCount());
+
+        assertSame(first, manager.borrowSink(SERVER));
+        assertEquals(1, manager.getReusedCount());
+        manager.invalidateSink(first);
+        assertEquals(0, manager.getIdleCount());
+        assertEquals(1, manager.getClosedCount());
+
+        Sink second = manager.borrowSink(SERVER);
+        assertNotSame(first, second);
+        manager.releaseSink(second);
+        factory.verifies = false;
+        Sink third = manager.borrowSink(SERVER);
+        assertNotSame(second, third);
+        assertEquals(1, manager.getFailedVerificationCount());
+        assertEquals(3, manager.getOpenedCount());
+    }
+
+    /**
+     * Test that a failed operation is retried once on a fresh connection,
+     * and that the failed connection isn't reused
+     */
+    @Test
+    public void testRetriesOnFreshConnection() throws SAPIException {
+        final List<Sink> used = new ArrayList<Sink>();
+        String result = manager.execute(SERVER, sink -> {
+            used.add(sink);
+            if (used.size() == 1) {
+                throw new SAPIException("connection dropped");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, used.size());
+        assertNotSame(used.get(0), used.get(1));
+        assertEquals(1, manager.getReconnectCount());
+        assertEquals(0, manager.getActiveCount());
+        assertEquals(1, manager.getIdleCount());
+        assertSame(used.get(1), manager.borrowSink(SERVER));
+
+        try {
+            manager.execute(SERVER, sink -> {
+                throw new SAPIException("server down");
+            });
+            fail("Expected the retried operation to fail");
+        } catch (SAPIException e) {
+            assertEquals(0, manager.getIdleCount());
+        }
+    }
+
+    /**
+     * Test that a sink whose fetch timed out, or whose operation threw a
+     * runtime exception, is discarded rather than returned to the pool
+     */
+    @Test
+    public void testDiscardsTimedOutAndFailedSinks() throws Exception {
+        final ChannelMap timedOut = new ChannelMap();
+        Field wasTimeout = ChannelMap.class.getDeclaredField("wasTimeout");
+        wasTimeout.setAccessible(true);
+        wasTimeout.setBoolean(timedOut, true);
+
+        assertSame(timedOut, manager.execute(SERVER, sink -> timedOut));
+        assertEquals(1, manager.getTimedOutCount());
+        assertEquals(0, manager.getActiveCount());
+        assertEquals(0, manager.getIdleCount());
+
+        try {
+            manager.execute(SERVER, sink -> {
+                throw new IllegalStateException("bad response");
+            });
+            fail("Expected the runtime exception");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("bad response"));
+        }
+        assertEquals(0, manager.getActiveCount());
+        assertEquals(0, manager.getIdleCount());
+        assertEquals(0, manager.getReconnectCount());
+        assertEquals(2, manager.getClosedCount());
+    }
+}